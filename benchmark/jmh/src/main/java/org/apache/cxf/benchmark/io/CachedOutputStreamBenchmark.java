@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.io.CachedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures buffering a payload in a CachedOutputStream and reading it back,
+ * the way the logging interceptors and the HTTP conduits cache messages.
+ * The largest size exceeds the default threshold and so includes the
+ * temporary file overhead.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CachedOutputStreamBenchmark {
+
+    @Param({"1024", "65536", "1048576" })
+    int size;
+
+    byte[] payload;
+    byte[] readBuffer = new byte[8192];
+
+    @Setup
+    public void setUp() {
+        payload = new byte[size];
+        new Random(size).nextBytes(payload);
+    }
+
+    @Benchmark
+    public long writeAndRead() throws IOException {
+        CachedOutputStream cos = new CachedOutputStream();
+        try {
+            write(cos);
+            InputStream in = cos.getInputStream();
+            long total = 0;
+            int n = in.read(readBuffer);
+            while (n != -1) {
+                total += n;
+                n = in.read(readBuffer);
+            }
+            in.close();
+            return total;
+        } finally {
+            cos.close();
+        }
+    }
+
+    @Benchmark
+    public long writeCacheTo() throws IOException {
+        CachedOutputStream cos = new CachedOutputStream();
+        try {
+            write(cos);
+            CountingOutputStream out = new CountingOutputStream();
+            cos.writeCacheTo(out);
+            return out.count;
+        } finally {
+            cos.close();
+        }
+    }
+
+    private void write(OutputStream out) throws IOException {
+        // written in chunks, as a serializer flushing its buffer would
+        for (int off = 0; off < payload.length; off += 4096) {
+            out.write(payload, off, Math.min(4096, payload.length - off));
+        }
+        out.flush();
+    }
+
+    static class CountingOutputStream extends OutputStream {
+        long count;
+
+        public void write(int b) {
+            count++;
+        }
+
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark.jaxb;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.cxf.databinding.DataReader;
+import org.apache.cxf.databinding.DataWriter;
+import org.apache.cxf.jaxb.JAXBDataBinding;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the JAXB DataWriterImpl and DataReaderImpl on a small bean, which
+ * is dominated by the per call Marshaller/Unmarshaller setup rather than by
+ * the actual (un)marshalling.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JAXBDataBindingBenchmark {
+
+    Book book;
+    byte[] payload;
+    ByteArrayOutputStream out;
+    DataWriter<XMLStreamWriter> writer;
+    DataReader<XMLStreamReader> reader;
+
+    @Setup
+    public void setUp() throws JAXBException, XMLStreamException {
+        JAXBDataBinding dataBinding = new JAXBDataBinding(Book.class);
+        writer = dataBinding.createWriter(XMLStreamWriter.class);
+        reader = dataBinding.createReader(XMLStreamReader.class);
+        book = new Book(123L, "CXF in Action", "Dan", "Sergey", "Colm");
+        out = new ByteArrayOutputStream();
+        write();
+        payload = out.toByteArray();
+    }
+
+    @Benchmark
+    public int write() throws XMLStreamException {
+        out.reset();
+        XMLStreamWriter xmlWriter = StaxUtils.createXMLStreamWriter(out, "UTF-8");
+        writer.write(book, xmlWriter);
+        xmlWriter.flush();
+        StaxUtils.close(xmlWriter);
+        return out.size();
+    }
+
+    @Benchmark
+    public Object read() throws XMLStreamException {
+        XMLStreamReader xmlReader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(payload));
+        xmlReader.nextTag();
+        Object result = reader.read(null, xmlReader, Book.class);
+        StaxUtils.close(xmlReader);
+        return result;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark.jaxrs;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+
+import org.apache.cxf.benchmark.jaxb.Book;
+
+@Path("/bookstore")
+@Produces("application/xml")
+public class BookStore {
+    private final Book book = new Book(123L, "CXF in Action", "Dan", "Sergey", "Colm");
+
+    @GET
+    @Path("/books/{id}")
+    public Book getBook(@PathParam("id") long id) {
+        return book;
+    }
+
+    @GET
+    @Path("/books/{id}/name")
+    @Produces("text/plain")
+    public String getBookName(@PathParam("id") long id) {
+        return book.getName();
+    }
+
+    @GET
+    @Path("/books")
+    public Book findBook(@QueryParam("name") String name) {
+        return book;
+    }
+
+    @POST
+    @Path("/books")
+    @Consumes("application/xml")
+    public Response addBook(Book b) {
+        return Response.ok(b).build();
+    }
+
+    @PUT
+    @Path("/books/{id}")
+    @Consumes("application/xml")
+    public Response updateBook(@PathParam("id") long id, Book b) {
+        return Response.ok(b).build();
+    }
+
+    @DELETE
+    @Path("/books/{id}")
+    public Response deleteBook(@PathParam("id") long id) {
+        return Response.noContent().build();
+    }
+
+    @GET
+    @Path("/authors/{name}/books")
+    public Book getBookByAuthor(@PathParam("name") String name) {
+        return book;
+    }
+
+    @Path("/customers")
+    public static class CustomerStore {
+        @GET
+        @Path("/{id}")
+        @Produces("text/plain")
+        public String getCustomer(@PathParam("id") long id) {
+            return "customer" + id;
+        }
+
+        @GET
+        @Path("/{id}/orders/{orderId}")
+        @Produces("text/plain")
+        public String getOrder(@PathParam("id") long id, @PathParam("orderId") long orderId) {
+            return "order" + orderId;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark.jaxrs;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.benchmark.jaxb.Book;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.JAXRSServiceImpl;
+import org.apache.cxf.jaxrs.client.JAXRSClientFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.cxf.jaxrs.model.ClassResourceInfo;
+import org.apache.cxf.jaxrs.model.OperationResourceInfo;
+import org.apache.cxf.jaxrs.utils.JAXRSUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.transport.local.LocalConduit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures JAX-RS request dispatch: the resource class and resource method
+ * selection on their own, and a full request/response over the local
+ * transport with direct dispatch, so no sockets are involved.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JAXRSDispatchBenchmark {
+
+    static final String ADDRESS = "local://benchmark";
+
+    Bus bus;
+    Server server;
+    Endpoint endpoint;
+    List<ClassResourceInfo> resources;
+    List<MediaType> acceptTypes = Collections.singletonList(MediaType.APPLICATION_XML_TYPE);
+
+    @Setup
+    public void setUp() {
+        bus = BusFactory.newInstance().createBus();
+        JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
+        sf.setBus(bus);
+        sf.setAddress(ADDRESS);
+        sf.setResourceClasses(BookStore.class, BookStore.CustomerStore.class);
+        sf.setResourceProvider(BookStore.class, new SingletonResourceProvider(new BookStore()));
+        sf.setResourceProvider(BookStore.CustomerStore.class,
+                               new SingletonResourceProvider(new BookStore.CustomerStore()));
+        server = sf.create();
+        endpoint = server.getEndpoint();
+        resources = ((JAXRSServiceImpl)endpoint.getService()).getClassResourceInfos();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.destroy();
+        bus.shutdown(true);
+    }
+
+    /**
+     * A client per benchmark thread, WebClient instances keep per request state.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        WebClient client;
+
+        @Setup
+        public void setUp(JAXRSDispatchBenchmark benchmark) {
+            JAXRSClientFactoryBean bean = new JAXRSClientFactoryBean();
+            bean.setBus(benchmark.bus);
+            bean.setAddress(ADDRESS);
+            client = bean.createWebClient();
+            WebClient.getConfig(client).getRequestContext().put(LocalConduit.DIRECT_DISPATCH, Boolean.TRUE);
+            client.accept(MediaType.APPLICATION_XML_TYPE);
+        }
+
+        @TearDown
+        public void tearDown() {
+            client.close();
+        }
+    }
+
+    @Benchmark
+    public Map<ClassResourceInfo, MultivaluedMap<String, String>> selectResourceClass() {
+        return JAXRSUtils.selectResourceClass(resources, "/bookstore/books/123", createMessage());
+    }
+
+    @Benchmark
+    public OperationResourceInfo findTargetMethod() {
+        Message message = createMessage();
+        Map<ClassResourceInfo, MultivaluedMap<String, String>> matched =
+            JAXRSUtils.selectResourceClass(resources, "/bookstore/books/123", message);
+        return JAXRSUtils.findTargetMethod(matched, message, "GET", new MetadataMap<String, String>(),
+                                           "*/*", acceptTypes);
+    }
+
+    @Benchmark
+    public Book localRoundTrip(Client state) {
+        return state.client.replacePath("/bookstore/books/123").get(Book.class);
+    }
+
+    Message createMessage() {
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        exchange.setInMessage(message);
+        exchange.put(Endpoint.class, endpoint);
+        return message;
+    }
+}
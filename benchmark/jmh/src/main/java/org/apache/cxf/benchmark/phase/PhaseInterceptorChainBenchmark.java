@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark.phase;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.bus.managers.PhaseManagerImpl;
+import org.apache.cxf.interceptor.InterceptorChain;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of walking a typical SOAP in and out chain of 25
+ * interceptors each. The interceptors do no work so that only the chain
+ * dispatch itself (state checks, iteration, current message bookkeeping)
+ * is measured.
+ * <p>
+ * Run the module with -Dcxf.benchmark.version set to an earlier release to
+ * compare against the synchronized chain implementation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhaseInterceptorChainBenchmark {
+
+    static final int CHAIN_SIZE = 25;
+
+    PhaseInterceptorChain inTemplate;
+    PhaseInterceptorChain outTemplate;
+
+    @Setup
+    public void setUp() {
+        PhaseManagerImpl phaseManager = new PhaseManagerImpl();
+        inTemplate = createChain(phaseManager.getInPhases());
+        outTemplate = createChain(phaseManager.getOutPhases());
+    }
+
+    /**
+     * State owned by a single benchmark thread: a chain that is reset and
+     * re-executed, as happens for every message on a cached chain.
+     */
+    @State(Scope.Thread)
+    public static class ReusedChain {
+        PhaseInterceptorChain chain;
+        Message message;
+
+        @Setup
+        public void setUp(PhaseInterceptorChainBenchmark benchmark) {
+            chain = benchmark.inTemplate.cloneChain();
+            message = createMessage(chain);
+        }
+    }
+
+    /**
+     * A chain that is executed by one thread while another thread keeps
+     * querying its state, as continuation providers and async clients do.
+     */
+    @State(Scope.Group)
+    public static class SharedChain {
+        PhaseInterceptorChain chain;
+        Message message;
+
+        @Setup
+        public void setUp(PhaseInterceptorChainBenchmark benchmark) {
+            chain = benchmark.inTemplate.cloneChain();
+            message = createMessage(chain);
+        }
+    }
+
+    @Benchmark
+    public boolean inChain() {
+        PhaseInterceptorChain chain = inTemplate.cloneChain();
+        return chain.doIntercept(createMessage(chain));
+    }
+
+    @Benchmark
+    public boolean outChain() {
+        PhaseInterceptorChain chain = outTemplate.cloneChain();
+        return chain.doIntercept(createMessage(chain));
+    }
+
+    @Benchmark
+    public boolean inChainDispatchOnly(ReusedChain state) {
+        state.chain.reset();
+        return state.chain.doIntercept(state.message);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public boolean contendedDispatch(SharedChain state) {
+        state.chain.reset();
+        return state.chain.doIntercept(state.message);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public InterceptorChain.State contendedGetState(SharedChain state) {
+        return state.chain.getState();
+    }
+
+    static Message createMessage(PhaseInterceptorChain chain) {
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        exchange.setInMessage(message);
+        message.setInterceptorChain(chain);
+        return message;
+    }
+
+    static PhaseInterceptorChain createChain(SortedSet<Phase> phases) {
+        List<Phase> phaseList = new ArrayList<Phase>(phases);
+        PhaseInterceptorChain chain = new PhaseInterceptorChain(phases);
+        Iterator<Phase> it = phaseList.iterator();
+        for (int x = 0; x < CHAIN_SIZE; x++) {
+            if (!it.hasNext()) {
+                it = phaseList.iterator();
+            }
+            chain.add(new NoOpInterceptor("interceptor" + x, it.next().getName()));
+        }
+        return chain;
+    }
+
+    static class NoOpInterceptor extends AbstractPhaseInterceptor<Message> {
+        NoOpInterceptor(String id, String phase) {
+            super(id, phase);
+        }
+
+        public void handleMessage(Message message) {
+            // no-op, only the dispatch is measured
+        }
+    }
+}
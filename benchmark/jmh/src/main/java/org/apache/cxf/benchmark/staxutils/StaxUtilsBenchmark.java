@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark.staxutils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.w3c.dom.Document;
+
+import org.apache.cxf.staxutils.StaxUtils;
+import org.apache.cxf.staxutils.W3CDOMStreamWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures StaxUtils.copy from a parser to a serializer and to a DOM, which
+ * is what logging, SAAJ, schema validation and the WS-* interceptors do with
+ * every payload they need to look at.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StaxUtilsBenchmark {
+
+    /** number of repeated entries in the payload */
+    @Param({"10", "100", "1000" })
+    int entries;
+
+    byte[] payload;
+    ByteArrayOutputStream out;
+
+    @Setup
+    public void setUp() throws XMLStreamException {
+        out = new ByteArrayOutputStream();
+        XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(out, "UTF-8");
+        writer.writeStartDocument();
+        writer.writeStartElement("ns1", "orders", "http://cxf.apache.org/benchmark");
+        writer.writeNamespace("ns1", "http://cxf.apache.org/benchmark");
+        for (int x = 0; x < entries; x++) {
+            writer.writeStartElement("ns1", "order", "http://cxf.apache.org/benchmark");
+            writer.writeAttribute("id", Integer.toString(x));
+            writer.writeStartElement("ns1", "customer", "http://cxf.apache.org/benchmark");
+            writer.writeCharacters("Customer " + x);
+            writer.writeEndElement();
+            writer.writeStartElement("ns1", "amount", "http://cxf.apache.org/benchmark");
+            writer.writeCharacters(Double.toString(x * 1.5));
+            writer.writeEndElement();
+            writer.writeComment("entry " + x);
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        StaxUtils.close(writer);
+        payload = out.toByteArray();
+    }
+
+    @Benchmark
+    public int copyToStream() throws XMLStreamException {
+        out.reset();
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(payload));
+        XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(out, "UTF-8");
+        StaxUtils.copy(reader, writer);
+        writer.flush();
+        StaxUtils.close(reader);
+        StaxUtils.close(writer);
+        return out.size();
+    }
+
+    @Benchmark
+    public Document copyToDOM() throws XMLStreamException {
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(payload));
+        W3CDOMStreamWriter writer = new W3CDOMStreamWriter();
+        StaxUtils.copy(reader, writer);
+        StaxUtils.close(reader);
+        return writer.getDocument();
+    }
+}
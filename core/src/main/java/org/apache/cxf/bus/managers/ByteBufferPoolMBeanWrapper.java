@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.bus.managers;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.io.ByteBufferPool;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedResource;
+
+@ManagedResource(componentName = "ByteBufferPool", 
+                 description = "The pool of buffers used by CachedOutputStream", 
+                 currencyTimeLimit = 15, persistPolicy = "OnUpdate", persistPeriod = 200)
+public class ByteBufferPoolMBeanWrapper implements ManagedComponent {
+    private static final String TYPE_VALUE = "ByteBufferPool";
+    
+    private final ByteBufferPool pool;
+    private final Bus bus;
+    
+    public ByteBufferPoolMBeanWrapper(ByteBufferPool p, Bus b) {
+        pool = p;
+        bus = b;
+    }
+    
+    @ManagedAttribute(description = "The size of each buffer in bytes")
+    public int getChunkSize() {
+        return pool.getChunkSize();
+    }
+    
+    @ManagedAttribute(description = "The maximum number of idle buffers kept")
+    public int getMaxPooled() {
+        return pool.getMaxPooled();
+    }
+    
+    @ManagedAttribute(description = "The number of idle buffers in the pool")
+    public int getPooledCount() {
+        return pool.getPooledCount();
+    }
+    
+    @ManagedAttribute(description = "The number of buffers currently in use")
+    public int getInUseCount() {
+        return pool.getInUseCount();
+    }
+    
+    @ManagedAttribute(description = "The number of buffers handed out")
+    public long getAcquisitionCount() {
+        return pool.getAcquisitionCount();
+    }
+    
+    @ManagedAttribute(description = "The number of buffers allocated because the pool was empty")
+    public long getAllocationCount() {
+        return pool.getAllocationCount();
+    }
+    
+    @ManagedAttribute(description = "The number of buffers dropped because the pool was full")
+    public long getDiscardCount() {
+        return pool.getDiscardCount();
+    }
+    
+    public ObjectName getObjectName() throws JMException {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME).append(':');
+        buffer.append(ManagementConstants.BUS_ID_PROP).append('=').append(bus.getId()).append(',');
+        buffer.append(ManagementConstants.TYPE_PROP).append('=').append(TYPE_VALUE).append(',');
+        // Added the instance id to make the ObjectName unique
+        buffer.append(ManagementConstants.INSTANCE_ID_PROP).append('=').append(pool.hashCode());
+        return new ObjectName(buffer.toString());
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.bus.managers;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedResource;
+import org.apache.cxf.phase.PhaseChainCacheStatistics;
+
+/**
+ * Exposes the interceptor chain cache statistics of the endpoints and clients
+ * of a bus.
+ */
+@ManagedResource(componentName = "PhaseChainCache", 
+                 description = "The CXF interceptor chain cache", 
+                 currencyTimeLimit = 15, persistPolicy = "OnUpdate", persistPeriod = 200)
+public class PhaseChainCacheMBeanWrapper implements ManagedComponent {
+    private static final String TYPE_VALUE = "PhaseChainCache";
+    
+    private final Bus bus;
+    
+    public PhaseChainCacheMBeanWrapper(Bus b) {
+        bus = b;
+    }
+    
+    @ManagedAttribute(description = "The number of chain lookups served by the version check")
+    public long getHitCount() {
+        return PhaseChainCacheStatistics.getInstance(bus).getHitCount();
+    }
+    
+    @ManagedAttribute(description = "The number of chain lookups that had to compare the interceptor lists")
+    public long getRevalidationCount() {
+        return PhaseChainCacheStatistics.getInstance(bus).getRevalidationCount();
+    }
+    
+    @ManagedAttribute(description = "The number of chain lookups that had to build a new chain")
+    public long getRebuildCount() {
+        return PhaseChainCacheStatistics.getInstance(bus).getRebuildCount();
+    }
+    
+    public ObjectName getObjectName() throws JMException {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME).append(':');
+        buffer.append(ManagementConstants.BUS_ID_PROP).append('=').append(bus.getId()).append(',');
+        buffer.append(ManagementConstants.TYPE_PROP).append('=').append(TYPE_VALUE).append(',');
+        // Added the instance id to make the ObjectName unique
+        buffer.append(ManagementConstants.INSTANCE_ID_PROP).append('=').append(bus.hashCode());
+        return new ObjectName(buffer.toString());
+    }
+}
@@ -103,6 +103,57 @@ public class WorkQueueImplMBeanWrapper implements ManagedComponent {
         aWorkQueue.setLowWaterMark(lwm);
     }
 
+    @ManagedAttribute(description = "The number of tasks rejected because the WorkQueue was full")
+    public long getRejectedCount() {
+        return aWorkQueue.getStatistics().getRejectedCount();
+    }
+
+    @ManagedAttribute(description = "The number of completed tasks")
+    public long getCompletedCount() {
+        return aWorkQueue.getStatistics().getCompletedCount();
+    }
+
+    @ManagedAttribute(description = "The mean delay in ms between submitting and starting a task")
+    public double getAverageQueueDelay() {
+        return aWorkQueue.getStatistics().getAverageQueueDelay();
+    }
+
+    @ManagedAttribute(description = "The largest delay in ms between submitting and starting a task")
+    public long getMaxQueueDelay() {
+        return aWorkQueue.getStatistics().getMaxQueueDelay();
+    }
+
+    @ManagedAttribute(description = "The queue delay in ms below which 99% of the tasks started, "
+        + "-1 if above 1024")
+    public long getQueueDelay99thPercentile() {
+        return aWorkQueue.getStatistics().getQueueDelayPercentile(0.99);
+    }
+
+    @ManagedAttribute(description = "Task counts by queue delay below 1, 2, 4, ... 1024 ms and above")
+    public long[] getQueueDelayHistogram() {
+        return aWorkQueue.getStatistics().getQueueDelayHistogram();
+    }
+
+    @ManagedAttribute(description = "The total time in ms threads spent running tasks")
+    public long getBusyTime() {
+        return aWorkQueue.getStatistics().getBusyTime();
+    }
+
+    @ManagedAttribute(description = "The time in ms the statistics have been collected for")
+    public long getElapsedTime() {
+        return aWorkQueue.getStatistics().getElapsedTime();
+    }
+
+    @ManagedAttribute(description = "The mean queue delay in ms the HighWaterMark is adjusted for, "
+        + "-1 if disabled",
+                      persistPolicy = "OnUpdate")
+    public long getTargetQueueDelay() {
+        return aWorkQueue.getTargetQueueDelay();
+    }
+    public void setTargetQueueDelay(long delay) {
+        aWorkQueue.setTargetQueueDelay(delay);
+    }
+
     public ObjectName getObjectName() throws JMException {
         StringBuilder buffer = new StringBuilder();
         buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME).append(':');
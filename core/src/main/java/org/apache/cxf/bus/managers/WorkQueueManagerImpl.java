@@ -37,10 +37,23 @@ import org.apache.cxf.configuration.ConfiguredBeanLocator;
 import org.apache.cxf.management.InstrumentationManager;
 import org.apache.cxf.workqueue.AutomaticWorkQueue;
 import org.apache.cxf.workqueue.AutomaticWorkQueueImpl;
+import org.apache.cxf.workqueue.ForkJoinWorkQueue;
+import org.apache.cxf.workqueue.ThreadPerTaskWorkQueue;
 import org.apache.cxf.workqueue.WorkQueueManager;
 
 @NoJSR250Annotations(unlessNull = "bus")
 public class WorkQueueManagerImpl implements WorkQueueManager {
+    /**
+     * Bus property prefix selecting the implementation of a named queue
+     * that is not configured explicitly: "bus.workqueue.&lt;name&gt;.type" set
+     * to one of {@link #TYPE_THREAD_POOL}, {@link #TYPE_FORK_JOIN} or
+     * {@link #TYPE_THREAD_PER_TASK}.
+     */
+    public static final String TYPE_PROPERTY_PREFIX = "bus.workqueue.";
+    public static final String TYPE_PROPERTY_SUFFIX = ".type";
+    public static final String TYPE_THREAD_POOL = "threadpool";
+    public static final String TYPE_FORK_JOIN = "forkjoin";
+    public static final String TYPE_THREAD_PER_TASK = "thread-per-task";
 
     private static final Logger LOG =
         LogUtils.getL7dLogger(WorkQueueManagerImpl.class);
@@ -164,7 +177,17 @@ public class WorkQueueManagerImpl implements WorkQueueManager {
     }
 
     public AutomaticWorkQueue getNamedWorkQueue(String name) {
-        return namedQueues.get(name);
+        AutomaticWorkQueue q = namedQueues.get(name);
+        if (q == null && !"default".equals(name) && getQueueType(name) != null) {
+            synchronized (this) {
+                q = namedQueues.get(name);
+                if (q == null) {
+                    q = createWorkQueue(name);
+                    addNamedWorkQueue(name, q);
+                }
+            }
+        }
+        return q;
     }
     public final void addNamedWorkQueue(String name, AutomaticWorkQueue q) {
         namedQueues.put(name, q);
@@ -194,11 +217,35 @@ public class WorkQueueManagerImpl implements WorkQueueManager {
     }
     
     private AutomaticWorkQueue createAutomaticWorkQueue() {        
-        AutomaticWorkQueue q = new AutomaticWorkQueueImpl("default");
+        AutomaticWorkQueue q = createWorkQueue("default");
         addNamedWorkQueue("default", q);
         return q;
     }
     
+    private String getQueueType(String name) {
+        if (bus == null) {
+            return null;
+        }
+        Object type = bus.getProperty(TYPE_PROPERTY_PREFIX + name + TYPE_PROPERTY_SUFFIX);
+        return type == null ? null : type.toString().trim();
+    }
+    
+    private AutomaticWorkQueue createWorkQueue(String name) {
+        String type = getQueueType(name);
+        if (TYPE_FORK_JOIN.equalsIgnoreCase(type)) {
+            return new ForkJoinWorkQueue(name);
+        } else if (TYPE_THREAD_PER_TASK.equalsIgnoreCase(type)) {
+            if (ThreadPerTaskWorkQueue.isVirtualThreadSupported()) {
+                return new ThreadPerTaskWorkQueue(name);
+            }
+            LOG.log(Level.WARNING, "NO_VIRTUAL_THREADS_MSG", new Object[] {name, TYPE_THREAD_POOL});
+        } else if (type != null && !TYPE_THREAD_POOL.equalsIgnoreCase(type)) {
+            LOG.log(Level.WARNING, "UNKNOWN_WORK_QUEUE_TYPE_MSG",
+                    new Object[] {type, name, TYPE_THREAD_POOL});
+        }
+        return new AutomaticWorkQueueImpl(name);
+    }
+    
     
     class WQLifecycleListener implements BusLifeCycleListener {
         public void initComplete() {
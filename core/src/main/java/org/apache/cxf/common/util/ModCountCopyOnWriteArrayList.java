@@ -45,16 +45,20 @@ public final class ModCountCopyOnWriteArrayList<T> extends CopyOnWriteArrayList<
         modCount.set(i);
     }
     
+    private void incrementModCount() {
+        modCount.incrementAndGet();
+    }
+    
     @Override
     public void add(int index, T element) {
         super.add(index, element);
-        modCount.incrementAndGet();
+        incrementModCount();
     }
 
     @Override
     public boolean add(T element) {
         if (super.add(element)) {
-            modCount.incrementAndGet();
+            incrementModCount();
             return true;
         }
         return false;
@@ -63,7 +67,7 @@ public final class ModCountCopyOnWriteArrayList<T> extends CopyOnWriteArrayList<
     @Override
     public boolean addAll(Collection<? extends T> c) {
         if (super.addAll(c)) {
-            modCount.incrementAndGet();
+            incrementModCount();
             return true;
         }
         return false;
@@ -72,7 +76,7 @@ public final class ModCountCopyOnWriteArrayList<T> extends CopyOnWriteArrayList<
     @Override
     public boolean addAll(int index, Collection<? extends T> c) {
         if (super.addAll(index, c)) {
-            modCount.incrementAndGet();
+            incrementModCount();
             return true;
         }
         return false;
@@ -82,7 +86,7 @@ public final class ModCountCopyOnWriteArrayList<T> extends CopyOnWriteArrayList<
     public int addAllAbsent(Collection<? extends T> c) {
         int i = super.addAllAbsent(c);
         if (i > 0) {
-            modCount.incrementAndGet();
+            incrementModCount();
         }
         return i;
     }
@@ -90,23 +94,32 @@ public final class ModCountCopyOnWriteArrayList<T> extends CopyOnWriteArrayList<
     @Override
     public boolean addIfAbsent(T element) {
         if (super.addIfAbsent(element)) {
-            modCount.incrementAndGet();
+            incrementModCount();
             return true;
         }
         return false;
     }
 
+    @Override
+    public T set(int index, T element) {
+        T t = super.set(index, element);
+        if (t != element) {
+            incrementModCount();
+        }
+        return t;
+    }
+
     @Override
     public void clear() {
         super.clear();
-        modCount.incrementAndGet();
+        incrementModCount();
     }
 
     @Override
     public T remove(int index) {
         T t = super.remove(index);
         if (t != null) {
-            modCount.incrementAndGet();
+            incrementModCount();
         }
         return t;
     }
@@ -114,7 +127,7 @@ public final class ModCountCopyOnWriteArrayList<T> extends CopyOnWriteArrayList<
     @Override
     public boolean remove(Object o) {
         if (super.remove(o)) {
-            modCount.incrementAndGet();
+            incrementModCount();
             return true;
         }
         return false;
@@ -123,7 +136,7 @@ public final class ModCountCopyOnWriteArrayList<T> extends CopyOnWriteArrayList<
     @Override
     public boolean removeAll(Collection<?> c) {
         if (super.removeAll(c)) {
-            modCount.incrementAndGet();
+            incrementModCount();
             return true;
         }
         return false;
@@ -132,7 +145,7 @@ public final class ModCountCopyOnWriteArrayList<T> extends CopyOnWriteArrayList<
     @Override
     public boolean retainAll(Collection<?> c) {
         if (super.retainAll(c)) {
-            modCount.incrementAndGet();
+            incrementModCount();
             return true;
         }
         return false;
@@ -58,6 +58,7 @@ import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageContentsList;
 import org.apache.cxf.message.MessageImpl;
 import org.apache.cxf.phase.PhaseChainCache;
+import org.apache.cxf.phase.PhaseChainCacheStatistics;
 import org.apache.cxf.phase.PhaseInterceptorChain;
 import org.apache.cxf.phase.PhaseManager;
 import org.apache.cxf.service.Service;
@@ -93,8 +94,8 @@ public class ClientImpl
     protected ClientOutFaultObserver outFaultObserver;
     protected int synchronousTimeout = 60000; // default 60 second timeout
 
-    protected PhaseChainCache outboundChainCache = new PhaseChainCache();
-    protected PhaseChainCache inboundChainCache = new PhaseChainCache();
+    protected PhaseChainCache outboundChainCache;
+    protected PhaseChainCache inboundChainCache;
 
     protected Map<String, Object> currentRequestContext = new ConcurrentHashMap<String, Object>(8, 0.75f, 4);
     protected Map<Thread, EchoContext> requestContext 
@@ -115,6 +116,7 @@ public class ClientImpl
 
     public ClientImpl(Bus b, Endpoint e, ConduitSelector sc) {
         bus = b;
+        initChainCaches();
         outFaultObserver = new ClientOutFaultObserver(bus);
         getConduitSelector(sc).setEndpoint(e);
         notifyLifecycleManager();
@@ -130,6 +132,7 @@ public class ClientImpl
     public ClientImpl(Bus bus, Service svc, QName port,
                       EndpointImplFactory endpointImplFactory) {
         this.bus = bus;
+        initChainCaches();
         outFaultObserver = new ClientOutFaultObserver(bus);
         EndpointInfo epfo = findEndpoint(svc, port);
 
@@ -191,6 +194,12 @@ public class ClientImpl
         executor = null;            
     }
 
+    private void initChainCaches() {
+        PhaseChainCacheStatistics stats = PhaseChainCacheStatistics.getInstance(bus);
+        outboundChainCache = new PhaseChainCache(stats);
+        inboundChainCache = new PhaseChainCache(stats);
+    }
+
     private void notifyLifecycleManager() {
         ClientLifeCycleManager mgr = bus.getExtension(ClientLifeCycleManager.class);
         if (null != mgr) {
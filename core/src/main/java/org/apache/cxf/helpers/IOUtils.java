@@ -22,15 +22,20 @@ package org.apache.cxf.helpers;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.PushbackInputStream;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 
 import org.apache.cxf.io.CopyingOutputStream;
@@ -39,6 +44,8 @@ import org.apache.cxf.io.Transferable;
 public final class IOUtils {
     public static final Charset UTF8_CHARSET = Charset.forName("utf-8");
     public static final int DEFAULT_BUFFER_SIZE = 1024 * 4;
+    
+    private static final long MAX_WRITE_PAUSE = 64L;
 
     private IOUtils() {
 
@@ -138,8 +145,68 @@ public final class IOUtils {
         if (output instanceof CopyingOutputStream) {
             return ((CopyingOutputStream)output).copyFrom(input);
         }
+        if (input instanceof FileInputStream && output instanceof WritableByteChannel) {
+            return (int)transferTo(((FileInputStream)input).getChannel(), (WritableByteChannel)output);
+        }
         return copy(input, output, DEFAULT_BUFFER_SIZE);
     }
+    
+    /**
+     * Transfers the remaining content of the file channel to the target channel
+     * using FileChannel.transferTo, which lets the OS move the data without
+     * copying it through a user space buffer where the target supports it.
+     * The position of the file channel is advanced by the number of bytes
+     * transferred.
+     */
+    public static long transferTo(final FileChannel input, final WritableByteChannel output)
+        throws IOException {
+        long pos = input.position();
+        long size = input.size();
+        long total = 0;
+        while (pos < size) {
+            long n = input.transferTo(pos, size - pos, output);
+            if (n <= 0) {
+                // target can't take any more right now, fall back to write
+                break;
+            }
+            pos += n;
+            total += n;
+        }
+        input.position(pos);
+        if (pos < size) {
+            ByteBuffer buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+            while (input.read(buffer) != -1) {
+                buffer.flip();
+                total += buffer.remaining();
+                writeFully(output, buffer);
+                buffer.clear();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Writes all the remaining content of the buffer to the channel.  A channel
+     * in non-blocking mode may not take anything for a while; rather than
+     * spinning, the thread then waits a little, up to 64ms, before trying again.
+     */
+    public static void writeFully(final WritableByteChannel output, final ByteBuffer buffer)
+        throws IOException {
+        long pause = 1;
+        while (buffer.hasRemaining()) {
+            if (output.write(buffer) > 0) {
+                pause = 1;
+                continue;
+            }
+            try {
+                Thread.sleep(pause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            pause = Math.min(pause * 2, MAX_WRITE_PAUSE);
+        }
+    }
 
     public static int copyAndCloseInput(final InputStream input,
             final OutputStream output) throws IOException {
@@ -122,6 +122,13 @@ public class StaxInInterceptor extends AbstractPhaseInterceptor<Message> {
                 } else {
                     xreader = StaxUtils.createXMLStreamReader(is, encoding);
                 }
+            } else if (StaxUtils.isEndpointXMLInputFactory(message, factory)) {
+                // created from a parser that is safe for concurrent use
+                if (reader != null) {
+                    xreader = factory.createXMLStreamReader(reader);
+                } else {
+                    xreader = factory.createXMLStreamReader(is, encoding == null ? "UTF-8" : encoding);
+                }
             } else {
                 synchronized (factory) {
                     if (reader != null) {
@@ -146,6 +153,8 @@ public class StaxInInterceptor extends AbstractPhaseInterceptor<Message> {
         Object o = m.getContextualProperty(XMLInputFactory.class.getName());
         if (o instanceof XMLInputFactory) {
             return (XMLInputFactory)o;
+        } else if (StaxUtils.ENDPOINT_INPUT_FACTORY.equals(o)) {
+            return StaxUtils.getEndpointXMLInputFactory(m);
         } else if (o != null) {
             XMLInputFactory xif = factories.get(o);
             if (xif == null) {
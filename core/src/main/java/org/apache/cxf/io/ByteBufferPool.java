@@ -0,0 +1,214 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.managers.ByteBufferPoolMBeanWrapper;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.management.InstrumentationManager;
+
+/**
+ * A pool of fixed size, direct ByteBuffer chunks used by CachedOutputStream
+ * to hold cached content off the heap.  When the pool is empty new chunks are
+ * allocated; chunks released to a full pool are dropped and left to the GC.
+ * <p>
+ * One pool is shared by all the streams created for a Bus, see
+ * {@link #getPool(Bus)}.
+ * <p>
+ * Objects holding on to chunks (such as the streams writing them) can be
+ * {@link #track(Object, Runnable) tracked}, so that chunks still held by
+ * objects that were garbage collected without being released are reclaimed
+ * the next time a chunk is acquired.
+ */
+public class ByteBufferPool {
+    public static final String CHUNK_SIZE_PROPERTY = "bus.io.CachedOutputStream.BufferPoolChunkSize";
+    public static final String POOL_SIZE_PROPERTY = "bus.io.CachedOutputStream.BufferPoolSize";
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    public static final int DEFAULT_POOL_SIZE = 256;
+
+    private static final Logger LOG = LogUtils.getL7dLogger(ByteBufferPool.class);
+
+    private final int chunkSize;
+    private final int maxPooled;
+    private final Queue<ByteBuffer> pool = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicLong allocations = new AtomicLong();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong discards = new AtomicLong();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+    private final ConcurrentMap<Reference<?>, Runnable> tracked
+        = new ConcurrentHashMap<Reference<?>, Runnable>();
+
+    public ByteBufferPool() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_POOL_SIZE);
+    }
+
+    public ByteBufferPool(int chunkSize, int maxPooled) {
+        this.chunkSize = chunkSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Returns the pool registered on the bus, creating and registering one
+     * (configured from the bus properties) if needed.
+     */
+    public static ByteBufferPool getPool(Bus bus) {
+        ByteBufferPool p = bus.getExtension(ByteBufferPool.class);
+        if (p == null) {
+            synchronized (bus) {
+                p = bus.getExtension(ByteBufferPool.class);
+                if (p == null) {
+                    p = new ByteBufferPool(getIntProperty(bus, CHUNK_SIZE_PROPERTY, DEFAULT_CHUNK_SIZE),
+                                           getIntProperty(bus, POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE));
+                    bus.setExtension(p, ByteBufferPool.class);
+                    InstrumentationManager imanager = bus.getExtension(InstrumentationManager.class);
+                    if (imanager != null) {
+                        try {
+                            imanager.register(new ByteBufferPoolMBeanWrapper(p, bus));
+                        } catch (JMException jmex) {
+                            LOG.log(Level.WARNING, jmex.getMessage(), jmex);
+                        }
+                    }
+                }
+            }
+        }
+        return p;
+    }
+
+    private static int getIntProperty(Bus bus, String key, int dflt) {
+        Object v = bus.getProperty(key);
+        return v == null ? dflt : Integer.parseInt(v.toString());
+    }
+
+    public ByteBuffer acquire() {
+        expungeStaleEntries();
+        acquisitions.incrementAndGet();
+        inUse.incrementAndGet();
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            allocations.incrementAndGet();
+            return ByteBuffer.allocateDirect(chunkSize);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        inUse.decrementAndGet();
+        if (buffer.capacity() != chunkSize || pooled.incrementAndGet() > maxPooled) {
+            if (buffer.capacity() == chunkSize) {
+                pooled.decrementAndGet();
+            }
+            discards.incrementAndGet();
+            return;
+        }
+        pool.offer(buffer);
+    }
+
+    /**
+     * Runs the given callback once the referent has been garbage collected,
+     * unless {@link #untrack(Reference)} is called first.  The callback must
+     * not refer to the referent.
+     */
+    public Reference<?> track(Object referent, Runnable onCollected) {
+        Reference<?> ref = new PhantomReference<Object>(referent, collected);
+        tracked.put(ref, onCollected);
+        return ref;
+    }
+
+    public void untrack(Reference<?> ref) {
+        if (ref != null && tracked.remove(ref) != null) {
+            ref.clear();
+        }
+    }
+
+    void expungeStaleEntries() {
+        Reference<?> ref = collected.poll();
+        while (ref != null) {
+            Runnable onCollected = tracked.remove(ref);
+            if (onCollected != null) {
+                try {
+                    onCollected.run();
+                } catch (RuntimeException ex) {
+                    LOG.log(Level.FINE, "Could not reclaim chunks of a collected stream", ex);
+                }
+            }
+            ref = collected.poll();
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getMaxPooled() {
+        return maxPooled;
+    }
+
+    /**
+     * The number of idle chunks held by the pool.
+     */
+    public int getPooledCount() {
+        return pooled.get();
+    }
+
+    /**
+     * The number of chunks currently handed out to streams.
+     */
+    public int getInUseCount() {
+        return inUse.get();
+    }
+
+    public long getAcquisitionCount() {
+        return acquisitions.get();
+    }
+
+    /**
+     * The number of chunks that had to be newly allocated because the pool was empty.
+     */
+    public long getAllocationCount() {
+        return allocations.get();
+    }
+
+    /**
+     * The number of released chunks dropped because the pool was full.
+     */
+    public long getDiscardCount() {
+        return discards.get();
+    }
+}
@@ -31,6 +31,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -41,6 +44,7 @@ import javax.crypto.CipherOutputStream;
 
 import org.apache.cxf.Bus;
 import org.apache.cxf.BusFactory;
+import org.apache.cxf.common.util.PropertyUtils;
 import org.apache.cxf.common.util.SystemPropertyAction;
 import org.apache.cxf.helpers.FileUtils;
 import org.apache.cxf.helpers.IOUtils;
@@ -87,6 +91,8 @@ public class CachedOutputStream extends OutputStream {
     private String cipherTransformation = defaultCipherTransformation;
     private CipherPair ciphers;
 
+    private ByteBufferPool bufferPool;
+
     private List<CachedOutputStreamCallback> callbacks;
     
     private List<Object> streamList = new ArrayList<Object>();
@@ -97,9 +103,9 @@ public class CachedOutputStream extends OutputStream {
 
     public CachedOutputStream(long threshold) {
         this.threshold = threshold; 
-        currentStream = new LoadingByteArrayOutputStream(2048);
-        inmem = true;
         readBusProperties();
+        currentStream = createMemoryStream();
+        inmem = true;
     }
 
     private void readBusProperties() {
@@ -117,9 +123,46 @@ public class CachedOutputStream extends OutputStream {
             if (v != null) {
                 cipherTransformation = v;
             }
+            Object pooled = b.getProperty("bus.io.CachedOutputStream.BufferPool");
+            if (pooled != null && PropertyUtils.isTrue(pooled)) {
+                bufferPool = ByteBufferPool.getPool(b);
+            }
         }
     }
 
+    private OutputStream createMemoryStream() {
+        if (bufferPool != null) {
+            return new PooledByteBufferOutputStream(bufferPool);
+        }
+        return new LoadingByteArrayOutputStream(2048);
+    }
+    
+    private boolean isMemoryStream(OutputStream out) {
+        return out instanceof ByteArrayOutputStream || out instanceof PooledByteBufferOutputStream;
+    }
+    
+    /**
+     * Keeps the in-memory content in direct buffers taken from the given pool
+     * instead of a heap byte[].  This is enabled for all the streams created
+     * for a Bus with the "bus.io.CachedOutputStream.BufferPool" property, and
+     * can only be changed before anything has been written.
+     * <p>
+     * Like the heap byte[], the pooled buffers stay readable after the stream
+     * is closed.  They go back to the pool once the content has been moved to
+     * the temp file and all the InputStreams reading them are closed, or else
+     * when this stream is garbage collected.
+     */
+    public void setBufferPool(ByteBufferPool pool) throws IOException {
+        if (totalLength > 0 || !inmem) {
+            throw new IOException("The buffer pool can not be changed after writing to the stream");
+        }
+        if (currentStream instanceof PooledByteBufferOutputStream) {
+            ((PooledByteBufferOutputStream)currentStream).release();
+        }
+        bufferPool = pool;
+        currentStream = createMemoryStream();
+    }
+
     private static String getBusProperty(Bus b, String key, String dflt) {
         String v = (String)b.getProperty(key);
         return v != null ? v : dflt;
@@ -252,6 +295,12 @@ public class CachedOutputStream extends OutputStream {
                     if (copyOldContent && byteOut.size() > 0) {
                         byteOut.writeTo(out);
                     }
+                } else if (currentStream instanceof PooledByteBufferOutputStream) {
+                    PooledByteBufferOutputStream pooledOut = (PooledByteBufferOutputStream) currentStream;
+                    if (copyOldContent && pooledOut.size() > 0) {
+                        pooledOut.writeTo(out);
+                    }
+                    pooledOut.discard();
                 } else {
                     throw new IOException("Unknown format of currentStream");
                 }
@@ -284,6 +333,8 @@ public class CachedOutputStream extends OutputStream {
         if (inmem) {
             if (currentStream instanceof ByteArrayOutputStream) {
                 return ((ByteArrayOutputStream)currentStream).toByteArray();
+            } else if (currentStream instanceof PooledByteBufferOutputStream) {
+                return ((PooledByteBufferOutputStream)currentStream).toByteArray();
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
@@ -299,9 +350,13 @@ public class CachedOutputStream extends OutputStream {
         if (inmem) {
             if (currentStream instanceof ByteArrayOutputStream) {
                 ((ByteArrayOutputStream)currentStream).writeTo(out);
+            } else if (currentStream instanceof PooledByteBufferOutputStream) {
+                ((PooledByteBufferOutputStream)currentStream).writeTo(out);
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
+        } else if (cipherTransformation == null && out instanceof WritableByteChannel) {
+            writeCacheTo((WritableByteChannel)out);
         } else {
             // read the file
             InputStream fin = createInputStream(tempFile);
@@ -309,6 +364,36 @@ public class CachedOutputStream extends OutputStream {
         }
     }
     
+    /**
+     * Writes the cached content to the channel.  If the content has been
+     * spilled to a (non encrypted) temp file it is transferred with
+     * FileChannel.transferTo so it does not have to be copied through a
+     * user space buffer.
+     */
+    public void writeCacheTo(WritableByteChannel out) throws IOException {
+        flush();
+        if (inmem) {
+            if (currentStream instanceof PooledByteBufferOutputStream) {
+                ((PooledByteBufferOutputStream)currentStream).writeTo(out);
+            } else if (currentStream instanceof LoadingByteArrayOutputStream) {
+                LoadingByteArrayOutputStream lout = (LoadingByteArrayOutputStream)currentStream;
+                IOUtils.writeFully(out, ByteBuffer.wrap(lout.getRawBytes(), 0, lout.size()));
+            } else if (currentStream instanceof ByteArrayOutputStream) {
+                byte[] bytes = ((ByteArrayOutputStream)currentStream).toByteArray();
+                IOUtils.writeFully(out, ByteBuffer.wrap(bytes));
+            } else {
+                throw new IOException("Unknown format of currentStream");
+            }
+        } else if (cipherTransformation == null) {
+            try (FileInputStream fin = new FileInputStream(tempFile)) {
+                IOUtils.transferTo(fin.getChannel(), out);
+            }
+        } else {
+            InputStream fin = createInputStream(tempFile);
+            IOUtils.copyAndCloseInput(fin, Channels.newOutputStream(out));
+        }
+    }
+    
     public void writeCacheTo(StringBuilder out, long limit) throws IOException {
         writeCacheTo(out, "UTF-8", limit);
     }
@@ -329,6 +414,9 @@ public class CachedOutputStream extends OutputStream {
             } else if (currentStream instanceof ByteArrayOutputStream) {
                 byte bytes[] = ((ByteArrayOutputStream)currentStream).toByteArray();
                 out.append(IOUtils.newStringFromBytes(bytes, charsetName, 0, (int)limit));
+            } else if (currentStream instanceof PooledByteBufferOutputStream) {
+                byte bytes[] = ((PooledByteBufferOutputStream)currentStream).toByteArray();
+                out.append(IOUtils.newStringFromBytes(bytes, charsetName, 0, (int)limit));
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
@@ -368,6 +456,9 @@ public class CachedOutputStream extends OutputStream {
             } else if (currentStream instanceof ByteArrayOutputStream) {
                 byte[] bytes = ((ByteArrayOutputStream)currentStream).toByteArray();
                 out.append(IOUtils.newStringFromBytes(bytes, charsetName));
+            } else if (currentStream instanceof PooledByteBufferOutputStream) {
+                byte[] bytes = ((PooledByteBufferOutputStream)currentStream).toByteArray();
+                out.append(IOUtils.newStringFromBytes(bytes, charsetName));
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
@@ -417,7 +508,7 @@ public class CachedOutputStream extends OutputStream {
         if (maxSize > 0 && totalLength > maxSize) {
             throw new CacheSizeExceededException();
         }
-        if (inmem && totalLength > threshold && currentStream instanceof ByteArrayOutputStream) {
+        if (inmem && totalLength > threshold && isMemoryStream(currentStream)) {
             createFileOutputStream();
         }       
     }
@@ -453,7 +544,7 @@ public class CachedOutputStream extends OutputStream {
         if (tempFileFailed) {
             return;
         }
-        ByteArrayOutputStream bout = (ByteArrayOutputStream)currentStream;
+        OutputStream bout = currentStream;
         try {
             if (outputDir == null) {
                 tempFile = FileUtils.createTempFile("cos", "tmp");
@@ -461,8 +552,22 @@ public class CachedOutputStream extends OutputStream {
                 tempFile = FileUtils.createTempFile("cos", "tmp", outputDir, false);
             }
             
-            currentStream = createOutputStream(tempFile);
-            bout.writeTo(currentStream);
+            if (bout instanceof PooledByteBufferOutputStream) {
+                PooledByteBufferOutputStream pooledOut = (PooledByteBufferOutputStream)bout;
+                if (cipherTransformation == null) {
+                    // hand the direct buffers straight to the file channel
+                    FileOutputStream fout = new FileOutputStream(tempFile);
+                    currentStream = new BufferedOutputStream(fout);
+                    pooledOut.writeTo(fout.getChannel());
+                } else {
+                    currentStream = createOutputStream(tempFile);
+                    pooledOut.writeTo(currentStream);
+                }
+                pooledOut.discard();
+            } else {
+                currentStream = createOutputStream(tempFile);
+                ((ByteArrayOutputStream)bout).writeTo(currentStream);
+            }
             inmem = false;
             streamList.add(currentStream);
         } catch (Exception ex) {
@@ -489,6 +594,8 @@ public class CachedOutputStream extends OutputStream {
                 return ((LoadingByteArrayOutputStream) currentStream).createInputStream();
             } else if (currentStream instanceof ByteArrayOutputStream) {
                 return new ByteArrayInputStream(((ByteArrayOutputStream) currentStream).toByteArray());
+            } else if (currentStream instanceof PooledByteBufferOutputStream) {
+                return ((PooledByteBufferOutputStream) currentStream).createInputStream();
             } else {
                 return null;
             }
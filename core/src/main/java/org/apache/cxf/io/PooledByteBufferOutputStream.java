@@ -0,0 +1,274 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cxf.helpers.IOUtils;
+
+/**
+ * An in-memory OutputStream that stores its content in ByteBuffer chunks
+ * borrowed from a {@link ByteBufferPool}.
+ * <p>
+ * Like a ByteArrayOutputStream, the content stays readable after the stream
+ * has been closed.  The chunks go back to the pool when {@link #release()} is
+ * called, when the content has been {@link #discard() moved elsewhere} and no
+ * InputStream created from it is open anymore, or at the latest once this
+ * stream (and so every InputStream reading it) has been garbage collected,
+ * see {@link ByteBufferPool#track}.  After a release any further access fails
+ * with an IOException.
+ */
+public class PooledByteBufferOutputStream extends OutputStream {
+    private final ByteBufferPool pool;
+    private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+    private final Reference<?> ref;
+    private ByteBuffer current;
+    private int count;
+    private int openInputStreams;
+    private boolean discarded;
+    private volatile boolean released;
+
+    public PooledByteBufferOutputStream(ByteBufferPool pool) {
+        this.pool = pool;
+        this.ref = pool.track(this, new ChunkReclaimer(pool, chunks));
+    }
+
+    public void write(int b) throws IOException {
+        ensureCapacity();
+        current.put((byte)b);
+        count++;
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ensureCapacity();
+            int l = Math.min(len, current.remaining());
+            current.put(b, off, l);
+            off += l;
+            len -= l;
+            count += l;
+        }
+    }
+
+    private void ensureCapacity() throws IOException {
+        checkReleased();
+        if (current == null || !current.hasRemaining()) {
+            current = pool.acquire();
+            chunks.add(current);
+        }
+    }
+
+    private void checkReleased() throws IOException {
+        if (released) {
+            throw new IOException("Cached content has already been released");
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public byte[] toByteArray() throws IOException {
+        checkReleased();
+        byte[] bytes = new byte[count];
+        int pos = 0;
+        for (ByteBuffer chunk : chunks) {
+            ByteBuffer b = readable(chunk);
+            int l = b.remaining();
+            b.get(bytes, pos, l);
+            pos += l;
+        }
+        return bytes;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        checkReleased();
+        byte[] buf = null;
+        for (ByteBuffer chunk : chunks) {
+            ByteBuffer b = readable(chunk);
+            if (b.hasArray()) {
+                out.write(b.array(), b.arrayOffset() + b.position(), b.remaining());
+            } else {
+                if (buf == null) {
+                    buf = new byte[Math.min(count, 8192)];
+                }
+                while (b.hasRemaining()) {
+                    int l = Math.min(buf.length, b.remaining());
+                    b.get(buf, 0, l);
+                    out.write(buf, 0, l);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the content to the channel without copying the direct buffers
+     * through the heap.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        checkReleased();
+        for (ByteBuffer chunk : chunks) {
+            IOUtils.writeFully(channel, readable(chunk));
+        }
+    }
+
+    public synchronized InputStream createInputStream() throws IOException {
+        checkReleased();
+        openInputStreams++;
+        return new ChunkInputStream();
+    }
+
+    /**
+     * Releases the chunks once no InputStream created from this stream is
+     * open anymore, for use once the content has been moved elsewhere.
+     */
+    public synchronized void discard() {
+        discarded = true;
+        if (openInputStreams == 0) {
+            release();
+        }
+    }
+
+    /**
+     * Releases the chunks back to the pool right away, regardless of any
+     * open InputStream.
+     */
+    public synchronized void release() {
+        if (!released) {
+            released = true;
+            pool.untrack(ref);
+            for (ByteBuffer chunk : chunks) {
+                pool.release(chunk);
+            }
+            chunks.clear();
+            current = null;
+        }
+    }
+
+    private synchronized void inputStreamClosed() {
+        openInputStreams--;
+        if (discarded && openInputStreams == 0) {
+            release();
+        }
+    }
+
+    private static ByteBuffer readable(ByteBuffer chunk) {
+        ByteBuffer b = chunk.duplicate();
+        b.flip();
+        return b;
+    }
+
+    private class ChunkInputStream extends InputStream implements Transferable {
+        private int chunk;
+        private ByteBuffer buffer;
+        private boolean inClosed;
+
+        private ByteBuffer nextBuffer() throws IOException {
+            if (inClosed) {
+                throw new IOException("Stream closed");
+            }
+            checkReleased();
+            while (buffer == null || !buffer.hasRemaining()) {
+                if (chunk >= chunks.size()) {
+                    return null;
+                }
+                buffer = readable(chunks.get(chunk++));
+            }
+            return buffer;
+        }
+
+        public int read() throws IOException {
+            ByteBuffer b = nextBuffer();
+            return b == null ? -1 : b.get() & 0xFF;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuffer bb = nextBuffer();
+            if (bb == null) {
+                return -1;
+            }
+            int l = Math.min(len, bb.remaining());
+            bb.get(b, off, l);
+            return l;
+        }
+
+        public int available() throws IOException {
+            ByteBuffer b = nextBuffer();
+            return b == null ? 0 : b.remaining();
+        }
+
+        public void close() {
+            if (!inClosed) {
+                inClosed = true;
+                inputStreamClosed();
+            }
+        }
+
+        @Override
+        public void transferTo(File file) throws IOException {
+            try (FileOutputStream fout = new FileOutputStream(file)) {
+                FileChannel channel = fout.getChannel();
+                ByteBuffer b = nextBuffer();
+                while (b != null) {
+                    while (b.hasRemaining()) {
+                        channel.write(b);
+                    }
+                    b = nextBuffer();
+                }
+            } finally {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Returns the chunks of a stream that was garbage collected without being
+     * released.  It must not refer to the stream itself.
+     */
+    private static class ChunkReclaimer implements Runnable {
+        private final ByteBufferPool pool;
+        private final List<ByteBuffer> chunks;
+
+        ChunkReclaimer(ByteBufferPool pool, List<ByteBuffer> chunks) {
+            this.pool = pool;
+            this.chunks = chunks;
+        }
+
+        public void run() {
+            for (ByteBuffer chunk : chunks) {
+                pool.release(chunk);
+            }
+            chunks.clear();
+        }
+    }
+}
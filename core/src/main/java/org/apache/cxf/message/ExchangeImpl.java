@@ -92,7 +92,7 @@ public class ExchangeImpl extends ConcurrentHashMap<String, Object>  implements
 
     public <T> void put(Class<T> key, T value) {
         if (value == null) {
-            super.remove(key);
+            super.remove(key.getName());
         } else {
             super.put(key.getName(), value);
         }
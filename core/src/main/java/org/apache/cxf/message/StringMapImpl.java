@@ -19,31 +19,446 @@
 
 package org.apache.cxf.message;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.security.SecurityContext;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.service.model.MessageInfo;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.Destination;
 
 /**
- * A variation on HashMap which allows lookup by Class, via the string
- * returned by {@link Class#getName()}.
+ * A Map which allows lookup by Class, via the string returned by
+ * {@link Class#getName()}.
+ * <p>
+ * The well known keys that nearly every message carries (protocol headers,
+ * content type, the Destination and so on) are stored in precomputed slots,
+ * any other key goes into a compact open addressing table, so no entry
+ * objects are allocated per property.  Looking up one of the well known
+ * classes does not even need the class name.  Like HashMap the map allows
+ * null keys and values and is not thread safe, iterators work on a snapshot
+ * of the entries.
  */
-public class StringMapImpl 
-    extends HashMap<String, Object> 
-    implements StringMap {
-    
-    private static final long serialVersionUID = -4590903451121887L;
+public class StringMapImpl
+    extends AbstractMap<String, Object>
+    implements StringMap, Serializable {
+
+    // changed with the move from HashMap to AbstractMap, the serialized form differs
+    private static final long serialVersionUID = -4590903451121888L;
+
+    private static final String[] SLOT_KEYS = {
+        Message.PROTOCOL_HEADERS,
+        Message.CONTENT_TYPE,
+        Message.HTTP_REQUEST_METHOD,
+        Message.REQUESTOR_ROLE,
+        Message.QUERY_STRING,
+        Message.REQUEST_URI,
+        Message.ENCODING,
+        Message.ENDPOINT_ADDRESS,
+        Message.RESPONSE_CODE,
+        Message.WSDL_OPERATION,
+        Message.INBOUND_MESSAGE,
+        Message.REQUEST_URL,
+        Message.PARTIAL_RESPONSE_MESSAGE,
+        Message.BASE_PATH,
+        Message.PATH_INFO,
+        Message.ACCEPT_CONTENT_TYPE,
+        Message.ATTACHMENTS,
+        "org.apache.cxf.ws.policy.AssertionInfoMap",
+        "org.apache.cxf.configuration.security.AuthorizationPolicy",
+    };
+    private static final Class<?>[] SLOT_CLASSES = {
+        Destination.class,
+        Conduit.class,
+        SecurityContext.class,
+        FaultMode.class,
+        MessageInfo.class,
+        Endpoint.class,
+        Service.class,
+        BindingOperationInfo.class,
+    };
+    private static final int SLOT_COUNT = SLOT_KEYS.length + SLOT_CLASSES.length;
+
+    // static open addressing index from the well known key to its slot
+    private static final String[] INDEX_KEYS;
+    private static final int[] INDEX_HASHES;
+    private static final int[] INDEX_SLOTS;
+
+    private static final Object NULL_KEY = new Object();
+    private static final Object NULL_VALUE = new Object();
+    private static final int INITIAL_CAPACITY = 8;
+
+    static {
+        int len = Integer.highestOneBit(SLOT_COUNT * 4);
+        INDEX_KEYS = new String[len];
+        INDEX_HASHES = new int[len];
+        INDEX_SLOTS = new int[len];
+        for (int s = 0; s < SLOT_COUNT; s++) {
+            String key = s < SLOT_KEYS.length ? SLOT_KEYS[s] : SLOT_CLASSES[s - SLOT_KEYS.length].getName();
+            int h = key.hashCode();
+            int i = spread(h) & (len - 1);
+            while (INDEX_KEYS[i] != null) {
+                i = (i + 1) & (len - 1);
+            }
+            INDEX_KEYS[i] = key;
+            INDEX_HASHES[i] = h;
+            INDEX_SLOTS[i] = s;
+        }
+    }
+
+    // values of the well known keys, NULL_VALUE for a null value
+    private transient Object[] slots;
+    // other entries as key/value pairs, NULL_KEY for the null key
+    private transient Object[] table;
+    private transient int tableCount;
+    private transient int size;
 
     public StringMapImpl() {
     }
     public StringMapImpl(Map<String, Object> i) {
-        super(i);
+        putAll(i);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static int slotOf(String key) {
+        int h = key.hashCode();
+        int mask = INDEX_KEYS.length - 1;
+        int i = spread(h) & mask;
+        String k;
+        while ((k = INDEX_KEYS[i]) != null) {
+            if (k == key || (INDEX_HASHES[i] == h && k.equals(key))) {
+                return INDEX_SLOTS[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int slotOf(Class<?> key) {
+        for (int x = 0; x < SLOT_CLASSES.length; x++) {
+            if (SLOT_CLASSES[x] == key) {
+                return SLOT_KEYS.length + x;
+            }
+        }
+        return -1;
+    }
+
+    private static String slotKey(int s) {
+        return s < SLOT_KEYS.length ? SLOT_KEYS[s] : SLOT_CLASSES[s - SLOT_KEYS.length].getName();
     }
-    
+
     @SuppressWarnings("unchecked")
     public <T> T get(Class<T> key) {
+        int s = slotOf(key);
+        if (s != -1) {
+            return (T)getSlot(s);
+        }
         return (T)get(key.getName());
     }
 
     public <T> void put(Class<T> key, T value) {
         put(key.getName(), value);
     }
+
+    private Object getSlot(int s) {
+        if (slots == null) {
+            return null;
+        }
+        Object v = slots[s];
+        return v == NULL_VALUE ? null : v;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (key == null) {
+            return getFromTable(NULL_KEY);
+        } else if (!(key instanceof String)) {
+            return null;
+        }
+        int s = slotOf((String)key);
+        if (s != -1) {
+            return getSlot(s);
+        }
+        return getFromTable(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (key == null) {
+            return indexOf(NULL_KEY) != -1;
+        } else if (!(key instanceof String)) {
+            return false;
+        }
+        int s = slotOf((String)key);
+        if (s != -1) {
+            return slots != null && slots[s] != null;
+        }
+        return indexOf(key) != -1;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (key != null) {
+            int s = slotOf(key);
+            if (s != -1) {
+                if (slots == null) {
+                    slots = new Object[SLOT_COUNT];
+                }
+                Object old = slots[s];
+                slots[s] = value == null ? NULL_VALUE : value;
+                if (old == null) {
+                    size++;
+                    return null;
+                }
+                return old == NULL_VALUE ? null : old;
+            }
+        }
+        return putInTable(key == null ? NULL_KEY : key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (key == null) {
+            return removeFromTable(NULL_KEY);
+        } else if (!(key instanceof String)) {
+            return null;
+        }
+        int s = slotOf((String)key);
+        if (s != -1) {
+            if (slots == null || slots[s] == null) {
+                return null;
+            }
+            Object old = slots[s];
+            slots[s] = null;
+            size--;
+            return old == NULL_VALUE ? null : old;
+        }
+        return removeFromTable(key);
+    }
+
+    @Override
+    public void clear() {
+        slots = null;
+        table = null;
+        tableCount = 0;
+        size = 0;
+    }
+
+    private int indexOf(Object key) {
+        Object[] tab = table;
+        if (tab == null) {
+            return -1;
+        }
+        int mask = (tab.length >> 1) - 1;
+        int i = spread(key.hashCode()) & mask;
+        Object k;
+        while ((k = tab[i << 1]) != null) {
+            if (k == key || k.equals(key)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private Object getFromTable(Object key) {
+        int i = indexOf(key);
+        return i == -1 ? null : table[(i << 1) + 1];
+    }
+
+    private Object putInTable(Object key, Object value) {
+        if (table == null) {
+            table = new Object[INITIAL_CAPACITY << 1];
+        }
+        Object[] tab = table;
+        int mask = (tab.length >> 1) - 1;
+        int i = spread(key.hashCode()) & mask;
+        Object k;
+        while ((k = tab[i << 1]) != null) {
+            if (k == key || k.equals(key)) {
+                Object old = tab[(i << 1) + 1];
+                tab[(i << 1) + 1] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        tab[i << 1] = key;
+        tab[(i << 1) + 1] = value;
+        size++;
+        // keep the table at most 2/3 full
+        if (++tableCount * 3 > (mask + 1) * 2) {
+            resize();
+        }
+        return null;
+    }
+
+    private void resize() {
+        Object[] old = table;
+        Object[] tab = new Object[old.length << 1];
+        int mask = (tab.length >> 1) - 1;
+        for (int j = 0; j < old.length; j += 2) {
+            Object k = old[j];
+            if (k != null) {
+                int i = spread(k.hashCode()) & mask;
+                while (tab[i << 1] != null) {
+                    i = (i + 1) & mask;
+                }
+                tab[i << 1] = k;
+                tab[(i << 1) + 1] = old[j + 1];
+            }
+        }
+        table = tab;
+    }
+
+    private Object removeFromTable(Object key) {
+        int i = indexOf(key);
+        if (i == -1) {
+            return null;
+        }
+        Object[] tab = table;
+        Object old = tab[(i << 1) + 1];
+        int mask = (tab.length >> 1) - 1;
+        // shift the following entries of the probe sequence back
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            Object k = tab[j << 1];
+            if (k == null) {
+                break;
+            }
+            int ideal = spread(k.hashCode()) & mask;
+            boolean stays = i <= j ? (i < ideal && ideal <= j) : (i < ideal || ideal <= j);
+            if (!stays) {
+                tab[i << 1] = k;
+                tab[(i << 1) + 1] = tab[(j << 1) + 1];
+                i = j;
+            }
+        }
+        tab[i << 1] = null;
+        tab[(i << 1) + 1] = null;
+        tableCount--;
+        size--;
+        return old;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+            public int size() {
+                return size;
+            }
+            public void clear() {
+                StringMapImpl.this.clear();
+            }
+        };
+    }
+
+    private Object[] snapshot() {
+        Object[] entries = new Object[size << 1];
+        int n = 0;
+        if (slots != null) {
+            for (int s = 0; s < SLOT_COUNT; s++) {
+                Object v = slots[s];
+                if (v != null) {
+                    entries[n++] = slotKey(s);
+                    entries[n++] = v == NULL_VALUE ? null : v;
+                }
+            }
+        }
+        if (table != null) {
+            for (int j = 0; j < table.length; j += 2) {
+                Object k = table[j];
+                if (k != null) {
+                    entries[n++] = k == NULL_KEY ? null : k;
+                    entries[n++] = table[j + 1];
+                }
+            }
+        }
+        return entries;
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        final Object[] entries = snapshot();
+        int next;
+        Entry current;
+
+        public boolean hasNext() {
+            return next < entries.length;
+        }
+
+        public Map.Entry<String, Object> next() {
+            if (next >= entries.length) {
+                throw new NoSuchElementException();
+            }
+            current = new Entry((String)entries[next], entries[next + 1]);
+            next += 2;
+            return current;
+        }
+
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            StringMapImpl.this.remove(current.getKey());
+            current = null;
+        }
+    }
+
+    private class Entry extends AbstractMap.SimpleEntry<String, Object> {
+        private static final long serialVersionUID = 1L;
+
+        Entry(String key, Object value) {
+            super(key, value);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            StringMapImpl.this.put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        Object[] entries = snapshot();
+        out.writeInt(entries.length >> 1);
+        for (Object o : entries) {
+            out.writeObject(o);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int count = in.readInt();
+        for (int x = 0; x < count; x++) {
+            put((String)in.readObject(), in.readObject());
+        }
+    }
 }
@@ -35,32 +35,48 @@ import org.apache.cxf.message.Message;
  * phases supplied in the get() methods of this class are defined by default
  * within org.apache.cxf.phase.PhaseManagerImpl.  For an example of this class 
  * in use, check the sourcecode of org.apache.cxf.endpoint.ClientImpl.
+ * <p>
+ * As long as the same interceptor lists are passed in and none of the
+ * ModCountCopyOnWriteArrayList instances have been modified since the chain
+ * was built, a lookup only compares the mod counts of those lists.  The hit,
+ * revalidation and rebuild counts go to the PhaseChainCacheStatistics the
+ * cache was created with.
  */
 public final class PhaseChainCache {
     AtomicReference<ChainHolder> lastData = new AtomicReference<ChainHolder>();
     
+    private final PhaseChainCacheStatistics statistics;
+    
+    public PhaseChainCache() {
+        this(new PhaseChainCacheStatistics());
+    }
+    
+    public PhaseChainCache(PhaseChainCacheStatistics stats) {
+        statistics = stats;
+    }
+    
     public PhaseInterceptorChain get(SortedSet<Phase> phaseList,
                                      List<Interceptor<? extends Message>> p1) {
-        return getChain(lastData, phaseList, p1);
+        return getChain(lastData, statistics, phaseList, p1);
     }
 
     public PhaseInterceptorChain get(SortedSet<Phase> phaseList,
                                      List<Interceptor<? extends Message>> p1,
                                      List<Interceptor<? extends Message>> p2) {
-        return getChain(lastData, phaseList, p1, p2);
+        return getChain(lastData, statistics, phaseList, p1, p2);
     }
     public PhaseInterceptorChain get(SortedSet<Phase> phaseList,
                                      List<Interceptor<? extends Message>> p1,
                                      List<Interceptor<? extends Message>> p2,
                                      List<Interceptor<? extends Message>> p3) {
-        return getChain(lastData, phaseList, p1, p2, p3);
+        return getChain(lastData, statistics, phaseList, p1, p2, p3);
     }
     public PhaseInterceptorChain get(SortedSet<Phase> phaseList,
                                      List<Interceptor<? extends Message>> p1,
                                      List<Interceptor<? extends Message>> p2,
                                      List<Interceptor<? extends Message>> p3,
                                      List<Interceptor<? extends Message>> p4) {
-        return getChain(lastData, phaseList, p1, p2, p3, p4);
+        return getChain(lastData, statistics, phaseList, p1, p2, p3, p4);
     }
     public PhaseInterceptorChain get(SortedSet<Phase> phaseList,
                                      List<Interceptor<? extends Message>> p1,
@@ -68,15 +84,28 @@ public final class PhaseChainCache {
                                      List<Interceptor<? extends Message>> p3,
                                      List<Interceptor<? extends Message>> p4,
                                      List<Interceptor<? extends Message>> p5) {
-        return getChain(lastData, phaseList, p1, p2, p3, p4, p5);
+        return getChain(lastData, statistics, phaseList, p1, p2, p3, p4, p5);
+    }
+    
+    public PhaseChainCacheStatistics getStatistics() {
+        return statistics;
     }
     
     @SafeVarargs
     static PhaseInterceptorChain getChain(AtomicReference<ChainHolder> lastData,
+                                          PhaseChainCacheStatistics statistics,
                                           SortedSet<Phase> phaseList,
                                          List<Interceptor<? extends Message>> ... providers) {
         ChainHolder last = lastData.get();
         
+        if (last != null && last.isCurrent(providers)) {
+            statistics.hit();
+            return last.chain.cloneChain();
+        }
+        
+        // read the mod counts before looking at the lists so that a concurrent
+        // modification is picked up by the next lookup
+        int[] versions = ChainHolder.versionsOf(providers);
         if (last == null 
             || !last.matches(providers)) {
             
@@ -88,8 +117,12 @@ public final class PhaseChainCache {
                 copy.add(new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>(p));
                 chain.add(p);
             }
-            last = new ChainHolder(chain, copy);
+            last = new ChainHolder(chain, copy, providers, versions);
             lastData.set(last);
+            statistics.rebuilt();
+        } else {
+            statistics.revalidated();
+            lastData.compareAndSet(last, new ChainHolder(last.chain, last.lists, providers, versions));
         }
         
         
@@ -100,10 +133,51 @@ public final class PhaseChainCache {
         List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> lists;
         PhaseInterceptorChain chain;
         
+        // the provider lists the chain was validated against and their mod
+        // counts at that time, null if one of the providers is not a
+        // ModCountCopyOnWriteArrayList and cannot be tracked
+        List<?>[] sources;
+        int[] versions;
+        
         ChainHolder(PhaseInterceptorChain c, 
-                    List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> l) {
+                    List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> l,
+                    List<?>[] providers,
+                    int[] v) {
             lists = l;
             chain = c;
+            if (v != null) {
+                versions = v;
+                sources = providers.clone();
+            }
+        }
+        
+        static int[] versionsOf(List<?>[] providers) {
+            int[] v = new int[providers.length];
+            for (int x = 0; x < providers.length; x++) {
+                if (providers[x].getClass() != ModCountCopyOnWriteArrayList.class) {
+                    return null;
+                }
+                v[x] = ((ModCountCopyOnWriteArrayList<?>)providers[x]).getModCount();
+            }
+            return v;
+        }
+        
+        /**
+         * Fast path: the same provider lists as last time and none of them
+         * have been changed since.
+         */
+        final boolean isCurrent(List<?>[] providers) {
+            List<?>[] s = sources;
+            if (s == null || s.length != providers.length) {
+                return false;
+            }
+            for (int x = 0; x < providers.length; x++) {
+                if (s[x] != providers[x]
+                    || versions[x] != ((ModCountCopyOnWriteArrayList<?>)providers[x]).getModCount()) {
+                    return false;
+                }
+            }
+            return true;
         }
         
         @SafeVarargs
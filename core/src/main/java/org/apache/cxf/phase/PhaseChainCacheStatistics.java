@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.phase;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.cxf.Bus;
+
+/**
+ * The hit, revalidation and rebuild counts of the PhaseChainCache instances
+ * that share it.  The caches created for the endpoints and clients of a bus
+ * all use the instance registered as an extension of that bus.
+ */
+public final class PhaseChainCacheStatistics {
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter revalidations = new StripedCounter();
+    private final AtomicLong rebuilds = new AtomicLong();
+    
+    /**
+     * Returns the statistics shared by the caches of the given bus, or a new
+     * unshared instance if there is no bus.
+     */
+    public static PhaseChainCacheStatistics getInstance(Bus bus) {
+        if (bus == null) {
+            return new PhaseChainCacheStatistics();
+        }
+        PhaseChainCacheStatistics stats = bus.getExtension(PhaseChainCacheStatistics.class);
+        if (stats == null) {
+            synchronized (bus) {
+                stats = bus.getExtension(PhaseChainCacheStatistics.class);
+                if (stats == null) {
+                    stats = new PhaseChainCacheStatistics();
+                    bus.setExtension(stats, PhaseChainCacheStatistics.class);
+                }
+            }
+        }
+        return stats;
+    }
+    
+    /**
+     * Number of lookups that were satisfied by the version check.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    /**
+     * Number of lookups where a list had been changed (or could not be
+     * tracked) but the interceptors turned out to be unchanged.
+     */
+    public long getRevalidationCount() {
+        return revalidations.sum();
+    }
+    
+    /**
+     * Number of lookups that had to build a new chain.
+     */
+    public long getRebuildCount() {
+        return rebuilds.get();
+    }
+    
+    void hit() {
+        hits.increment();
+    }
+    
+    void revalidated() {
+        revalidations.increment();
+    }
+    
+    void rebuilt() {
+        rebuilds.incrementAndGet();
+    }
+    
+    /**
+     * A hit counter that does not make every request thread update the same
+     * cache line.
+     */
+    private static final class StripedCounter {
+        // 8 longs apart so that each stripe sits on its own cache line
+        private static final int STRIDE = 8;
+        private static final int STRIPES = 16;
+        
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * STRIDE);
+        
+        void increment() {
+            int idx = (int)(Thread.currentThread().getId() & (STRIPES - 1)) * STRIDE;
+            cells.incrementAndGet(idx);
+        }
+        
+        long sum() {
+            long sum = 0;
+            for (int x = 0; x < STRIPES; x++) {
+                sum += cells.get(x * STRIDE);
+            }
+            return sum;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,6 +69,9 @@ public class PhaseInterceptorChain implements InterceptorChain {
 
     private static final ThreadLocal<Message> CURRENT_MESSAGE = new ThreadLocal<Message>();
     
+    private static final AtomicReferenceFieldUpdater<PhaseInterceptorChain, State> STATE_UPDATER
+        = AtomicReferenceFieldUpdater.newUpdater(PhaseInterceptorChain.class, State.class, "state");
+    
     private final Map<String, Integer> nameMap;
     private final Phase phases[];
 
@@ -84,8 +88,10 @@ public class PhaseInterceptorChain implements InterceptorChain {
     private boolean hasAfters[];
 
     
-    private State state;
-    private Message pausedMessage;
+    // state transitions are done with CAS on this field so that state queries
+    // and pause/suspend/abort requests never need to acquire the chain monitor
+    private volatile State state;
+    private volatile Message pausedMessage;
     private MessageObserver faultObserver;
     private PhaseInterceptorIterator iterator;
     private final boolean isFineLogging;
@@ -177,7 +183,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
         
     }
     
-    public synchronized State getState() {
+    public State getState() {
         return state;
     }
     
@@ -253,26 +259,28 @@ public class PhaseInterceptorChain implements InterceptorChain {
         }
     }
 
-    public synchronized void pause() {
-        state = State.PAUSED;
+    public void pause() {
         pausedMessage = CURRENT_MESSAGE.get();
+        state = State.PAUSED;
     }
-    public synchronized void unpause() {
-        if (state == State.PAUSED || state == State.SUSPENDED) {
-            state = State.EXECUTING;
+    public void unpause() {
+        if (STATE_UPDATER.compareAndSet(this, State.PAUSED, State.EXECUTING)
+            || STATE_UPDATER.compareAndSet(this, State.SUSPENDED, State.EXECUTING)) {
             pausedMessage = null;
         }
     }
     
-    public synchronized void suspend() {
-        state = State.SUSPENDED;
+    public void suspend() {
         pausedMessage = CURRENT_MESSAGE.get();
+        state = State.SUSPENDED;
     }
 
     public synchronized void resume() {
-        if (state == State.PAUSED || state == State.SUSPENDED) {
-            state = State.EXECUTING;
-            Message m = pausedMessage;
+        // the monitor is still taken here so that a resume issued from another
+        // thread cannot let the pausing thread carry on walking the chain
+        Message m = pausedMessage;
+        if (STATE_UPDATER.compareAndSet(this, State.PAUSED, State.EXECUTING)
+            || STATE_UPDATER.compareAndSet(this, State.SUSPENDED, State.EXECUTING)) {
             pausedMessage = null;
             doIntercept(m);
         }
@@ -297,10 +305,12 @@ public class PhaseInterceptorChain implements InterceptorChain {
                 && message.getExchange() != oldMessage.getExchange()) {
                 message.put(PREVIOUS_MESSAGE, new WeakReference<Message>(oldMessage));
             }
-            while (state == State.EXECUTING && iterator.hasNext()) {
+            final PhaseInterceptorIterator it = iterator;
+            final boolean fineLogging = isFineLogging;
+            while (state == State.EXECUTING && it.hasNext()) {
                 try {
-                    Interceptor<Message> currentInterceptor = (Interceptor<Message>)iterator.next();
-                    if (isFineLogging) {
+                    Interceptor<Message> currentInterceptor = (Interceptor<Message>)it.next();
+                    if (fineLogging) {
                         LOG.fine("Invoking handleMessage on interceptor " + currentInterceptor);
                     }
                     //System.out.println("-----------" + currentInterceptor);
@@ -312,8 +322,8 @@ public class PhaseInterceptorChain implements InterceptorChain {
                     
                 } catch (SuspendedInvocationException ex) {
                     // we need to resume from the same interceptor the exception got originated from
-                    if (iterator.hasPrevious()) {
-                        iterator.previous();
+                    if (it.hasPrevious()) {
+                        it.previous();
                     }
                     pause();
                     throw ex;
@@ -325,9 +335,8 @@ public class PhaseInterceptorChain implements InterceptorChain {
                     state = State.ABORTED;
                 } 
             }
-            if (state == State.EXECUTING) {
-                state = State.COMPLETE;
-            }
+            // only complete if nobody paused, suspended or aborted the chain in the meantime
+            STATE_UPDATER.compareAndSet(this, State.EXECUTING, State.COMPLETE);
             return state == State.COMPLETE;
         } finally {
             CURRENT_MESSAGE.set(oldMessage);
@@ -470,12 +479,8 @@ public class PhaseInterceptorChain implements InterceptorChain {
 
     public synchronized void reset() {
         updateIterator();
-        if (state == State.COMPLETE) {
-            state = State.EXECUTING;
-            iterator.reset();
-        } else {
-            iterator.reset();
-        }
+        STATE_UPDATER.compareAndSet(this, State.COMPLETE, State.EXECUTING);
+        iterator.reset();
     }
     
     @SuppressWarnings("unchecked")
@@ -508,7 +513,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
         }
     }
 
-    public synchronized void abort() {
+    public void abort() {
         this.state = InterceptorChain.State.ABORTED;
     }
 
@@ -32,6 +32,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -88,6 +89,7 @@ import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.PropertyUtils;
 import org.apache.cxf.common.util.StringUtils;
 import org.apache.cxf.common.util.SystemPropertyAction;
+import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.helpers.DOMUtils;
 import org.apache.cxf.message.Message;
@@ -112,6 +114,16 @@ public final class StaxUtils {
 
     public static final String ALLOW_INSECURE_PARSER = 
         "org.apache.cxf.stax.allowInsecureParser";
+
+    /**
+     * Value of the {@code javax.xml.stream.XMLInputFactory} contextual property
+     * (see StaxInInterceptor) that gives each endpoint an input factory of its
+     * own.  Woodstox keeps its symbol table in the factory and merges the names
+     * seen by a reader back into it when the reader is closed, so a dedicated
+     * factory keeps a symbol table that is warm for the vocabulary of that
+     * service and is not contended by other services.
+     */
+    public static final String ENDPOINT_INPUT_FACTORY = "endpoint";
     
     private static final String INNER_ELEMENT_COUNT_SYSTEM_PROP = 
         "org.apache.cxf.staxutils.innerElementCountThreshold";
@@ -120,6 +132,8 @@ public final class StaxUtils {
     
     private static final Logger LOG = LogUtils.getL7dLogger(StaxUtils.class);
     
+    private static final String ENDPOINT_INPUT_FACTORY_KEY = StaxUtils.class.getName() + ".InputFactory";
+    
     private static final BlockingQueue<XMLInputFactory> NS_AWARE_INPUT_FACTORY_POOL;
     private static final XMLInputFactory SAFE_INPUT_FACTORY;
     private static final BlockingQueue<XMLOutputFactory> OUTPUT_FACTORY_POOL;
@@ -298,6 +312,46 @@ public final class StaxUtils {
         }
     }
     
+    /**
+     * Returns the input factory dedicated to the endpoint of the message, or
+     * null if there is no endpoint or the parser is not one known to be thread
+     * safe, in which case the shared factories are to be used.  The factory is
+     * created like the shared ones and stored on the endpoint under the
+     * {@code javax.xml.stream.XMLInputFactory} property, where the following
+     * messages find it, so it goes away with the endpoint.
+     */
+    public static XMLInputFactory getEndpointXMLInputFactory(Message m) {
+        if (SAFE_INPUT_FACTORY == null || m.getExchange() == null) {
+            return null;
+        }
+        Endpoint ep = m.getExchange().getEndpoint();
+        if (ep == null) {
+            return null;
+        }
+        Object f = ep.get(ENDPOINT_INPUT_FACTORY_KEY);
+        if (f == null) {
+            synchronized (ep) {
+                f = ep.get(ENDPOINT_INPUT_FACTORY_KEY);
+                if (f == null) {
+                    f = createXMLInputFactory(true);
+                    ep.put(ENDPOINT_INPUT_FACTORY_KEY, f);
+                    ep.put(XMLInputFactory.class.getName(), f);
+                }
+            }
+        }
+        return (XMLInputFactory)f;
+    }
+    
+    /**
+     * Returns true if the factory is the one created for the endpoint of the
+     * message by {@link #getEndpointXMLInputFactory(Message)}; such a factory
+     * can be used by concurrent threads without locking.
+     */
+    public static boolean isEndpointXMLInputFactory(Message m, XMLInputFactory factory) {
+        Endpoint ep = m.getExchange() == null ? null : m.getExchange().getEndpoint();
+        return ep != null && ep.get(ENDPOINT_INPUT_FACTORY_KEY) == factory;
+    }
+    
     /**
      * Return a new factory so that the caller can set sticky parameters.
      * @param nsAware
@@ -776,7 +830,61 @@ public final class StaxUtils {
         }
     }
 
-    private static void writeStartElement(XMLStreamReader reader, XMLStreamWriter writer)
+    /**
+     * Copies the element the reader is positioned on, including all of its
+     * content, and leaves the reader on the END_ELEMENT of that element.
+     * The given prefix to namespace bindings (typically the ones in scope on
+     * the ancestors of the element) are declared on the copied element unless
+     * the writer already has them bound, so the copy stays self-contained.
+     */
+    public static void copyElement(XMLStreamReader reader, XMLStreamWriter writer,
+                                   Map<String, String> inheritedNamespaces) throws XMLStreamException {
+        int depth = 0;
+        int event = reader.getEventType();
+        while (true) {
+            switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                writeStartElement(reader, writer);
+                if (depth == 0 && inheritedNamespaces != null) {
+                    for (Map.Entry<String, String> ns : inheritedNamespaces.entrySet()) {
+                        String bound = writer.getNamespaceContext().getNamespaceURI(ns.getKey());
+                        if (StringUtils.isEmpty(bound)) {
+                            if (ns.getKey().length() == 0) {
+                                writer.writeDefaultNamespace(ns.getValue());
+                                writer.setDefaultNamespace(ns.getValue());
+                            } else {
+                                writer.writeNamespace(ns.getKey(), ns.getValue());
+                                writer.setPrefix(ns.getKey(), ns.getValue());
+                            }
+                        }
+                    }
+                }
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                writer.writeEndElement();
+                if (--depth == 0) {
+                    return;
+                }
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                writer.writeCharacters(reader.getText());
+                break;
+            case XMLStreamConstants.COMMENT:
+                writer.writeComment(reader.getText());
+                break;
+            case XMLStreamConstants.CDATA:
+                writer.writeCData(reader.getText());
+                break;
+            default:
+                break;
+            }
+            event = reader.next();
+        }
+    }
+
+    public static void writeStartElement(XMLStreamReader reader, XMLStreamWriter writer)
         throws XMLStreamException {
         String uri = reader.getNamespaceURI();
         String prefix = reader.getPrefix();
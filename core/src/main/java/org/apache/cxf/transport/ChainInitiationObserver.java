@@ -40,6 +40,7 @@ import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.PhaseChainCache;
+import org.apache.cxf.phase.PhaseChainCacheStatistics;
 import org.apache.cxf.phase.PhaseManager;
 import org.apache.cxf.service.Service;
 import org.apache.cxf.service.model.EndpointInfo;
@@ -49,12 +50,13 @@ public class ChainInitiationObserver implements MessageObserver {
     protected Bus bus;
     protected ClassLoader loader;
     
-    private PhaseChainCache chainCache = new PhaseChainCache();
+    private PhaseChainCache chainCache;
 
     public ChainInitiationObserver(Endpoint endpoint, Bus bus) {
         super();
         this.endpoint = endpoint;
         this.bus = bus;
+        chainCache = new PhaseChainCache(PhaseChainCacheStatistics.getInstance(bus));
         if (bus != null) {
             loader = bus.getExtension(ClassLoader.class);
         }
@@ -0,0 +1,199 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.classloader.ClassLoaderUtils;
+import org.apache.cxf.common.classloader.ClassLoaderUtils.ClassLoaderHolder;
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * Base class for the AutomaticWorkQueue implementations that are not backed
+ * by a ThreadPoolExecutor.  It bounds the number of submitted but not yet
+ * completed tasks so that <code>execute(Runnable, long)</code> keeps its
+ * "wait up to timeout, then reject" semantics, runs every task with the
+ * context classloader of the submitting thread and implements
+ * <code>schedule</code> with a single timer thread that hands due tasks
+ * over to <code>execute</code>.
+ */
+public abstract class AbstractAutomaticWorkQueue implements AutomaticWorkQueue {
+    public static final int UNBOUNDED = -1;
+
+    private static final Logger LOG = LogUtils.getL7dLogger(AbstractAutomaticWorkQueue.class);
+
+    String name = "default";
+    int maxQueueSize;
+    volatile Semaphore permits;
+    volatile boolean shutdown;
+    ScheduledThreadPoolExecutor scheduler;
+
+    protected AbstractAutomaticWorkQueue(String name, int maxQueueSize) {
+        this.name = name;
+        setQueueSize(maxQueueSize);
+    }
+
+    public void setName(String s) {
+        name = s;
+    }
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the maximum number of tasks that may be submitted but not yet
+     * completed, a value of -1 (or any non positive value) means unbounded.
+     */
+    public final void setQueueSize(int size) {
+        maxQueueSize = size;
+        permits = size > 0 ? new Semaphore(size) : null;
+    }
+    public long getMaxSize() {
+        return maxQueueSize > 0 ? maxQueueSize : Integer.MAX_VALUE;
+    }
+
+    /**
+     * The number of tasks submitted but not yet completed.
+     */
+    public long getSize() {
+        Semaphore s = permits;
+        return s == null ? getUnboundedSize() : maxQueueSize - s.availablePermits();
+    }
+
+    protected long getUnboundedSize() {
+        return -1;
+    }
+
+    public boolean isFull() {
+        Semaphore s = permits;
+        return s != null && s.availablePermits() == 0;
+    }
+
+    public void execute(Runnable work) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Work queue " + name + " is shut down");
+        }
+        Semaphore s = permits;
+        if (s != null && !s.tryAcquire()) {
+            throw new RejectedExecutionException("Work queue " + name + " is full");
+        }
+        submit(work, s);
+    }
+
+    public void execute(Runnable work, long timeout) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Work queue " + name + " is shut down");
+        }
+        Semaphore s = permits;
+        try {
+            if (s != null && !s.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Work queue " + name + " is full");
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(ie);
+        }
+        submit(work, s);
+    }
+
+    private void submit(final Runnable command, final Semaphore s) {
+        //Run the task with the context classloader of the submitting thread
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        Runnable r = new Runnable() {
+            public void run() {
+                ClassLoaderHolder orig = ClassLoaderUtils.setThreadContextClassloader(loader);
+                try {
+                    command.run();
+                } finally {
+                    if (orig != null) {
+                        orig.reset();
+                    }
+                    if (s != null) {
+                        s.release();
+                    }
+                }
+            }
+        };
+        try {
+            dispatch(r);
+        } catch (RuntimeException ex) {
+            if (s != null) {
+                s.release();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Hands the (already wrapped) task over to the underlying threads.
+     */
+    protected abstract void dispatch(Runnable r);
+
+    public synchronized void schedule(final Runnable work, final long delay) {
+        if (scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, name + "-workqueue-scheduler");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        scheduler.schedule(new Runnable() {
+            public void run() {
+                try {
+                    execute(work);
+                } catch (Exception ex) {
+                    LOG.warning("Executing the scheduled task with exception: " + ex);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown(boolean processRemainingWorkItems) {
+        shutdown = true;
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+        }
+        doShutdown(processRemainingWorkItems);
+    }
+
+    protected abstract void doShutdown(boolean processRemainingWorkItems);
+
+    public String toString() {
+        StringBuilder buf = new StringBuilder();
+        buf.append(super.toString());
+        buf.append(" [name: ");
+        buf.append(name);
+        buf.append(", size: ");
+        buf.append(getSize());
+        buf.append(", max size: ");
+        buf.append(maxQueueSize);
+        buf.append("]");
+        return buf.toString();
+    }
+}
@@ -53,6 +53,7 @@ import org.apache.cxf.common.util.ReflectionUtil;
 public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
     public static final String PROPERTY_NAME = "name";
     static final int DEFAULT_MAX_QUEUE_SIZE = 256;
+    static final long DEFAULT_ADJUSTMENT_INTERVAL = 1000L;
     private static final Logger LOG =
         LogUtils.getL7dLogger(AutomaticWorkQueueImpl.class);
     
@@ -79,6 +80,15 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
     boolean shared;
     int sharedCount;
     
+    final WorkQueueStatistics statistics = new WorkQueueStatistics();
+    volatile long targetQueueDelay = -1;
+    int maxHighWaterMark = -1;
+    long adjustmentInterval = DEFAULT_ADJUSTMENT_INTERVAL;
+    volatile long lastAdjustment;
+    long lastStartedCount;
+    long lastTotalDelay;
+    final ReentrantLock adjustLock = new ReentrantLock();
+    
     private List<PropertyChangeListener> changeListenerList;
     
     public AutomaticWorkQueueImpl() {
@@ -417,12 +427,24 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
     }
     
     public void execute(final Runnable command) {
+        try {
+            doExecute(wrap(command));
+        } catch (RejectedExecutionException ree) {
+            statistics.taskRejected();
+            throw ree;
+        }
+    }
+    
+    private Runnable wrap(final Runnable command) {
         //Grab the context classloader of this thread.   We'll make sure we use that 
         //on the thread the runnable actually runs on.
         
         final ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        Runnable r = new Runnable() {
+        final long submitted = System.nanoTime();
+        return new Runnable() {
             public void run() {
+                long start = System.nanoTime();
+                statistics.taskStarted(start - submitted);
                 ClassLoaderHolder orig = ClassLoaderUtils.setThreadContextClassloader(loader);
                 try {
                     command.run();
@@ -430,9 +452,13 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
                     if (orig != null) {
                         orig.reset();
                     }
+                    statistics.taskCompleted(System.nanoTime() - start);
                 }
             }
         };
+    }
+    
+    private void doExecute(Runnable r) {
         //The ThreadPoolExecutor in the JDK doesn't expand the number
         //of threads until the queue is full.   However, we would 
         //prefer the number of threads to expand immediately and 
@@ -463,18 +489,85 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
                 addThreadLock.unlock();
             }
         }
+        if (targetQueueDelay > 0) {
+            adjustHighWaterMark();
+        }
+    }
+    
+    /**
+     * Grows or shrinks the high water mark so the mean delay between
+     * submitting and starting a task over the last adjustment interval
+     * approaches the target queue delay.  It grows by a quarter when the
+     * delay is above the target and shrinks by an eighth when the delay is
+     * below half the target and less than half the threads are busy.
+     */
+    void adjustHighWaterMark() {
+        long now = System.nanoTime();
+        long interval = TimeUnit.MILLISECONDS.toNanos(adjustmentInterval);
+        if (now - lastAdjustment < interval || !adjustLock.tryLock()) {
+            return;
+        }
+        try {
+            if (now - lastAdjustment < interval) {
+                return;
+            }
+            lastAdjustment = now;
+            long started = statistics.getStartedCount();
+            long totalDelay = statistics.getTotalQueueDelay();
+            long count = started - lastStartedCount;
+            long delay = totalDelay - lastTotalDelay;
+            lastStartedCount = started;
+            lastTotalDelay = totalDelay;
+            
+            ThreadPoolExecutor ex = executor;
+            int hwm = ex.getMaximumPoolSize();
+            if (hwm == Integer.MAX_VALUE) {
+                return;
+            }
+            if (maxHighWaterMark <= 0) {
+                //fix the limit relative to the configured, not the adjusted, high water mark
+                maxHighWaterMark = getMaxHighWaterMark();
+            }
+            int max = maxHighWaterMark;
+            int min = Math.max(1, ex.getCorePoolSize());
+            long target = TimeUnit.MILLISECONDS.toNanos(targetQueueDelay);
+            int newHwm = hwm;
+            if (count == 0) {
+                if (!ex.getQueue().isEmpty()) {
+                    //nothing got started although work is waiting
+                    newHwm = Math.min(max, hwm + Math.max(1, hwm / 4));
+                }
+            } else if (delay / count > target) {
+                newHwm = Math.min(max, hwm + Math.max(1, hwm / 4));
+            } else if (delay / count < target / 2 && ex.getActiveCount() < hwm / 2) {
+                newHwm = Math.max(min, hwm - Math.max(1, hwm / 8));
+            }
+            if (newHwm != hwm) {
+                if (LOG.isLoggable(Level.FINE)) {
+                    LOG.fine("Adjusting high water mark of work queue " + name 
+                             + " from " + hwm + " to " + newHwm);
+                }
+                highWaterMark = newHwm;
+                ex.setMaximumPoolSize(newHwm);
+            }
+        } finally {
+            adjustLock.unlock();
+        }
     }
     
     // WorkQueue interface
     public void execute(Runnable work, long timeout) {
+        Runnable r = wrap(work);
         try {
-            execute(work);
+            doExecute(r);
         } catch (RejectedExecutionException ree) {
             try {
-                if (!getExecutor().getQueue().offer(work, timeout, TimeUnit.MILLISECONDS)) {
+                if (!getExecutor().getQueue().offer(r, timeout, TimeUnit.MILLISECONDS)) {
+                    statistics.taskRejected();
                     throw ree;
                 }
             } catch (InterruptedException ie) {
+                statistics.taskRejected();
                 throw ree;
             }
         }    
@@ -569,6 +662,48 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
         this.maxQueueSize = size;
     }
     
+    public WorkQueueStatistics getStatistics() {
+        return statistics;
+    }
+    
+    public long getTargetQueueDelay() {
+        return targetQueueDelay;
+    }
+    
+    /**
+     * Sets the mean queue delay (in milliseconds) the high water mark is
+     * adjusted for, a value of -1 (the default) disables the adjustment.
+     */
+    public void setTargetQueueDelay(long delay) {
+        notifyChangeListeners(new PropertyChangeEvent(this, "targetQueueDelay", 
+                                                      this.targetQueueDelay, delay));
+        this.targetQueueDelay = delay;
+    }
+    
+    /**
+     * The limit the high water mark is grown to when adjusting for the target
+     * queue delay, four times the configured high water mark if not set.
+     */
+    public int getMaxHighWaterMark() {
+        if (maxHighWaterMark > 0) {
+            return maxHighWaterMark;
+        }
+        return highWaterMark > Integer.MAX_VALUE / 4 ? Integer.MAX_VALUE : highWaterMark * 4;
+    }
+    
+    public void setMaxHighWaterMark(int max) {
+        notifyChangeListeners(new PropertyChangeEvent(this, "maxHighWaterMark", this.maxHighWaterMark, max));
+        this.maxHighWaterMark = max;
+    }
+    
+    public long getAdjustmentInterval() {
+        return adjustmentInterval;
+    }
+    
+    public void setAdjustmentInterval(long interval) {
+        this.adjustmentInterval = interval;
+    }
+    
     public void setDequeueTimeout(long l) {
         notifyChangeListeners(new PropertyChangeEvent(this, "dequeueTimeout", this.dequeueTimeout, l));
         this.dequeueTimeout = l;
@@ -619,6 +754,10 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
         if (s != null) {
             this.maxQueueSize = Integer.parseInt(s);
         } 
+        s = config.get("targetQueueDelay");
+        if (s != null) {
+            this.targetQueueDelay = Long.parseLong(s);
+        } 
     }
     public Dictionary<String, String> getProperties() {
         Dictionary<String, String> properties = new Hashtable<String, String>();
@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+
+/**
+ * An AutomaticWorkQueue backed by a work-stealing ForkJoinPool running in
+ * asynchronous (FIFO) mode.  Each worker keeps its own deque, so submitting
+ * and taking tasks does not contend on the single lock of the
+ * ThreadPoolExecutor queue used by {@link AutomaticWorkQueueImpl}.
+ * <p>
+ * The pool runs a fixed number of threads (the high water mark, which
+ * defaults to the number of available processors), so it suits short,
+ * mostly non-blocking tasks.  Workloads that block for a long time in I/O
+ * are better served by the thread pool or the {@link ThreadPerTaskWorkQueue}.
+ */
+@NoJSR250Annotations
+public class ForkJoinWorkQueue extends AbstractAutomaticWorkQueue {
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 256;
+
+    int highWaterMark;
+    ForkJoinPool pool;
+
+    public ForkJoinWorkQueue() {
+        this("default");
+    }
+    public ForkJoinWorkQueue(String name) {
+        this(name, DEFAULT_MAX_QUEUE_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+    public ForkJoinWorkQueue(String name, int maxQueueSize, int highWaterMark) {
+        super(name, maxQueueSize);
+        setHighWaterMark(highWaterMark);
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+    /**
+     * Sets the parallelism of the pool, only effective before the first task
+     * is executed.
+     */
+    public void setHighWaterMark(int hwm) {
+        highWaterMark = hwm > 0 ? hwm : Runtime.getRuntime().availableProcessors();
+    }
+
+    protected synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(highWaterMark, new WorkerThreadFactory(), null, true);
+        }
+        return pool;
+    }
+
+    protected void dispatch(Runnable r) {
+        getPool().execute(r);
+    }
+
+    protected long getUnboundedSize() {
+        ForkJoinPool p = pool;
+        if (p == null) {
+            return 0;
+        }
+        return p.getQueuedSubmissionCount() + p.getQueuedTaskCount() + p.getActiveThreadCount();
+    }
+
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    public int getPoolSize() {
+        ForkJoinPool p = pool;
+        return p == null ? 0 : p.getPoolSize();
+    }
+
+    public int getActiveCount() {
+        ForkJoinPool p = pool;
+        return p == null ? 0 : p.getActiveThreadCount();
+    }
+
+    /**
+     * The number of tasks taken from the deque of another worker.
+     */
+    public long getStealCount() {
+        ForkJoinPool p = pool;
+        return p == null ? 0 : p.getStealCount();
+    }
+
+    protected synchronized void doShutdown(boolean processRemainingWorkItems) {
+        if (pool != null) {
+            if (processRemainingWorkItems) {
+                pool.shutdown();
+            } else {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    public boolean isShutdown() {
+        if (!shutdown) {
+            return false;
+        }
+        synchronized (this) {
+            return pool == null || pool.isTerminated();
+        }
+    }
+
+    class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        public ForkJoinWorkerThread newThread(ForkJoinPool p) {
+            ForkJoinWorkerThread t = new ForkJoinWorkerThread(p) {
+            };
+            t.setName(name + "-workqueue-" + threadNumber.getAndIncrement());
+            //force the loader to be the loader of CXF, not the application loader,
+            //the loader of the submitting thread is set for each task
+            t.setContextClassLoader(ForkJoinWorkQueue.class.getClassLoader());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
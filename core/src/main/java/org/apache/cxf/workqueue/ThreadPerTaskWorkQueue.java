@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * An AutomaticWorkQueue that starts a new virtual thread for every task on
+ * runtimes that provide them (<code>Thread.ofVirtual()</code>), so tasks that
+ * block in I/O do not tie up a platform thread and no pool has to be sized
+ * for them.  On older runtimes the tasks are handed to an
+ * {@link AutomaticWorkQueueImpl} bounded by the high water mark instead, as
+ * starting a platform thread per task would let a load spike create threads
+ * without limit.
+ * <p>
+ * The number of tasks running at the same time is bounded by the queue size,
+ * which is unbounded by default.
+ */
+@NoJSR250Annotations
+public class ThreadPerTaskWorkQueue extends AbstractAutomaticWorkQueue {
+    private static final Logger LOG = LogUtils.getL7dLogger(ThreadPerTaskWorkQueue.class);
+
+    final AtomicInteger running = new AtomicInteger();
+    ThreadFactory threadFactory;
+    AutomaticWorkQueueImpl platformQueue;
+    int highWaterMark = 25;
+
+    public ThreadPerTaskWorkQueue() {
+        this("default");
+    }
+    public ThreadPerTaskWorkQueue(String name) {
+        this(name, UNBOUNDED);
+    }
+    public ThreadPerTaskWorkQueue(String name, int maxQueueSize) {
+        super(name, maxQueueSize);
+    }
+
+    /**
+     * Sets the maximum number of platform threads used when the runtime does
+     * not provide virtual threads.
+     */
+    public void setHighWaterMark(int hwm) {
+        highWaterMark = hwm;
+    }
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Returns true if the tasks run on virtual threads.
+     */
+    public synchronized boolean isVirtual() {
+        return getThreadFactory() != null;
+    }
+
+    /**
+     * Returns true if the runtime provides virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return createVirtualThreadFactory("probe-") != null;
+    }
+
+    /**
+     * Returns the virtual thread factory, or null if the tasks run on the
+     * bounded platform thread pool.
+     */
+    protected synchronized ThreadFactory getThreadFactory() {
+        if (threadFactory == null && platformQueue == null) {
+            threadFactory = createVirtualThreadFactory(name + "-workqueue-");
+            if (threadFactory == null) {
+                LOG.log(Level.WARNING, "VIRTUAL_THREADS_UNAVAILABLE_MSG", 
+                        new Object[] {name, highWaterMark});
+                platformQueue = new AutomaticWorkQueueImpl(AutomaticWorkQueueImpl.DEFAULT_MAX_QUEUE_SIZE,
+                                                           0,
+                                                           highWaterMark,
+                                                           Math.min(5, highWaterMark),
+                                                           2 * 60 * 1000L,
+                                                           name);
+            }
+        }
+        return threadFactory;
+    }
+
+    /**
+     * Looks up <code>Thread.ofVirtual().name(prefix, 1).factory()</code>
+     * reflectively, returns null if the runtime does not support it.
+     */
+    static ThreadFactory createVirtualThreadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method nameMethod = builderClass.getMethod("name", String.class, Long.TYPE);
+            builder = nameMethod.invoke(builder, prefix, 1L);
+            return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+        } catch (Throwable t) {
+            //not available or a preview feature that isn't enabled
+            return null;
+        }
+    }
+
+    protected void dispatch(final Runnable r) {
+        Runnable task = new Runnable() {
+            public void run() {
+                try {
+                    r.run();
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+        ThreadFactory factory = getThreadFactory();
+        running.incrementAndGet();
+        if (factory == null) {
+            try {
+                platformQueue.execute(task);
+            } catch (RuntimeException ex) {
+                running.decrementAndGet();
+                throw ex;
+            }
+            return;
+        }
+        Thread t = factory.newThread(task);
+        try {
+            t.start();
+        } catch (RuntimeException ex) {
+            running.decrementAndGet();
+            throw ex;
+        } catch (OutOfMemoryError err) {
+            //unable to create new native thread
+            running.decrementAndGet();
+            throw new RejectedExecutionException(err);
+        }
+    }
+
+    protected long getUnboundedSize() {
+        return running.get();
+    }
+
+    public boolean isEmpty() {
+        return running.get() == 0;
+    }
+
+    public int getActiveCount() {
+        return running.get();
+    }
+
+    protected synchronized void doShutdown(boolean processRemainingWorkItems) {
+        //virtual threads already run on their own threads, new tasks are rejected
+        if (platformQueue != null) {
+            platformQueue.shutdown(processRemainingWorkItems);
+        }
+    }
+
+    public boolean isShutdown() {
+        return shutdown && running.get() == 0;
+    }
+}
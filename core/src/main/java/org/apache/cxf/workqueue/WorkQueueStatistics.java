@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Execution statistics of an {@link AutomaticWorkQueueImpl}: the delay
+ * between submitting a task and a thread starting it (as a histogram with
+ * power of two millisecond buckets), the time threads spend running tasks
+ * and the number of rejected executions.
+ */
+public class WorkQueueStatistics {
+    /**
+     * Upper bounds (exclusive, in milliseconds) of the queue delay buckets,
+     * the last bucket counts everything from 1024ms up.
+     */
+    static final long[] BUCKET_LIMITS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024, Long.MAX_VALUE};
+
+    private final AtomicLongArray delayBuckets = new AtomicLongArray(BUCKET_LIMITS.length);
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalDelay = new AtomicLong();
+    private final AtomicLong maxDelay = new AtomicLong();
+    private final AtomicLong busyTime = new AtomicLong();
+    private final long createdTime = System.nanoTime();
+
+    void taskStarted(long delayNanos) {
+        started.incrementAndGet();
+        totalDelay.addAndGet(delayNanos);
+        long max = maxDelay.get();
+        while (delayNanos > max && !maxDelay.compareAndSet(max, delayNanos)) {
+            max = maxDelay.get();
+        }
+        long ms = TimeUnit.NANOSECONDS.toMillis(delayNanos);
+        int bucket = 0;
+        while (ms >= BUCKET_LIMITS[bucket]) {
+            bucket++;
+        }
+        delayBuckets.incrementAndGet(bucket);
+    }
+
+    void taskCompleted(long runNanos) {
+        completed.incrementAndGet();
+        busyTime.addAndGet(runNanos);
+    }
+
+    void taskRejected() {
+        rejected.incrementAndGet();
+    }
+
+    public long getStartedCount() {
+        return started.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * The sum of the queue delays of all started tasks, in nanoseconds.
+     */
+    public long getTotalQueueDelay() {
+        return totalDelay.get();
+    }
+
+    /**
+     * The mean delay between submitting a task and starting it, in milliseconds.
+     */
+    public double getAverageQueueDelay() {
+        long count = started.get();
+        return count == 0 ? 0 : totalDelay.get() / (count * 1000000d);
+    }
+
+    /**
+     * The largest delay between submitting a task and starting it, in milliseconds.
+     */
+    public long getMaxQueueDelay() {
+        return TimeUnit.NANOSECONDS.toMillis(maxDelay.get());
+    }
+
+    /**
+     * The total time threads spent running tasks, in milliseconds.
+     */
+    public long getBusyTime() {
+        return TimeUnit.NANOSECONDS.toMillis(busyTime.get());
+    }
+
+    /**
+     * The time since the statistics were created, in milliseconds.  Together
+     * with the busy time and the pool size this gives the idle time.
+     */
+    public long getElapsedTime() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createdTime);
+    }
+
+    /**
+     * Returns the queue delay histogram: element i holds the number of tasks
+     * that waited less than 2^i ms (and at least 2^(i-1) ms), the last
+     * element the number of tasks that waited 1024ms or more.
+     */
+    public long[] getQueueDelayHistogram() {
+        long[] counts = new long[BUCKET_LIMITS.length];
+        for (int x = 0; x < counts.length; x++) {
+            counts[x] = delayBuckets.get(x);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the smallest bucket bound (in milliseconds) below which at
+     * least the given fraction of the started tasks' queue delays fall,
+     * or -1 if it lies in the open ended last bucket.
+     */
+    public long getQueueDelayPercentile(double fraction) {
+        long[] counts = getQueueDelayHistogram();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long needed = (long)Math.ceil(total * fraction);
+        long sum = 0;
+        for (int x = 0; x < counts.length; x++) {
+            sum += counts[x];
+            if (sum >= needed) {
+                return BUCKET_LIMITS[x] == Long.MAX_VALUE ? -1 : BUCKET_LIMITS[x];
+            }
+        }
+        return -1;
+    }
+}
@@ -22,6 +22,11 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import org.junit.Test;
 
 public class CachedOutputStreamTest extends CachedStreamTestBase {
     
@@ -81,6 +86,64 @@ public class CachedOutputStreamTest extends CachedStreamTestBase {
     protected String readPartiallyFromStreamObject(Object cache, int len) throws IOException {
         return readPartiallyFromStream((InputStream)cache, len);
     }
-}
     
-   
+    @Test
+    public void testWriteCacheToChannel() throws IOException {
+        String result = initTestData(16);
+        CachedOutputStream cos = (CachedOutputStream)createCache(1024);
+        cos.write(result.getBytes("utf-8"));
+        assertNotNull("expects a tmp file", cos.getTempFile());
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cos.writeCacheTo(Channels.newChannel(out));
+        assertEquals(result, out.toString("utf-8"));
+        cos.close();
+    }
+    
+    @Test
+    public void testWriteCacheToSlowChannel() throws IOException {
+        String result = initTestData(16);
+        for (long threshold : new long[] {1024, 64 * 1024}) {
+            CachedOutputStream cos = (CachedOutputStream)createCache(threshold);
+            cos.write(result.getBytes("utf-8"));
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            cos.writeCacheTo(new ThrottledChannel(Channels.newChannel(out)));
+            assertEquals(result, out.toString("utf-8"));
+            cos.close();
+        }
+    }
+    
+    /**
+     * Takes at most 100 bytes per write and nothing at all every other time,
+     * like a non-blocking socket with a full send buffer.
+     */
+    private static class ThrottledChannel implements WritableByteChannel {
+        private final WritableByteChannel channel;
+        private boolean full;
+        
+        ThrottledChannel(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+        
+        public int write(ByteBuffer src) throws IOException {
+            full = !full;
+            if (full) {
+                return 0;
+            }
+            ByteBuffer slice = src.duplicate();
+            slice.limit(slice.position() + Math.min(100, slice.remaining()));
+            int n = channel.write(slice);
+            src.position(src.position() + n);
+            return n;
+        }
+        
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+        
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
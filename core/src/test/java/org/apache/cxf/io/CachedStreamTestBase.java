@@ -226,6 +226,7 @@ public abstract class CachedStreamTestBase extends Assert {
             EasyMock.expect(b.getProperty("bus.io.CachedOutputStream.Threshold")).andReturn("4");
             EasyMock.expect(b.getProperty("bus.io.CachedOutputStream.MaxSize")).andReturn(null);
             EasyMock.expect(b.getProperty("bus.io.CachedOutputStream.CipherTransformation")).andReturn(null);
+            EasyMock.expect(b.getProperty("bus.io.CachedOutputStream.BufferPool")).andReturn(null).anyTimes();
         
             BusFactory.setThreadDefaultBus(b);
             
@@ -326,7 +327,7 @@ public abstract class CachedStreamTestBase extends Assert {
         return buf.toString();
     }
     
-    private static String initTestData(int packetSize) {
+    protected static String initTestData(int packetSize) {
         String temp = "abcdefghijklmnopqrstuvwxyz0123456789!@#$%^&*()_+?><[]/0123456789";
         String result = new String();
         for (int i = 0; i <  1024 * packetSize / temp.length(); i++) {
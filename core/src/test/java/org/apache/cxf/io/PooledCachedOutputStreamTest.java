@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+/**
+ * Runs the CachedOutputStream tests with the in-memory content held in pooled
+ * direct buffers.
+ */
+public class PooledCachedOutputStreamTest extends CachedOutputStreamTest {
+    
+    private ByteBufferPool pool = new ByteBufferPool(1024, 16);
+    
+    @Override
+    protected Object createCache() {
+        CachedOutputStream cos = new CachedOutputStream();
+        setPool(cos);
+        return cos;
+    }
+    
+    @Override
+    protected Object createCache(long threshold, String transformation) {
+        CachedOutputStream cos = (CachedOutputStream)super.createCache(threshold, transformation);
+        setPool(cos);
+        return cos;
+    }
+    
+    private void setPool(CachedOutputStream cos) {
+        try {
+            cos.setBufferPool(pool);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    @Test
+    public void testContentIsReadableAfterClose() throws IOException {
+        CachedOutputStream cos = (CachedOutputStream)createCache();
+        String result = initTestData(3);
+        cos.write(result.getBytes("utf-8"));
+        cos.close();
+        
+        assertEquals(result, new String(cos.getBytes(), "utf-8"));
+        assertEquals(result, readFromStream(cos.getInputStream()));
+        StringBuilder sb = new StringBuilder();
+        cos.writeCacheTo(sb, "utf-8");
+        assertEquals(result, sb.toString());
+        assertTrue(pool.getInUseCount() > 0);
+    }
+    
+    @Test
+    public void testBuffersAreRecycledWhenSpilled() throws IOException {
+        CachedOutputStream cos = (CachedOutputStream)createCache(1024 * 4, null);
+        String result = initTestData(3);
+        cos.write(result.getBytes("utf-8"));
+        assertTrue(pool.getInUseCount() > 0);
+        
+        InputStream in = cos.getInputStream();
+        cos.write(initTestData(16).getBytes("utf-8"));
+        assertNotNull(cos.getTempFile());
+        // still in use by the open input stream
+        assertTrue(pool.getInUseCount() > 0);
+        assertEquals(result, readFromStream(in));
+        assertEquals(0, pool.getInUseCount());
+        cos.close();
+        
+        long allocated = pool.getAllocationCount();
+        cos = (CachedOutputStream)createCache();
+        cos.write(result.getBytes("utf-8"));
+        assertEquals(allocated, pool.getAllocationCount());
+        cos.close();
+    }
+    
+    @Test
+    public void testUnreleasedBuffersAreReclaimed() throws Exception {
+        writeAndDrop();
+        assertTrue(pool.getInUseCount() > 0);
+        
+        for (int i = 0; i < 50 && pool.getInUseCount() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+            pool.expungeStaleEntries();
+        }
+        assertEquals(0, pool.getInUseCount());
+    }
+    
+    private void writeAndDrop() throws IOException {
+        CachedOutputStream cos = (CachedOutputStream)createCache();
+        cos.write(initTestData(3).getBytes("utf-8"));
+        InputStream in = cos.getInputStream();
+        assertTrue(in.read() != -1);
+        cos.close();
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.message;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExchangeImplTest extends Assert {
+
+    @Test
+    public void testWellKnownClassesByName() {
+        ExchangeImpl exchange = new ExchangeImpl();
+        Bus bus = new ExtensionManagerBus();
+        try {
+            exchange.put(Bus.class.getName(), bus);
+            assertSame(bus, exchange.get(Bus.class));
+            
+            exchange.remove(Bus.class.getName());
+            assertNull(exchange.get(Bus.class));
+            
+            exchange.put(Bus.class, bus);
+            assertSame(bus, exchange.get(Bus.class.getName()));
+            assertSame(bus, exchange.getBus());
+            exchange.put(Bus.class, null);
+            assertNull(exchange.get(Bus.class.getName()));
+            assertNull(exchange.getBus());
+        } finally {
+            bus.shutdown(false);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.cxf.transport.Destination;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StringMapImplTest extends Assert {
+
+    @Test
+    public void testWellKnownKeys() {
+        StringMapImpl map = new StringMapImpl();
+        Map<String, Object> headers = new HashMap<String, Object>();
+        map.put(Message.PROTOCOL_HEADERS, headers);
+        map.put(Message.CONTENT_TYPE, "text/xml");
+        map.put("some.other.key", Boolean.TRUE);
+        assertEquals(3, map.size());
+        assertSame(headers, map.get(Message.PROTOCOL_HEADERS));
+        // an equal but not identical key finds the same slot
+        assertEquals("text/xml", map.get(new String(Message.CONTENT_TYPE)));
+        assertEquals(Boolean.TRUE, map.get("some.other.key"));
+        
+        Destination d = new Destination() {
+            public org.apache.cxf.ws.addressing.EndpointReferenceType getAddress() {
+                return null;
+            }
+            public org.apache.cxf.transport.Conduit getBackChannel(Message inMessage) {
+                return null;
+            }
+            public void shutdown() {
+            }
+            public void setMessageObserver(org.apache.cxf.transport.MessageObserver observer) {
+            }
+            public org.apache.cxf.transport.MessageObserver getMessageObserver() {
+                return null;
+            }
+        };
+        map.put(Destination.class, d);
+        assertSame(d, map.get(Destination.class));
+        assertSame(d, map.get(Destination.class.getName()));
+        assertEquals(4, map.size());
+        
+        assertSame(headers, map.remove(Message.PROTOCOL_HEADERS));
+        assertNull(map.get(Message.PROTOCOL_HEADERS));
+        assertFalse(map.containsKey(Message.PROTOCOL_HEADERS));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void testNullKeysAndValues() {
+        StringMapImpl map = new StringMapImpl();
+        map.put((String)null, "x");
+        map.put(Message.ENCODING, null);
+        map.put("other", null);
+        assertEquals(3, map.size());
+        assertEquals("x", map.get((Object)null));
+        assertTrue(map.containsKey(Message.ENCODING));
+        assertTrue(map.containsKey("other"));
+        assertNull(map.get(Message.ENCODING));
+        assertTrue(map.containsKey(null));
+        
+        Map<String, Object> copy = new HashMap<String, Object>(map);
+        assertEquals(copy, map);
+        assertEquals(map, copy);
+        assertEquals(copy.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(42);
+        StringMapImpl map = new StringMapImpl();
+        Map<String, Object> expected = new HashMap<String, Object>();
+        String[] keys = new String[200];
+        for (int x = 0; x < keys.length; x++) {
+            keys[x] = x % 10 == 0 ? Message.PROTOCOL_HEADERS : "key" + x;
+        }
+        for (int x = 0; x < 20000; x++) {
+            String key = keys[random.nextInt(keys.length)];
+            int op = random.nextInt(3);
+            if (op == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Integer value = random.nextInt();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        for (String key : keys) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void testIterator() {
+        StringMapImpl map = new StringMapImpl();
+        for (int x = 0; x < 20; x++) {
+            map.put("key" + x, x);
+        }
+        map.put(Message.REQUEST_URI, "/test");
+        Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Object> entry = it.next();
+            if (entry.getValue() instanceof Integer && ((Integer)entry.getValue()) % 2 == 0) {
+                it.remove();
+            } else {
+                entry.setValue("v" + entry.getValue());
+            }
+        }
+        assertEquals(11, map.size());
+        assertEquals("v/test", map.get(Message.REQUEST_URI));
+        assertEquals("v1", map.get("key1"));
+        assertNull(map.get("key2"));
+        map.keySet().remove("key1");
+        assertFalse(map.containsKey("key1"));
+        assertTrue(map.containsValue("v3"));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        StringMapImpl map = new StringMapImpl();
+        map.put(Message.RESPONSE_CODE, 200);
+        map.put("other", "value");
+        map.put("nullValue", null);
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bout);
+        out.writeObject(map);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+        StringMapImpl copy = (StringMapImpl)in.readObject();
+        assertEquals(map, copy);
+        assertTrue(copy.containsKey("nullValue"));
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.phase;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.cxf.common.util.ModCountCopyOnWriteArrayList;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.message.Message;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PhaseChainCacheTest extends Assert {
+
+    private SortedSet<Phase> phases;
+    private PhaseChainCache cache;
+
+    @Before
+    public void setUp() {
+        phases = new TreeSet<Phase>();
+        phases.add(new Phase("phase1", 1));
+        phases.add(new Phase("phase2", 2));
+        cache = new PhaseChainCache();
+    }
+
+    @Test
+    public void testUnmodifiedListsUseVersionCheck() {
+        List<Interceptor<? extends Message>> i1 = createList();
+        List<Interceptor<? extends Message>> i2 = createList();
+        i1.add(new TestInterceptor("p1", "phase1"));
+        i2.add(new TestInterceptor("p2", "phase2"));
+        
+        PhaseInterceptorChain chain1 = cache.get(phases, i1, i2);
+        PhaseInterceptorChain chain2 = cache.get(phases, i1, i2);
+        
+        assertNotSame(chain1, chain2);
+        assertEquals(1, cache.getStatistics().getHitCount());
+        assertEquals(2, count(chain2));
+    }
+
+    @Test
+    public void testUnrelatedListDoesNotInvalidateChain() {
+        List<Interceptor<? extends Message>> i1 = createList();
+        i1.add(new TestInterceptor("p1", "phase1"));
+        
+        cache.get(phases, i1);
+        createList().add(new TestInterceptor("p2", "phase2"));
+        cache.get(phases, i1);
+        
+        assertEquals(1, cache.getStatistics().getHitCount());
+        assertEquals(0, cache.getStatistics().getRevalidationCount());
+        assertEquals(1, cache.getStatistics().getRebuildCount());
+    }
+
+    @Test
+    public void testSharedStatistics() {
+        PhaseChainCacheStatistics stats = new PhaseChainCacheStatistics();
+        List<Interceptor<? extends Message>> i1 = createList();
+        i1.add(new TestInterceptor("p1", "phase1"));
+        
+        new PhaseChainCache(stats).get(phases, i1);
+        new PhaseChainCache(stats).get(phases, i1);
+        
+        assertEquals(2, stats.getRebuildCount());
+        assertEquals(0, cache.getStatistics().getRebuildCount());
+    }
+
+    @Test
+    public void testModifiedListRebuildsChain() {
+        List<Interceptor<? extends Message>> i1 = createList();
+        i1.add(new TestInterceptor("p1", "phase1"));
+        
+        assertEquals(1, count(cache.get(phases, i1)));
+        
+        i1.add(new TestInterceptor("p2", "phase2"));
+        
+        assertEquals(2, count(cache.get(phases, i1)));
+        assertEquals(2, cache.getStatistics().getRebuildCount());
+    }
+
+    @Test
+    public void testUnversionedListIsAlwaysCompared() {
+        List<Interceptor<? extends Message>> i1 = new ArrayList<Interceptor<? extends Message>>();
+        i1.add(new TestInterceptor("p1", "phase1"));
+        
+        assertEquals(1, count(cache.get(phases, i1)));
+        i1.add(new TestInterceptor("p2", "phase2"));
+        assertEquals(2, count(cache.get(phases, i1)));
+    }
+
+    private static List<Interceptor<? extends Message>> createList() {
+        return new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>();
+    }
+
+    private static int count(PhaseInterceptorChain chain) {
+        int count = 0;
+        for (Iterator<Interceptor<? extends Message>> it = chain.iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    static class TestInterceptor extends AbstractPhaseInterceptor<Message> {
+        TestInterceptor(String id, String phase) {
+            super(id, phase);
+        }
+
+        public void handleMessage(Message message) {
+        }
+    }
+}
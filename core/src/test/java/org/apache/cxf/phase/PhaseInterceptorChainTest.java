@@ -25,6 +25,8 @@ import java.util.Iterator;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.cxf.common.util.ReflectionUtil;
 import org.apache.cxf.common.util.SortedArraySet;
@@ -391,6 +393,47 @@ public class PhaseInterceptorChainTest extends Assert {
         assertEquals(0, p2.invoked);
         assertEquals(1, p3.invoked);
     }
+
+    @Test
+    public void testAbortFromAnotherThreadWhileExecuting() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch aborted = new CountDownLatch(1);
+        AbstractPhaseInterceptor<Message> p1 = new AbstractPhaseInterceptor<Message>("p1", "phase1") {
+            public void handleMessage(Message m) {
+                entered.countDown();
+                try {
+                    aborted.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        CountingPhaseInterceptor p2 = new CountingPhaseInterceptor("phase2", "p2");
+
+        control.replay();
+        chain.add(p1);
+        chain.add(p2);
+        
+        Thread t = new Thread() {
+            public void run() {
+                try {
+                    entered.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // must not block on the thread currently executing the chain
+                chain.abort();
+                aborted.countDown();
+            }
+        };
+        t.start();
+        assertFalse(chain.doIntercept(message));
+        t.join(10000);
+        
+        assertEquals(0, aborted.getCount());
+        assertEquals(0, p2.invoked);
+        assertSame(InterceptorChain.State.ABORTED, chain.getState());
+    }
     
     AbstractPhaseInterceptor<Message> setUpPhaseInterceptor(String phase, String id) throws Exception {
         return setUpPhaseInterceptor(phase, id, null, null);
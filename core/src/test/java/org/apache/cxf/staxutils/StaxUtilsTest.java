@@ -29,6 +29,7 @@ import java.io.Writer;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 import javax.xml.stream.events.XMLEvent;
@@ -46,7 +47,19 @@ import org.w3c.dom.Element;
 
 import org.xml.sax.InputSource;
 
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.endpoint.EndpointImpl;
 import org.apache.cxf.helpers.DOMUtils;
+import org.apache.cxf.interceptor.StaxInInterceptor;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.ServiceImpl;
+import org.apache.cxf.service.model.BindingInfo;
+import org.apache.cxf.service.model.EndpointInfo;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -473,4 +486,51 @@ public class StaxUtilsTest extends Assert {
         //System.out.println(sw.toString());
         assertEquals(innerXml, sw.toString());
     }    
+
+    @Test
+    public void testEndpointInputFactory() throws Exception {
+        Bus bus = new ExtensionManagerBus();
+        Endpoint ep = createEndpoint(bus);
+        Message m = createMessage(bus, ep, null);
+        assertNull(StaxInInterceptor.getXMLInputFactory(m));
+        
+        m = createMessage(bus, ep, StaxUtils.ENDPOINT_INPUT_FACTORY);
+        XMLInputFactory xif = StaxInInterceptor.getXMLInputFactory(m);
+        assertNotNull(xif);
+        assertTrue(StaxUtils.isEndpointXMLInputFactory(m, xif));
+        // later messages find it through the property
+        assertSame(xif, ep.get(XMLInputFactory.class.getName()));
+        assertSame(xif, StaxInInterceptor.getXMLInputFactory(createMessage(bus, ep, null)));
+        // created like the shared factories
+        assertEquals(Boolean.FALSE, xif.getProperty(XMLInputFactory.SUPPORT_DTD));
+        assertNotNull(xif.getXMLResolver());
+        
+        Endpoint other = createEndpoint(bus);
+        m = createMessage(bus, other, StaxUtils.ENDPOINT_INPUT_FACTORY);
+        assertNotSame(xif, StaxInInterceptor.getXMLInputFactory(m));
+        assertFalse(StaxUtils.isEndpointXMLInputFactory(m, xif));
+        
+        XMLStreamReader reader = xif.createXMLStreamReader(new StringReader("<a><b/></a>"));
+        reader.nextTag();
+        assertEquals("a", reader.getLocalName());
+        reader.close();
+    }
+    
+    private static Endpoint createEndpoint(Bus bus) throws Exception {
+        Endpoint ep = new EndpointImpl(bus, new ServiceImpl(), new EndpointInfo());
+        ep.getEndpointInfo().setBinding(new BindingInfo(null, "binding"));
+        return ep;
+    }
+    
+    private static Message createMessage(Bus bus, Endpoint ep, String factory) {
+        Message m = new MessageImpl();
+        Exchange ex = new ExchangeImpl();
+        ex.put(Bus.class, bus);
+        ex.put(Endpoint.class, ep);
+        m.setExchange(ex);
+        if (factory != null) {
+            m.put(XMLInputFactory.class.getName(), factory);
+        }
+        return m;
+    }
 }
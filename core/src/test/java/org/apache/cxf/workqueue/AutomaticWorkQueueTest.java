@@ -19,7 +19,9 @@
 
 package org.apache.cxf.workqueue;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -383,6 +385,91 @@ public class AutomaticWorkQueueTest extends Assert {
         workqueue = null;
     }
 
+    @Test
+    public void testStatistics() throws Exception {
+        workqueue = new AutomaticWorkQueueImpl(1, 0, 1, 1, DEFAULT_DEQUEUE_TIMEOUT);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        workqueue.execute(new Runnable() {
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final CountDownLatch done = new CountDownLatch(1);
+        workqueue.execute(new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        });
+        try {
+            workqueue.execute(new Runnable() {
+                public void run() {
+                }
+            });
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+        Thread.sleep(50);
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        
+        WorkQueueStatistics stats = workqueue.getStatistics();
+        assertEquals(1, stats.getRejectedCount());
+        assertEquals(2, stats.getStartedCount());
+        assertTrue(stats.getMaxQueueDelay() >= 50);
+        long total = 0;
+        for (long c : stats.getQueueDelayHistogram()) {
+            total += c;
+        }
+        assertEquals(2, total);
+        assertTrue(stats.getQueueDelayPercentile(1.0) >= 64);
+    }
+
+    @Test
+    public void testAdjustHighWaterMark() throws Exception {
+        workqueue = new AutomaticWorkQueueImpl(UNBOUNDED_MAX_QUEUE_SIZE, 0, 2, 1, DEFAULT_DEQUEUE_TIMEOUT);
+        workqueue.setTargetQueueDelay(10);
+        workqueue.setMaxHighWaterMark(4);
+        workqueue.setAdjustmentInterval(0);
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = new Runnable() {
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+        };
+        try {
+            // work is waiting while nothing gets started, so the queue grows up to the limit
+            for (int x = 0; x < 10; x++) {
+                workqueue.execute(blocking);
+                Thread.sleep(20);
+            }
+            assertEquals(4, workqueue.getHighWaterMark());
+        } finally {
+            release.countDown();
+        }
+        
+        // with no queue delay and idle threads it shrinks back
+        for (int x = 0; x < 20; x++) {
+            workqueue.execute(new Runnable() {
+                public void run() {
+                }
+            });
+            Thread.sleep(5);
+        }
+        assertTrue(workqueue.getHighWaterMark() < 4);
+    }
+
     private void checkCompleted(DeadLockThread dead) {
         int oldCompleted = 0;
         int newCompleted = 0;
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ForkJoinWorkQueueTest extends Assert {
+
+    AbstractAutomaticWorkQueue workqueue;
+
+    @After
+    public void tearDown() throws Exception {
+        if (workqueue != null) {
+            workqueue.shutdown(false);
+            workqueue = null;
+        }
+    }
+
+    protected AbstractAutomaticWorkQueue createWorkQueue(int maxQueueSize) {
+        return new ForkJoinWorkQueue("test", maxQueueSize, 2);
+    }
+
+    @Test
+    public void testExecuteAndSchedule() throws Exception {
+        workqueue = createWorkQueue(10);
+        final CountDownLatch latch = new CountDownLatch(6);
+        final ClassLoader loader = new ClassLoader() { };
+        ClassLoader orig = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(loader);
+        try {
+            for (int x = 0; x < 5; x++) {
+                workqueue.execute(new Runnable() {
+                    public void run() {
+                        if (Thread.currentThread().getContextClassLoader() == loader) {
+                            latch.countDown();
+                        }
+                    }
+                });
+            }
+            workqueue.schedule(new Runnable() {
+                public void run() {
+                    if (Thread.currentThread().getContextClassLoader() == loader) {
+                        latch.countDown();
+                    }
+                }
+            }, 50);
+        } finally {
+            Thread.currentThread().setContextClassLoader(orig);
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRejectWhenFull() throws Exception {
+        workqueue = createWorkQueue(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = new Runnable() {
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+        };
+        workqueue.execute(blocking);
+        workqueue.execute(blocking);
+        assertTrue(workqueue.isFull());
+        try {
+            workqueue.execute(blocking);
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+        long start = System.currentTimeMillis();
+        try {
+            workqueue.execute(blocking, 100);
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException ex) {
+            assertTrue(System.currentTimeMillis() - start >= 90);
+        }
+        release.countDown();
+
+        final CountDownLatch done = new CountDownLatch(1);
+        workqueue.execute(new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        }, 5000);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        workqueue = createWorkQueue(10);
+        workqueue.shutdown(true);
+        try {
+            workqueue.execute(new Runnable() {
+                public void run() {
+                }
+            });
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+        for (int x = 0; x < 100 && !workqueue.isShutdown(); x++) {
+            Thread.sleep(50);
+        }
+        assertTrue(workqueue.isShutdown());
+    }
+}
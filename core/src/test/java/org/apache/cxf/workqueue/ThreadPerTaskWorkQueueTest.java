@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ThreadPerTaskWorkQueueTest extends ForkJoinWorkQueueTest {
+
+    @Override
+    protected AbstractAutomaticWorkQueue createWorkQueue(int maxQueueSize) {
+        return new ThreadPerTaskWorkQueue("test", maxQueueSize);
+    }
+
+    @Test
+    public void testVirtualThreadsWhenAvailable() throws Exception {
+        ThreadPerTaskWorkQueue q = new ThreadPerTaskWorkQueue("test");
+        workqueue = q;
+        boolean available = true;
+        try {
+            Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException ex) {
+            available = false;
+        }
+        if (!available) {
+            assertFalse(q.isVirtual());
+            assertFalse(ThreadPerTaskWorkQueue.isVirtualThreadSupported());
+        }
+        assertEquals(Integer.MAX_VALUE, q.getMaxSize());
+    }
+
+    @Test
+    public void testPlatformThreadsAreBounded() throws Exception {
+        ThreadPerTaskWorkQueue q = new ThreadPerTaskWorkQueue("test");
+        workqueue = q;
+        q.setHighWaterMark(2);
+        if (q.isVirtual()) {
+            return;
+        }
+        final AtomicInteger started = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(5);
+        for (int x = 0; x < 5; x++) {
+            q.execute(new Runnable() {
+                public void run() {
+                    started.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        Thread.sleep(200);
+        assertEquals(2, started.get());
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+}
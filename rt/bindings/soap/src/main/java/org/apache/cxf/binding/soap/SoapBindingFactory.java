@@ -398,6 +398,7 @@ public class SoapBindingFactory extends AbstractWSDLBindingFactory {
         sb.getOutFaultInterceptors().add(new SoapOutInterceptor(getBus()));
 
         sb.getInInterceptors().add(new AttachmentInInterceptor());
+        sb.getInInterceptors().add(new ReadHeadersInterceptor.RecordHeadersInterceptor());
         sb.getInInterceptors().add(new StaxInInterceptor());
         sb.getInInterceptors().add(new SoapActionInInterceptor());
         
@@ -932,6 +933,7 @@ public class SoapBindingFactory extends AbstractWSDLBindingFactory {
                 };
     
                 newMO.getBindingInterceptors().add(new AttachmentInInterceptor());
+                newMO.getBindingInterceptors().add(new ReadHeadersInterceptor.RecordHeadersInterceptor());
                 newMO.getBindingInterceptors().add(new StaxInInterceptor());
     
                 // This will not work if one of the endpoints disables message
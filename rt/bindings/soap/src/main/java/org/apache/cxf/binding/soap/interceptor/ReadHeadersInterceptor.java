@@ -19,11 +19,22 @@
 
 package org.apache.cxf.binding.soap.interceptor;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
+import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventFactory;
 import javax.xml.stream.XMLStreamConstants;
@@ -55,7 +66,11 @@ import org.apache.cxf.headers.HeaderProcessor;
 import org.apache.cxf.helpers.DOMUtils;
 import org.apache.cxf.helpers.ServiceUtils;
 import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.interceptor.InterceptorChain;
+import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.Phase;
+import org.apache.cxf.staxutils.DepthXMLStreamReader;
 import org.apache.cxf.staxutils.PartialXMLStreamReader;
 import org.apache.cxf.staxutils.StaxUtils;
 import org.apache.cxf.staxutils.StaxUtils.StreamToDOMContext;
@@ -90,6 +105,202 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
 
     }
 
+    /**
+     * Enables the streaming header mode: only the headers claimed by a registered
+     * HeaderProcessor or by a SoapInterceptor on the chain are read into the DOM,
+     * the others are kept as ranges of the message input and parsed on first access.
+     * The ranges are taken from the character offsets Woodstox reports for the start
+     * of each event; with other parsers all the headers are read into the DOM.
+     */
+    public static final String STREAM_HEADERS = "org.apache.cxf.binding.soap.streamHeaders";
+
+    /**
+     * Keeps the message input read in the streaming header mode until the SOAP Header
+     * has been parsed, so that the deferred headers can refer to it.
+     */
+    public static class RecordHeadersInterceptor extends AbstractSoapInterceptor {
+        public RecordHeadersInterceptor() {
+            super(Phase.PRE_STREAM);
+        }
+
+        public void handleMessage(SoapMessage message) {
+            InputStream in = message.getContent(InputStream.class);
+            if (in != null && !isGET(message)
+                && MessageUtils.getContextualBoolean(message, STREAM_HEADERS, false)) {
+                HeaderSource source = new HeaderSource(in,
+                    (String)message.get(org.apache.cxf.message.Message.ENCODING));
+                message.setContent(InputStream.class, source);
+                message.put(HeaderSource.class, source);
+            }
+        }
+    }
+
+    /**
+     * A header which has been left in the message input while reading the message;
+     * the DOM element is only built, and inserted at its place in the SOAP Header of
+     * the message document, when the header object is first requested.
+     */
+    public static class DeferredHeader extends SoapHeader {
+        private final Element header;
+        private final Map<String, String> namespaces;
+        private final int start;
+        private final int end;
+        private HeaderSource source;
+        private Element nextClaimed;
+        private DeferredHeader following;
+        private Element element;
+
+        DeferredHeader(QName name, Element header, Map<String, String> namespaces,
+                       HeaderSource source, int start, int end) {
+            super(name, null);
+            this.header = header;
+            this.namespaces = namespaces;
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        public boolean isMaterialized() {
+            return source == null;
+        }
+
+        @Override
+        public Object getObject() {
+            if (source != null) {
+                Element el = parse();
+                header.insertBefore(el, getInsertionPoint());
+                addParentAttributes(header, el);
+                setObject(el);
+                element = el;
+            }
+            return super.getObject();
+        }
+
+        @Override
+        public void setObject(Object object) {
+            source = null;
+            super.setObject(object);
+        }
+
+        private Element parse() {
+            // the range is parsed inside an element declaring the namespaces in scope
+            StringBuilder xml = new StringBuilder("<h");
+            for (Map.Entry<String, String> ns : namespaces.entrySet()) {
+                xml.append(ns.getKey().length() == 0 ? " xmlns" : " xmlns:" + ns.getKey())
+                    .append("=\"")
+                    .append(ns.getValue().replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;"))
+                    .append('"');
+            }
+            xml.append('>').append(source.getText(start, end)).append("</h>");
+            try {
+                Document d = StaxUtils.read(new StringReader(xml.toString()));
+                return (Element)header.getOwnerDocument()
+                    .importNode(DOMUtils.getFirstElement(d.getDocumentElement()), true);
+            } catch (XMLStreamException e) {
+                throw new Fault(e);
+            }
+        }
+
+        /**
+         * The first header block following this one which is already in the document:
+         * a later deferred header of the same run which has been materialized, or else
+         * the next claimed header.
+         */
+        private Node getInsertionPoint() {
+            for (DeferredHeader d = following; d != null; d = d.following) {
+                if (d.element != null && d.element.getParentNode() == header) {
+                    return d.element;
+                }
+            }
+            return nextClaimed;
+        }
+    }
+
+    /**
+     * The message input recorded by the RecordHeadersInterceptor; the deferred headers
+     * of a message share it, each one keeping only its character range.
+     */
+    static final class HeaderSource extends FilterInputStream {
+        private final String encoding;
+        private ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+        private boolean recording = true;
+        private String text;
+
+        HeaderSource(InputStream in, String encoding) {
+            super(in);
+            this.encoding = encoding == null ? "UTF-8" : encoding;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1 && recording) {
+                recorded.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0 && recording) {
+                recorded.write(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (!recording) {
+                return super.skip(n);
+            }
+            // skipped bytes have to be recorded as well to keep the offsets right
+            byte[] b = new byte[(int)Math.min(n, 4096)];
+            int r = read(b, 0, b.length);
+            return r < 0 ? 0 : r;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+        }
+
+        @Override
+        public void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        boolean isRecording() {
+            return recording;
+        }
+
+        void stopRecording(boolean keep) {
+            recording = false;
+            if (!keep) {
+                recorded = null;
+            }
+        }
+
+        synchronized String getText(int from, int to) {
+            if (text == null) {
+                try {
+                    text = recorded.toString(encoding);
+                } catch (UnsupportedEncodingException e) {
+                    throw new Fault(e);
+                }
+                recorded = null;
+            }
+            if (from < 0 || to > text.length() || from >= to || text.charAt(from) != '<') {
+                throw new Fault(new Message("INVALID_HEADER_RANGE", LOG, from, to));
+            }
+            return text.substring(from, to);
+        }
+    }
+
     private static final Logger LOG = LogUtils.getL7dLogger(ReadHeadersInterceptor.class);
 
     private Bus bus;
@@ -175,6 +386,8 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                 Node nd = message.getContent(Node.class);
                 W3CDOMStreamWriter writer = message.get(W3CDOMStreamWriter.class);
                 Document doc = null;
+                List<DeferredHeader> deferredHeaders = Collections.emptyList();
+                HeaderSource source = message.get(HeaderSource.class);
                 if (writer != null) {
                     StaxUtils.copy(filteredReader, writer);
                     doc = writer.getDocument();
@@ -183,11 +396,19 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                     StaxUtils.readDocElements(doc, doc, filteredReader, false, false);
                 } else {
                     HeadersProcessor processor = new HeadersProcessor(soapVersion);
+                    if (MessageUtils.getContextualBoolean(message, STREAM_HEADERS, false)) {
+                        processor.setClaimedHeaders(new ClaimedHeaders(bus, message.getInterceptorChain()),
+                                                    reportsEventOffsets(xmlReader) ? source : null);
+                    }
                     doc = processor.process(filteredReader);
                     if (doc != null) {
                         message.setContent(Node.class, doc);
+                        deferredHeaders = processor.getDeferredHeaders();
                     }
                 }
+                if (source != null && source.isRecording()) {
+                    source.stopRecording(!deferredHeaders.isEmpty());
+                }
 
                 // Find header
                 if (doc != null) {
@@ -196,26 +417,19 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                     List<Element> elemList = DOMUtils.findAllElementsByTagNameNS(element,
                                                                                  header.getNamespaceURI(),
                                                                                  header.getLocalPart());
+                    int deferred = 0;
                     for (Element elem : elemList) {
                         Element hel = DOMUtils.getFirstElement(elem);
                         while (hel != null) {
+                            // keep the headers in document order
+                            while (deferred < deferredHeaders.size()
+                                && deferredHeaders.get(deferred).nextClaimed == hel) {
+                                message.getHeaders().add(deferredHeaders.get(deferred++));
+                            }
+
                             // Need to add any attributes that are present on the parent element
                             // which otherwise would be lost.
-                            if (elem.hasAttributes()) {
-                                NamedNodeMap nnp = elem.getAttributes();
-                                for (int ct = 0; ct < nnp.getLength(); ct++) {
-                                    Node attr = nnp.item(ct);
-                                    Node headerAttrNode = hel.hasAttributes() ? hel.getAttributes()
-                                        .getNamedItemNS(attr.getNamespaceURI(), attr.getLocalName()) : null;
-
-                                    if (headerAttrNode == null) {
-                                        Attr attribute = hel.getOwnerDocument()
-                                            .createAttributeNS(attr.getNamespaceURI(), attr.getNodeName());
-                                        attribute.setNodeValue(attr.getNodeValue());
-                                        hel.setAttributeNodeNS(attribute);
-                                    }
-                                }
-                            }
+                            addParentAttributes(elem, hel);
 
                             HeaderProcessor p = bus == null ? null : bus.getExtension(HeaderManager.class)
                                 .getHeaderProcessor(hel.getNamespaceURI());
@@ -249,6 +463,7 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                             hel = DOMUtils.getNextElement(hel);
                         }
                     }
+                    message.getHeaders().addAll(deferredHeaders.subList(deferred, deferredHeaders.size()));
                 }
 
                 if (ServiceUtils.isSchemaValidationEnabled(SchemaValidationType.IN, message)) {
@@ -270,6 +485,68 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
         }
     }
 
+    private static boolean reportsEventOffsets(XMLStreamReader reader) {
+        while (reader instanceof DepthXMLStreamReader) {
+            reader = ((DepthXMLStreamReader)reader).getReader();
+        }
+        // Woodstox locates the start of the current event, other parsers may give its end
+        return reader.getClass().getName().startsWith("com.ctc.wstx.");
+    }
+
+    private static void addParentAttributes(Element elem, Element hel) {
+        if (elem.hasAttributes()) {
+            NamedNodeMap nnp = elem.getAttributes();
+            for (int ct = 0; ct < nnp.getLength(); ct++) {
+                Node attr = nnp.item(ct);
+                Node headerAttrNode = hel.hasAttributes() ? hel.getAttributes()
+                    .getNamedItemNS(attr.getNamespaceURI(), attr.getLocalName()) : null;
+
+                if (headerAttrNode == null) {
+                    Attr attribute = hel.getOwnerDocument()
+                        .createAttributeNS(attr.getNamespaceURI(), attr.getNodeName());
+                    attribute.setNodeValue(attr.getNodeValue());
+                    hel.setAttributeNodeNS(attribute);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decides which headers are read into the DOM straight away in the streaming
+     * header mode: the ones whose namespace has a HeaderProcessor and the ones
+     * understood by a SoapInterceptor currently on the chain.
+     */
+    private static class ClaimedHeaders {
+        private final HeaderManager headerManager;
+        private final InterceptorChain chain;
+        private Set<QName> understood;
+
+        ClaimedHeaders(Bus bus, InterceptorChain chain) {
+            this.headerManager = bus == null ? null : bus.getExtension(HeaderManager.class);
+            this.chain = chain;
+        }
+
+        boolean isClaimed(QName name) {
+            if (headerManager != null && headerManager.getHeaderProcessor(name.getNamespaceURI()) != null) {
+                return true;
+            }
+            if (understood == null) {
+                understood = new HashSet<QName>();
+                if (chain != null) {
+                    for (Interceptor<?> i : chain) {
+                        if (i instanceof SoapInterceptor) {
+                            Set<QName> headers = ((SoapInterceptor)i).getUnderstoodHeaders();
+                            if (headers != null) {
+                                understood.addAll(headers);
+                            }
+                        }
+                    }
+                }
+            }
+            return understood.contains(name);
+        }
+    }
+
     /**
      * A convenient class for parsing the message header stream into a DOM document;
      * the document is created only if a SOAP Header is actually found, keeping the
@@ -279,16 +556,30 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
      */
     private static class HeadersProcessor {
         private static final XMLEventFactory FACTORY = XMLEventFactory.newInstance();
+        private final SoapVersion soapVersion;
         private final QName soapVersionHeader;
         private final List<XMLEvent> events = new ArrayList<XMLEvent>(8);
         private StreamToDOMContext context;
         private Document doc;
         private Node parent;
+        private ClaimedHeaders claimedHeaders;
+        private HeaderSource source;
+        private List<DeferredHeader> deferredHeaders = Collections.emptyList();
 
         public HeadersProcessor(SoapVersion version) {
+            this.soapVersion = version;
             this.soapVersionHeader = version.getHeader();
         }
 
+        public void setClaimedHeaders(ClaimedHeaders claimedHeaders, HeaderSource source) {
+            this.claimedHeaders = claimedHeaders;
+            this.source = source;
+        }
+
+        public List<DeferredHeader> getDeferredHeaders() {
+            return deferredHeaders;
+        }
+
         public Document process(XMLStreamReader reader) throws XMLStreamException {
             // number of elements read in
             int read = 0;
@@ -310,6 +601,9 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                                                          reader.getAttributeValue(i)));
                     }
                     if (doc != null) {
+                        if (claimedHeaders != null) {
+                            readHeader(reader);
+                        }
                         //go on parsing the stream directly till the end and stop generating events
                         StaxUtils.readDocElements(doc, parent, reader, context);
                     }
@@ -347,6 +641,100 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
             return doc;
         }
 
+        /**
+         * Reads the SOAP Header element the reader is positioned on, copying the claimed
+         * header blocks into the document and recording the ranges of the other ones, and
+         * leaves the reader on the first event following the Header element.
+         */
+        private void readHeader(XMLStreamReader reader) throws XMLStreamException {
+            W3CDOMStreamWriter writer = new W3CDOMStreamWriter(doc, (Element)parent);
+            StaxUtils.writeStartElement(reader, writer);
+            Element header = writer.getCurrentNode();
+            String ns = soapVersion.getNamespace();
+            String headerMu = header.getAttributeNS(ns, soapVersion.getAttrNameMustUnderstand());
+            String headerActor = header.getAttributeNS(ns, soapVersion.getAttrNameRole());
+            Map<String, String> namespaces = null;
+            // the deferred headers read since the last claimed one
+            List<DeferredHeader> pending = new ArrayList<DeferredHeader>(4);
+
+            int event = reader.next();
+            while (event != XMLStreamConstants.END_ELEMENT) {
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    event = reader.next();
+                    continue;
+                }
+                QName name = reader.getName();
+                int start = source == null ? -1 : reader.getLocation().getCharacterOffset();
+                if (start < 0 || claimedHeaders.isClaimed(name)) {
+                    StaxUtils.copyElement(reader, writer, null);
+                    for (DeferredHeader d : pending) {
+                        d.nextClaimed = (Element)header.getLastChild();
+                    }
+                    pending.clear();
+                    event = reader.next();
+                    continue;
+                }
+
+                if (namespaces == null) {
+                    namespaces = getNamespaces(header);
+                    deferredHeaders = new ArrayList<DeferredHeader>();
+                }
+                String mu = reader.getAttributeValue(ns, soapVersion.getAttrNameMustUnderstand());
+                String act = reader.getAttributeValue(ns, soapVersion.getAttrNameRole());
+                mu = mu == null ? headerMu : mu;
+                act = act == null ? headerActor : act;
+
+                skipElement(reader);
+                // the header block ends where the following event starts
+                event = reader.next();
+                int end = reader.getLocation().getCharacterOffset();
+
+                DeferredHeader shead = new DeferredHeader(name, header, namespaces, source, start, end);
+                if (!StringUtils.isEmpty(act)) {
+                    shead.setActor(act);
+                }
+                shead.setMustUnderstand(Boolean.valueOf(mu) || "1".equals(mu));
+                shead.setDirection(SoapHeader.Direction.DIRECTION_IN);
+                if (!pending.isEmpty()) {
+                    pending.get(pending.size() - 1).following = shead;
+                }
+                pending.add(shead);
+                deferredHeaders.add(shead);
+            }
+            writer.writeEndElement();
+            reader.next();
+        }
+
+        private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        }
+
+        private static Map<String, String> getNamespaces(Element element) {
+            Map<String, String> namespaces = new HashMap<String, String>();
+            for (Node nd = element; nd instanceof Element; nd = nd.getParentNode()) {
+                NamedNodeMap attributes = nd.getAttributes();
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    Node attr = attributes.item(i);
+                    if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI())) {
+                        String prefix = XMLConstants.XMLNS_ATTRIBUTE.equals(attr.getNodeName())
+                            ? "" : attr.getLocalName();
+                        if (!namespaces.containsKey(prefix)) {
+                            namespaces.put(prefix, attr.getNodeValue());
+                        }
+                    }
+                }
+            }
+            return namespaces;
+        }
+
         private void addEvent(XMLEvent event) {
             if (event.isStartElement()) {
                 QName qName = event.asStartElement().getName();
@@ -22,11 +22,14 @@ package org.apache.cxf.binding.soap;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import javax.activation.DataHandler;
 import javax.mail.util.ByteArrayDataSource;
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Element;
@@ -35,6 +38,7 @@ import org.apache.cxf.BusFactory;
 import org.apache.cxf.annotations.SchemaValidation.SchemaValidationType;
 import org.apache.cxf.attachment.AttachmentImpl;
 import org.apache.cxf.attachment.AttachmentUtil;
+import org.apache.cxf.binding.soap.interceptor.AbstractSoapInterceptor;
 import org.apache.cxf.binding.soap.interceptor.CheckFaultInterceptor;
 import org.apache.cxf.binding.soap.interceptor.ReadHeadersInterceptor;
 import org.apache.cxf.binding.soap.interceptor.StartBodyInterceptor;
@@ -213,6 +217,59 @@ public class ReadHeaderInterceptorTest extends TestBase {
         }
     }
 
+    @Test
+    public void testStreamHeaders() throws Exception {
+        prepareSoapMessage("test-soap-header.xml");
+        soapMessage.put(ReadHeadersInterceptor.STREAM_HEADERS, Boolean.TRUE);
+        final QName passengerName = new QName("http://mycompany.example.com/employees", "passenger");
+        chain.add(new AbstractSoapInterceptor("phase2") {
+            public Set<QName> getUnderstoodHeaders() {
+                return Collections.singleton(passengerName);
+            }
+            public void handleMessage(SoapMessage message) {
+            }
+        });
+
+        new ReadHeadersInterceptor.RecordHeadersInterceptor().handleMessage(soapMessage);
+        staxIntc.handleMessage(soapMessage);
+        soapMessage.getInterceptorChain().doIntercept(soapMessage);
+        XMLStreamReader xmlReader = soapMessage.getContent(XMLStreamReader.class);
+        assertEquals("check the first entry of body", "itinerary", xmlReader.getLocalName());
+
+        // the headers keep their document order
+        List<Header> headers = soapMessage.getHeaders();
+        assertEquals(2, headers.size());
+
+        // the header nobody understands is only parsed on demand
+        Header reservation = headers.get(0);
+        assertEquals("reservation", reservation.getName().getLocalPart());
+        assertTrue(reservation instanceof ReadHeadersInterceptor.DeferredHeader);
+        ReadHeadersInterceptor.DeferredHeader deferred = (ReadHeadersInterceptor.DeferredHeader)reservation;
+        assertFalse(deferred.isMaterialized());
+        assertTrue(deferred.isMustUnderstand());
+        assertEquals("http://schemas.xmlsoap.org/soap/actor/next", deferred.getActor());
+
+        // the understood one is read into the DOM straight away
+        Header passenger = headers.get(1);
+        assertEquals(passengerName, passenger.getName());
+        assertFalse(passenger instanceof ReadHeadersInterceptor.DeferredHeader);
+        Element passengerEl = (Element)passenger.getObject();
+        Element name = DOMUtils.getFirstElement(passengerEl);
+        assertEquals("name", name.getLocalName());
+        assertEquals("Bob", name.getTextContent());
+
+        Element reservationEl = (Element)reservation.getObject();
+        assertTrue(deferred.isMaterialized());
+        assertSame(reservationEl, reservation.getObject());
+        assertSame(passengerEl.getParentNode(), reservationEl.getParentNode());
+        assertSame(passengerEl, DOMUtils.getNextElement(reservationEl));
+        Element reference = DOMUtils.getFirstElement(reservationEl);
+        assertEquals("reference", reference.getLocalName());
+        assertEquals("uuid:093a2da1-q345-739r-ba5d-pqff98fe8j7d", reference.getTextContent());
+        assertEquals("http://schemas.xmlsoap.org/soap/envelope/",
+                     reservationEl.lookupNamespaceURI("env"));
+    }
+
     private void prepareSoapMessage(String message) throws IOException {
 
         soapMessage = TestUtil.createEmptySoapMessage(Soap12.getInstance(), chain);
@@ -37,6 +37,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,6 +46,7 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.PropertyException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.ValidationEventHandler;
 import javax.xml.bind.annotation.XmlElement;
@@ -70,6 +73,8 @@ import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.PackageUtils;
 import org.apache.cxf.common.util.PropertyUtils;
 import org.apache.cxf.common.util.ReflectionUtil;
+import org.apache.cxf.common.util.StringUtils;
+import org.apache.cxf.common.util.SystemPropertyAction;
 import org.apache.cxf.common.xmlschema.SchemaCollection;
 import org.apache.cxf.databinding.AbstractInterceptorProvidingDataBinding;
 import org.apache.cxf.databinding.AbstractWrapperHelper;
@@ -108,6 +113,12 @@ public class JAXBDataBinding extends AbstractInterceptorProvidingDataBinding
 
     public static final String JAXB_SCAN_PACKAGES = "jaxb.scanPackages";
 
+    /**
+     * System property for the default number of idle Marshallers and Unmarshallers
+     * each data binding keeps for reuse, 0 disables the pooling.
+     */
+    public static final String POOL_SIZE = "org.apache.cxf.jaxb.pool-size";
+
     private static final Logger LOG = LogUtils.getLogger(JAXBDataBinding.class);
 
     private static final Class<?> SUPPORTED_READER_FORMATS[] = new Class<?>[] {Node.class,
@@ -207,6 +218,9 @@ public class JAXBDataBinding extends AbstractInterceptorProvidingDataBinding
     private boolean scanPackages = true;
     private boolean qualifiedSchemas;
 
+    private int poolSize = getDefaultPoolSize();
+    private volatile Pools pools;
+
     public JAXBDataBinding() {
     }
 
@@ -247,6 +261,7 @@ public class JAXBDataBinding extends AbstractInterceptorProvidingDataBinding
 
     public final void setContext(JAXBContext ctx) {
         context = ctx;
+        clearPools();
     }
 
     @SuppressWarnings("unchecked")
@@ -522,6 +537,7 @@ public class JAXBDataBinding extends AbstractInterceptorProvidingDataBinding
 
     public void setConfiguredXmlAdapters(List<XmlAdapter<?, ?>> adpters) {
         this.adapters = adpters;
+        clearPools();
     }
 
     /**
@@ -544,6 +560,7 @@ public class JAXBDataBinding extends AbstractInterceptorProvidingDataBinding
      */
     public void setMarshallerProperties(Map<String, Object> marshallerProperties) {
         this.marshallerProperties = marshallerProperties;
+        clearPools();
     }
 
 
@@ -567,6 +584,7 @@ public class JAXBDataBinding extends AbstractInterceptorProvidingDataBinding
      */
     public void setUnmarshallerProperties(Map<String, Object> unmarshallerProperties) {
         this.unmarshallerProperties = unmarshallerProperties;
+        clearPools();
     }
 
     /**
@@ -583,6 +601,7 @@ public class JAXBDataBinding extends AbstractInterceptorProvidingDataBinding
      */
     public void setUnmarshallerListener(Unmarshaller.Listener unmarshallerListener) {
         this.unmarshallerListener = unmarshallerListener;
+        clearPools();
     }
     /**
      * Returns the Marshaller.Listener that will be registered on the Marshallers
@@ -598,6 +617,7 @@ public class JAXBDataBinding extends AbstractInterceptorProvidingDataBinding
      */
     public void setMarshallerListener(Marshaller.Listener marshallerListener) {
         this.marshallerListener = marshallerListener;
+        clearPools();
     }
 
 
@@ -610,6 +630,226 @@ public class JAXBDataBinding extends AbstractInterceptorProvidingDataBinding
     }
 
 
+    @Override
+    public void setNamespaceMap(Map<String, String> namespaceMap) {
+        super.setNamespaceMap(namespaceMap);
+        clearPools();
+    }
+
+    @Override
+    public void setContextualNamespaceMap(Map<String, String> contextualNamespaceMap) {
+        super.setContextualNamespaceMap(contextualNamespaceMap);
+        clearPools();
+    }
+
+    /**
+     * Returns the maximum number of idle Marshallers and Unmarshallers kept
+     * for reuse by the readers and writers of this data binding.
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Sets the maximum number of idle Marshallers and Unmarshallers kept
+     * for reuse by the readers and writers of this data binding, 0 disables
+     * the pooling.
+     * @param poolSize
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+        clearPools();
+    }
+
+    /**
+     * Returns a Marshaller for the given context configured with the encoding,
+     * listener, namespace mappings, properties and adapters of this data
+     * binding, reusing a pooled one if available. Only Marshallers for the
+     * context of the data binding are pooled, readers and writers may have been
+     * given another one with setJAXBContext. The caller is responsible for
+     * setting the per message event handler, schema and attachment marshaller.
+     */
+    public Marshaller getMarshaller(JAXBContext ctx) throws JAXBException {
+        Pools p = pools;
+        Marshaller marshaller = p == null || p.context != ctx ? null : p.marshallers.poll();
+        if (marshaller == null) {
+            marshaller = createMarshaller(ctx);
+        }
+        return marshaller;
+    }
+
+    /**
+     * Returns a Marshaller obtained from {@link #getMarshaller(JAXBContext)} for
+     * reuse. Only Marshallers which completed their work normally should be released.
+     */
+    public void releaseMarshaller(JAXBContext ctx, Marshaller marshaller) {
+        Pools p = getPools(ctx);
+        if (p == null) {
+            return;
+        }
+        try {
+            marshaller.setEventHandler(null);
+            marshaller.setAttachmentMarshaller(null);
+            marshaller.setSchema(null);
+        } catch (JAXBException ex) {
+            return;
+        }
+        p.marshallers.offer(marshaller);
+    }
+
+    /**
+     * Returns an Unmarshaller for the given context configured with the
+     * listener, properties and adapters of this data binding, reusing a pooled
+     * one if available. Only Unmarshallers for the context of the data binding
+     * are pooled. The caller is responsible for setting the per message event
+     * handler, schema and attachment unmarshaller.
+     */
+    public Unmarshaller getUnmarshaller(JAXBContext ctx) throws JAXBException {
+        Pools p = pools;
+        Unmarshaller unmarshaller = p == null || p.context != ctx ? null : p.unmarshallers.poll();
+        if (unmarshaller == null) {
+            unmarshaller = createUnmarshaller(ctx);
+        }
+        return unmarshaller;
+    }
+
+    /**
+     * Returns an Unmarshaller obtained from {@link #getUnmarshaller(JAXBContext)}
+     * for reuse. Only Unmarshallers which completed their work normally should be released.
+     */
+    public void releaseUnmarshaller(JAXBContext ctx, Unmarshaller unmarshaller) {
+        Pools p = getPools(ctx);
+        if (p == null) {
+            return;
+        }
+        try {
+            unmarshaller.setEventHandler(null);
+            unmarshaller.setAttachmentUnmarshaller(null);
+            unmarshaller.setSchema(null);
+        } catch (JAXBException ex) {
+            return;
+        }
+        p.unmarshallers.offer(unmarshaller);
+    }
+
+    /**
+     * Returns the pools for the given context, or null if it is not the
+     * context of this data binding or pooling is turned off.
+     */
+    private Pools getPools(JAXBContext ctx) {
+        Pools p = pools;
+        if (p != null && p.context == ctx) {
+            return p;
+        }
+        if (ctx != context || poolSize <= 0) {
+            return null;
+        }
+        p = new Pools(ctx, poolSize);
+        pools = p;
+        return p;
+    }
+
+    private void clearPools() {
+        pools = null;
+    }
+
+    /**
+     * The idle Marshallers and Unmarshallers created for a JAXBContext.
+     */
+    private static final class Pools {
+        final JAXBContext context;
+        final BlockingQueue<Marshaller> marshallers;
+        final BlockingQueue<Unmarshaller> unmarshallers;
+
+        Pools(JAXBContext context, int size) {
+            this.context = context;
+            marshallers = new ArrayBlockingQueue<Marshaller>(size);
+            unmarshallers = new ArrayBlockingQueue<Unmarshaller>(size);
+        }
+    }
+
+    private Marshaller createMarshaller(JAXBContext ctx) throws JAXBException {
+        Marshaller marshaller = ctx.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
+        marshaller.setListener(marshallerListener);
+
+        final Map<String, String> nspref = getDeclaredNamespaceMappings();
+        final Map<String, String> nsctxt = getContextualNamespaceMap();
+        // set the prefix mapper if either of the prefix map is configured
+        if (nspref != null || nsctxt != null) {
+            Object mapper = JAXBUtils.setNamespaceMapper(nspref != null ? nspref : nsctxt, marshaller);
+            if (nsctxt != null) {
+                setContextualNamespaceDecls(mapper, nsctxt);
+            }
+        }
+        if (marshallerProperties != null) {
+            for (Map.Entry<String, Object> propEntry : marshallerProperties.entrySet()) {
+                try {
+                    marshaller.setProperty(propEntry.getKey(), propEntry.getValue());
+                } catch (PropertyException pe) {
+                    LOG.log(Level.INFO, "PropertyException setting Marshaller properties", pe);
+                }
+            }
+        }
+        for (XmlAdapter<?, ?> adapter : adapters) {
+            marshaller.setAdapter(adapter);
+        }
+        return marshaller;
+    }
+
+    private Unmarshaller createUnmarshaller(JAXBContext ctx) throws JAXBException {
+        Unmarshaller um = ctx.createUnmarshaller();
+        if (unmarshallerListener != null) {
+            um.setListener(unmarshallerListener);
+        }
+        if (unmarshallerProperties != null) {
+            for (Map.Entry<String, Object> propEntry : unmarshallerProperties.entrySet()) {
+                try {
+                    um.setProperty(propEntry.getKey(), propEntry.getValue());
+                } catch (PropertyException pe) {
+                    LOG.log(Level.INFO, "PropertyException setting Marshaller properties", pe);
+                }
+            }
+        }
+        for (XmlAdapter<?, ?> adapter : adapters) {
+            um.setAdapter(adapter);
+        }
+        return um;
+    }
+
+    //REVISIT should this go into JAXBUtils?
+    private static void setContextualNamespaceDecls(Object mapper, Map<String, String> nsctxt) {
+        try {
+            Method m = ReflectionUtil.getDeclaredMethod(mapper.getClass(), "setContextualNamespaceDecls",
+                                                        new Class<?>[]{String[].class});
+            String[] args = new String[nsctxt.size() * 2];
+            int ai = 0;
+            for (Map.Entry<String, String> nsp : nsctxt.entrySet()) {
+                args[ai++] = nsp.getValue();
+                args[ai++] = nsp.getKey();
+            }
+            m.invoke(mapper, new Object[]{args});
+        } catch (Exception e) {
+            // ignore
+            LOG.log(Level.WARNING, "Failed to set the contextual namespace map", e);
+        }
+        
+    }
+
+    private static int getDefaultPoolSize() {
+        try {
+            String s = SystemPropertyAction.getPropertyOrNull(POOL_SIZE);
+            if (!StringUtils.isEmpty(s)) {
+                return Math.max(0, Integer.parseInt(s));
+            }
+        } catch (NumberFormatException ex) {
+            //ignore
+        }
+        return 20;
+    }
+
     public boolean isUnwrapJAXBElement() {
         return unwrapJAXBElement;
     }
@@ -38,6 +38,11 @@ import javax.wsdl.Definition;
 import javax.wsdl.Service;
 import javax.wsdl.factory.WSDLFactory;
 import javax.wsdl.xml.WSDLReader;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEvent;
+import javax.xml.bind.ValidationEventHandler;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.adapters.XmlAdapter;
@@ -273,6 +278,60 @@ public class JAXBDataBindingTest extends Assert {
 
     }
 
+    @Test
+    public void testMarshallerPool() throws Exception {
+        Language dutch = new Language("nl_NL", "Dutch");
+        JAXBDataBinding binding = new JAXBDataBinding(Person.class, Language.class);
+        binding.setConfiguredXmlAdapters(Arrays.<XmlAdapter<?, ?>>asList(new LanguageAdapter(dutch)));
+
+        DataWriter<OutputStream> writer = binding.createWriter(OutputStream.class);
+        DataReader<XMLStreamReader> reader = binding.createReader(XMLStreamReader.class);
+        for (int x = 0; x < 3; x++) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            writer.write(new Person(dutch), baos);
+            String xml = baos.toString();
+            assertEquals("<person motherTongue=\"nl_NL\"/>", xml);
+            Person read = (Person)reader.read(XMLInputFactory.newFactory()
+                                              .createXMLStreamReader(new StringReader(xml)));
+            assertEquals(dutch, read.getMotherTongue());
+        }
+
+        // released instances are reset and reused
+        JAXBContext ctx = binding.getContext();
+        Marshaller marshaller = binding.getMarshaller(ctx);
+        marshaller.setEventHandler(new MyEventHandler());
+        binding.releaseMarshaller(ctx, marshaller);
+        assertSame(marshaller, binding.getMarshaller(ctx));
+        assertFalse(marshaller.getEventHandler() instanceof MyEventHandler);
+        Unmarshaller unmarshaller = binding.getUnmarshaller(ctx);
+        binding.releaseUnmarshaller(ctx, unmarshaller);
+        assertSame(unmarshaller, binding.getUnmarshaller(ctx));
+
+        // instances for another context, as set with setJAXBContext, are not pooled
+        JAXBContext other = JAXBContext.newInstance(Person.class);
+        Marshaller otherMarshaller = binding.getMarshaller(other);
+        binding.releaseMarshaller(other, otherMarshaller);
+        assertNotSame(otherMarshaller, binding.getMarshaller(other));
+        binding.releaseMarshaller(ctx, marshaller);
+        assertSame(marshaller, binding.getMarshaller(ctx));
+
+        // changing the configuration drops the pooled instances
+        binding.releaseMarshaller(ctx, marshaller);
+        binding.setMarshallerListener(new Marshaller.Listener() { });
+        assertNotSame(marshaller, binding.getMarshaller(ctx));
+
+        binding.setPoolSize(0);
+        marshaller = binding.getMarshaller(ctx);
+        binding.releaseMarshaller(ctx, marshaller);
+        assertNotSame(marshaller, binding.getMarshaller(ctx));
+    }
+
+    private static class MyEventHandler implements ValidationEventHandler {
+        public boolean handleEvent(ValidationEvent event) {
+            return false;
+        }
+    }
+
     @XmlRootElement
     public static class Person {
         @XmlAttribute
@@ -40,6 +40,7 @@ import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.jaxrs.model.Parameter;
 import org.apache.cxf.jaxrs.model.ParameterType;
+import org.apache.cxf.jaxrs.model.URITemplateIndex;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
 import org.apache.cxf.jaxrs.utils.JAXRSUtils;
 import org.apache.cxf.service.Service;
@@ -58,6 +59,7 @@ import org.apache.cxf.service.model.ServiceInfo;
 public class JAXRSServiceImpl extends AbstractAttributedInterceptorProvider implements Service, Configurable {
     private static final long serialVersionUID = 6765400202555126993L;
     private List<ClassResourceInfo> classResourceInfos;
+    private transient volatile URITemplateIndex<ClassResourceInfo> resourceIndex;
     private DataBinding dataBinding;
     private Executor executor;
     private Invoker invoker;
@@ -109,6 +111,27 @@ public class JAXRSServiceImpl extends AbstractAttributedInterceptorProvider impl
     public List<ClassResourceInfo> getClassResourceInfos() {
         return classResourceInfos;
     }
+
+    /**
+     * Returns the dispatch index of the root resources. It is built on first use
+     * and rebuilt if resources have been added or removed since; call
+     * {@link #invalidateResourceIndex()} after replacing resources in place.
+     */
+    public URITemplateIndex<ClassResourceInfo> getResourceIndex() {
+        URITemplateIndex<ClassResourceInfo> index = resourceIndex;
+        if (index == null || index.size() != classResourceInfos.size()) {
+            index = new URITemplateIndex<ClassResourceInfo>();
+            for (ClassResourceInfo cri : classResourceInfos) {
+                index.add(cri.getURITemplate(), cri);
+            }
+            resourceIndex = index;
+        }
+        return index;
+    }
+
+    public void invalidateResourceIndex() {
+        resourceIndex = null;
+    }
     
     public List<ServiceInfo> getServiceInfos() {
         if (!createServiceModel) {
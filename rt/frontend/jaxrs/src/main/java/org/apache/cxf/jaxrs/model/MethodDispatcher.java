@@ -20,6 +20,7 @@ package org.apache.cxf.jaxrs.model;
 
 import java.lang.reflect.Method;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -31,6 +32,7 @@ public class MethodDispatcher {
     private Map<Method, OperationResourceInfo> methodToOri = 
         new LinkedHashMap<Method, OperationResourceInfo>();
     private ConcurrentHashMap<Method, Method> proxyMethodMap = new ConcurrentHashMap<Method, Method>();
+    private volatile URITemplateIndex<OperationResourceInfo> operationIndex;
     
     public MethodDispatcher() {
         
@@ -52,6 +54,7 @@ public class MethodDispatcher {
         }
 
         oriToMethod.put(o, primary);
+        operationIndex = null;
     }
 
     public OperationResourceInfo getOperationResourceInfo(Method method) {
@@ -62,6 +65,22 @@ public class MethodDispatcher {
         return oriToMethod.keySet();
     }
 
+    /**
+     * Returns the operations whose URI template may match the given path, in the
+     * order they were bound; their templates still have to be matched.
+     */
+    public List<OperationResourceInfo> getOperationResourceInfos(String path) {
+        URITemplateIndex<OperationResourceInfo> index = operationIndex;
+        if (index == null) {
+            index = new URITemplateIndex<OperationResourceInfo>();
+            for (OperationResourceInfo ori : oriToMethod.keySet()) {
+                index.add(ori.getURITemplate(), ori);
+            }
+            operationIndex = index;
+        }
+        return index.getCandidates(path);
+    }
+
     public Method getMethod(OperationResourceInfo op) {
         return oriToMethod.get(op);
     }
@@ -22,11 +22,13 @@ package org.apache.cxf.jaxrs.model;
 import java.util.Map;
 
 import org.apache.cxf.Bus;
+import org.apache.cxf.jaxrs.ext.StableSelection;
 import org.apache.cxf.jaxrs.impl.tl.ThreadLocalProxy;
 
 public class ProviderInfo<T> extends AbstractResourceInfo {
 
     private T provider;
+    private boolean selectionStable;
     
     public ProviderInfo(T provider, Bus bus) {
         this(provider, bus, true);
@@ -48,6 +50,7 @@ public class ProviderInfo<T> extends AbstractResourceInfo {
                         boolean checkContexts) {
         super(provider.getClass(), provider.getClass(), true, checkContexts, constructorProxies, bus, provider);
         this.provider = provider;
+        this.selectionStable = provider.getClass().isAnnotationPresent(StableSelection.class);
     }
     
     @Override
@@ -59,6 +62,14 @@ public class ProviderInfo<T> extends AbstractResourceInfo {
         return provider;
     }
     
+    /**
+     * Returns true if the provider is annotated with {@link StableSelection}
+     * and its selection for a given entity type and media type can be cached.
+     */
+    public boolean isSelectionStable() {
+        return selectionStable;
+    }
+    
     public boolean equals(Object obj) {
         if (!(obj instanceof ProviderInfo)) {
             return false;
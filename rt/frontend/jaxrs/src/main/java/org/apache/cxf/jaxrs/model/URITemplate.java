@@ -50,11 +50,13 @@ public final class URITemplate {
     private final List<String> customVariables = new ArrayList<String>();
     private final Pattern templateRegexPattern;
     private final String literals;
+    private final String literalPrefix;
     private final List<UriChunk> uriChunks;
 
     public URITemplate(String theTemplate) {
         template = theTemplate;
         StringBuilder literalChars = new StringBuilder();
+        StringBuilder prefixChars = new StringBuilder();
         StringBuilder patternBuilder = new StringBuilder();
         CurlyBraceTokenizer tok = new CurlyBraceTokenizer(template);
         uriChunks = new ArrayList<UriChunk>();
@@ -64,6 +66,9 @@ public final class URITemplate {
             uriChunks.add(chunk);
             if (chunk instanceof Literal) {
                 String encodedValue = HttpUtils.encodePartiallyEncoded(chunk.getValue(), false);
+                if (variables.isEmpty()) {
+                    prefixChars.append(encodedValue);
+                }
                 String substr = escapeCharacters(encodedValue);
                 literalChars.append(substr);
                 patternBuilder.append(substr);
@@ -81,6 +86,7 @@ public final class URITemplate {
             }
         }
         literals = literalChars.toString();
+        literalPrefix = prefixChars.toString();
 
         int endPos = patternBuilder.length() - 1;
         boolean endsWithSlash = (endPos >= 0) ? patternBuilder.charAt(endPos) == '/' : false;
@@ -96,6 +102,14 @@ public final class URITemplate {
         return literals;
     }
 
+    /**
+     * Returns the encoded literal characters preceding the first template variable;
+     * a path matching this template starts with them once matrix parameters are removed.
+     */
+    String getLiteralPrefix() {
+        return literalPrefix;
+    }
+
     public String getValue() {
         return template;
     }
@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dispatch index over a list of URI templates. The templates are stored in a
+ * trie keyed by the literal path segments preceding their first variable, so that
+ * only the templates whose literal segments match the path need to have their
+ * regular expression evaluated. Candidates are returned in the order they were
+ * added, which keeps the selection among equally ranked templates unchanged.
+ */
+public final class URITemplateIndex<T> {
+    private static final String REGEX_CHARACTERS = "\\^?[]{}|;";
+
+    private final Node<T> root = new Node<T>();
+    private int size;
+
+    /**
+     * Adds the given item, items with a null template never match and are not indexed.
+     */
+    public void add(URITemplate template, T item) {
+        int position = size++;
+        if (template == null) {
+            return;
+        }
+        Node<T> node = root;
+        String prefix = template.getLiteralPrefix();
+        if (prefix.startsWith("/")) {
+            boolean complete = template.getVariables().isEmpty();
+            int start = 1;
+            while (start < prefix.length()) {
+                int end = prefix.indexOf('/', start);
+                if (end == -1) {
+                    if (!complete) {
+                        // the last segment continues with a variable
+                        break;
+                    }
+                    end = prefix.length();
+                }
+                String segment = prefix.substring(start, end);
+                if (segment.length() == 0 || !isLiteral(segment)) {
+                    break;
+                }
+                node = node.getChild(segment);
+                start = end + 1;
+            }
+        }
+        node.entries.add(new Entry<T>(position, item));
+    }
+
+    /**
+     * Returns the number of items added to this index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the items whose templates may match the given path, in the order they
+     * were added. The templates of the returned items still have to be matched.
+     */
+    public List<T> getCandidates(String path) {
+        List<Entry<T>> found = new ArrayList<Entry<T>>(root.entries);
+        int nodes = found.isEmpty() ? 0 : 1;
+        Node<T> node = root;
+        if (path != null && path.startsWith("/")) {
+            int start = 1;
+            while (node.children != null && start < path.length()) {
+                int end = path.indexOf('/', start);
+                if (end == -1) {
+                    end = path.length();
+                }
+                int matrix = path.indexOf(';', start);
+                String segment = path.substring(start, matrix != -1 && matrix < end ? matrix : end);
+                node = node.children.get(segment);
+                if (node == null) {
+                    break;
+                }
+                if (!node.entries.isEmpty()) {
+                    found.addAll(node.entries);
+                    nodes++;
+                }
+                start = end + 1;
+            }
+        }
+        if (nodes > 1) {
+            Collections.sort(found);
+        }
+        List<T> candidates = new ArrayList<T>(found.size());
+        for (Entry<T> entry : found) {
+            candidates.add(entry.item);
+        }
+        return candidates;
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (REGEX_CHARACTERS.indexOf(segment.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Node<T> {
+        private final List<Entry<T>> entries = new ArrayList<Entry<T>>(1);
+        private Map<String, Node<T>> children;
+
+        Node<T> getChild(String segment) {
+            if (children == null) {
+                children = new HashMap<String, Node<T>>();
+            }
+            Node<T> child = children.get(segment);
+            if (child == null) {
+                child = new Node<T>();
+                children.put(segment, child);
+            }
+            return child;
+        }
+    }
+
+    private static final class Entry<T> implements Comparable<Entry<T>> {
+        private final int position;
+        private final T item;
+
+        Entry(int position, T item) {
+            this.position = position;
+            this.item = item;
+        }
+
+        public int compareTo(Entry<T> other) {
+            return position < other.position ? -1 : position == other.position ? 0 : 1;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -34,9 +35,12 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import javax.ws.rs.Produces;
@@ -90,6 +94,8 @@ public abstract class ProviderFactory {
     private static final String JAXB_PROVIDER_NAME = "org.apache.cxf.jaxrs.provider.JAXBElementProvider";
     private static final String JSON_PROVIDER_NAME = "org.apache.cxf.jaxrs.provider.json.JSONProvider";
     private static final String BUS_PROVIDERS_ALL = "org.apache.cxf.jaxrs.bus.providers";
+    private static final int MAX_SELECTION_CACHE_SIZE = 256;
+    private static final Object NO_SELECTION = new Object();
     
     protected Map<NameKey, ProviderInfo<ReaderInterceptor>> readerInterceptors = 
         new NameKeyMap<ProviderInfo<ReaderInterceptor>>(true);
@@ -107,6 +113,12 @@ public abstract class ProviderFactory {
     
     private Set<ParamConverterProvider> newParamConverters;
     
+    // Selections made among the providers which declare them stable
+    private Map<SelectionKey, Selection> readerSelections = new ConcurrentHashMap<SelectionKey, Selection>();
+    private Map<SelectionKey, Selection> writerSelections = new ConcurrentHashMap<SelectionKey, Selection>();
+    // advanced on every new selection, entries not used since the oldest tick are evicted first
+    private final AtomicLong selectionClock = new AtomicLong();
+    
     // List of injected providers
     private Collection<ProviderInfo<?>> injectedProviders = 
         new LinkedList<ProviderInfo<?>>();
@@ -274,7 +286,7 @@ public abstract class ProviderFactory {
         
         Class<?> mapperClass = ClassHelper.getRealClass(bus, em.getProvider());
         Type[] types = null;
-        if (m != null && MessageUtils.isTrue(m.getContextualProperty(IGNORE_TYPE_VARIABLES))) {
+        if (isIgnoreTypeVariables(m)) {
             types = new Type[]{mapperClass};
         } else {
             types = getGenericInterfaces(mapperClass, expectedType);
@@ -490,6 +502,7 @@ public abstract class ProviderFactory {
     
     @SuppressWarnings("unchecked")
     protected void setCommonProviders(List<ProviderInfo<? extends Object>> theProviders) {
+        clearSelections();
         List<ProviderInfo<ReaderInterceptor>> readInts = 
             new LinkedList<ProviderInfo<ReaderInterceptor>>();
         List<ProviderInfo<WriterInterceptor>> writeInts = 
@@ -630,45 +643,69 @@ public abstract class ProviderFactory {
                                                          Annotation[] annotations,
                                                          MediaType mediaType,
                                                          Message m) {
+        SelectionKey key = new SelectionKey(type, genericType, annotations, mediaType, 
+                                            !isBaseFactory() && isIgnoreTypeVariables(m));
+        Object selection = getSelection(readerSelections, key);
+        if (selection != null) {
+            if (selection == NO_SELECTION) {
+                return null;
+            }
+            ProviderInfo<MessageBodyReader<?>> ep = (ProviderInfo<MessageBodyReader<?>>)selection;
+            injectActiveContextValues(ep, m);
+            return (MessageBodyReader<T>) ep.getProvider();
+        }
+        
+        boolean stable = true;
         List<MessageBodyReader<?>> candidates = new LinkedList<MessageBodyReader<?>>();
         for (ProviderInfo<MessageBodyReader<?>> ep : readers) {
+            if (!matchesReaderMediaTypes(ep, mediaType)) {
+                continue;
+            }
+            stable &= ep.isSelectionStable();
             if (matchesReaderCriterias(ep, type, genericType, annotations, mediaType, m)) {
                 if (isBaseFactory()) {
+                    if (stable) {
+                        cacheSelection(readerSelections, key, ep);
+                    }
                     return (MessageBodyReader<T>) ep.getProvider();
                 }
                 handleMapper(candidates, ep, type, m, MessageBodyReader.class, false);
                 if (!candidates.isEmpty()) {
+                    if (stable) {
+                        cacheSelection(readerSelections, key, ep);
+                    }
                     break;
                 }
             }
         }     
         
         if (candidates.isEmpty()) {
+            if (stable) {
+                cacheSelection(readerSelections, key, NO_SELECTION);
+            }
             return null;
         }
         return (MessageBodyReader<T>) candidates.get(0);
         
     }
     
+    private boolean matchesReaderMediaTypes(ProviderInfo<MessageBodyReader<?>> pi, MediaType mediaType) {
+        List<MediaType> supportedMediaTypes = JAXRSUtils.getProviderConsumeTypes(pi.getProvider());
+        
+        List<MediaType> availableMimeTypes = 
+            JAXRSUtils.intersectMimeTypes(Collections.singletonList(mediaType), supportedMediaTypes, false);
+
+        return availableMimeTypes.size() != 0;
+    }
+    
     private <T> boolean matchesReaderCriterias(ProviderInfo<MessageBodyReader<?>> pi,
                                                Class<T> type,
                                                Type genericType,
                                                Annotation[] annotations,
                                                MediaType mediaType,
                                                Message m) {
-        MessageBodyReader<?> ep = pi.getProvider();
-        List<MediaType> supportedMediaTypes = JAXRSUtils.getProviderConsumeTypes(ep);
-        
-        List<MediaType> availableMimeTypes = 
-            JAXRSUtils.intersectMimeTypes(Collections.singletonList(mediaType), supportedMediaTypes, false);
-
-        if (availableMimeTypes.size() == 0) {
-            return false;
-        }
-        if (m.get(ACTIVE_JAXRS_PROVIDER_KEY) != ep) {
-            injectContextValues(pi, m);
-        }
-        return ep.isReadable(type, genericType, annotations, mediaType);
+        injectActiveContextValues(pi, m);
+        return pi.getProvider().isReadable(type, genericType, annotations, mediaType);
     }
         
     /**
@@ -688,44 +725,115 @@ public abstract class ProviderFactory {
                                                          Annotation[] annotations,
                                                          MediaType mediaType,
                                                          Message m) {
+        SelectionKey key = new SelectionKey(type, genericType, annotations, mediaType, 
+                                            !isBaseFactory() && isIgnoreTypeVariables(m));
+        Object selection = getSelection(writerSelections, key);
+        if (selection != null) {
+            if (selection == NO_SELECTION) {
+                return null;
+            }
+            ProviderInfo<MessageBodyWriter<?>> ep = (ProviderInfo<MessageBodyWriter<?>>)selection;
+            injectActiveContextValues(ep, m);
+            return (MessageBodyWriter<T>) ep.getProvider();
+        }
+        
+        boolean stable = true;
         List<MessageBodyWriter<?>> candidates = new LinkedList<MessageBodyWriter<?>>();
         for (ProviderInfo<MessageBodyWriter<?>> ep : writers) {
+            if (!matchesWriterMediaTypes(ep, mediaType)) {
+                continue;
+            }
+            stable &= ep.isSelectionStable();
             if (matchesWriterCriterias(ep, type, genericType, annotations, mediaType, m)) {
                 if (isBaseFactory()) {
+                    if (stable) {
+                        cacheSelection(writerSelections, key, ep);
+                    }
                     return (MessageBodyWriter<T>) ep.getProvider();
                 }
                 handleMapper(candidates, ep, type, m, MessageBodyWriter.class, false);
                 if (!candidates.isEmpty()) {
+                    if (stable) {
+                        cacheSelection(writerSelections, key, ep);
+                    }
                     break;
                 }
             }
         }     
         if (candidates.isEmpty()) {
+            if (stable) {
+                cacheSelection(writerSelections, key, NO_SELECTION);
+            }
             return null;
         }
         return (MessageBodyWriter<T>) candidates.get(0);
     }
     
+    private boolean matchesWriterMediaTypes(ProviderInfo<MessageBodyWriter<?>> pi, MediaType mediaType) {
+        List<MediaType> supportedMediaTypes = JAXRSUtils.getProviderProduceTypes(pi.getProvider());
+        
+        List<MediaType> availableMimeTypes = 
+            JAXRSUtils.intersectMimeTypes(Collections.singletonList(mediaType),
+                                          supportedMediaTypes, false);
+
+        return availableMimeTypes.size() != 0;
+    }
+    
     private <T> boolean matchesWriterCriterias(ProviderInfo<MessageBodyWriter<?>> pi,
                                                Class<T> type,
                                                Type genericType,
                                                Annotation[] annotations,
                                                MediaType mediaType,
                                                Message m) {
-        MessageBodyWriter<?> ep = pi.getProvider();
-        List<MediaType> supportedMediaTypes = JAXRSUtils.getProviderProduceTypes(ep);
-        
-        List<MediaType> availableMimeTypes = 
-            JAXRSUtils.intersectMimeTypes(Collections.singletonList(mediaType),
-                                          supportedMediaTypes, false);
-
-        if (availableMimeTypes.size() == 0) {
-            return false;
-        }
-        if (m.get(ACTIVE_JAXRS_PROVIDER_KEY) != ep) {
+        injectActiveContextValues(pi, m);
+        return pi.getProvider().isWriteable(type, genericType, annotations, mediaType);
+    }
+    
+    private void injectActiveContextValues(ProviderInfo<?> pi, Message m) {
+        if (m.get(ACTIVE_JAXRS_PROVIDER_KEY) != pi.getProvider()) {
             injectContextValues(pi, m);
         }
-        return ep.isWriteable(type, genericType, annotations, mediaType);
+    }
+    
+    private static boolean isIgnoreTypeVariables(Message m) {
+        return m != null && MessageUtils.isTrue(m.getContextualProperty(IGNORE_TYPE_VARIABLES));
+    }
+    
+    private Object getSelection(Map<SelectionKey, Selection> selections, SelectionKey key) {
+        Selection selection = selections.get(key);
+        if (selection == null) {
+            return null;
+        }
+        long now = selectionClock.get();
+        if (selection.lastUsed != now) {
+            selection.lastUsed = now;
+        }
+        return selection.value;
+    }
+    
+    private void cacheSelection(Map<SelectionKey, Selection> selections, SelectionKey key, Object value) {
+        long now = selectionClock.incrementAndGet();
+        if (selections.size() >= MAX_SELECTION_CACHE_SIZE && !selections.containsKey(key)) {
+            evictLeastRecentlyUsed(selections);
+        }
+        selections.put(key, new Selection(value, now));
+    }
+    
+    private static void evictLeastRecentlyUsed(Map<SelectionKey, Selection> selections) {
+        Map.Entry<SelectionKey, Selection> eldest = null;
+        for (Map.Entry<SelectionKey, Selection> entry : selections.entrySet()) {
+            if (eldest == null || entry.getValue().lastUsed < eldest.getValue().lastUsed) {
+                eldest = entry;
+            }
+        }
+        if (eldest != null) {
+            selections.remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+    
+    protected void clearSelections() {
+        readerSelections.clear();
+        writerSelections.clear();
     }
     
     List<ProviderInfo<MessageBodyReader<?>>> getMessageReaders() {
@@ -831,6 +939,7 @@ public abstract class ProviderFactory {
     }
     
     public void clearProviders() {
+        clearSelections();
         messageReaders.clear();
         messageWriters.clear();
         contextResolvers.clear();
@@ -1259,5 +1368,72 @@ public abstract class ProviderFactory {
 
     public void setProviderComparator(Comparator<?> providerComparator) {
         this.providerComparator = providerComparator;
+        clearSelections();
+    }
+    
+    private static final class Selection {
+        final Object value;
+        volatile long lastUsed;
+        
+        Selection(Object value, long lastUsed) {
+            this.value = value;
+            this.lastUsed = lastUsed;
+        }
+    }
+    
+    /**
+     * Stable providers only look at the type and subtype of the media type, so its
+     * parameters (such as the charset) are not part of the key. The annotations are
+     * usually the same array taken from the resource method and are compared by
+     * identity first; the hash code only uses the annotation types, which is cheaper
+     * than hashing the annotation members.
+     */
+    private static final class SelectionKey {
+        private final Class<?> type;
+        private final Type genericType;
+        private final Annotation[] annotations;
+        private final String mediaType;
+        private final String mediaSubtype;
+        private final boolean ignoreTypeVariables;
+        private final int hashCode;
+        
+        SelectionKey(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                     boolean ignoreTypeVariables) {
+            this.type = type;
+            this.genericType = genericType;
+            this.annotations = annotations;
+            this.mediaType = mediaType == null ? null : mediaType.getType().toLowerCase(Locale.ENGLISH);
+            this.mediaSubtype = mediaType == null ? null : mediaType.getSubtype().toLowerCase(Locale.ENGLISH);
+            this.ignoreTypeVariables = ignoreTypeVariables;
+            int h = type == null ? 0 : type.hashCode();
+            h = 31 * h + (genericType == null ? 0 : genericType.hashCode());
+            if (annotations != null) {
+                for (Annotation a : annotations) {
+                    h = 31 * h + a.annotationType().hashCode();
+                }
+            }
+            h = 31 * h + (this.mediaType == null ? 0 : this.mediaType.hashCode());
+            h = 31 * h + (mediaSubtype == null ? 0 : mediaSubtype.hashCode());
+            this.hashCode = ignoreTypeVariables ? ~h : h;
+        }
+        
+        public boolean equals(Object o) {
+            if (!(o instanceof SelectionKey)) {
+                return false;
+            }
+            SelectionKey other = (SelectionKey)o;
+            return hashCode == other.hashCode
+                && type == other.type
+                && ignoreTypeVariables == other.ignoreTypeVariables
+                && (genericType == null ? other.genericType == null : genericType.equals(other.genericType))
+                && (mediaType == null ? other.mediaType == null : mediaType.equals(other.mediaType))
+                && (mediaSubtype == null 
+                    ? other.mediaSubtype == null : mediaSubtype.equals(other.mediaSubtype))
+                && (annotations == other.annotations || Arrays.equals(annotations, other.annotations));
+        }
+        
+        public int hashCode() {
+            return hashCode;
+        }
     }
 }
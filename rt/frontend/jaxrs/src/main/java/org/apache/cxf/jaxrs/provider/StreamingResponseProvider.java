@@ -31,9 +31,11 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Providers;
 
+import org.apache.cxf.jaxrs.ext.StableSelection;
 import org.apache.cxf.jaxrs.ext.StreamingResponse;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
 
+@StableSelection
 public class StreamingResponseProvider<T> implements 
     MessageBodyWriter<StreamingResponse<T>> {
 
@@ -29,6 +29,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -122,6 +123,7 @@ import org.apache.cxf.jaxrs.model.BeanParamInfo;
 import org.apache.cxf.jaxrs.model.BeanResourceInfo;
 import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.ClassResourceInfoComparator;
+import org.apache.cxf.jaxrs.model.MethodDispatcher;
 import org.apache.cxf.jaxrs.model.MethodInvocationInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfoComparator;
@@ -310,7 +312,9 @@ public final class JAXRSUtils {
             new TreeMap<ClassResourceInfo, MultivaluedMap<String, String>>(
                 new ClassResourceInfoComparator(message));
         
-        for (ClassResourceInfo cri : resources) {
+        List<ClassResourceInfo> candidates = isFineLevelLoggable 
+            ? resources : getCandidateResources(resources, path, message);
+        for (ClassResourceInfo cri : candidates) {
             MultivaluedMap<String, String> map = new MetadataMap<String, String>();
             if (cri.getURITemplate().match(path, map)) {
                 candidateList.put(cri, map);
@@ -409,7 +413,10 @@ public final class JAXRSUtils {
                 
             }
             
-            for (OperationResourceInfo ori : resource.getMethodDispatcher().getOperationResourceInfos()) {
+            MethodDispatcher md = resource.getMethodDispatcher();
+            Collection<OperationResourceInfo> oris = isFineLevelLoggable 
+                ? md.getOperationResourceInfos() : md.getOperationResourceInfos(path);
+            for (OperationResourceInfo ori : oris) {
                 boolean added = false;
                 
                 URITemplate uriTemplate = ori.getURITemplate();
@@ -563,6 +570,17 @@ public final class JAXRSUtils {
         return result;
     }
     
+    private static List<ClassResourceInfo> getCandidateResources(List<ClassResourceInfo> resources, 
+                                                                 String path, Message message) {
+        Exchange exchange = message == null ? null : message.getExchange();
+        Service service = exchange == null ? null : exchange.get(Service.class);
+        if (service instanceof JAXRSServiceImpl 
+            && ((JAXRSServiceImpl)service).getClassResourceInfos() == resources) {
+            return ((JAXRSServiceImpl)service).getResourceIndex().getCandidates(path);
+        }
+        return resources;
+    }
+
     private static String getCurrentPath(MultivaluedMap<String, String> values) {
         String path = values.getFirst(URITemplate.FINAL_MATCH_GROUP);
         return path == null ?  "/" : path;
@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class URITemplateIndexTest extends Assert {
+
+    private static final List<String> TEMPLATES = Arrays.asList(
+        "/",
+        "/bookstore",
+        "/bookstore/{id}",
+        "/bookstore/books/{id}",
+        "/bookstore/books/{id}/chapters",
+        "/bookstore/books{id}",
+        "/customers/{id}/orders",
+        "/customers/orders",
+        "/{path:.*}/info",
+        "/a b/c");
+
+    private static final List<String> PATHS = Arrays.asList(
+        "/",
+        "/bookstore",
+        "/bookstore/",
+        "/bookstore/123",
+        "/bookstore/books/123",
+        "/bookstore/books/123/chapters",
+        "/bookstore/books123",
+        "/bookstore;a=b/books;c=d/123",
+        "/customers/1/orders",
+        "/customers/orders",
+        "/customers//orders",
+        "/some/path/info",
+        "/a%20b/c",
+        "/unknown");
+
+    @Test
+    public void testCandidatesIncludeAllMatches() {
+        List<URITemplate> templates = new ArrayList<URITemplate>();
+        URITemplateIndex<URITemplate> index = new URITemplateIndex<URITemplate>();
+        for (String t : TEMPLATES) {
+            URITemplate template = URITemplate.createTemplate(t);
+            templates.add(template);
+            index.add(template, template);
+        }
+        assertEquals(TEMPLATES.size(), index.size());
+
+        for (String path : PATHS) {
+            List<URITemplate> candidates = index.getCandidates(path);
+            for (URITemplate template : templates) {
+                if (template.match(path, new MetadataMap<String, String>())) {
+                    assertTrue(template.getValue() + " should be a candidate for " + path,
+                               candidates.contains(template));
+                }
+            }
+            // candidates keep the order in which they were added
+            int last = -1;
+            for (URITemplate candidate : candidates) {
+                int position = templates.indexOf(candidate);
+                assertTrue(position > last);
+                last = position;
+            }
+        }
+    }
+
+    @Test
+    public void testLiteralSegmentsPruneCandidates() {
+        URITemplateIndex<String> index = new URITemplateIndex<String>();
+        for (String t : TEMPLATES) {
+            index.add(URITemplate.createTemplate(t), t);
+        }
+        assertEquals(Arrays.asList("/", "/customers/{id}/orders", "/{path:.*}/info"),
+                     index.getCandidates("/customers/1/orders"));
+        assertEquals(Arrays.asList("/", "/bookstore", "/bookstore/{id}", "/bookstore/books/{id}",
+                                   "/bookstore/books/{id}/chapters", "/bookstore/books{id}",
+                                   "/{path:.*}/info"),
+                     index.getCandidates("/bookstore/books/123/chapters"));
+        assertEquals(Arrays.asList("/", "/{path:.*}/info"),
+                     index.getCandidates("/unknown"));
+    }
+
+    @Test
+    public void testNullTemplate() {
+        URITemplateIndex<String> index = new URITemplateIndex<String>();
+        index.add(null, "none");
+        index.add(URITemplate.createTemplate("/a"), "a");
+        assertEquals(2, index.size());
+        assertEquals(Arrays.asList("a"), index.getCandidates("/a"));
+    }
+}
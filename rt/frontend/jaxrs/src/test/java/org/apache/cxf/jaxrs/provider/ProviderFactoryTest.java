@@ -55,6 +55,7 @@ import org.apache.cxf.jaxrs.Customer;
 import org.apache.cxf.jaxrs.CustomerParameterHandler;
 import org.apache.cxf.jaxrs.JAXBContextProvider;
 import org.apache.cxf.jaxrs.JAXBContextProvider2;
+import org.apache.cxf.jaxrs.ext.StableSelection;
 import org.apache.cxf.jaxrs.impl.MetadataMap;
 import org.apache.cxf.jaxrs.impl.WebApplicationExceptionMapper;
 import org.apache.cxf.jaxrs.model.AbstractResourceInfo;
@@ -140,6 +141,65 @@ public class ProviderFactoryTest extends Assert {
         assertSame(writer, writer2);
     }
     
+    @Test
+    public void testStableReaderSelectionIsCached() {
+        ProviderFactory pf = ServerProviderFactory.getInstance();
+        StableBookReader reader = new StableBookReader();
+        pf.registerUserProvider(reader);
+        for (int i = 0; i < 3; i++) {
+            MessageBodyReader<Book> mbr = pf.createMessageBodyReader(Book.class, Book.class, 
+                new Annotation[]{}, MediaType.TEXT_PLAIN_TYPE, new MessageImpl());
+            assertSame(reader, mbr);
+        }
+        assertEquals(1, reader.getCount());
+        
+        pf.registerUserProvider(new WildcardReader());
+        assertSame(reader, pf.createMessageBodyReader(Book.class, Book.class, new Annotation[]{}, 
+                                                      MediaType.TEXT_PLAIN_TYPE, new MessageImpl()));
+        assertEquals(2, reader.getCount());
+    }
+    
+    @Test
+    public void testStableSelectionIgnoresMediaTypeParameters() {
+        ProviderFactory pf = ServerProviderFactory.getInstance();
+        StableBookReader reader = new StableBookReader();
+        pf.registerUserProvider(reader);
+        Annotation[] anns = new Annotation[]{};
+        assertSame(reader, pf.createMessageBodyReader(Book.class, Book.class, anns, 
+            MediaType.valueOf("text/plain;charset=UTF-8"), new MessageImpl()));
+        assertSame(reader, pf.createMessageBodyReader(Book.class, Book.class, anns, 
+            MediaType.valueOf("text/plain;charset=ISO-8859-1"), new MessageImpl()));
+        assertSame(reader, pf.createMessageBodyReader(Book.class, Book.class, anns, 
+            MediaType.valueOf("Text/Plain"), new MessageImpl()));
+        assertEquals(1, reader.getCount());
+    }
+    
+    @Test
+    public void testStableSelectionIsNotInherited() {
+        ProviderFactory pf = ServerProviderFactory.getInstance();
+        StableBookReader reader = new StableBookReader() {
+        };
+        pf.registerUserProvider(reader);
+        for (int i = 0; i < 3; i++) {
+            assertSame(reader, pf.createMessageBodyReader(Book.class, Book.class, new Annotation[]{}, 
+                                                          MediaType.TEXT_PLAIN_TYPE, new MessageImpl()));
+        }
+        assertEquals(3, reader.getCount());
+    }
+    
+    @Test
+    public void testReaderSelectionIsNotCached() {
+        ProviderFactory pf = ServerProviderFactory.getInstance();
+        CountingBookReader reader = new CountingBookReader();
+        pf.registerUserProvider(reader);
+        for (int i = 0; i < 3; i++) {
+            MessageBodyReader<Book> mbr = pf.createMessageBodyReader(Book.class, Book.class, 
+                new Annotation[]{}, MediaType.TEXT_PLAIN_TYPE, new MessageImpl());
+            assertSame(reader, mbr);
+        }
+        assertEquals(3, reader.getCount());
+    }
+    
     @Test
     public void testSchemaLocations() {
         ProviderFactory pf = ServerProviderFactory.getInstance();
@@ -747,6 +807,31 @@ public class ProviderFactoryTest extends Assert {
         
     }
     
+    @Consumes("text/plain")
+    private static class CountingBookReader implements MessageBodyReader<Book> {
+        private int count;
+        
+        public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, 
+                                  MediaType mediaType) {
+            count++;
+            return type == Book.class;
+        }
+
+        public Book readFrom(Class<Book> arg0, Type arg1, Annotation[] arg2, MediaType arg3, 
+                             MultivaluedMap<String, String> arg4, InputStream arg5) 
+            throws IOException, WebApplicationException {
+            return null;
+        }
+        
+        public int getCount() {
+            return count;
+        }
+    }
+    
+    @StableSelection
+    private static class StableBookReader extends CountingBookReader {
+    }
+    
     private static class RuntimeExceptionMapper1 
         extends AbstractTestExceptionMapper<RuntimeException> {
         
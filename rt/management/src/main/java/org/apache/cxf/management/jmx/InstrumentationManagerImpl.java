@@ -46,6 +46,7 @@ import javax.management.modelmbean.RequiredModelMBean;
 
 import org.apache.cxf.Bus;
 import org.apache.cxf.bus.ManagedBus;
+import org.apache.cxf.bus.managers.PhaseChainCacheMBeanWrapper;
 import org.apache.cxf.buslifecycle.BusLifeCycleListener;
 import org.apache.cxf.buslifecycle.BusLifeCycleManager;
 import org.apache.cxf.common.logging.LogUtils;
@@ -190,6 +191,11 @@ public class InstrumentationManagerImpl extends JMXConnectorPolicyType
                 } catch (JMException jmex) {
                     LOG.log(Level.SEVERE, "REGISTER_FAILURE_MSG", new Object[]{bus, jmex});
                 }
+                try {
+                    register(new PhaseChainCacheMBeanWrapper(bus));
+                } catch (JMException jmex) {
+                    LOG.log(Level.WARNING, jmex.getMessage(), jmex);
+                }
             }
         }
 
@@ -218,7 +218,8 @@ public class AsyncHTTPConduit extends URLConnectionHTTPConduit {
 
         RequestConfig.Builder b = RequestConfig.custom()
             .setSocketTimeout((int) csPolicy.getReceiveTimeout())
-            .setConnectTimeout((int) csPolicy.getConnectionTimeout());
+            .setConnectTimeout((int) csPolicy.getConnectionTimeout())
+            .setConnectionRequestTimeout(factory.getConnectionRequestTimeout());
         Proxy p = proxyFactory.createProxy(csPolicy , uri);
         if (p != null && p.type() != Proxy.Type.DIRECT) {
             InetSocketAddress isa = (InetSocketAddress)p.address();
@@ -20,6 +20,7 @@
 package org.apache.cxf.transport.http.asyncclient;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -34,6 +35,7 @@ import org.apache.cxf.transport.http.HTTPConduitFactory;
 import org.apache.cxf.transport.http.HTTPTransportFactory;
 import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
 import org.apache.cxf.ws.addressing.EndpointReferenceType;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.ProtocolException;
@@ -42,6 +44,7 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.config.ConnectionConfig;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.cookie.Cookie;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.conn.DefaultSchemePortResolver;
@@ -59,10 +62,17 @@ import org.apache.http.nio.conn.SchemeIOSessionStrategy;
 import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
 import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HttpContext;
 
 /**
- * 
+ * Creates {@link AsyncHTTPConduit}s that share one HttpAsyncClient and its bounded, per-route
+ * connection pool. The pool can be observed through {@link #getTotalStats()} and
+ * {@link #getStats(URI)}, and {@link #CONNECTION_REQUEST_TIMEOUT} bounds how long a request
+ * waits for a pooled connection.
+ * <p>
+ * The conduits speak HTTP/1.1 only; the HttpAsyncClient 4.x line used here has no HTTP/2 support,
+ * so requests to a route are spread over pooled connections rather than multiplexed on one.
  */
 @NoJSR250Annotations
 public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
@@ -78,6 +88,8 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
     public static final String MAX_PER_HOST_CONNECTIONS 
         = "org.apache.cxf.transport.http.async.MAX_PER_HOST_CONNECTIONS";
     public static final String CONNECTION_TTL = "org.apache.cxf.transport.http.async.CONNECTION_TTL";
+    public static final String CONNECTION_REQUEST_TIMEOUT 
+        = "org.apache.cxf.transport.http.async.CONNECTION_REQUEST_TIMEOUT";
     
     //AsycClient specific props
     public static final String THREAD_COUNT = "org.apache.cxf.transport.http.async.ioThreadCount";
@@ -121,6 +133,7 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
     int maxConnections = 5000;
     int maxPerRoute = 1000;
     int connectionTTL = 60000;
+    int connectionRequestTimeout = -1;
 
     int ioThreadCount = IOReactorConfig.DEFAULT.getIoThreadCount();
     long selectInterval = IOReactorConfig.DEFAULT.getSelectInterval();
@@ -177,6 +190,7 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
         maxConnections = getInt(s.get(MAX_CONNECTIONS), maxConnections);
         connectionTTL = getInt(s.get(CONNECTION_TTL), connectionTTL);
         maxPerRoute = getInt(s.get(MAX_PER_HOST_CONNECTIONS), maxPerRoute);
+        connectionRequestTimeout = getInt(s.get(CONNECTION_REQUEST_TIMEOUT), connectionRequestTimeout);
 
         if (connectionManager != null) {
             connectionManager.setMaxTotal(maxConnections);
@@ -242,6 +256,41 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
         return isShutdown;
     }
     
+    /**
+     * The maximum time in milliseconds a request waits for a pooled connection
+     * once the per route or total limit has been reached, -1 if it waits indefinitely.
+     */
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+    
+    /**
+     * Returns the number of leased, pending, available and maximum connections
+     * of the whole pool or null if the client has not been started yet.
+     */
+    public PoolStats getTotalStats() {
+        PoolingNHttpClientConnectionManager cm = connectionManager;
+        return cm == null ? null : cm.getTotalStats();
+    }
+    
+    /**
+     * Returns the pool statistics of the direct (not proxied) route to the
+     * given address or null if the client has not been started yet.
+     */
+    public PoolStats getStats(URI address) {
+        PoolingNHttpClientConnectionManager cm = connectionManager;
+        if (cm == null) {
+            return null;
+        }
+        String scheme = address.getScheme();
+        int port = address.getPort();
+        if (port <= 0) {
+            port = "https".equalsIgnoreCase(scheme) ? 443 : 80;
+        }
+        HttpHost target = new HttpHost(address.getHost(), port, scheme);
+        return cm.getStats(new HttpRoute(target, null, "https".equalsIgnoreCase(scheme)));
+    }
+    
     @Override
     public HTTPConduit createConduit(HTTPTransportFactory f,
                                      Bus bus,
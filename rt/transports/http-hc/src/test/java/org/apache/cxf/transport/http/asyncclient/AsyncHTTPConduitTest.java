@@ -19,6 +19,7 @@
 
 package org.apache.cxf.transport.http.asyncclient;
 
+import java.net.URI;
 import java.net.URL;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
@@ -42,6 +43,7 @@ import org.apache.hello_world_soap_http.Greeter;
 import org.apache.hello_world_soap_http.SOAPService;
 import org.apache.hello_world_soap_http.types.GreetMeLaterResponse;
 import org.apache.hello_world_soap_http.types.GreetMeResponse;
+import org.apache.http.pool.PoolStats;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -175,6 +177,20 @@ public class AsyncHTTPConduitTest extends AbstractBusClientServerTestBase {
         assertEquals("Hello " + request, g.greetMe(request));
     }
     @Test
+    public void testPoolStats() throws Exception {
+        updateAddressPort(g, PORT);
+        assertEquals("Hello " + request, g.greetMe(request));
+        AsyncHTTPConduitFactory hcf = (AsyncHTTPConduitFactory)getStaticBus()
+            .getExtension(HTTPConduitFactory.class);
+        PoolStats total = hcf.getTotalStats();
+        assertNotNull(total);
+        assertEquals(501, total.getMax());
+        assertTrue(total.getLeased() + total.getAvailable() > 0);
+        
+        PoolStats route = hcf.getStats(new URI("http://localhost:" + PORT + "/SoapContext/SoapPort"));
+        assertTrue(route.getLeased() + route.getAvailable() > 0);
+    }
+    @Test
     public void testCallAsync() throws Exception {
         updateAddressPort(g, PORT);
         GreetMeResponse resp = (GreetMeResponse)g.greetMeAsync(request, new AsyncHandler<GreetMeResponse>() {
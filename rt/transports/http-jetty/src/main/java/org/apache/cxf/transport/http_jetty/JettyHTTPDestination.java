@@ -18,6 +18,7 @@
  */
 package org.apache.cxf.transport.http_jetty;
 
+import java.io.FileInputStream;
 import java.io.FilterInputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
@@ -26,6 +27,8 @@ import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.security.GeneralSecurityException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -246,7 +249,9 @@ public class JettyHTTPDestination extends ServletDestination {
                                   final HttpServletRequest req, 
                                   final HttpServletResponse resp,
                                   Message m) throws IOException {
-        resp.flushBuffer();
+        if (!isResponseWrittenAsync(m)) {
+            resp.flushBuffer();
+        }
         Request baseRequest = (req instanceof Request) 
             ? (Request)req : getCurrentRequest();
         if (baseRequest != null) {
@@ -280,7 +285,7 @@ public class JettyHTTPDestination extends ServletDestination {
             out = o;
         }
 
-        private boolean sendContent(Class<?> type, InputStream c) throws IOException {
+        private boolean sendContent(Class<?> type, Object c) throws IOException {
             try {
                 out.getClass().getMethod("sendContent", type).invoke(out, c);
             } catch (InvocationTargetException ioe) {
@@ -298,6 +303,15 @@ public class JettyHTTPDestination extends ServletDestination {
             if (written) {
                 return IOUtils.copy(in, out);
             }
+            if (in instanceof FileInputStream) {
+                // let Jetty read the file through its channel into its own
+                // (direct) buffers rather than copying it through a byte[]
+                FileChannel channel = ((FileInputStream)in).getChannel();
+                long start = channel.position();
+                if (sendContent(ReadableByteChannel.class, channel)) {
+                    return (int)(channel.position() - start);
+                }
+            }
             CountingInputStream c = new CountingInputStream(in);
             if (!sendContent(InputStream.class, c)
                 && !sendContent(Object.class, c)) {
@@ -26,6 +26,7 @@ import java.net.URL;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
@@ -108,6 +109,10 @@ public class JettyHTTPServerEngine implements ServerEngine {
     private Boolean continuationsEnabled = true;
     private int maxIdleTime = 200000;
     private Boolean sendServerVersion = true;
+    private boolean http2Enabled;
+    private int maxConcurrentStreams = -1;
+    private int initialStreamRecvWindow = -1;
+    private int initialSessionRecvWindow = -1;
     private int servantCount;
     private Server server;
     private Connector connector;
@@ -309,6 +314,47 @@ public class JettyHTTPServerEngine implements ServerEngine {
         maxIdleTime = maxIdle;
     }
     
+    public boolean isHttp2Enabled() {
+        return http2Enabled;
+    }
+    
+    /**
+     * Enables HTTP/2 on the connector created by this engine, negotiated with ALPN
+     * (h2) when TLS is configured, and as h2c alongside HTTP/1.1 otherwise.
+     * It requires the Jetty HTTP/2 server modules (Jetty 9.3 or later), the engine
+     * falls back to HTTP/1.1 only if they are not available.
+     * <p>
+     * This support is experimental: the HTTP/2 connection factories are wired up
+     * reflectively, and the build, which uses Jetty 9.2, only covers the fallback.
+     */
+    public void setHttp2Enabled(boolean enabled) {
+        http2Enabled = enabled;
+    }
+    
+    public int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+    
+    public void setMaxConcurrentStreams(int maxStreams) {
+        maxConcurrentStreams = maxStreams;
+    }
+    
+    public int getInitialStreamRecvWindow() {
+        return initialStreamRecvWindow;
+    }
+    
+    public void setInitialStreamRecvWindow(int window) {
+        initialStreamRecvWindow = window;
+    }
+    
+    public int getInitialSessionRecvWindow() {
+        return initialSessionRecvWindow;
+    }
+    
+    public void setInitialSessionRecvWindow(int window) {
+        initialSessionRecvWindow = window;
+    }
+    
     protected void checkRegistedContext(URL url) {
         
         String path = url.getPath();
@@ -616,19 +662,40 @@ public class JettyHTTPServerEngine implements ServerEngine {
                                                                    .getConstructor(Server.class)
                                                                    .newInstance(server);
             
+            Object http2Factory = null;
+            if (isHttp2Enabled()) {
+                http2Factory = createHttp2ConnectionFactory(configClass, httpConfig, sslcf != null);
+            }
             if (tlsServerParameters != null) {
                 Class<?> src = ClassLoaderUtils.loadClass("org.eclipse.jetty.server.SecureRequestCustomizer",
                                                           Server.class);
                 httpConfig.getClass().getMethod("addCustomizer", src.getInterfaces()[0])
                     .invoke(httpConfig, src.newInstance());
+                Object alpnFactory = null;
+                if (http2Factory != null) {
+                    alpnFactory = createAlpnConnectionFactory(sslcf, http2Factory);
+                }
+                String nextProtocol = alpnFactory == null ? "HTTP/1.1" : getProtocol(alpnFactory);
                 Object scf = ClassLoaderUtils.loadClass("org.eclipse.jetty.server.SslConnectionFactory",
                                                         Server.class).getConstructor(SslContextFactory.class,
                                                                                      String.class)
-                                                        .newInstance(sslcf, "HTTP/1.1");
+                                                        .newInstance(sslcf, nextProtocol);
                 connectionFactories.add(scf);
-                result.getClass().getMethod("setDefaultProtocol", String.class).invoke(result, "SSL-HTTP/1.1");
+                if (alpnFactory != null) {
+                    connectionFactories.add(alpnFactory);
+                    connectionFactories.add(http2Factory);
+                    result.getClass().getMethod("setDefaultProtocol", String.class)
+                        .invoke(result, getProtocol(scf));
+                } else {
+                    result.getClass().getMethod("setDefaultProtocol", String.class)
+                        .invoke(result, "SSL-HTTP/1.1");
+                }
             }
             connectionFactories.add(httpFactory);
+            if (http2Factory != null && tlsServerParameters == null) {
+                // h2c, both with prior knowledge and as an upgrade from HTTP/1.1
+                connectionFactories.add(http2Factory);
+            }
             result.getClass().getMethod("setConnectionFactories", Collection.class)
                 .invoke(result, connectionFactories);
             
@@ -643,9 +710,72 @@ public class JettyHTTPServerEngine implements ServerEngine {
         }
         return result;
     }
+    
+    private Object createHttp2ConnectionFactory(Class<?> configClass, Object httpConfig, boolean secure) 
+        throws Exception {
+        String name = secure 
+            ? "org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory"
+            : "org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory";
+        Class<?> factoryClass = null;
+        try {
+            factoryClass = ClassLoaderUtils.loadClass(name, Server.class);
+        } catch (ClassNotFoundException ex) {
+            LOG.log(Level.WARNING, "HTTP2_NOT_AVAILABLE_MSG", port);
+            return null;
+        }
+        Object http2Factory = factoryClass.getConstructor(configClass).newInstance(httpConfig);
+        if (getMaxConcurrentStreams() > 0) {
+            factoryClass.getMethod("setMaxConcurrentStreams", Integer.TYPE)
+                .invoke(http2Factory, getMaxConcurrentStreams());
+        }
+        if (getInitialStreamRecvWindow() > 0) {
+            factoryClass.getMethod("setInitialStreamRecvWindow", Integer.TYPE)
+                .invoke(http2Factory, getInitialStreamRecvWindow());
+        }
+        if (getInitialSessionRecvWindow() > 0) {
+            factoryClass.getMethod("setInitialSessionRecvWindow", Integer.TYPE)
+                .invoke(http2Factory, getInitialSessionRecvWindow());
+        }
+        return http2Factory;
+    }
+    
+    private Object createAlpnConnectionFactory(SslContextFactory sslcf, Object http2Factory) 
+        throws Exception {
+        Class<?> alpnClass = null;
+        try {
+            alpnClass = ClassLoaderUtils.loadClass(
+                "org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory", Server.class);
+        } catch (ClassNotFoundException ex) {
+            LOG.log(Level.WARNING, "ALPN_NOT_AVAILABLE_MSG", port);
+            return null;
+        }
+        Object alpnFactory = alpnClass.getConstructor(String[].class)
+            .newInstance((Object)new String[] {getProtocol(http2Factory), "http/1.1"});
+        alpnClass.getMethod("setDefaultProtocol", String.class).invoke(alpnFactory, "http/1.1");
+        try {
+            // prefer the cipher suites HTTP/2 does not blacklist
+            Class<?> cipherClass = ClassLoaderUtils.loadClass("org.eclipse.jetty.http2.HTTP2Cipher",
+                                                              Server.class);
+            Object comparator = cipherClass.getField("COMPARATOR").get(null);
+            sslcf.getClass().getMethod("setCipherComparator", Comparator.class).invoke(sslcf, comparator);
+        } catch (ClassNotFoundException ex) {
+            //ignore, the cipher suites are left in their configured order
+        } catch (NoSuchFieldException ex) {
+            //ignore
+        }
+        return alpnFactory;
+    }
+    
+    private static String getProtocol(Object connectionFactory) throws Exception {
+        return (String)connectionFactory.getClass().getMethod("getProtocol").invoke(connectionFactory);
+    }
+    
     AbstractConnector createConnectorJetty8(SslContextFactory sslcf, String hosto, int porto) {
         //Jetty 8
         AbstractConnector result = null;
+        if (isHttp2Enabled()) {
+            LOG.log(Level.WARNING, "HTTP2_NOT_AVAILABLE_MSG", porto);
+        }
         try {
             if (sslcf == null) { 
                 result = (AbstractConnector)ClassLoaderUtils
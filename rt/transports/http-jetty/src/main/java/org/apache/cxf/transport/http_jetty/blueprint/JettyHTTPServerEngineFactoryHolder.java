@@ -159,6 +159,18 @@ public class JettyHTTPServerEngineFactoryHolder {
                 if (engine.isSessionSupport() != null) {
                     eng.setSessionSupport(engine.isSessionSupport());
                 }
+                if (engine.isHttp2Enabled() != null) {
+                    eng.setHttp2Enabled(engine.isHttp2Enabled());
+                }
+                if (engine.getMaxConcurrentStreams() != null) {
+                    eng.setMaxConcurrentStreams(engine.getMaxConcurrentStreams());
+                }
+                if (engine.getInitialStreamRecvWindow() != null) {
+                    eng.setInitialStreamRecvWindow(engine.getInitialStreamRecvWindow());
+                }
+                if (engine.getInitialSessionRecvWindow() != null) {
+                    eng.setInitialSessionRecvWindow(engine.getInitialSessionRecvWindow());
+                }
                 if (engine.getThreadingParameters() != null) {
                     ThreadingParametersType threads = engine.getThreadingParameters();
                     ThreadingParameters rThreads = new ThreadingParameters();
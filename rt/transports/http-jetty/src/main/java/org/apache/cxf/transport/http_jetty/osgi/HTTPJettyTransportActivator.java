@@ -141,6 +141,14 @@ public class HTTPJettyTransportActivator
                 e.setReuseAddress(Boolean.parseBoolean(properties.get(k)));
             } else if ("maxIdleTime".equals(k)) {
                 e.setMaxIdleTime(Integer.parseInt(properties.get(k)));
+            } else if ("http2Enabled".equals(k)) {
+                e.setHttp2Enabled(Boolean.parseBoolean(properties.get(k)));
+            } else if ("maxConcurrentStreams".equals(k)) {
+                e.setMaxConcurrentStreams(Integer.parseInt(properties.get(k)));
+            } else if ("initialStreamRecvWindow".equals(k)) {
+                e.setInitialStreamRecvWindow(Integer.parseInt(properties.get(k)));
+            } else if ("initialSessionRecvWindow".equals(k)) {
+                e.setInitialSessionRecvWindow(Integer.parseInt(properties.get(k)));
             } 
         }
     }
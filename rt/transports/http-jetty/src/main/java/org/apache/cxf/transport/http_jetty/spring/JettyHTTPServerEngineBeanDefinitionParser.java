@@ -93,6 +93,14 @@ public class JettyHTTPServerEngineBeanDefinitionParser extends AbstractBeanDefin
             bean.addPropertyValue("sendServerVersion", sendServerVersionStr);
         }
         
+        for (String name : new String[] {"http2Enabled", "maxConcurrentStreams", 
+                                         "initialStreamRecvWindow", "initialSessionRecvWindow"}) {
+            String value = element.getAttribute(name);
+            if (value != null && !"".equals(value.trim())) {
+                bean.addPropertyValue(name, value);
+            }
+        }
+        
         ValueHolder busValue = ctx.getContainingBeanDefinition()
             .getConstructorArgumentValues().getArgumentValue(0, Bus.class);
         bean.addPropertyValue("bus", busValue.getValue());
@@ -266,6 +266,22 @@ public class JettyHTTPServerEngineTest extends Assert {
 
     }
     
+    @Test
+    public void testHttp2EnabledServesHttp1() throws Exception {
+        String urlStr = "http://localhost:" + PORT1 + "/hello/test";
+        JettyHTTPServerEngine engine =
+            factory.createJettyHTTPServerEngine(PORT1, "http");
+        engine.setHttp2Enabled(true);
+        engine.setMaxConcurrentStreams(64);
+        engine.addServant(new URL(urlStr), new JettyHTTPTestHandler("string1", true));
+        
+        // HTTP/1.1 keeps working whether or not the HTTP/2 modules are available
+        assertEquals("The jetty http handler did not take effect", "string1", getResponse(urlStr));
+        
+        engine.removeServant(new URL(urlStr));
+        JettyHTTPServerEngineFactory.destroyForPort(PORT1);
+    }
+    
     /**
      * Test that multiple JettyHTTPServerEngine instances can be used simultaneously
      * without having name collisions.
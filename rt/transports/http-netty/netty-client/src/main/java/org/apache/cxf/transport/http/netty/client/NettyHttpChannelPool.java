@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.client;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.channel.Channel;
+
+/**
+ * Keeps the idle keep-alive channels per remote endpoint so they can be reused
+ * by the next request instead of connecting again. A channel is handed back once
+ * its response has been read completely, at most maxIdlePerKey channels are kept
+ * for each key and the others are closed.
+ */
+public class NettyHttpChannelPool {
+
+    private final ConcurrentMap<Object, IdleChannels> idleChannels =
+        new ConcurrentHashMap<Object, IdleChannels>();
+
+    private final int maxIdlePerKey;
+
+    public NettyHttpChannelPool(int maxIdlePerKey) {
+        this.maxIdlePerKey = maxIdlePerKey;
+    }
+
+    /**
+     * Returns an idle channel connected to the given endpoint, or null if there
+     * is none and a new connection needs to be opened.
+     */
+    public Channel acquire(Object key) {
+        IdleChannels channels = idleChannels.get(key);
+        if (channels == null) {
+            return null;
+        }
+        Channel channel = channels.poll();
+        while (channel != null) {
+            if (channel.isActive()) {
+                return channel;
+            }
+            channel = channels.poll();
+        }
+        return null;
+    }
+
+    public void release(Object key, Channel channel) {
+        if (!channel.isActive()) {
+            return;
+        }
+        IdleChannels channels = idleChannels.get(key);
+        if (channels == null) {
+            channels = new IdleChannels();
+            IdleChannels old = idleChannels.putIfAbsent(key, channels);
+            if (old != null) {
+                channels = old;
+            }
+        }
+        if (!channels.offer(channel, maxIdlePerKey)) {
+            channel.close();
+        }
+    }
+
+    public int getIdleCount(Object key) {
+        IdleChannels channels = idleChannels.get(key);
+        return channels == null ? 0 : channels.size.get();
+    }
+
+    public void close() {
+        for (IdleChannels channels : idleChannels.values()) {
+            Channel channel = channels.poll();
+            while (channel != null) {
+                channel.close();
+                channel = channels.poll();
+            }
+        }
+        idleChannels.clear();
+    }
+
+    private static class IdleChannels {
+        final Queue<Channel> queue = new ConcurrentLinkedQueue<Channel>();
+        final AtomicInteger size = new AtomicInteger();
+
+        boolean offer(Channel channel, int max) {
+            if (size.incrementAndGet() > max) {
+                size.decrementAndGet();
+                return false;
+            }
+            queue.add(channel);
+            return true;
+        }
+
+        Channel poll() {
+            Channel channel = queue.poll();
+            if (channel != null) {
+                size.decrementAndGet();
+            }
+            return channel;
+        }
+    }
+}
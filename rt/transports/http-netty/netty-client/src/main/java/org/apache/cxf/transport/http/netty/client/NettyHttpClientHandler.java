@@ -19,33 +19,106 @@
 
 package org.apache.cxf.transport.http.netty.client;
 
+import java.io.IOException;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
 
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
 
 public class NettyHttpClientHandler extends ChannelDuplexHandler {
+    private static final Logger LOG = LogUtils.getL7dLogger(NettyHttpClientHandler.class);
+
     private final BlockingQueue<NettyHttpClientRequest> sendedQueue = 
         new LinkedBlockingDeque<NettyHttpClientRequest>();
+
+    private final NettyHttpChannelPool channelPool;
+
+    private final Object poolKey;
+
+    private final int maxBufferedContentSize;
+
+    // the state below is only accessed from the event loop of the channel
+    private NettyHttpClientRequest current;
+
+    private boolean keepAlive;
+
+    private boolean requestComplete;
+
+    public NettyHttpClientHandler() {
+        this(null, null, NettyHttpClientPipelineFactory.MAX_BUFFERED_CONTENT_SIZE);
+    }
+
+    public NettyHttpClientHandler(NettyHttpChannelPool channelPool, Object poolKey,
+                                  int maxBufferedContentSize) {
+        this.channelPool = channelPool;
+        this.poolKey = poolKey;
+        this.maxBufferedContentSize = maxBufferedContentSize;
+    }
         
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-        
-        if (msg instanceof HttpResponse) {
-            // just make sure we can combine the request and response together
-            HttpResponse response = (HttpResponse)msg;
-            NettyHttpClientRequest request = sendedQueue.poll();
-            request.setResponse(response);
-            // calling the callback here
-            request.getCxfResponseCallback().responseReceived(response);
-        } else {
+        if (!(msg instanceof HttpResponse) && !(msg instanceof HttpContent)) {
             super.channelRead(ctx, msg);
+            return;
+        }
+        try {
+            if (msg instanceof HttpResponse) {
+                HttpResponse response = (HttpResponse)msg;
+                if (response.getStatus().code() == HttpResponseStatus.CONTINUE.code()) {
+                    // the final response still has to come
+                    return;
+                }
+                // just make sure we can combine the request and response together
+                current = sendedQueue.poll();
+                if (current == null) {
+                    // the server answered something that was never asked for, the
+                    // connection can't be trusted to match up responses anymore
+                    LOG.log(Level.WARNING, "Received a response with no request pending on {0}, closing it",
+                            ctx.channel());
+                    ctx.close();
+                    return;
+                }
+                keepAlive = HttpHeaders.isKeepAlive(response);
+                current.setResponse(response);
+                current.setResponseStream(new NettyHttpResponseInputStream(ctx.channel(),
+                                                                           maxBufferedContentSize,
+                                                                           current.getReceiveTimeout()));
+                // calling the callback here
+                current.getCxfResponseCallback().responseReceived(response);
+            }
+            if (msg instanceof HttpContent && current != null) {
+                current.getResponseStream().addContent((HttpContent)msg);
+                if (msg instanceof LastHttpContent) {
+                    current = null;
+                    responseComplete(ctx);
+                }
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
         }
     }
 
+    private void responseComplete(ChannelHandlerContext ctx) {
+        ctx.channel().config().setAutoRead(true);
+        if (channelPool != null && keepAlive && requestComplete && sendedQueue.isEmpty()) {
+            requestComplete = false;
+            channelPool.release(poolKey, ctx.channel());
+        } else {
+            ctx.close();
+        }
+    }
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
@@ -54,17 +127,33 @@ public class NettyHttpClientHandler extends ChannelDuplexHandler {
         if (msg instanceof NettyHttpClientRequest) {
             NettyHttpClientRequest request = (NettyHttpClientRequest)msg;
             sendedQueue.put(request);
-            ctx.writeAndFlush(request.getRequest());
+            requestComplete = false;
+            ctx.write(request.getRequest(), promise);
         } else {
+            if (msg instanceof LastHttpContent) {
+                requestComplete = true;
+            }
             super.write(ctx, msg, promise);
         }
     }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (current != null) {
+            current.getResponseStream().fail(
+                new IOException("Connection closed before the response was read"));
+            current = null;
+        }
+        super.channelInactive(ctx);
+    }
     
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause)
         throws Exception {
-        //TODO need to handle the exception here
-        cause.printStackTrace();
+        if (current != null) {
+            current.getResponseStream().fail(cause);
+            current = null;
+        }
         ctx.close();
     }
     
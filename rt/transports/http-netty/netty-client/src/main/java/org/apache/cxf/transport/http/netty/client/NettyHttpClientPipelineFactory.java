@@ -31,7 +31,6 @@ import org.apache.cxf.transport.https.SSLUtils;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpRequestEncoder;
 import io.netty.handler.codec.http.HttpResponseDecoder;
 import io.netty.handler.ssl.SslHandler;
@@ -42,10 +41,26 @@ public class NettyHttpClientPipelineFactory extends ChannelInitializer<Channel>
     
     private static final Logger LOG =
         LogUtils.getL7dLogger(NettyHttpClientPipelineFactory.class);
+    /**
+     * The amount of response content buffered before the channel stops reading.
+     */
+    public static final int MAX_BUFFERED_CONTENT_SIZE = 1048576;
+
     private final TLSClientParameters tlsClientParameters;
+
+    private final NettyHttpChannelPool channelPool;
+
+    private final Object poolKey;
     
     public NettyHttpClientPipelineFactory(TLSClientParameters clientParameters) {
+        this(clientParameters, null, null);
+    }
+
+    public NettyHttpClientPipelineFactory(TLSClientParameters clientParameters,
+                                          NettyHttpChannelPool channelPool, Object poolKey) {
         this.tlsClientParameters = clientParameters;
+        this.channelPool = channelPool;
+        this.poolKey = poolKey;
     }
     
     @Override
@@ -62,11 +77,10 @@ public class NettyHttpClientPipelineFactory extends ChannelInitializer<Channel>
 
         
         pipeline.addLast("decoder", new HttpResponseDecoder());
-        // TODO need to configure the aggregator size
-        pipeline.addLast("aggregator", new HttpObjectAggregator(1048576));
         pipeline.addLast("encoder", new HttpRequestEncoder());
         pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());
-        pipeline.addLast("client", new NettyHttpClientHandler());
+        pipeline.addLast("client",
+                         new NettyHttpClientHandler(channelPool, poolKey, MAX_BUFFERED_CONTENT_SIZE));
     }
     
     private SslHandler configureClientSSLOnDemand() throws Exception {
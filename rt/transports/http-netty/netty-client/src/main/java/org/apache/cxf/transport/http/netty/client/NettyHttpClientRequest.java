@@ -21,8 +21,7 @@ package org.apache.cxf.transport.http.netty.client;
 
 import java.net.URI;
 
-import io.netty.buffer.ByteBuf;
-import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
@@ -37,17 +36,22 @@ public class NettyHttpClientRequest {
     private CxfResponseCallBack cxfResponseCallback;
     private int connectionTimeout;
     private int receiveTimeout;
+    private NettyHttpResponseInputStream responseStream;
 
     public NettyHttpClientRequest(URI requestUri, String method) {
         this.uri = requestUri;
         this.method = method;
     }
     
-    public void createRequest(ByteBuf content) {
+    /**
+     * Creates the request head, the body is written to the channel separately
+     * as HttpContent chunks.
+     */
+    public void createRequest() {
         this.request  = 
-            new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
-                                       HttpMethod.valueOf(method),
-                                       uri.getPath().toString(), content);
+            new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+                                   HttpMethod.valueOf(method),
+                                   uri.getPath().toString());
         // setup the default headers
         request.headers().set("Connection", "keep-alive");
         request.headers().set("Host", uri.getHost() + ":"
@@ -66,6 +70,14 @@ public class NettyHttpClientRequest {
         this.response = response;
     }
 
+    public NettyHttpResponseInputStream getResponseStream() {
+        return responseStream;
+    }
+
+    public void setResponseStream(NettyHttpResponseInputStream responseStream) {
+        this.responseStream = responseStream;
+    }
+
     public URI getUri() {
         return uri;
     }
@@ -22,6 +22,7 @@ package org.apache.cxf.transport.http.netty.client;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.PushbackInputStream;
 import java.net.HttpURLConnection;
@@ -32,6 +33,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.Principal;
 import java.security.cert.Certificate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -58,16 +60,16 @@ import org.apache.cxf.ws.addressing.EndpointReferenceType;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufInputStream;
-import io.netty.buffer.ByteBufOutputStream;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.ssl.SslHandler;
 
 
@@ -75,6 +77,8 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
     public static final String USE_ASYNC = "use.async.http.conduit";
     final NettyHttpConduitFactory factory;
     private Bootstrap bootstrap;
+    // shared when nothing is configured so https channels can be pooled as well
+    private final TLSClientParameters defaultTlsClientParameters = new TLSClientParameters();
     
     
     public NettyHttpConduit(Bus b, EndpointInfo ei, EndpointReferenceType t, NettyHttpConduitFactory conduitFactory)
@@ -186,9 +190,7 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
                     chunkThreshold,
                     getConduitName(),
                     entity.getUri());
-            entity.createRequest(out.getOutBuffer());
-            // TODO need to check how to set the Chunked feature
-            //request.getRequest().setChunked(true);
+            entity.createRequest();
             entity.getRequest().headers().set(Message.CONTENT_TYPE, (String)message.get(Message.CONTENT_TYPE));
             return out;
         }
@@ -203,20 +205,35 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
         volatile Channel channel;
         volatile SSLSession session;
         boolean isAsync;
+        boolean connectionRequested;
+        boolean headersSent;
+        final int chunkSize;
         ByteBuf outBuffer;
-        OutputStream outputStream;
+        final ChannelFutureListener writeListener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    setException(future.cause());
+                }
+            }
+        };
 
         protected NettyWrappedOutputStream(Message message, boolean possibleRetransmit,
                                            boolean isChunking, int chunkThreshold, String conduitName, URI url) {
             super(message, possibleRetransmit, isChunking, chunkThreshold, conduitName, url);
             csPolicy = getClient(message);
             entity  = message.get(NettyHttpClientRequest.class);
-            int bufSize = csPolicy.getChunkLength() > 0 ? csPolicy.getChunkLength() : 16320;
-            outBuffer = Unpooled.buffer(bufSize);
-            outputStream = new ByteBufOutputStream(outBuffer);
+            chunkSize = csPolicy.getChunkLength() > 0 ? csPolicy.getChunkLength() : 16320;
         }
 
-        protected ByteBuf getOutBuffer() {
+        /**
+         * Returns the buffer collecting the current chunk of the request body,
+         * it is taken from the allocator of the channel once connected.
+         */
+        protected ByteBuf getOutBuffer() throws IOException {
+            if (outBuffer == null) {
+                outBuffer = getChannel().alloc().buffer(chunkSize);
+            }
             return outBuffer;
         }
 
@@ -248,8 +265,9 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
             return httpResponse;
         }
         
-        protected HttpContent getHttpResponseContent() throws IOException {
-            return (HttpContent) getHttpResponse();
+        protected NettyHttpResponseInputStream getResponseStream() throws IOException {
+            getHttpResponse();
+            return entity.getResponseStream();
         }
 
 
@@ -288,24 +306,22 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
             connect(true);
             wrappedStream =  new OutputStream() {
                 public void write(byte b[], int off, int len) throws IOException {
-                    outputStream.write(b, off, len);
+                    getOutBuffer().writeBytes(b, off, len);
+                    checkChunk();
                 }
                 public void write(int b) throws IOException {
-                    outputStream.write(b);
+                    getOutBuffer().writeByte(b);
+                    checkChunk();
                 }
                 public void close() throws IOException {
-                    // Setup the call back for sending the message
-                    ChannelFutureListener listener = new ChannelFutureListener() {
-                        @Override
-                        public void operationComplete(ChannelFuture future) throws Exception {
-                            if (!future.isSuccess()) {
-                                setException(future.cause());
-                            }
-                        }
-                    };
-                    ChannelFuture channelFuture = getChannel().write(entity);
-                    channelFuture.addListener(listener);
-                    outputStream.close();
+                    ByteBuf last = getOutBuffer();
+                    outBuffer = null;
+                    if (!headersSent) {
+                        // the whole body is known by now, so it goes out with a Content-Length
+                        HttpHeaders.setContentLength(entity.getRequest(), last.readableBytes());
+                        writeHeaders();
+                    }
+                    getChannel().writeAndFlush(new DefaultLastHttpContent(last)).addListener(writeListener);
                 }
             };
 
@@ -317,27 +333,104 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
             }
         }
         
+        @Override
+        protected void handleNoOutput() throws IOException {
+            connect(false);
+            writeHeaders();
+            getChannel().writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT).addListener(writeListener);
+        }
+
+        /**
+         * Sends the current buffer as a chunk once it is full, as long as the request
+         * can be streamed, i.e. chunking is allowed or the Content-Length is known.
+         */
+        private void checkChunk() throws IOException {
+            if (outBuffer.readableBytes() < chunkSize
+                || !chunking && !HttpHeaders.isContentLengthSet(entity.getRequest())) {
+                return;
+            }
+            if (!headersSent) {
+                if (!HttpHeaders.isContentLengthSet(entity.getRequest())) {
+                    HttpHeaders.setTransferEncodingChunked(entity.getRequest());
+                }
+                writeHeaders();
+            }
+            ByteBuf chunk = outBuffer;
+            outBuffer = null;
+            ChannelFuture future = getChannel().writeAndFlush(new DefaultHttpContent(chunk));
+            future.addListener(writeListener);
+            if (!getChannel().isWritable()) {
+                // let the peer catch up instead of queueing up the whole request in memory
+                try {
+                    future.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+                if (!future.isSuccess()) {
+                    throw new IOException(future.cause());
+                }
+            }
+        }
+
+        private void writeHeaders() throws IOException {
+            headersSent = true;
+            getChannel().write(entity).addListener(writeListener);
+        }
+
         protected TLSClientParameters findTLSClientParameters() {
             TLSClientParameters clientParameters = outMessage.get(TLSClientParameters.class);
             if (clientParameters == null) {
                 clientParameters = getTlsClientParameters();
             }
             if (clientParameters == null) {
-                clientParameters = new TLSClientParameters();
+                clientParameters = defaultTlsClientParameters;
             }
             return clientParameters;
         }
 
         protected void connect(boolean output) {
+            if (!connectionRequested) {
+                connectionRequested = true;
+                openChannel();
+            }
+
+            if (!output) {
+                entity.getRequest().headers().remove("Transfer-Encoding");
+                entity.getRequest().headers().remove("Content-Type");
+                entity.getRequest().headers().remove(null);
+            }
+
+            // setup the CxfResponseCallBack
+            CxfResponseCallBack callBack = new CxfResponseCallBack() {
+                @Override
+                public void responseReceived(HttpResponse response) {
+                    setHttpResponse(response);
+                }
+            };
+            entity.setCxfResponseCallback(callBack);
+
+        }
+
+        private void openChannel() {
+            TLSClientParameters clientParameters = null;
             if (url.getScheme().equals("https")) {
-                TLSClientParameters clientParameters = findTLSClientParameters();
-                bootstrap.handler(new NettyHttpClientPipelineFactory(clientParameters));
-            } else {
-                bootstrap.handler(new NettyHttpClientPipelineFactory(null));
+                clientParameters = findTLSClientParameters();
             }
-            ChannelFuture connFuture = 
-                bootstrap.connect(new InetSocketAddress(url.getHost(), url.getPort() != -1 ? url.getPort()
-                                                            : "http".equals(url.getScheme()) ? 80 : 443));
+            int port = url.getPort() != -1 ? url.getPort() : "http".equals(url.getScheme()) ? 80 : 443;
+            NettyHttpChannelPool channelPool = factory.getChannelPool();
+            Object poolKey = Arrays.<Object>asList(url.getScheme(), url.getHost(), port, clientParameters);
+
+            // reuse an idle keep-alive channel to the same endpoint if there is one
+            Channel pooled = channelPool.acquire(poolKey);
+            if (pooled != null) {
+                onChannelOpened(pooled);
+                return;
+            }
+
+            Bootstrap b = bootstrap.clone();
+            b.handler(new NettyHttpClientPipelineFactory(clientParameters, channelPool, poolKey));
+            ChannelFuture connFuture = b.connect(new InetSocketAddress(url.getHost(), port));
 
             // Setup the call back on the NettyHttpClientRequest
             ChannelFutureListener listener = new ChannelFutureListener() {
@@ -345,11 +438,7 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
                 @Override
                 public void operationComplete(ChannelFuture future) throws Exception {
                     if (future.isSuccess()) {
-                        setChannel(future.channel());
-                        SslHandler sslHandler = channel.pipeline().get(SslHandler.class);
-                        if (sslHandler != null) {
-                            session = sslHandler.engine().getSession();
-                        }
+                        onChannelOpened(future.channel());
                     } else {
                         setException((Exception) future.cause());
                     }
@@ -357,22 +446,14 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
             };
 
             connFuture.addListener(listener);
+        }
 
-            if (!output) {
-                entity.getRequest().headers().remove("Transfer-Encoding");
-                entity.getRequest().headers().remove("Content-Type");
-                entity.getRequest().headers().remove(null);
+        private void onChannelOpened(Channel ch) {
+            SslHandler sslHandler = ch.pipeline().get(SslHandler.class);
+            if (sslHandler != null) {
+                session = sslHandler.engine().getSession();
             }
-
-            // setup the CxfResponseCallBack
-            CxfResponseCallBack callBack = new CxfResponseCallBack() {
-                @Override
-                public void responseReceived(HttpResponse response) {
-                    setHttpResponse(response);
-                }
-            };
-            entity.setCxfResponseCallback(callBack);
-
+            setChannel(ch);
         }
 
         @Override
@@ -481,8 +562,8 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
 
         @Override
         protected void closeInputStream() throws IOException {
-            //We just clear the buffer
-            getHttpResponseContent().content().clear();
+            // Discards what is left, the channel goes back to the pool once the response is read
+            getResponseStream().close();
         }
 
         @Override
@@ -493,7 +574,7 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
 
         @Override
         protected InputStream getInputStream() throws IOException {
-            return new ByteBufInputStream(getHttpResponseContent().content());
+            return getResponseStream();
         }
 
         @Override
@@ -538,9 +619,13 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
             httpResponse = null;
             isAsync = false;
             exception = null;
-            if (channel != null) {
-                channel.close();
-                channel = null;
+            // the previous channel is closed or pooled by its handler once its response is read
+            channel = null;
+            connectionRequested = false;
+            headersSent = false;
+            if (outBuffer != null) {
+                outBuffer.release();
+                outBuffer = null;
             }
 
             try {
@@ -548,9 +633,7 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
                 Address address = new Address(this.url);
                 setupConnection(outMessage, address, csPolicy);
                 entity = outMessage.get(NettyHttpClientRequest.class);
-                //reset the buffers
-                outBuffer.clear();
-                outputStream = new ByteBufOutputStream(outBuffer);
+                entity.createRequest();
 
             } catch (URISyntaxException e) {
                 throw new IOException(e);
@@ -575,8 +658,7 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
 
         @Override
         public void thresholdReached() throws IOException {
-            //TODO need to support the chunked version
-            //entity.getRequest().setChunked(true);
+            // the request switches to the chunked encoding once its first chunk is sent
         }
 
         protected synchronized void setHttpResponse(HttpResponse r) {
@@ -39,6 +39,8 @@ public class NettyHttpConduitFactory implements HTTPConduitFactory {
 
     //CXF specific
     public static final String USE_POLICY = "org.apache.cxf.transport.http.netty.usePolicy";
+    public static final String MAX_IDLE_CHANNELS_PER_HOST =
+        "org.apache.cxf.transport.http.netty.maxIdleChannelsPerHost";
     
     public static enum UseAsyncPolicy {
         ALWAYS, ASYNC_ONLY, NEVER;
@@ -66,10 +68,17 @@ public class NettyHttpConduitFactory implements HTTPConduitFactory {
     };
     
     UseAsyncPolicy policy;
+    final NettyHttpChannelPool channelPool;
     public NettyHttpConduitFactory() {
         io.netty.util.Version.identify();
         Object st = SystemPropertyAction.getPropertyOrNull(USE_POLICY);
         policy = UseAsyncPolicy.getPolicy(st);
+        String maxIdle = SystemPropertyAction.getProperty(MAX_IDLE_CHANNELS_PER_HOST, "8");
+        channelPool = new NettyHttpChannelPool(Integer.parseInt(maxIdle));
+    }
+    
+    public NettyHttpChannelPool getChannelPool() {
+        return channelPool;
     }
     
     public UseAsyncPolicy getUseAsyncPolicy() {
@@ -120,6 +129,7 @@ public class NettyHttpConduitFactory implements HTTPConduitFactory {
                 @Override
                 public void postShutdown() {
                     // shutdown the EventLoopGroup
+                    channelPool.close();
                     group.shutdownGracefully().syncUninterruptibly();
                 }
                 
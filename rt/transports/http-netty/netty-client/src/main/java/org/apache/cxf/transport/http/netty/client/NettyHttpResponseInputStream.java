@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Response body stream fed with the HttpContent chunks of the response as they
+ * arrive. Reading from the channel is suspended while more than the high water
+ * mark is queued and resumed once half of it has been consumed.
+ */
+public class NettyHttpResponseInputStream extends InputStream {
+
+    private final Channel channel;
+
+    private final int highWaterMark;
+
+    private final int receiveTimeout;
+
+    private final Queue<ByteBuf> chunks = new ArrayDeque<ByteBuf>();
+
+    private int queued;
+
+    private boolean complete;
+
+    private boolean suspended;
+
+    private boolean closed;
+
+    private IOException failure;
+
+    public NettyHttpResponseInputStream(Channel channel, int highWaterMark, int receiveTimeout) {
+        this.channel = channel;
+        this.highWaterMark = highWaterMark;
+        this.receiveTimeout = receiveTimeout;
+    }
+
+    /**
+     * Queues the content of the chunk, called from the event loop. The caller
+     * keeps the ownership of the chunk, the content is retained when queued.
+     */
+    public void addContent(HttpContent content) {
+        ByteBuf buf = content.content();
+        synchronized (chunks) {
+            if (!closed && buf.isReadable()) {
+                chunks.add(buf.retain());
+                queued += buf.readableBytes();
+                if (queued > highWaterMark && !suspended) {
+                    suspended = true;
+                    channel.config().setAutoRead(false);
+                }
+            }
+            if (content instanceof LastHttpContent) {
+                // the channel may go back to the pool, so it is no longer ours to suspend
+                complete = true;
+                suspended = false;
+            }
+            chunks.notifyAll();
+        }
+    }
+
+    public void fail(Throwable cause) {
+        synchronized (chunks) {
+            if (!complete && failure == null) {
+                failure = cause instanceof IOException ? (IOException)cause : new IOException(cause);
+            }
+            chunks.notifyAll();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        synchronized (chunks) {
+            ByteBuf buf = awaitContent();
+            if (buf == null) {
+                return -1;
+            }
+            int n = Math.min(len, buf.readableBytes());
+            buf.readBytes(b, off, n);
+            queued -= n;
+            if (!buf.isReadable()) {
+                chunks.poll();
+                buf.release();
+            }
+            if (queued <= highWaterMark / 2) {
+                resume();
+            }
+            return n;
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        synchronized (chunks) {
+            return queued;
+        }
+    }
+
+    /**
+     * Releases the queued content, whatever arrives afterwards is discarded.
+     */
+    @Override
+    public void close() {
+        synchronized (chunks) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            ByteBuf buf = chunks.poll();
+            while (buf != null) {
+                buf.release();
+                buf = chunks.poll();
+            }
+            queued = 0;
+            resume();
+            chunks.notifyAll();
+        }
+    }
+
+    private ByteBuf awaitContent() throws IOException {
+        long deadline = receiveTimeout > 0 ? System.currentTimeMillis() + receiveTimeout : 0;
+        while (chunks.isEmpty() && !complete && !closed && failure == null) {
+            long wait = 0;
+            if (deadline > 0) {
+                wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    throw new SocketTimeoutException("Read Timeout");
+                }
+            }
+            try {
+                chunks.wait(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return chunks.peek();
+    }
+
+    private void resume() {
+        if (suspended) {
+            suspended = false;
+            channel.config().setAutoRead(true);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+public class NettyHttpChannelPoolTest extends Assert {
+
+    @Test
+    public void testReleaseAndAcquire() {
+        NettyHttpChannelPool pool = new NettyHttpChannelPool(2);
+        assertNull(pool.acquire("http://localhost:8080"));
+
+        Channel channel = new EmbeddedChannel();
+        pool.release("http://localhost:8080", channel);
+        assertEquals(1, pool.getIdleCount("http://localhost:8080"));
+        assertNull("Channels are pooled per endpoint", pool.acquire("http://localhost:8081"));
+        assertSame(channel, pool.acquire("http://localhost:8080"));
+        assertNull(pool.acquire("http://localhost:8080"));
+    }
+
+    @Test
+    public void testMaxIdleChannels() {
+        NettyHttpChannelPool pool = new NettyHttpChannelPool(2);
+        Channel channel1 = new EmbeddedChannel();
+        Channel channel2 = new EmbeddedChannel();
+        Channel channel3 = new EmbeddedChannel();
+        pool.release("key", channel1);
+        pool.release("key", channel2);
+        pool.release("key", channel3);
+
+        assertEquals(2, pool.getIdleCount("key"));
+        assertFalse("The channel exceeding the limit should be closed", channel3.isOpen());
+        assertTrue(channel1.isOpen());
+        assertTrue(channel2.isOpen());
+    }
+
+    @Test
+    public void testClosedChannelsAreSkipped() {
+        NettyHttpChannelPool pool = new NettyHttpChannelPool(2);
+        Channel channel1 = new EmbeddedChannel();
+        Channel channel2 = new EmbeddedChannel();
+        pool.release("key", channel1);
+        pool.release("key", channel2);
+        channel1.close();
+
+        assertSame(channel2, pool.acquire("key"));
+        assertNull(pool.acquire("key"));
+
+        pool.release("key", channel1);
+        assertEquals("Inactive channels are not pooled", 0, pool.getIdleCount("key"));
+    }
+
+    @Test
+    public void testClose() {
+        NettyHttpChannelPool pool = new NettyHttpChannelPool(2);
+        Channel channel = new EmbeddedChannel();
+        pool.release("key", channel);
+        pool.close();
+
+        assertFalse(channel.isOpen());
+        assertNull(pool.acquire("key"));
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.netty.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.testutil.common.TestUtil;
+import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Sends requests through the NettyHttpConduit to a Jetty server that echoes the
+ * request body and reports how the request arrived.
+ */
+public class NettyHttpConduitTest extends Assert {
+    private static final int PORT = Integer.valueOf(TestUtil.getPortNumber(NettyHttpConduitTest.class));
+    private static final String ADDRESS = "http://localhost:" + PORT + "/echo";
+
+    private Server server;
+    private Bus bus;
+    private NettyHttpConduitFactory factory;
+    private HTTPConduit conduit;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new Server(PORT);
+        server.setHandler(new EchoHandler());
+        server.start();
+
+        bus = new ExtensionManagerBus();
+        factory = new NettyHttpConduitFactory();
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress(ADDRESS);
+        conduit = factory.createConduit(bus, ei, null);
+        conduit.finalizeConfig();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        conduit.close();
+        bus.shutdown(true);
+        server.stop();
+    }
+
+    @Test
+    public void testRequestsReusePooledChannel() throws Exception {
+        // larger than a chunk and than the buffered response content, so both
+        // directions have to wait for the peer
+        byte[] large = new byte[2 * NettyHttpClientPipelineFactory.MAX_BUFFERED_CONTENT_SIZE];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte)('a' + i % 26);
+        }
+        Message response = invoke("POST", large, null);
+        assertEquals("true", getHeader(response, "X-Chunked"));
+        assertTrue("The body was not echoed", Arrays.equals(large, readBody(response)));
+        String port = getHeader(response, "X-Remote-Port");
+        awaitIdleChannel();
+
+        response = invoke("GET", null, null);
+        assertEquals("GET", getHeader(response, "X-Method"));
+        assertEquals(0, readBody(response).length);
+        assertEquals("The pooled channel should be reused", port, getHeader(response, "X-Remote-Port"));
+        awaitIdleChannel();
+
+        byte[] small = "small request".getBytes("UTF-8");
+        response = invoke("POST", small, null);
+        assertEquals("false", getHeader(response, "X-Chunked"));
+        assertEquals(Integer.toString(small.length), getHeader(response, "X-Content-Length"));
+        assertTrue(Arrays.equals(small, readBody(response)));
+        assertEquals("The pooled channel should be reused", port, getHeader(response, "X-Remote-Port"));
+        awaitIdleChannel();
+    }
+
+    @Test
+    public void testReceiveTimeout() throws Exception {
+        conduit.getClient().setReceiveTimeout(300);
+        Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        headers.put("X-Delay", Collections.singletonList("3000"));
+        try {
+            invoke("GET", null, headers);
+            fail("The response should have timed out");
+        } catch (IOException ex) {
+            // expected
+        }
+    }
+
+    private Message invoke(String method, byte[] body, Map<String, List<String>> headers) throws IOException {
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        exchange.setOutMessage(message);
+        message.put(NettyHttpConduit.USE_ASYNC, Boolean.TRUE);
+        message.put(Message.HTTP_REQUEST_METHOD, method);
+        message.put(Message.CONTENT_TYPE, "text/plain");
+        if (headers != null) {
+            message.put(Message.PROTOCOL_HEADERS, headers);
+        }
+        final Message[] response = new Message[1];
+        conduit.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message m) {
+                response[0] = m;
+            }
+        });
+        conduit.prepare(message);
+        OutputStream out = message.getContent(OutputStream.class);
+        if (body != null) {
+            out.write(body);
+        }
+        out.close();
+        assertNotNull("No response received", response[0]);
+        return response[0];
+    }
+
+    private static byte[] readBody(Message response) throws IOException {
+        InputStream in = response.getContent(InputStream.class);
+        try {
+            return IOUtils.readBytesFromStream(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String getHeader(Message response, String name) {
+        Map<String, List<String>> headers = CastUtils.cast((Map<?, ?>)response.get(Message.PROTOCOL_HEADERS));
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    private static Object poolKey() {
+        return Arrays.<Object>asList("http", "localhost", PORT, null);
+    }
+
+    private void awaitIdleChannel() throws InterruptedException {
+        // the channel is released on the event loop once the whole response has arrived
+        for (int i = 0; i < 100 && factory.getChannelPool().getIdleCount(poolKey()) == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, factory.getChannelPool().getIdleCount(poolKey()));
+    }
+
+    private static class EchoHandler extends AbstractHandler {
+        public void handle(String target, Request baseRequest, HttpServletRequest request,
+                           HttpServletResponse response) throws IOException, ServletException {
+            baseRequest.setHandled(true);
+            byte[] body = IOUtils.readBytesFromStream(request.getInputStream());
+            String delay = request.getHeader("X-Delay");
+            if (delay != null) {
+                try {
+                    Thread.sleep(Long.parseLong(delay));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            response.setContentType("text/plain");
+            response.setHeader("X-Method", request.getMethod());
+            response.setHeader("X-Remote-Port", Integer.toString(request.getRemotePort()));
+            boolean chunked = "chunked".equalsIgnoreCase(request.getHeader("Transfer-Encoding"));
+            response.setHeader("X-Chunked", Boolean.toString(chunked));
+            response.setHeader("X-Content-Length", Integer.toString(request.getContentLength()));
+            response.getOutputStream().write(body);
+        }
+    }
+}
@@ -26,9 +26,11 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.PostConstruct;
 
+import org.apache.cxf.common.classloader.ClassLoaderUtils;
 import org.apache.cxf.common.i18n.Message;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.configuration.jsse.TLSServerParameters;
@@ -38,6 +40,7 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 
@@ -88,10 +91,13 @@ public class NettyHttpServerEngine implements ServerEngine {
     private int maxChunkContentSize = 1048576; 
     
     private boolean sessionSupport;
+
+    private boolean streaming;
+
+    private boolean nativeTransport;
     
-    // TODO need to setup configuration about them
-    private EventLoopGroup bossGroup = new NioEventLoopGroup();
-    private EventLoopGroup workerGroup = new NioEventLoopGroup();
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
     
     public NettyHttpServerEngine() {
         
@@ -146,9 +152,10 @@ public class NettyHttpServerEngine implements ServerEngine {
       
     protected Channel startServer() {
           
+        Class<? extends ServerChannel> channelClass = createEventLoopGroups();
         final ServerBootstrap bootstrap = new ServerBootstrap();
         bootstrap.group(bossGroup, workerGroup)
-            .channel(NioServerSocketChannel.class)
+            .channel(channelClass)
             .option(ChannelOption.SO_REUSEADDR, true);
 
         // Set up the event pipeline factory.
@@ -176,6 +183,34 @@ public class NettyHttpServerEngine implements ServerEngine {
         }
     }
 
+    /**
+     * Sets up the event loops, using the native epoll transport when it has been
+     * asked for and is available on this platform, NIO otherwise.
+     */
+    protected Class<? extends ServerChannel> createEventLoopGroups() {
+        if (nativeTransport) {
+            try {
+                Class<?> groupClass =
+                    ClassLoaderUtils.loadClass("io.netty.channel.epoll.EpollEventLoopGroup", getClass());
+                Class<? extends ServerChannel> channelClass =
+                    ClassLoaderUtils.loadClass("io.netty.channel.epoll.EpollServerSocketChannel", getClass())
+                        .asSubclass(ServerChannel.class);
+                bossGroup = (EventLoopGroup)groupClass.newInstance();
+                workerGroup = (EventLoopGroup)groupClass.newInstance();
+                return channelClass;
+            } catch (Throwable ex) {
+                // the classes are missing or the native library can't be loaded
+                LOG.log(Level.WARNING, "NATIVE_TRANSPORT_NOT_AVAILABLE_MSG", ex.toString());
+                if (bossGroup != null) {
+                    bossGroup.shutdownGracefully();
+                }
+            }
+        }
+        bossGroup = new NioEventLoopGroup();
+        workerGroup = new NioEventLoopGroup();
+        return NioServerSocketChannel.class;
+    }
+
     protected void checkRegistedContext(URL url) {
         String path = url.getPath();
         for (String registedPath : registedPaths) {
@@ -248,8 +283,12 @@ public class NettyHttpServerEngine implements ServerEngine {
             serverChannel.close();
         }
         
-        bossGroup.shutdownGracefully();
-        workerGroup.shutdownGracefully();
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully();
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully();
+        }
        
     }
 
@@ -277,6 +316,30 @@ public class NettyHttpServerEngine implements ServerEngine {
         this.sessionSupport = session;
     }
     
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * When enabled the requests are no longer aggregated, the request body is
+     * streamed to the service as it arrives and the response is written in chunks.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean isNativeTransport() {
+        return nativeTransport;
+    }
+
+    /**
+     * When enabled the epoll transport is used if netty-transport-native-epoll
+     * is available, the engine falls back to NIO otherwise.
+     */
+    public void setNativeTransport(boolean nativeTransport) {
+        this.nativeTransport = nativeTransport;
+    }
+
     public int getMaxChunkContentSize() {
         return maxChunkContentSize;
     }
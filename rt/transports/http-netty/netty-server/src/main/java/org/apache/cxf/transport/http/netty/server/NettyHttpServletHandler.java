@@ -195,7 +195,7 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
         ctx.write(response).addListener(ChannelFutureListener.CLOSE);
     }
 
-    private void interceptOnRequestReceived(ChannelHandlerContext ctx, HttpRequest request) {
+    protected void interceptOnRequestReceived(ChannelHandlerContext ctx, HttpRequest request) {
 
         if (this.interceptors != null) {
             for (NettyInterceptor interceptor : this.interceptors) {
@@ -205,8 +205,8 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
 
     }
 
-    private void interceptOnRequestSuccessed(ChannelHandlerContext ctx,
-                                             HttpResponse response) {
+    protected void interceptOnRequestSuccessed(ChannelHandlerContext ctx,
+                                               HttpResponse response) {
         if (this.interceptors != null) {
             for (NettyInterceptor interceptor : this.interceptors) {
                 interceptor.onRequestSuccessed(ctx, response);
@@ -215,8 +215,8 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
 
     }
 
-    private void interceptOnRequestFailed(ChannelHandlerContext ctx,
-                                          Throwable e) {
+    protected void interceptOnRequestFailed(ChannelHandlerContext ctx,
+                                            Throwable e) {
         if (this.interceptors != null) {
             for (NettyInterceptor interceptor : this.interceptors) {
                 interceptor.onRequestFailed(ctx, e);
@@ -123,6 +123,17 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
     protected NettyHttpServletHandler getServletHandler() {
 
         NettyHttpServletHandler handler = new NettyHttpServletHandler(this);
+        return addInterceptors(handler);
+    }
+
+    protected NettyHttpServletHandler getStreamingHandler() {
+        // the request body is buffered up to maxChunkContentSize before reading is suspended
+        NettyHttpServletHandler handler =
+            new NettyHttpStreamingHandler(this, applicationExecutor, maxChunkContentSize);
+        return addInterceptors(handler);
+    }
+
+    private NettyHttpServletHandler addInterceptors(NettyHttpServletHandler handler) {
         handler.addInterceptor(new ChannelInterceptor());
         if (supportSession) {
             handler.addInterceptor(new HttpSessionInterceptor(getHttpSessionStore()));
@@ -144,7 +155,9 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
         }
 
         pipeline.addLast("decoder", new HttpRequestDecoder());
-        pipeline.addLast("aggregator", new HttpObjectAggregator(maxChunkContentSize));
+        if (!nettyHttpServerEngine.isStreaming()) {
+            pipeline.addLast("aggregator", new HttpObjectAggregator(maxChunkContentSize));
+        }
         pipeline.addLast("encoder", new HttpResponseEncoder());
 
         // Remove the following line if you don't want automatic content
@@ -200,7 +213,12 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
     protected void initChannel(Channel ch) throws Exception {
         ChannelPipeline pipeline = getDefaulHttpChannelPipeline(ch);
         
-        pipeline.addLast(applicationExecutor, "handler", this.getServletHandler());
+        if (nettyHttpServerEngine.isStreaming()) {
+            // the streaming handler stays on the event loop and dispatches to the executor itself
+            pipeline.addLast("handler", this.getStreamingHandler());
+        } else {
+            pipeline.addLast(applicationExecutor, "handler", this.getServletHandler());
+        }
     }
 
 }
@@ -0,0 +1,261 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.server;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.i18n.Message;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.transport.http.netty.server.servlet.NettyHttpContentInputStream;
+import org.apache.cxf.transport.http.netty.server.servlet.NettyHttpContentOutputStream;
+import org.apache.cxf.transport.http.netty.server.servlet.NettyHttpServletRequest;
+import org.apache.cxf.transport.http.netty.server.servlet.NettyServletResponse;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * Handler used when the engine is configured for streaming. It runs on the event
+ * loop and hands the request over to the application executor as soon as the
+ * headers have been decoded, the body follows through a NettyHttpContentInputStream
+ * while the response is written back in chunks by a NettyHttpContentOutputStream.
+ * Reading of the next request on the connection is held back until the response of
+ * the current one has been written. Pipelined requests that were already decoded are
+ * queued and only started once the previous response is complete, so the responses
+ * go out in order.
+ */
+public class NettyHttpStreamingHandler extends NettyHttpServletHandler {
+    private static final Logger LOG =
+            LogUtils.getL7dLogger(NettyHttpStreamingHandler.class);
+
+    private static final int RESPONSE_CHUNK_SIZE = 8192;
+
+    private final NettyHttpServletPipelineFactory pipelineFactory;
+
+    private final EventExecutorGroup applicationExecutor;
+
+    private final int maxBufferedContentSize;
+
+    // only accessed from the event loop of the channel
+    private Exchange exchange;
+    private Exchange responding;
+    private final Deque<Object> deferred = new ArrayDeque<Object>();
+
+    public NettyHttpStreamingHandler(NettyHttpServletPipelineFactory pipelineFactory,
+                                     EventExecutorGroup applicationExecutor,
+                                     int maxBufferedContentSize) {
+        super(pipelineFactory);
+        this.pipelineFactory = pipelineFactory;
+        this.applicationExecutor = applicationExecutor;
+        this.maxBufferedContentSize = maxBufferedContentSize;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (!deferred.isEmpty() || msg instanceof HttpRequest && responding != null) {
+            // a pipelined request, keep it until the current response has been written
+            deferred.add(msg);
+            ctx.channel().config().setAutoRead(false);
+            return;
+        }
+        read(ctx, msg);
+    }
+
+    private void read(ChannelHandlerContext ctx, Object msg) {
+        try {
+            if (msg instanceof HttpRequest) {
+                startExchange(ctx, (HttpRequest)msg);
+            }
+            if (msg instanceof HttpContent && exchange != null) {
+                exchange.in.addContent((HttpContent)msg);
+                if (msg instanceof LastHttpContent) {
+                    exchange.requestComplete = true;
+                    if (responding == exchange) {
+                        ctx.channel().config().setAutoRead(false);
+                    }
+                    exchange = null;
+                }
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    /**
+     * Starts the deferred requests once the response they were waiting for is complete
+     */
+    private void resumeDeferred(ChannelHandlerContext ctx) {
+        while (!deferred.isEmpty()) {
+            if (deferred.peek() instanceof HttpRequest && responding != null) {
+                return;
+            }
+            read(ctx, deferred.poll());
+        }
+        if (exchange != null || responding == null) {
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private void releaseDeferred() {
+        Object msg = deferred.poll();
+        while (msg != null) {
+            ReferenceCountUtil.release(msg);
+            msg = deferred.poll();
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseDeferred();
+        if (exchange != null) {
+            exchange.in.fail(new IOException("Connection closed before the request was received"));
+            exchange = null;
+        }
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        if (exchange != null) {
+            exchange.in.fail(cause);
+            exchange = null;
+        }
+        super.exceptionCaught(ctx, cause);
+    }
+
+    private void startExchange(final ChannelHandlerContext ctx, final HttpRequest request) {
+        if (HttpHeaders.is100ContinueExpected(request)) {
+            ctx.writeAndFlush(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
+        }
+
+        // find the nettyHttpContextHandler by lookup the request url
+        final NettyHttpContextHandler nettyHttpContextHandler =
+            pipelineFactory.getNettyHttpHandler(request.getUri());
+        if (nettyHttpContextHandler == null) {
+            throw new RuntimeException(
+                    new Fault(new Message("NO_NETTY_SERVLET_HANDLER_FOUND", LOG , request.getUri())));
+        }
+
+        final Exchange current =
+            new Exchange(new NettyHttpContentInputStream(ctx.channel(), maxBufferedContentSize));
+        exchange = current;
+        responding = current;
+        applicationExecutor.execute(new Runnable() {
+            public void run() {
+                handleHttpServletRequest(ctx, request, nettyHttpContextHandler, current);
+            }
+        });
+    }
+
+    private void handleHttpServletRequest(ChannelHandlerContext ctx, HttpRequest request,
+                                          NettyHttpContextHandler nettyHttpContextHandler,
+                                          Exchange current) {
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        boolean keepAlive = HttpHeaders.isKeepAlive(request);
+        NettyHttpContentOutputStream out =
+            new NettyHttpContentOutputStream(ctx, response, keepAlive, RESPONSE_CHUNK_SIZE);
+        try {
+            interceptOnRequestReceived(ctx, request);
+
+            NettyServletResponse nettyServletResponse = new NettyServletResponse(response, out);
+            NettyHttpServletRequest nettyServletRequest =
+                new NettyHttpServletRequest(request, current.in,
+                                            nettyHttpContextHandler.getContextPath(), ctx);
+
+            nettyHttpContextHandler.handle(nettyServletRequest.getRequestURI(), nettyServletRequest,
+                                           nettyServletResponse);
+            interceptOnRequestSuccessed(ctx, response);
+
+            nettyServletResponse.getWriter().flush();
+            out.finish().addListener(new ResponseCompleteListener(ctx, current, keepAlive));
+        } catch (Throwable ex) {
+            out.abort();
+            current.in.close();
+            handleFailure(ctx, ex, out.isCommitted());
+        }
+    }
+
+    private void handleFailure(ChannelHandlerContext ctx, Throwable cause, boolean committed) {
+        if (committed) {
+            // part of the response is already out, all we can do is to drop the connection
+            LOG.log(Level.SEVERE, "UNEXPECTED_EXCEPCTION_IN_NETTY_SERVLET_HANDLER", cause);
+            interceptOnRequestFailed(ctx, cause);
+            ctx.close();
+            return;
+        }
+        try {
+            super.exceptionCaught(ctx, cause);
+        } catch (Exception ex) {
+            ctx.close();
+        }
+    }
+
+    private static class Exchange {
+        final NettyHttpContentInputStream in;
+        boolean requestComplete;
+
+        Exchange(NettyHttpContentInputStream in) {
+            this.in = in;
+        }
+    }
+
+    private class ResponseCompleteListener implements ChannelFutureListener {
+        private final ChannelHandlerContext ctx;
+        private final Exchange exchange;
+        private final boolean keepAlive;
+
+        ResponseCompleteListener(ChannelHandlerContext ctx, Exchange exchange, boolean keepAlive) {
+            this.ctx = ctx;
+            this.exchange = exchange;
+            this.keepAlive = keepAlive;
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+            // runs on the event loop, so the exchange state needs no further guarding
+            exchange.in.close();
+            if (responding == exchange) {
+                responding = null;
+            }
+            if (!keepAlive || !future.isSuccess()) {
+                releaseDeferred();
+                ctx.close();
+            } else if (exchange.requestComplete) {
+                resumeDeferred(ctx);
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.server.servlet;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import javax.servlet.ServletInputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Request body stream which is fed with the HttpContent chunks of a request as
+ * they are decoded, so the request can be processed before it has been fully read.
+ * Reading from the socket is suspended while more than the high water mark is
+ * queued and resumed once the reader has drained the queue below the low water mark.
+ */
+public class NettyHttpContentInputStream extends ServletInputStream {
+
+    private final Channel channel;
+
+    private final int highWaterMark;
+
+    private final int lowWaterMark;
+
+    private final Queue<ByteBuf> chunks = new ArrayDeque<ByteBuf>();
+
+    private int queued;
+
+    private boolean complete;
+
+    private boolean suspended;
+
+    private boolean closed;
+
+    private IOException failure;
+
+    public NettyHttpContentInputStream(Channel channel, int highWaterMark) {
+        this.channel = channel;
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = highWaterMark / 2;
+    }
+
+    /**
+     * Queues the content of the chunk, called from the event loop. The caller
+     * keeps the ownership of the chunk, the content is retained when queued.
+     */
+    public void addContent(HttpContent content) {
+        ByteBuf buf = content.content();
+        synchronized (chunks) {
+            if (!closed && buf.isReadable()) {
+                chunks.add(buf.retain());
+                queued += buf.readableBytes();
+                if (queued > highWaterMark && !suspended) {
+                    suspended = true;
+                    channel.config().setAutoRead(false);
+                }
+            }
+            if (content instanceof LastHttpContent) {
+                complete = true;
+            }
+            chunks.notifyAll();
+        }
+    }
+
+    /**
+     * Wakes up the reader with the given error, used when the channel is closed
+     * or fails before the whole request has been received.
+     */
+    public void fail(Throwable cause) {
+        synchronized (chunks) {
+            if (!complete && failure == null) {
+                failure = cause instanceof IOException ? (IOException)cause : new IOException(cause);
+            }
+            chunks.notifyAll();
+        }
+    }
+
+    public boolean isComplete() {
+        synchronized (chunks) {
+            return complete;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        synchronized (chunks) {
+            ByteBuf buf = awaitContent();
+            if (buf == null) {
+                return -1;
+            }
+            int n = Math.min(len, buf.readableBytes());
+            buf.readBytes(b, off, n);
+            consumed(buf, n);
+            return n;
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        synchronized (chunks) {
+            while (skipped < n) {
+                ByteBuf buf = awaitContent();
+                if (buf == null) {
+                    break;
+                }
+                int count = (int)Math.min(n - skipped, buf.readableBytes());
+                buf.skipBytes(count);
+                consumed(buf, count);
+                skipped += count;
+            }
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        synchronized (chunks) {
+            return queued;
+        }
+    }
+
+    /**
+     * Releases the queued content and discards anything which arrives later on,
+     * the channel is switched back to reading if it has been suspended.
+     */
+    @Override
+    public void close() {
+        synchronized (chunks) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            ByteBuf buf = chunks.poll();
+            while (buf != null) {
+                buf.release();
+                buf = chunks.poll();
+            }
+            queued = 0;
+            resume();
+            chunks.notifyAll();
+        }
+    }
+
+    private ByteBuf awaitContent() throws IOException {
+        while (chunks.isEmpty() && !complete && !closed && failure == null) {
+            try {
+                chunks.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return chunks.peek();
+    }
+
+    private void consumed(ByteBuf buf, int n) {
+        queued -= n;
+        if (!buf.isReadable()) {
+            chunks.poll();
+            buf.release();
+        }
+        if (queued <= lowWaterMark) {
+            resume();
+        }
+    }
+
+    private void resume() {
+        if (suspended) {
+            suspended = false;
+            // once the request is complete the handler decides when to read the next one
+            if (!complete) {
+                channel.config().setAutoRead(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.server.servlet;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+
+/**
+ * Response body stream which writes the content to the channel in chunks taken
+ * from the channel allocator instead of aggregating the whole response. Responses
+ * which fit into a single chunk are sent with a Content-Length header, larger ones
+ * use the chunked transfer encoding unless the Content-Length has been set. The
+ * writing thread waits for the chunk to be written whenever the channel is not writable.
+ */
+public class NettyHttpContentOutputStream extends NettyServletOutputStream {
+
+    private final ChannelHandlerContext ctx;
+
+    private final HttpResponse response;
+
+    private final boolean keepAlive;
+
+    private final int chunkSize;
+
+    private volatile boolean committed;
+
+    private boolean finished;
+
+    public NettyHttpContentOutputStream(ChannelHandlerContext ctx, HttpResponse response,
+                                        boolean keepAlive, int chunkSize) {
+        super(ctx.alloc().buffer(chunkSize));
+        this.ctx = ctx;
+        this.response = response;
+        this.keepAlive = keepAlive;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        super.write(b);
+        checkChunk();
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int offset, int len) throws IOException {
+        super.write(b, offset, len);
+        checkChunk();
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int len = super.write(src);
+        checkChunk();
+        return len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        super.flush();
+        if (!finished && buffer().isReadable()) {
+            writeChunk();
+        }
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * Writes out the remaining content along with the end of the response.
+     */
+    public ChannelFuture finish() {
+        finished = true;
+        commit(true);
+        ByteBuf last = buffer();
+        return ctx.writeAndFlush(new DefaultLastHttpContent(last));
+    }
+
+    /**
+     * Releases the pending content when the response could not be completed.
+     */
+    public void abort() {
+        if (!finished) {
+            finished = true;
+            buffer().release();
+        }
+    }
+
+    private void checkChunk() throws IOException {
+        if (buffer().readableBytes() >= chunkSize) {
+            writeChunk();
+        }
+    }
+
+    private void writeChunk() throws IOException {
+        commit(false);
+        ByteBuf chunk = buffer();
+        replaceBuffer(ctx.alloc().buffer(chunkSize));
+        ChannelFuture future = ctx.writeAndFlush(new DefaultHttpContent(chunk));
+        if (!ctx.channel().isWritable()) {
+            // let the peer catch up instead of queueing up the whole response in memory
+            try {
+                future.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (!future.isSuccess()) {
+                throw new IOException(future.cause());
+            }
+        }
+    }
+
+    private void commit(boolean complete) {
+        if (committed) {
+            return;
+        }
+        committed = true;
+        if (!HttpHeaders.isContentLengthSet(response)) {
+            if (complete) {
+                HttpHeaders.setContentLength(response, buffer().readableBytes());
+            } else {
+                HttpHeaders.setTransferEncodingChunked(response);
+            }
+        }
+        if (keepAlive) {
+            response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+        }
+        ctx.write(response);
+    }
+}
@@ -65,7 +65,7 @@ public class NettyHttpServletRequest implements HttpServletRequest {
 
     private HttpRequest originalRequest;
 
-    private NettyServletInputStream inputStream;
+    private ServletInputStream inputStream;
 
     private BufferedReader reader;
 
@@ -80,11 +80,16 @@ public class NettyHttpServletRequest implements HttpServletRequest {
     private ChannelHandlerContext channelHandlerContext;
 
     public NettyHttpServletRequest(HttpRequest request, String contextPath, ChannelHandlerContext ctx) {
+        this(request, new NettyServletInputStream((HttpContent)request), contextPath, ctx);
+    }
+
+    public NettyHttpServletRequest(HttpRequest request, ServletInputStream inputStream,
+                                   String contextPath, ChannelHandlerContext ctx) {
         this.originalRequest = request;
         this.contextPath = contextPath;
         this.uriParser = new URIParser(contextPath);
         uriParser.parse(request.getUri());
-        this.inputStream = new NettyServletInputStream((HttpContent)request);
+        this.inputStream = inputStream;
         this.reader = new BufferedReader(new InputStreamReader(inputStream));
         this.queryStringDecoder = new QueryStringDecoder(request.getUri());
         // setup the SSL security attributes
@@ -20,20 +20,30 @@
 package org.apache.cxf.transport.http.netty.server.servlet;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
 
 import javax.servlet.ServletOutputStream;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufOutputStream;
 import io.netty.handler.codec.http.HttpContent;
 
-public class NettyServletOutputStream extends ServletOutputStream {
+public class NettyServletOutputStream extends ServletOutputStream implements WritableByteChannel {
     
     private ByteBufOutputStream out;
 
     private boolean flushed;
 
+    private volatile boolean closed;
+
     public NettyServletOutputStream(HttpContent httpContent) {
-        this.out = new ByteBufOutputStream(httpContent.content());
+        this(httpContent.content());
+    }
+
+    protected NettyServletOutputStream(ByteBuf buffer) {
+        this.out = new ByteBufOutputStream(buffer);
     }
 
     @Override
@@ -51,6 +61,31 @@ public class NettyServletOutputStream extends ServletOutputStream {
         this.out.write(b, offset, len);
     }
 
+    /**
+     * Lets FileChannel.transferTo and other channel based copies write
+     * straight into the response ByteBuf.
+     */
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        int len = src.remaining();
+        this.out.buffer().writeBytes(src);
+        return len;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        out.close();
+    }
+
     @Override
     public void flush() throws IOException {
         out.flush();
@@ -68,6 +103,18 @@ public class NettyServletOutputStream extends ServletOutputStream {
     public int getBufferSize() {
         return this.out.buffer().capacity();
     }
+
+    protected ByteBuf buffer() {
+        return this.out.buffer();
+    }
+
+    /**
+     * Switches the stream over to a new buffer, the previous one is handed over
+     * to the caller which becomes responsible for releasing it.
+     */
+    protected void replaceBuffer(ByteBuf buffer) {
+        this.out = new ByteBufOutputStream(buffer);
+    }
     
     
 }
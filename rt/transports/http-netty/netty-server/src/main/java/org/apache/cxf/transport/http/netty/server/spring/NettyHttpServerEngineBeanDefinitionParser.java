@@ -90,6 +90,16 @@ public class NettyHttpServerEngineBeanDefinitionParser extends AbstractBeanDefin
             bean.addPropertyValue("maxChunkContentSize", maxChunkContentSizeStr);
         }
         
+        String streamingStr = element.getAttribute("streaming");
+        if (streamingStr != null && !"".equals(streamingStr.trim())) {
+            bean.addPropertyValue("streaming", streamingStr);
+        }
+        
+        String nativeTransportStr = element.getAttribute("nativeTransport");
+        if (nativeTransportStr != null && !"".equals(nativeTransportStr.trim())) {
+            bean.addPropertyValue("nativeTransport", nativeTransportStr);
+        }
+        
         
         ValueHolder busValue = ctx.getContainingBeanDefinition()
             .getConstructorArgumentValues().getArgumentValue(0, Bus.class);
@@ -532,6 +532,8 @@ public class NettyHttpDestinationTest extends Assert {
             EasyMock.expectLastCall().andReturn(null);
             bus.getExtension(ContinuationProviderFactory.class);
             EasyMock.expectLastCall().andReturn(null).anyTimes();
+            bus.getProperty(AbstractHTTPDestination.NON_BLOCKING_IO);
+            EasyMock.expectLastCall().andReturn(null).anyTimes();
             bus.getExtension(PolicyDataEngine.class);
             EasyMock.expectLastCall().andReturn(null).anyTimes();
             bus.hasExtensionByName("org.apache.cxf.ws.policy.PolicyEngine");
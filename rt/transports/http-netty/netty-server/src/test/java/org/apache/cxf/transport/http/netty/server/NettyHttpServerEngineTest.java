@@ -21,10 +21,20 @@ package org.apache.cxf.transport.http.netty.server;
 
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.Socket;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.apache.cxf.Bus;
 import org.apache.cxf.configuration.Configurer;
 import org.apache.cxf.helpers.IOUtils;
@@ -39,6 +49,8 @@ import org.junit.Test;
 public class NettyHttpServerEngineTest extends Assert {
     private static final int PORT1 
         = Integer.valueOf(TestUtil.getPortNumber(NettyHttpServerEngineTest.class, 1));
+    private static final int PORT2 
+        = Integer.valueOf(TestUtil.getPortNumber(NettyHttpServerEngineTest.class, 2));
     private static final int PORT3 
         = Integer.valueOf(TestUtil.getPortNumber(NettyHttpServerEngineTest.class, 3));
     
@@ -140,6 +152,98 @@ public class NettyHttpServerEngineTest extends Assert {
         NettyHttpServerEngineFactory.destroyForPort(PORT3);
     }
 
+    @Test
+    public void testStreamingEcho() throws Exception {
+        String urlStr = "http://localhost:" + PORT2 + "/echo/test";
+        NettyHttpServerEngine engine =
+            factory.createNettyHttpServerEngine(PORT2, "http");
+        engine.setStreaming(true);
+        // falls back to NIO where epoll isn't available
+        engine.setNativeTransport(true);
+        // small enough for the reading of the request to be suspended a few times
+        engine.setMaxChunkContentSize(4096);
+        engine.addServant(new URL(urlStr), new NettyHttpHandler(null, true) {
+            @Override
+            public void handle(String target, HttpServletRequest request, HttpServletResponse resp)
+                throws IOException, ServletException {
+                IOUtils.copy(request.getInputStream(), resp.getOutputStream());
+                resp.flushBuffer();
+            }
+        });
+
+        byte[] body = new byte[100000];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte)('a' + i % 26);
+        }
+        // the second request goes over the kept alive connection
+        for (int i = 0; i < 2; i++) {
+            HttpURLConnection connection = (HttpURLConnection)new URL(urlStr).openConnection();
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            OutputStream out = connection.getOutputStream();
+            out.write(body);
+            out.close();
+            assertEquals(200, connection.getResponseCode());
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            IOUtils.copy(connection.getInputStream(), buffer);
+            assertTrue("The request body was not echoed", Arrays.equals(body, buffer.toByteArray()));
+        }
+
+        NettyHttpServerEngineFactory.destroyForPort(PORT2);
+    }
+
+    @Test
+    public void testStreamingPipelinedRequests() throws Exception {
+        String urlStr = "http://localhost:" + PORT2 + "/pipeline/test";
+        NettyHttpServerEngine engine =
+            factory.createNettyHttpServerEngine(PORT2, "http");
+        engine.setStreaming(true);
+        engine.addServant(new URL(urlStr), new NettyHttpHandler(null, true) {
+            @Override
+            public void handle(String target, HttpServletRequest request, HttpServletResponse resp)
+                throws IOException, ServletException {
+                byte[] part = new byte[4096];
+                Arrays.fill(part, (byte)request.getHeader("X-Fill").charAt(0));
+                OutputStream out = resp.getOutputStream();
+                int parts = Integer.parseInt(request.getHeader("X-Parts"));
+                for (int i = 0; i < parts; i++) {
+                    out.write(part);
+                    out.flush();
+                    try {
+                        // give the second request the chance to overtake the first one
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                resp.flushBuffer();
+            }
+        });
+
+        // both requests are sent at once, the second one without waiting for the first response
+        String requests = "GET /pipeline/test HTTP/1.1\r\nHost: localhost\r\nX-Fill: a\r\nX-Parts: 10\r\n\r\n"
+            + "GET /pipeline/test HTTP/1.1\r\nHost: localhost\r\nX-Fill: b\r\nX-Parts: 1\r\n"
+            + "Connection: close\r\n\r\n";
+        try (Socket socket = new Socket("localhost", PORT2)) {
+            socket.setSoTimeout(10000);
+            socket.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            IOUtils.copy(socket.getInputStream(), buffer);
+            String response = new String(buffer.toByteArray(), StandardCharsets.US_ASCII);
+
+            int second = response.indexOf("HTTP/1.1 200", 1);
+            assertTrue("Both responses expected", response.startsWith("HTTP/1.1 200") && second > 0);
+            assertTrue("The first response must be complete before the second one starts",
+                       response.lastIndexOf("aaaa") < second);
+            assertEquals("The second response must not be in the first one", -1,
+                         response.substring(0, second).indexOf("bbbb"));
+            assertTrue(response.indexOf("bbbb", second) > 0);
+        }
+
+        NettyHttpServerEngineFactory.destroyForPort(PORT2);
+    }
+
     private String getResponse(String target) throws Exception {
         URL url = new URL(target);
 
@@ -19,19 +19,24 @@
 
 package org.apache.cxf.transport.http;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.security.Principal;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletRequest;
@@ -44,6 +49,7 @@ import org.apache.cxf.attachment.AttachmentDataSource;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.Base64Exception;
 import org.apache.cxf.common.util.Base64Utility;
+import org.apache.cxf.common.util.PropertyUtils;
 import org.apache.cxf.common.util.StringUtils;
 import org.apache.cxf.configuration.Configurable;
 import org.apache.cxf.configuration.security.AuthorizationPolicy;
@@ -54,6 +60,7 @@ import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.interceptor.Interceptor;
 import org.apache.cxf.io.AbstractWrappedOutputStream;
+import org.apache.cxf.io.CachedOutputStream;
 import org.apache.cxf.io.CopyingOutputStream;
 import org.apache.cxf.io.DelegatingInputStream;
 import org.apache.cxf.message.Attachment;
@@ -97,9 +104,16 @@ public abstract class AbstractHTTPDestination
     public static final String REQUEST_REDIRECTED = "http.request.redirected";
     public static final String CXF_CONTINUATION_MESSAGE = "cxf.continuation.message";
     public static final String CXF_ASYNC_CONTEXT = "cxf.async.context";
+    /**
+     * Enables the Servlet 3.1 non-blocking reading of request bodies and writing
+     * of responses, can be set as a bus or endpoint property.
+     */
+    public static final String NON_BLOCKING_IO = "org.apache.cxf.transport.http.nonBlockingIO";
 
     public static final String SERVICE_REDIRECTION = "http.service.redirection";
     private static final String HTTP_BASE_PATH = "http.base.path";
+    static final String CXF_PREFETCHED_INPUT = "cxf.prefetched.input";
+    static final String BUFFERED_RESPONSE = "http.buffered.response";
 
     private static final String SSL_CIPHER_SUITE_ATTRIBUTE = "javax.servlet.request.cipher_suite";
     private static final String SSL_PEER_CERT_CHAIN_ATTRIBUTE = "javax.servlet.request.X509Certificate";
@@ -117,6 +131,7 @@ public abstract class AbstractHTTPDestination
     protected boolean multiplexWithAddress;
     protected CertConstraints certConstraints;
     protected boolean isServlet3;
+    protected boolean nonBlockingIO;
     protected ContinuationProviderFactory cproviderFactory;
     protected boolean enableWebSocket;
 
@@ -228,6 +243,10 @@ public abstract class AbstractHTTPDestination
                        final HttpServletRequest req, 
                        final HttpServletResponse resp) throws IOException {
         Message inMessage = retrieveFromContinuation(req);
+        if (inMessage == null && readRequestAsync(req, resp)) {
+            // the request is dispatched again once its body has been read
+            return;
+        }
         if (inMessage == null) {
             LOG.fine("Create a new message for processing");
             inMessage = new MessageImpl();
@@ -256,6 +275,7 @@ public abstract class AbstractHTTPDestination
             }
             //else nothing to do, just finishing the processing
         } catch (Fault ex) {
+            abortResponseAsync(inMessage, ex);
             Throwable cause = ex.getCause();
             if (cause instanceof RuntimeException) {
                 throw (RuntimeException)cause;
@@ -263,6 +283,7 @@ public abstract class AbstractHTTPDestination
                 throw ex;
             }
         } catch (RuntimeException ex) {
+            abortResponseAsync(inMessage, ex);
             throw ex;
         } finally {
             if (LOG.isLoggable(Level.FINE)) {
@@ -276,11 +297,181 @@ public abstract class AbstractHTTPDestination
                                   final HttpServletResponse resp,
                                   Message m) throws IOException {
         ContinuationProvider p = m.get(ContinuationProvider.class);
-        if (p != null) {
+        Object asyncResponse = m.getExchange() == null ? null : m.getExchange().remove(BUFFERED_RESPONSE);
+        if (asyncResponse instanceof AsyncResponseCompletion) {
+            ((AsyncResponseCompletion)asyncResponse).invocationComplete(p);
+        } else if (p != null) {
             p.complete();
         }
     }
 
+    /**
+     * @return true if the response of the message is written by a Servlet 3.1
+     * WriteListener, nothing may then wait for the client before invokeComplete
+     */
+    protected boolean isResponseWrittenAsync(Message m) {
+        return m.getExchange() != null 
+            && m.getExchange().get(BUFFERED_RESPONSE) instanceof AsyncResponseCompletion;
+    }
+
+    private void abortResponseAsync(Message m, Throwable t) {
+        Object asyncResponse = m.getExchange() == null ? null : m.getExchange().remove(BUFFERED_RESPONSE);
+        if (asyncResponse instanceof AsyncResponseCompletion) {
+            ((AsyncResponseCompletion)asyncResponse).onError(t);
+        }
+    }
+
+    /**
+     * Joins the async cycle of the request or starts a new one for non-blocking I/O. A
+     * new cycle times out after the receive timeout of the server policy, or never if
+     * the policy does not set one, instead of after the default of the container.
+     */
+    private AsyncContext startAsync(HttpServletRequest req, HttpServletResponse resp, HTTPServerPolicy sp) {
+        if (req.isAsyncStarted()) {
+            return req.getAsyncContext();
+        }
+        AsyncContext asyncContext = req.startAsync(req, resp);
+        asyncContext.setTimeout(sp != null && sp.isSetReceiveTimeout() ? sp.getReceiveTimeout() : 0);
+        return asyncContext;
+    }
+
+    /**
+     * Starts reading the request body with a Servlet 3.1 ReadListener if non-blocking
+     * I/O is enabled and supported. The body is cached and the request dispatched
+     * again once it has been read completely, so no container thread waits on a
+     * slow client while the interceptor chain still gets a blocking stream.
+     */
+    protected boolean readRequestAsync(final HttpServletRequest req,
+                                       final HttpServletResponse resp) throws IOException {
+        if (!nonBlockingIO || !isServlet3 || !Servlet31NonBlockingIO.isAvailable()
+            || req.getAttribute(CXF_PREFETCHED_INPUT) != null
+            || req.getContentLength() == 0
+            || req.getContentLength() == -1 && req.getHeader(HttpHeaderHelper.TRANSFER_ENCODING) == null) {
+            return false;
+        }
+        try {
+            if (!req.isAsyncSupported() || req.isAsyncStarted()) {
+                return false;
+            }
+        } catch (Throwable ex) {
+            // the request may not implement the Servlet3 API
+            return false;
+        }
+        final AsyncContext asyncContext = startAsync(req, resp, getServer());
+        final CachedOutputStream cache = new CachedOutputStream();
+        final AtomicBoolean done = new AtomicBoolean();
+        Servlet31NonBlockingIO.Callback callback = new Servlet31NonBlockingIO.Callback() {
+            public void onComplete() throws IOException {
+                if (done.compareAndSet(false, true)) {
+                    req.setAttribute(CXF_PREFETCHED_INPUT, cache);
+                    asyncContext.dispatch();
+                }
+            }
+            public void onError(Throwable t) {
+                if (!done.compareAndSet(false, true)) {
+                    return;
+                }
+                LOG.log(Level.FINE, "Reading the request body failed", t);
+                try {
+                    cache.close();
+                } catch (IOException ex) {
+                    //ignore
+                }
+                try {
+                    resp.sendError(t instanceof SocketTimeoutException
+                                   ? HttpURLConnection.HTTP_CLIENT_TIMEOUT
+                                   : HttpURLConnection.HTTP_INTERNAL_ERROR);
+                } catch (IOException ex) {
+                    //the client is gone
+                } catch (IllegalStateException ex) {
+                    //already committed
+                }
+                asyncContext.complete();
+            }
+        };
+        Servlet31NonBlockingIO.addListener(asyncContext, callback);
+        Servlet31NonBlockingIO.readAsync(asyncContext, cache, callback);
+        return true;
+    }
+
+    /**
+     * Returns a stream that writes the response body with a Servlet 3.1 WriteListener,
+     * so the thread running the chain never waits on a slow client. The request is
+     * completed once the body has been written and the invocation is complete.
+     */
+    private OutputStream writeResponseAsync(Message outMessage, 
+                                            HttpServletResponse resp,
+                                            HTTPServerPolicy sp) throws IOException {
+        Exchange exchange = outMessage.getExchange();
+        Object req = exchange.getInMessage() == null ? null : exchange.getInMessage().get(HTTP_REQUEST);
+        AsyncContext asyncContext = null;
+        if (req instanceof HttpServletRequest) {
+            try {
+                asyncContext = startAsync((HttpServletRequest)req, resp, sp);
+            } catch (IllegalStateException ex) {
+                // a snapshot of the request or one that can't go async any more
+            } catch (UnsupportedOperationException ex) {
+                // a snapshot of the request or one that can't go async any more
+            }
+        }
+        if (asyncContext == null) {
+            exchange.remove(BUFFERED_RESPONSE);
+            return resp.getOutputStream();
+        }
+        AsyncResponseCompletion completion = new AsyncResponseCompletion(asyncContext);
+        exchange.put(BUFFERED_RESPONSE, completion);
+        Servlet31NonBlockingIO.addListener(asyncContext, completion);
+        return new Servlet31NonBlockingIO.AsyncOutputStream(asyncContext, completion);
+    }
+
+    /**
+     * Completes a request whose response is written without blocking once both the
+     * body has been written and the invocation is complete, or as soon as either fails.
+     */
+    static class AsyncResponseCompletion implements Servlet31NonBlockingIO.Callback {
+        private final AsyncContext asyncContext;
+        private final AtomicInteger pending = new AtomicInteger(2);
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile ContinuationProvider provider;
+
+        AsyncResponseCompletion(AsyncContext asyncContext) {
+            this.asyncContext = asyncContext;
+        }
+
+        void invocationComplete(ContinuationProvider p) {
+            provider = p;
+            if (pending.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+
+        public void onComplete() {
+            if (pending.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+
+        public void onError(Throwable t) {
+            LOG.log(Level.FINE, "Writing the response failed", t);
+            complete();
+        }
+
+        private void complete() {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            ContinuationProvider p = provider;
+            if (p != null) {
+                p.complete();
+            }
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException ex) {
+                // already completed by the continuation
+            }
+        }
+    }
+
     private void copyKnownRequestAttributes(HttpServletRequest request, Message message) {
         message.put(SERVICE_REDIRECTION, request.getAttribute(SERVICE_REDIRECTION));
     }
@@ -295,7 +486,19 @@ public abstract class AbstractHTTPDestination
                           resp);
         
         final Exchange exchange = inMessage.getExchange();
-        DelegatingInputStream in = new DelegatingInputStream(req.getInputStream()) {
+        InputStream body = null;
+        CachedOutputStream prefetched = (CachedOutputStream)req.getAttribute(CXF_PREFETCHED_INPUT);
+        if (prefetched != null) {
+            // read by readRequestAsync, the response is written without blocking as well
+            req.removeAttribute(CXF_PREFETCHED_INPUT);
+            body = prefetched.size() > 0
+                ? prefetched.getInputStream() : new ByteArrayInputStream(new byte[0]);
+            prefetched.close();
+            exchange.put(BUFFERED_RESPONSE, Boolean.TRUE);
+        } else {
+            body = req.getInputStream();
+        }
+        DelegatingInputStream in = new DelegatingInputStream(body) {
             public void cacheInput() {
                 if (!cached && (exchange.isOneWay() || isWSAddressingReplyToSpecified(exchange))) {
                     //For one-ways and WS-Addressing invocations with ReplyTo address,
@@ -522,6 +725,8 @@ public abstract class AbstractHTTPDestination
     private void initConfig() {
         
         cproviderFactory = bus.getExtension(ContinuationProviderFactory.class);
+        nonBlockingIO = PropertyUtils.isTrue(bus.getProperty(NON_BLOCKING_IO))
+            || endpointInfo != null && PropertyUtils.isTrue(endpointInfo.getProperty(NON_BLOCKING_IO));
     }
 
     private synchronized HTTPServerPolicy calcServerPolicyInternal(Message m) {
@@ -624,6 +829,9 @@ public abstract class AbstractHTTPDestination
             response.getOutputStream().close();
         } else if (!getStream) {
             response.getOutputStream().close();
+        } else if (outMessage.getExchange() != null
+            && Boolean.TRUE.equals(outMessage.getExchange().get(BUFFERED_RESPONSE))) {
+            responseStream = writeResponseAsync(outMessage, response, sp);
         } else {
             responseStream = response.getOutputStream();                
         }
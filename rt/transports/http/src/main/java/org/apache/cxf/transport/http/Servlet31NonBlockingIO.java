@@ -0,0 +1,313 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.SocketTimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+
+import org.apache.cxf.common.classloader.ClassLoaderUtils;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.io.CachedOutputStream;
+
+/**
+ * Servlet 3.1 non-blocking I/O. CXF is built against the Servlet 3.0 API, so the
+ * ReadListener and WriteListener are implemented with dynamic proxies and only
+ * used when the container provides them.
+ */
+final class Servlet31NonBlockingIO {
+    private static final Logger LOG = LogUtils.getL7dLogger(Servlet31NonBlockingIO.class);
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final Class<?> READ_LISTENER;
+    private static final Class<?> WRITE_LISTENER;
+    private static final Method SET_READ_LISTENER;
+    private static final Method SET_WRITE_LISTENER;
+    private static final Method INPUT_IS_READY;
+    private static final Method INPUT_IS_FINISHED;
+    private static final Method OUTPUT_IS_READY;
+
+    static {
+        Class<?> readListener = null;
+        Class<?> writeListener = null;
+        Method setReadListener = null;
+        Method setWriteListener = null;
+        Method inputIsReady = null;
+        Method inputIsFinished = null;
+        Method outputIsReady = null;
+        try {
+            readListener = ClassLoaderUtils.loadClass("javax.servlet.ReadListener", ServletRequest.class);
+            writeListener = ClassLoaderUtils.loadClass("javax.servlet.WriteListener", ServletRequest.class);
+            setReadListener = ServletInputStream.class.getMethod("setReadListener", readListener);
+            setWriteListener = ServletOutputStream.class.getMethod("setWriteListener", writeListener);
+            inputIsReady = ServletInputStream.class.getMethod("isReady");
+            inputIsFinished = ServletInputStream.class.getMethod("isFinished");
+            outputIsReady = ServletOutputStream.class.getMethod("isReady");
+        } catch (Throwable t) {
+            //servlet 3.0 or earlier, no non-blocking I/O
+            readListener = null;
+        }
+        READ_LISTENER = readListener;
+        WRITE_LISTENER = writeListener;
+        SET_READ_LISTENER = setReadListener;
+        SET_WRITE_LISTENER = setWriteListener;
+        INPUT_IS_READY = inputIsReady;
+        INPUT_IS_FINISHED = inputIsFinished;
+        OUTPUT_IS_READY = outputIsReady;
+    }
+
+    private Servlet31NonBlockingIO() {
+    }
+
+    static boolean isAvailable() {
+        return READ_LISTENER != null;
+    }
+
+    /**
+     * Reads the request body into the cache as the data arrives without blocking
+     * a container thread, the callback runs once the whole body has been read or
+     * reading it failed.
+     */
+    static void readAsync(final AsyncContext context, final CachedOutputStream cache,
+                          final Callback callback) throws IOException {
+        final ServletInputStream in = context.getRequest().getInputStream();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        Object listener = createListener(READ_LISTENER, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if ("onDataAvailable".equals(name)) {
+                    while (isTrue(in, INPUT_IS_READY) && !isTrue(in, INPUT_IS_FINISHED)) {
+                        int n = in.read(buffer);
+                        if (n == -1) {
+                            break;
+                        }
+                        cache.write(buffer, 0, n);
+                    }
+                } else if ("onAllDataRead".equals(name)) {
+                    cache.flush();
+                    callback.onComplete();
+                } else if ("onError".equals(name)) {
+                    callback.onError((Throwable)args[0]);
+                } else {
+                    return invokeObjectMethod(proxy, method, args);
+                }
+                return null;
+            }
+        });
+        invoke(SET_READ_LISTENER, in, listener);
+    }
+
+    /**
+     * Calls the callback if the async cycle times out or fails, the timeout is
+     * reported as a SocketTimeoutException.
+     */
+    static void addListener(AsyncContext context, final Callback callback) {
+        context.addListener(new AsyncListener() {
+            public void onTimeout(AsyncEvent event) throws IOException {
+                callback.onError(new SocketTimeoutException("Timed out waiting for the client"));
+            }
+            public void onError(AsyncEvent event) throws IOException {
+                callback.onError(event.getThrowable());
+            }
+            public void onComplete(AsyncEvent event) throws IOException {
+                //nothing to do
+            }
+            public void onStartAsync(AsyncEvent event) throws IOException {
+                //nothing to do
+            }
+        });
+    }
+
+    /**
+     * An OutputStream that writes the response body without blocking. Data is passed
+     * on to the container as long as it reports it can take more, anything written
+     * while the client is behind is kept in a CachedOutputStream and written by the
+     * WriteListener once the container is ready again. The callback runs once the
+     * stream has been closed and all of it has been written.
+     */
+    static final class AsyncOutputStream extends OutputStream {
+        private final ServletOutputStream out;
+        private final Callback callback;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private CachedOutputStream backlog;
+        private InputStream draining;
+        private boolean closed;
+        private boolean done;
+        private Throwable failure;
+
+        AsyncOutputStream(AsyncContext context, Callback callback) throws IOException {
+            this.out = context.getResponse().getOutputStream();
+            this.callback = callback;
+            Object listener = createListener(WRITE_LISTENER, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    String name = method.getName();
+                    if ("onWritePossible".equals(name)) {
+                        onWritePossible();
+                    } else if ("onError".equals(name)) {
+                        onError((Throwable)args[0]);
+                    } else {
+                        return invokeObjectMethod(proxy, method, args);
+                    }
+                    return null;
+                }
+            });
+            invoke(SET_WRITE_LISTENER, out, listener);
+        }
+
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte)b}, 0, 1);
+        }
+
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            if (failure != null) {
+                throw new IOException(failure);
+            } else if (closed) {
+                throw new IOException("Stream is closed");
+            }
+            if (backlog == null && draining == null && isTrue(out, OUTPUT_IS_READY)) {
+                out.write(b, off, len);
+            } else {
+                // the WriteListener is called once the container can take more
+                if (backlog == null) {
+                    backlog = new CachedOutputStream();
+                }
+                backlog.write(b, off, len);
+            }
+        }
+
+        public void flush() {
+            // the container writes out what it has been given without being asked to
+        }
+
+        public synchronized void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                finishIfWritten();
+            }
+        }
+
+        synchronized void onWritePossible() throws IOException {
+            while (backlog != null || draining != null) {
+                if (draining == null) {
+                    backlog.flush();
+                    draining = backlog.size() > 0 
+                        ? backlog.getInputStream() : new ByteArrayInputStream(new byte[0]);
+                    backlog.close();
+                    backlog = null;
+                }
+                if (!isTrue(out, OUTPUT_IS_READY)) {
+                    return;
+                }
+                int n = draining.read(buffer);
+                if (n == -1) {
+                    draining.close();
+                    draining = null;
+                } else {
+                    out.write(buffer, 0, n);
+                }
+            }
+            finishIfWritten();
+        }
+
+        synchronized void onError(Throwable t) {
+            if (done) {
+                return;
+            }
+            done = true;
+            failure = t;
+            try {
+                if (draining != null) {
+                    draining.close();
+                }
+                if (backlog != null) {
+                    backlog.close();
+                }
+            } catch (IOException ex) {
+                //ignore
+            }
+            draining = null;
+            backlog = null;
+            callback.onError(t);
+        }
+
+        private void finishIfWritten() throws IOException {
+            if (closed && !done && backlog == null && draining == null) {
+                done = true;
+                callback.onComplete();
+            }
+        }
+    }
+
+    private static Object createListener(Class<?> type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if ("equals".equals(name)) {
+            return proxy == args[0];
+        } else if ("hashCode".equals(name)) {
+            return System.identityHashCode(proxy);
+        }
+        return "Servlet31NonBlockingIO listener@" + Integer.toHexString(System.identityHashCode(proxy));
+    }
+
+    private static boolean isTrue(Object stream, Method method) throws IOException {
+        return (Boolean)invoke(method, stream);
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) throws IOException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            Throwable cause = ex.getTargetException();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IOException(cause);
+        } catch (IllegalAccessException ex) {
+            LOG.log(Level.FINE, "Can't access the Servlet 3.1 API", ex);
+            throw new IOException(ex);
+        }
+    }
+
+    interface Callback {
+        void onComplete() throws IOException;
+
+        void onError(Throwable t);
+    }
+}
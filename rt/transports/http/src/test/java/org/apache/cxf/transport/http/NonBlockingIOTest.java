@@ -0,0 +1,325 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
+import org.apache.cxf.io.CachedOutputStream;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.servlet.ServletDestination;
+import org.apache.cxf.transports.http.configuration.HTTPServerPolicy;
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.easymock.IMocksControl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Drives the Servlet 3.1 non-blocking I/O of AbstractHTTPDestination with mocked
+ * requests and hand made 3.1 streams that hold on to the listeners.
+ */
+public class NonBlockingIOTest extends Assert {
+    private static final String BODY = "<hello>non blocking</hello>";
+
+    private Bus bus;
+    private IMocksControl control;
+    private AbstractHTTPDestination destination;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private AsyncContext asyncContext;
+    private Capture<AsyncListener> asyncListener = EasyMock.newCapture();
+
+    @Before
+    public void setUp() throws Exception {
+        bus = new ExtensionManagerBus();
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress("http://localhost:9000/nonblocking");
+        ei.setProperty(AbstractHTTPDestination.NON_BLOCKING_IO, "true");
+        destination = new ServletDestination(bus, null, ei, "/nonblocking");
+
+        control = EasyMock.createNiceControl();
+        request = control.createMock(HttpServletRequest.class);
+        response = control.createMock(HttpServletResponse.class);
+        asyncContext = EasyMock.createMock(AsyncContext.class);
+    }
+
+    @After
+    public void tearDown() {
+        bus.shutdown(false);
+    }
+
+    @Test
+    public void testRequestBodyIsPrefetchedAndDispatched() throws Exception {
+        TestInputStream in = expectAsyncRead();
+        Capture<Object> cache = EasyMock.newCapture();
+        request.setAttribute(EasyMock.eq(AbstractHTTPDestination.CXF_PREFETCHED_INPUT),
+                             EasyMock.capture(cache));
+        asyncContext.dispatch();
+        EasyMock.expectLastCall();
+        control.replay();
+        EasyMock.replay(asyncContext);
+
+        assertTrue(destination.readRequestAsync(request, response));
+        assertNotNull("No ReadListener registered", in.listener);
+        in.listener.onDataAvailable();
+        in.listener.onAllDataRead();
+
+        EasyMock.verify(asyncContext);
+        assertEquals(BODY, new String(((CachedOutputStream)cache.getValue()).getBytes(), "UTF-8"));
+    }
+
+    @Test
+    public void testRequestReadError() throws Exception {
+        TestInputStream in = expectAsyncRead();
+        response.sendError(500);
+        EasyMock.expectLastCall();
+        asyncContext.complete();
+        EasyMock.expectLastCall();
+        control.replay();
+        EasyMock.replay(asyncContext);
+
+        assertTrue(destination.readRequestAsync(request, response));
+        in.listener.onError(new IOException("connection reset"));
+
+        // completed with an error status without being dispatched
+        EasyMock.verify(asyncContext);
+        control.verify();
+    }
+
+    @Test
+    public void testRequestReadTimeout() throws Exception {
+        TestInputStream in = expectAsyncRead();
+        response.sendError(408);
+        EasyMock.expectLastCall();
+        asyncContext.complete();
+        EasyMock.expectLastCall();
+        control.replay();
+        EasyMock.replay(asyncContext);
+
+        assertTrue(destination.readRequestAsync(request, response));
+        asyncListener.getValue().onTimeout(null);
+        // the container reports the aborted read as well, the request is completed once
+        in.listener.onError(new IOException("timeout"));
+
+        EasyMock.verify(asyncContext);
+        control.verify();
+    }
+
+    @Test
+    public void testAsyncTimeoutFromServerPolicy() throws Exception {
+        HTTPServerPolicy policy = new HTTPServerPolicy();
+        policy.setReceiveTimeout(5000L);
+        destination.setServer(policy);
+        expectAsyncRead(5000L);
+        control.replay();
+        EasyMock.replay(asyncContext);
+
+        assertTrue(destination.readRequestAsync(request, response));
+        EasyMock.verify(asyncContext);
+    }
+
+    @Test
+    public void testResponseIsStreamedAndCompleted() throws Exception {
+        TestOutputStream out = expectAsyncWrite();
+        asyncContext.complete();
+        EasyMock.expectLastCall();
+        control.replay();
+        EasyMock.replay(asyncContext);
+
+        Message inMessage = createInMessage();
+        OutputStream os = destination.flushHeaders(inMessage.getExchange().getOutMessage());
+        assertNotNull("No WriteListener registered", out.listener);
+        assertTrue(destination.isResponseWrittenAsync(inMessage));
+
+        // written straight through while the client keeps up
+        os.write("<hello>".getBytes("UTF-8"));
+        assertEquals("<hello>", new String(out.buffer.toByteArray(), "UTF-8"));
+        // kept until the container is ready again
+        out.ready = false;
+        os.write("non blocking</hello>".getBytes("UTF-8"));
+        os.close();
+        destination.invokeComplete(null, request, response, inMessage);
+        assertEquals("<hello>", new String(out.buffer.toByteArray(), "UTF-8"));
+
+        out.ready = true;
+        out.listener.onWritePossible();
+
+        EasyMock.verify(asyncContext);
+        assertEquals(BODY, new String(out.buffer.toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    public void testResponseNotCompletedBeforeInvocation() throws Exception {
+        TestOutputStream out = expectAsyncWrite();
+        control.replay();
+        EasyMock.replay(asyncContext);
+
+        Message inMessage = createInMessage();
+        OutputStream os = destination.flushHeaders(inMessage.getExchange().getOutMessage());
+        os.write(BODY.getBytes("UTF-8"));
+        os.close();
+        out.listener.onWritePossible();
+
+        // complete() is not called while the invocation is still running
+        EasyMock.verify(asyncContext);
+        assertEquals(BODY, new String(out.buffer.toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    public void testResponseWriteError() throws Exception {
+        TestOutputStream out = expectAsyncWrite();
+        asyncContext.complete();
+        EasyMock.expectLastCall();
+        control.replay();
+        EasyMock.replay(asyncContext);
+
+        Message inMessage = createInMessage();
+        OutputStream os = destination.flushHeaders(inMessage.getExchange().getOutMessage());
+        out.ready = false;
+        os.write(BODY.getBytes("UTF-8"));
+        out.listener.onError(new IOException("connection reset"));
+        try {
+            os.write(BODY.getBytes("UTF-8"));
+            fail("Expected IOException");
+        } catch (IOException ex) {
+            // expected
+        }
+        destination.invokeComplete(null, request, response, inMessage);
+
+        EasyMock.verify(asyncContext);
+        assertEquals(0, out.buffer.size());
+    }
+
+    private TestInputStream expectAsyncRead() throws IOException {
+        return expectAsyncRead(0L);
+    }
+
+    private TestInputStream expectAsyncRead(long timeout) throws IOException {
+        TestInputStream in = new TestInputStream(new ByteArrayInputStream(BODY.getBytes("UTF-8")));
+        EasyMock.expect(request.getContentLength()).andReturn(BODY.length()).anyTimes();
+        EasyMock.expect(request.isAsyncSupported()).andReturn(true).anyTimes();
+        EasyMock.expect(request.isAsyncStarted()).andReturn(false).anyTimes();
+        EasyMock.expect(request.startAsync(request, response)).andReturn(asyncContext);
+        expectAsyncSetup(timeout);
+        EasyMock.expect(asyncContext.getRequest()).andReturn(request).anyTimes();
+        EasyMock.expect(request.getInputStream()).andReturn(in).anyTimes();
+        return in;
+    }
+
+    private TestOutputStream expectAsyncWrite() throws IOException {
+        TestOutputStream out = new TestOutputStream();
+        EasyMock.expect(request.isAsyncStarted()).andReturn(false).anyTimes();
+        EasyMock.expect(request.startAsync(request, response)).andReturn(asyncContext);
+        expectAsyncSetup(0L);
+        EasyMock.expect(asyncContext.getResponse()).andReturn(response).anyTimes();
+        EasyMock.expect(response.getOutputStream()).andReturn(out).anyTimes();
+        return out;
+    }
+
+    private void expectAsyncSetup(long timeout) {
+        asyncContext.setTimeout(timeout);
+        EasyMock.expectLastCall();
+        asyncContext.addListener(EasyMock.capture(asyncListener));
+        EasyMock.expectLastCall();
+    }
+
+    private Message createInMessage() {
+        Message inMessage = new MessageImpl();
+        inMessage.put(AbstractHTTPDestination.HTTP_REQUEST, request);
+        Exchange exchange = new ExchangeImpl();
+        exchange.setInMessage(inMessage);
+        exchange.put(AbstractHTTPDestination.BUFFERED_RESPONSE, Boolean.TRUE);
+        Message outMessage = new MessageImpl();
+        outMessage.put(AbstractHTTPDestination.HTTP_RESPONSE, response);
+        exchange.setOutMessage(outMessage);
+        return inMessage;
+    }
+
+    private static class TestInputStream extends ServletInputStream {
+        private final InputStream body;
+        private ReadListener listener;
+
+        TestInputStream(InputStream body) {
+            this.body = body;
+        }
+
+        public int read() throws IOException {
+            return body.read();
+        }
+
+        public boolean isFinished() {
+            return available() == 0;
+        }
+
+        public boolean isReady() {
+            return true;
+        }
+
+        public int available() {
+            try {
+                return body.available();
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+
+        public void setReadListener(ReadListener readListener) {
+            listener = readListener;
+        }
+    }
+
+    private static class TestOutputStream extends ServletOutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private WriteListener listener;
+        private boolean ready = true;
+
+        public void write(int b) throws IOException {
+            buffer.write(b);
+        }
+
+        public boolean isReady() {
+            return ready;
+        }
+
+        public void setWriteListener(WriteListener writeListener) {
+            listener = writeListener;
+        }
+    }
+}
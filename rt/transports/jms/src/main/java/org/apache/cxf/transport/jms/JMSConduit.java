@@ -34,7 +34,9 @@ import javax.jms.Connection;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.MessageListener;
+import javax.jms.MessageProducer;
 import javax.jms.Session;
+import javax.jms.TemporaryQueue;
 
 import org.apache.cxf.Bus;
 import org.apache.cxf.buslifecycle.BusLifeCycleListener;
@@ -51,6 +53,8 @@ import org.apache.cxf.transport.jms.util.JMSSender;
 import org.apache.cxf.transport.jms.util.JMSUtil;
 import org.apache.cxf.transport.jms.util.MessageListenerContainer;
 import org.apache.cxf.transport.jms.util.ResourceCloser;
+import org.apache.cxf.transport.jms.util.SessionPool;
+import org.apache.cxf.transport.jms.util.SessionPool.PooledSession;
 import org.apache.cxf.ws.addressing.EndpointReferenceType;
 
 /**
@@ -73,8 +77,10 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
     private final AtomicLong messageCount = new AtomicLong(0);
     private JMSBusLifeCycleListener listener;
     private Bus bus;
-    private volatile Connection connection;
     private volatile Destination staticReplyDestination;
+    private volatile Destination staticTargetDestination;
+    private volatile SessionPool sessionPool;
+    private volatile boolean exclusiveReplyConsumer;
 
     public JMSConduit(EndpointReferenceType target,
                       JMSConfiguration jmsConfig,
@@ -101,18 +107,28 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         super.close(msg);
     }
     private Connection getConnection() throws JMSException {
-        Connection result = connection;
-        if (result == null) {
+        return connect().getConnection();
+    }
+    
+    /**
+     * Returns the session pool of the current connection, connecting first if
+     * needed.  The pool carries its connection, so both are always read
+     * together and a concurrent close can not leave a connection without a pool.
+     */
+    private SessionPool connect() throws JMSException {
+        SessionPool pool = sessionPool;
+        if (pool == null) {
             synchronized (this) {
-                result = connection;
-                if (result == null) {
-                    result = JMSFactory.createConnection(jmsConfig);
-                    result.start();
-                    connection = result;
+                pool = sessionPool;
+                if (pool == null) {
+                    Connection connection = JMSFactory.createConnection(jmsConfig);
+                    connection.start();
+                    pool = new SessionPool(connection, jmsConfig.getSessionPoolSize());
+                    sessionPool = pool;
                 }                
             }
         }
-        return result;
+        return pool;
     }
     
     /**
@@ -134,21 +150,30 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         jmsConfig.ensureProperlyConfigured();        
         assertIsNotTextMessageAndMtom(outMessage);
 
+        SessionPool pool = null;
+        PooledSession pooledSession = null;
         try (ResourceCloser closer = new ResourceCloser()) {
-            Connection c = getConnection();
-            Session session = closer.register(c.createSession(false, 
-                                                              Session.AUTO_ACKNOWLEDGE));
+            pool = connect();
+            pooledSession = pool.borrow();
+            Session session = pooledSession.getSession();
             
             if (exchange.isOneWay()) {
-                sendMessage(request, outMessage, null, null, closer, session);
+                sendMessage(request, outMessage, null, null, closer, session, pooledSession.getProducer());
             } else {
-                sendAndReceiveMessage(exchange, request, outMessage, closer, session);
+                sendAndReceiveMessage(exchange, request, outMessage, closer, session,
+                                      pooledSession.getProducer());
             }
+            pool.release(pooledSession);
+            pooledSession = null;
         } catch (JMSException e) {
+            if (pooledSession != null) {
+                pool.discard(pooledSession);
+                pooledSession = null;
+            }
             // Close connection so it will be refreshed on next try
-            ResourceCloser.close(connection);
-            this.connection = null;
+            closeConnection(pool);
             this.staticReplyDestination = null;
+            this.staticTargetDestination = null;
             if (this.jmsListener != null) {
                 this.jmsListener.shutdown();
             }
@@ -159,6 +184,10 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
                 // Ignore
             }
             throw JMSUtil.convertJmsException(e);
+        } finally {
+            if (pooledSession != null) {
+                pool.release(pooledSession);
+            }
         }
     }
     
@@ -169,7 +198,10 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
                     staticReplyDestination = jmsConfig.getReplyDestination(session);
                     
                     String messageSelector = JMSFactory.getMessageSelector(jmsConfig, conduitId);
-                    if (messageSelector == null && !jmsConfig.isPubSubDomain()) {
+                    // A temporary queue belongs to our connection so all replies on it are ours
+                    boolean exclusive = messageSelector == null
+                        && staticReplyDestination instanceof TemporaryQueue;
+                    if (messageSelector == null && !jmsConfig.isPubSubDomain() && !exclusive) {
                         // Do not open listener without selector on a queue as we then can not share the queue.
                         // An option for this might be a good idea for people who do not plan to share queues.
                         return;
@@ -182,6 +214,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
                     container.setExecutor(executor);
                     container.start();
                     jmsListener = container;
+                    exclusiveReplyConsumer = exclusive;
                     addBusListener();
                 }
             }
@@ -190,7 +223,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
 
     private void sendAndReceiveMessage(final Exchange exchange, final Object request, final Message outMessage,
                                 ResourceCloser closer,
-                                Session session) throws JMSException {
+                                Session session, MessageProducer producer) throws JMSException {
         
         setupReplyDestination(session);
         
@@ -207,9 +240,11 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
             Destination replyToDestination = jmsConfig
                 .getReplyToDestination(session, headers.getJMSReplyTo());
             String jmsMessageID = sendMessage(request, outMessage, replyToDestination, correlationId, closer,
-                                              session);
-            boolean useSyncReceive = ((correlationId == null || userCID != null) && !jmsConfig.isPubSubDomain())
-                || !replyToDestination.equals(staticReplyDestination);
+                                              session, producer);
+            boolean sharedReplyConsumer = replyToDestination.equals(staticReplyDestination)
+                && (exclusiveReplyConsumer
+                    || (correlationId != null && userCID == null) || jmsConfig.isPubSubDomain());
+            boolean useSyncReceive = !sharedReplyConsumer;
             if (correlationId == null) {
                 correlationId = jmsMessageID;
                 correlationMap.put(correlationId, exchange);
@@ -242,7 +277,8 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
 
     private String sendMessage(final Object request, final Message outMessage,
                                Destination replyToDestination, String correlationId,
-                               ResourceCloser closer, Session session) throws JMSException {
+                               ResourceCloser closer, Session session,
+                               MessageProducer producer) throws JMSException {
         JMSMessageHeadersType headers = getOrCreateJmsHeaders(outMessage);
         javax.jms.Message message = JMSMessageUtils.asJMSMessage(jmsConfig, 
                                                                  outMessage,
@@ -257,8 +293,8 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
 
         JMSSender sender = JMSFactory.createJmsSender(jmsConfig, headers);
         
-        Destination targetDest = jmsConfig.getTargetDestination(session);
-        sender.sendMessage(session, targetDest, message);
+        Destination targetDest = getTargetDestination(session);
+        sender.sendMessage(producer, targetDest, message);
         String jmsMessageID = message.getJMSMessageID();
         LOG.log(Level.FINE, "client sending request message " 
             + jmsMessageID + " to " + targetDest);
@@ -266,6 +302,15 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         return jmsMessageID;
     }
 
+    private Destination getTargetDestination(Session session) throws JMSException {
+        Destination result = staticTargetDestination;
+        if (result == null) {
+            result = jmsConfig.getTargetDestination(session);
+            staticTargetDestination = result;
+        }
+        return result;
+    }
+
     private void assertIsNotAsyncAndUserCID(Exchange exchange, String userCID) {
         if (!exchange.isSynchronous() && userCID != null) {
             throw new IllegalArgumentException("User CID can not be used for asynchronous exchanges");
@@ -426,12 +471,28 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
             jmsListener.shutdown();
             jmsListener = null;
             staticReplyDestination = null;
+            exclusiveReplyConsumer = false;
         }
     }
+
+    /**
+     * Closes the given pool and its connection.  A null pool stands for the
+     * current one; a pool that has already been replaced is left alone as it
+     * has been closed already.
+     */
+    private synchronized void closeConnection(SessionPool failed) {
+        SessionPool pool = sessionPool;
+        if (pool == null || failed != null && failed != pool) {
+            return;
+        }
+        sessionPool = null;
+        pool.close();
+        ResourceCloser.close(pool.getConnection());
+    }
+
     public synchronized void close() {
         shutdownListeners();
-        ResourceCloser.close(connection);
-        connection = null;
+        closeConnection(null);
         LOG.log(Level.FINE, "JMSConduit closed ");
     }
 
@@ -439,6 +500,20 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         return LOG;
     }
 
+    /**
+     * @return the pool of sessions and producers of the current connection or null if not connected
+     */
+    public SessionPool getSessionPool() {
+        return sessionPool;
+    }
+
+    /**
+     * @return number of requests waiting for a reply on the shared reply consumer
+     */
+    public int getPendingReplyCount() {
+        return correlationMap.size();
+    }
+
     public JMSConfiguration getJmsConfig() {
         return jmsConfig;
     }
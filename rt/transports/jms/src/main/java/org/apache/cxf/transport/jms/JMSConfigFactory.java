@@ -86,6 +86,10 @@ public final class JMSConfigFactory {
         jmsConfig.setUserName(endpoint.getUsername());
         jmsConfig.setPassword(endpoint.getPassword());
         jmsConfig.setConcurrentConsumers(endpoint.getConcurrentConsumers());
+        jmsConfig.setPrefetch(endpoint.getPrefetch());
+        jmsConfig.setAckBatchSize(endpoint.getAckBatchSize());
+        jmsConfig.setAckBatchTimeout(endpoint.getAckBatchTimeout());
+        jmsConfig.setSessionPoolSize(endpoint.getSessionPoolSize());
 
         TransactionManager tm = getTransactionManager(bus, endpoint);
         jmsConfig.setTransactionManager(tm);
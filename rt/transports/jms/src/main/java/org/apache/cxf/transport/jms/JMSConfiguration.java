@@ -55,6 +55,10 @@ public class JMSConfiguration {
     private boolean createSecurityContext = true;
 
     private int concurrentConsumers = 1;
+    private int prefetch;
+    private int ackBatchSize = 1;
+    private int sessionPoolSize = 10;
+    private long ackBatchTimeout = 100L;
     private int maxSuspendedContinuations = DEFAULT_VALUE;
     private int reconnectPercentOfMax = 70;
 
@@ -329,6 +333,56 @@ public class JMSConfiguration {
         this.concurrentConsumers = concurrentConsumers;
     }
 
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Number of messages per consumer that may be processed at the same time.
+     * A value greater than 0 switches the destination to pipelined consumption.
+     * @param prefetch
+     */
+    public void setPrefetch(int prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    public int getAckBatchSize() {
+        return ackBatchSize;
+    }
+
+    /**
+     * Number of messages the pipelined consumer commits or acknowledges at once
+     * @param ackBatchSize
+     */
+    public void setAckBatchSize(int ackBatchSize) {
+        this.ackBatchSize = ackBatchSize;
+    }
+
+    public long getAckBatchTimeout() {
+        return ackBatchTimeout;
+    }
+
+    /**
+     * Maximum time in ms a partial batch waits before it is committed or acknowledged
+     * @param ackBatchTimeout
+     */
+    public void setAckBatchTimeout(long ackBatchTimeout) {
+        this.ackBatchTimeout = ackBatchTimeout;
+    }
+
+    public int getSessionPoolSize() {
+        return sessionPoolSize;
+    }
+
+    /**
+     * Maximum number of idle sessions and producers the conduit keeps for reuse.
+     * 0 creates and closes a session for every request.
+     * @param sessionPoolSize
+     */
+    public void setSessionPoolSize(int sessionPoolSize) {
+        this.sessionPoolSize = sessionPoolSize;
+    }
+
     public int getMaxSuspendedContinuations() {
         return maxSuspendedContinuations;
     }
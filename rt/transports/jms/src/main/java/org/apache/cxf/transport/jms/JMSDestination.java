@@ -48,8 +48,10 @@ import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.transport.AbstractMultiplexDestination;
 import org.apache.cxf.transport.Conduit;
 import org.apache.cxf.transport.jms.continuations.JMSContinuationProvider;
+import org.apache.cxf.transport.jms.util.AbstractMessageListenerContainer;
 import org.apache.cxf.transport.jms.util.JMSListenerContainer;
 import org.apache.cxf.transport.jms.util.JMSUtil;
+import org.apache.cxf.transport.jms.util.PipelinedMessageListenerContainer;
 import org.apache.cxf.transport.jms.util.PollingMessageListenerContainer;
 import org.apache.cxf.transport.jms.util.ResourceCloser;
 
@@ -132,9 +134,21 @@ public class JMSDestination extends AbstractMultiplexDestination implements Mess
             session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
             Destination destination = jmsConfig.getTargetDestination(session);
 
-            PollingMessageListenerContainer container = new PollingMessageListenerContainer(connection, 
-                                                                                            destination, this);
-            container.setConcurrentConsumers(jmsConfig.getConcurrentConsumers());
+            AbstractMessageListenerContainer container;
+            if (jmsConfig.getPrefetch() > 0 && jmsConfig.getTransactionManager() == null) {
+                PipelinedMessageListenerContainer pipelined =
+                    new PipelinedMessageListenerContainer(connection, destination, this);
+                pipelined.setConcurrentConsumers(jmsConfig.getConcurrentConsumers());
+                pipelined.setPrefetch(jmsConfig.getPrefetch());
+                pipelined.setAckBatchSize(jmsConfig.getAckBatchSize());
+                pipelined.setAckBatchTimeout(jmsConfig.getAckBatchTimeout());
+                container = pipelined;
+            } else {
+                PollingMessageListenerContainer polling =
+                    new PollingMessageListenerContainer(connection, destination, this);
+                polling.setConcurrentConsumers(jmsConfig.getConcurrentConsumers());
+                container = polling;
+            }
             container.setTransactionManager(jmsConfig.getTransactionManager());
             container.setMessageSelector(jmsConfig.getMessageSelector());
             container.setTransacted(jmsConfig.isSessionTransacted());
@@ -279,6 +293,14 @@ public class JMSDestination extends AbstractMultiplexDestination implements Mess
         return LOG;
     }
 
+    /**
+     * @return the active listener container. When pipelined consumption is configured this is a
+     * {@link PipelinedMessageListenerContainer} that provides the consumer statistics
+     */
+    public JMSListenerContainer getListenerContainer() {
+        return jmsListener;
+    }
+
     public JMSConfiguration getJmsConfig() {
         return jmsConfig;
     }
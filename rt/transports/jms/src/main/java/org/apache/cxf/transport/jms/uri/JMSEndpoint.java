@@ -83,6 +83,10 @@ public class JMSEndpoint {
     private boolean useConduitIdSelector = true;
     private String username;
     private int concurrentConsumers = 1;
+    private int prefetch;
+    private int ackBatchSize = 1;
+    private int sessionPoolSize = 10;
+    private long ackBatchTimeout = 100L;
 
     /**
      * @param uri
@@ -356,6 +360,54 @@ public class JMSEndpoint {
         this.concurrentConsumers = Integer.valueOf(concurrentConsumers);
     }
     
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    public void setPrefetch(int prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    public void setPrefetch(String prefetch) {
+        this.prefetch = Integer.valueOf(prefetch);
+    }
+
+    public int getAckBatchSize() {
+        return ackBatchSize;
+    }
+
+    public void setAckBatchSize(int ackBatchSize) {
+        this.ackBatchSize = ackBatchSize;
+    }
+
+    public void setAckBatchSize(String ackBatchSize) {
+        this.ackBatchSize = Integer.valueOf(ackBatchSize);
+    }
+
+    public long getAckBatchTimeout() {
+        return ackBatchTimeout;
+    }
+
+    public void setAckBatchTimeout(long ackBatchTimeout) {
+        this.ackBatchTimeout = ackBatchTimeout;
+    }
+
+    public void setAckBatchTimeout(String ackBatchTimeout) {
+        this.ackBatchTimeout = Long.valueOf(ackBatchTimeout);
+    }
+
+    public int getSessionPoolSize() {
+        return sessionPoolSize;
+    }
+
+    public void setSessionPoolSize(int sessionPoolSize) {
+        this.sessionPoolSize = sessionPoolSize;
+    }
+
+    public void setSessionPoolSize(String sessionPoolSize) {
+        this.sessionPoolSize = Integer.valueOf(sessionPoolSize);
+    }
+
     public String getPassword() {
         return password;
     }
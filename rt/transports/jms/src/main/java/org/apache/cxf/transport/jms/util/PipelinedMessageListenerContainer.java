@@ -0,0 +1,417 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.jms.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.Topic;
+
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * Receives messages on one or more sessions and hands them to the executor
+ * without waiting for the previous message to be processed.
+ * 
+ * Up to prefetch messages per session may be processed at the same time. Messages
+ * that carry the same JMSXGroupID are processed one after the other in the order they
+ * were received. The session is committed (or, if not transacted, acknowledged) once
+ * a batch holds at least ackBatchSize messages or is ackBatchTimeout ms old, and all
+ * its messages have been processed.
+ * 
+ * As a commit or acknowledge always covers every message received on the session, a
+ * batch that is due keeps taking new messages while its earlier messages are still
+ * being processed, up to prefetch messages or until the timeout. This way the default
+ * ackBatchSize of 1 still keeps prefetch messages in flight under load. If processing
+ * of any message in a transacted batch fails the whole batch is rolled back.
+ */
+public class PipelinedMessageListenerContainer extends AbstractMessageListenerContainer {
+    public static final String GROUP_ID_PROPERTY = "JMSXGroupID";
+
+    private static final Logger LOG = LogUtils.getL7dLogger(PipelinedMessageListenerContainer.class);
+    private static final long DUE_BATCH_POLL_INTERVAL = 10;
+    private static final ThreadLocal<Boolean> DISPATCHING = new ThreadLocal<Boolean>();
+
+    private ExecutorService receivers;
+    private volatile int generation;
+    private int concurrentConsumers = 1;
+    private int prefetch = 100;
+    private int ackBatchSize = 1;
+    private long ackBatchTimeout = 100;
+
+    private final Map<String, Deque<Runnable>> groups = new HashMap<String, Deque<Runnable>>();
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong committedBatchCount = new AtomicLong();
+    private final AtomicLong rolledBackBatchCount = new AtomicLong();
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+
+    public PipelinedMessageListenerContainer(Connection connection, Destination destination,
+                                             MessageListener listenerHandler) {
+        this.connection = connection;
+        this.destination = destination;
+        this.listenerHandler = listenerHandler;
+    }
+
+    /**
+     * Messages received on one session that have not been committed or acknowledged yet
+     */
+    private static class Batch {
+        private final long deadline;
+        private int size;
+        private int pending;
+        private boolean failed;
+        private Message lastMessage;
+
+        Batch(long timeout) {
+            this.deadline = System.currentTimeMillis() + timeout;
+        }
+
+        synchronized void add(Message message) {
+            size++;
+            pending++;
+            lastMessage = message;
+        }
+
+        synchronized void done(boolean success) {
+            pending--;
+            failed |= !success;
+            notifyAll();
+        }
+
+        synchronized boolean awaitCapacity(int prefetch, long timeout) throws InterruptedException {
+            if (pending >= prefetch) {
+                wait(timeout);
+            }
+            return pending < prefetch;
+        }
+
+        synchronized boolean isDrained() {
+            return pending == 0;
+        }
+
+        synchronized void awaitDrained() throws InterruptedException {
+            while (pending > 0) {
+                wait();
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        long remaining() {
+            return deadline - System.currentTimeMillis();
+        }
+    }
+
+    private class Receiver implements Runnable {
+        private final int receiverGeneration = generation;
+
+        private boolean isActive() {
+            return running && receiverGeneration == generation;
+        }
+
+        @Override
+        public void run() {
+            while (isActive()) {
+                MessageConsumer consumer = null;
+                Session session = null;
+                Batch batch = null;
+                try {
+                    session = connection.createSession(transacted, transacted
+                        ? Session.SESSION_TRANSACTED : Session.CLIENT_ACKNOWLEDGE);
+                    consumer = createConsumer(session);
+                    while (isActive()) {
+                        Message message = receive(consumer, batch);
+                        if (message != null) {
+                            if (batch == null) {
+                                batch = new Batch(ackBatchTimeout);
+                            }
+                            receivedCount.incrementAndGet();
+                            batch.add(message);
+                            dispatch(message, batch);
+                        } else if (batch != null && isComplete(batch)) {
+                            complete(session, batch);
+                            batch = null;
+                        }
+                    }
+                    if (batch != null) {
+                        complete(session, batch);
+                    }
+                } catch (InterruptedException e) {
+                    LOG.log(Level.WARNING, "Interrupted while waiting for jms messages to be processed", e);
+                    safeRollBack(session);
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    LOG.log(Level.WARNING, "Unexpected exception. Restarting session and consumer", e);
+                    safeRollBack(session);
+                } finally {
+                    ResourceCloser.close(consumer);
+                    ResourceCloser.close(session);
+                }
+            }
+        }
+
+        private boolean isComplete(Batch batch) {
+            return batch.remaining() <= 0 || batch.size() >= Math.max(prefetch, ackBatchSize)
+                || batch.size() >= ackBatchSize && batch.isDrained();
+        }
+
+        /**
+         * Receives the next message for the batch or returns null if there is none
+         * or the batch is complete
+         */
+        private Message receive(MessageConsumer consumer, Batch batch)
+            throws InterruptedException, JMSException {
+            if (batch == null) {
+                return consumer.receive(1000);
+            }
+            long remaining = batch.remaining();
+            if (isComplete(batch) || !batch.awaitCapacity(prefetch, remaining)) {
+                return null;
+            }
+            if (batch.size() < ackBatchSize) {
+                return consumer.receive(Math.max(1, batch.remaining()));
+            }
+            // The batch is due. Keep the pipeline busy while the earlier messages are
+            // processed but look at the batch often so it is committed once they are
+            return consumer.receive(Math.max(1, Math.min(DUE_BATCH_POLL_INTERVAL, batch.remaining())));
+        }
+
+        private void complete(Session session, Batch batch) throws InterruptedException, JMSException {
+            batch.awaitDrained();
+            if (!session.getTransacted()) {
+                // Failed messages are not redelivered without a transaction
+                batch.lastMessage.acknowledge();
+                committedBatchCount.incrementAndGet();
+            } else if (batch.failed) {
+                LOG.log(Level.WARNING, "Exception while processing jms message in cxf. Rolling back batch of "
+                    + batch.size() + " messages");
+                session.rollback();
+                rolledBackBatchCount.incrementAndGet();
+            } else {
+                session.commit();
+                committedBatchCount.incrementAndGet();
+            }
+        }
+
+        private void safeRollBack(Session session) {
+            try {
+                if (session != null && session.getTransacted()) {
+                    session.rollback();
+                    rolledBackBatchCount.incrementAndGet();
+                }
+            } catch (Exception e1) {
+                LOG.log(Level.WARNING, "Rollback of Local transaction failed", e1);
+            }
+        }
+    }
+
+    /**
+     * Processes the queued messages of one message group in order
+     */
+    private class GroupWorker implements Runnable {
+        private final String groupId;
+        private final Runnable first;
+
+        GroupWorker(String groupId, Runnable first) {
+            this.groupId = groupId;
+            this.first = first;
+        }
+
+        @Override
+        public void run() {
+            Runnable next = first;
+            while (next != null) {
+                next.run();
+                synchronized (groups) {
+                    Deque<Runnable> queue = groups.get(groupId);
+                    next = queue.poll();
+                    if (next == null) {
+                        groups.remove(groupId);
+                    }
+                }
+            }
+        }
+    }
+
+    private void dispatch(final Message message, final Batch batch) throws JMSException {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                process(message, batch);
+            }
+        };
+        String groupId = message.getStringProperty(GROUP_ID_PROPERTY);
+        inFlightCount.incrementAndGet();
+        if (groupId == null) {
+            execute(task);
+            return;
+        }
+        synchronized (groups) {
+            Deque<Runnable> queue = groups.get(groupId);
+            if (queue != null) {
+                queue.add(task);
+                return;
+            }
+            groups.put(groupId, new ArrayDeque<Runnable>());
+        }
+        execute(new GroupWorker(groupId, task));
+    }
+
+    private void execute(Runnable task) {
+        try {
+            getExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            // Executor is saturated so process on the receiving thread
+            task.run();
+        }
+    }
+
+    private void process(Message message, Batch batch) {
+        boolean success = false;
+        DISPATCHING.set(Boolean.TRUE);
+        try {
+            listenerHandler.onMessage(message);
+            success = true;
+            processedCount.incrementAndGet();
+        } catch (Throwable e) {
+            LOG.log(Level.WARNING, "Exception while processing jms message in cxf", e);
+            failedCount.incrementAndGet();
+        } finally {
+            DISPATCHING.remove();
+            inFlightCount.decrementAndGet();
+            batch.done(success);
+        }
+    }
+
+    private MessageConsumer createConsumer(Session session) throws JMSException {
+        if (durableSubscriptionName != null && destination instanceof Topic) {
+            return session.createDurableSubscriber((Topic)destination, durableSubscriptionName,
+                                                   messageSelector, pubSubNoLocal);
+        } else {
+            return session.createConsumer(destination, messageSelector);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        receivers = Executors.newFixedThreadPool(concurrentConsumers);
+        for (int c = 0; c < concurrentConsumers; c++) {
+            receivers.execute(new Receiver());
+        }
+    }
+
+    @Override
+    public void stop() {
+        LOG.fine("Shuttting down " + this.getClass().getSimpleName());
+        if (!running) {
+            return;
+        }
+        running = false;
+        generation++;
+        receivers.shutdown();
+        // The receivers wait for the messages in flight so we must not wait for them 
+        // when stopped from inside the listener
+        if (!Boolean.TRUE.equals(DISPATCHING.get())) {
+            try {
+                receivers.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // Ignore
+            }
+            receivers.shutdownNow();
+        }
+        receivers = null;
+    }
+
+    @Override
+    public void shutdown() {
+        stop();
+    }
+
+    public void setConcurrentConsumers(int concurrentConsumers) {
+        this.concurrentConsumers = concurrentConsumers;
+    }
+
+    public void setPrefetch(int prefetch) {
+        this.prefetch = Math.max(1, prefetch);
+    }
+
+    public void setAckBatchSize(int ackBatchSize) {
+        this.ackBatchSize = Math.max(1, ackBatchSize);
+    }
+
+    public void setAckBatchTimeout(long ackBatchTimeout) {
+        this.ackBatchTimeout = ackBatchTimeout;
+    }
+
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getCommittedBatchCount() {
+        return committedBatchCount.get();
+    }
+
+    public long getRolledBackBatchCount() {
+        return rolledBackBatchCount.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlightCount.get();
+    }
+
+    public int getActiveGroupCount() {
+        synchronized (groups) {
+            return groups.size();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.jms.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+/**
+ * Keeps up to maxIdle non transacted sessions of a connection together with an
+ * anonymous producer so they can be reused for subsequent requests.
+ * 
+ * The pool does not limit the number of sessions in use. If no idle session is
+ * available a new one is created and it is closed on release when the pool is full.
+ */
+public class SessionPool {
+    private final Connection connection;
+    private final int maxIdle;
+    private final Queue<PooledSession> idle = new ConcurrentLinkedQueue<PooledSession>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong reusedCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+    private volatile boolean closed;
+
+    public SessionPool(Connection connection, int maxIdle) {
+        this.connection = connection;
+        this.maxIdle = maxIdle;
+    }
+
+    public static class PooledSession {
+        private final Session session;
+        private MessageProducer producer;
+
+        PooledSession(Session session) {
+            this.session = session;
+        }
+
+        public Session getSession() {
+            return session;
+        }
+
+        /**
+         * @return producer without a destination so it can be used for any target
+         */
+        public MessageProducer getProducer() throws JMSException {
+            if (producer == null) {
+                producer = session.createProducer(null);
+            }
+            return producer;
+        }
+
+        void close() {
+            ResourceCloser.close(producer);
+            ResourceCloser.close(session);
+        }
+    }
+
+    public PooledSession borrow() throws JMSException {
+        PooledSession pooled = idle.poll();
+        if (pooled != null) {
+            idleCount.decrementAndGet();
+            reusedCount.incrementAndGet();
+        } else {
+            pooled = new PooledSession(connection.createSession(false, Session.AUTO_ACKNOWLEDGE));
+            createdCount.incrementAndGet();
+        }
+        activeCount.incrementAndGet();
+        return pooled;
+    }
+
+    public void release(PooledSession pooled) {
+        activeCount.decrementAndGet();
+        if (closed) {
+            pooled.close();
+            return;
+        }
+        if (idleCount.incrementAndGet() > maxIdle) {
+            idleCount.decrementAndGet();
+            pooled.close();
+            return;
+        }
+        idle.offer(pooled);
+        if (closed && idle.remove(pooled)) {
+            // The pool was closed concurrently
+            pooled.close();
+        }
+    }
+
+    /**
+     * Close a session that failed instead of returning it to the pool
+     */
+    public void discard(PooledSession pooled) {
+        activeCount.decrementAndGet();
+        discardedCount.incrementAndGet();
+        pooled.close();
+    }
+
+    public void close() {
+        closed = true;
+        PooledSession pooled = idle.poll();
+        while (pooled != null) {
+            pooled.close();
+            pooled = idle.poll();
+        }
+        idleCount.set(0);
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getReusedCount() {
+        return reusedCount.get();
+    }
+
+    public long getDiscardedCount() {
+        return discardedCount.get();
+    }
+}
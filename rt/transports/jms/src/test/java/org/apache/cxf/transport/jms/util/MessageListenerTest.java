@@ -18,6 +18,13 @@
  */
 package org.apache.cxf.transport.jms.util;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.jms.Connection;
 import javax.jms.Destination;
 import javax.jms.JMSException;
@@ -106,6 +113,119 @@ public class MessageListenerTest {
         connection.close();
     }
 
+    @Test
+    public void testPipelinedLocalTransaction() throws JMSException, XAException, InterruptedException {
+        Connection connection = createConnection("brokerPipelinedTransaction");
+        Queue dest = JMSUtil.createQueue(connection, "test");
+        MessageListener listenerHandler = new TestMessageListener();
+        PipelinedMessageListenerContainer container =
+            new PipelinedMessageListenerContainer(connection, dest, listenerHandler);
+        container.setTransacted(true);
+        container.setPrefetch(10);
+        container.start();
+
+        testTransactionalBehaviour(connection, dest);
+        Assert.assertTrue(container.getRolledBackBatchCount() > 0);
+        container.stop();
+        connection.close();
+    }
+
+    @Test
+    public void testPipelinedBatchesAndGroupOrder() throws JMSException, XAException, InterruptedException {
+        Connection connection = createConnection("brokerPipelinedBatch");
+        Queue dest = JMSUtil.createQueue(connection, "test");
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        MessageListener listenerHandler = new MessageListener() {
+            @Override
+            public void onMessage(Message message) {
+                try {
+                    received.add(((TextMessage)message).getText());
+                } catch (JMSException e) {
+                    throw JMSUtil.convertJmsException(e);
+                }
+            }
+        };
+        PipelinedMessageListenerContainer container =
+            new PipelinedMessageListenerContainer(connection, dest, listenerHandler);
+        container.setTransacted(true);
+        container.setPrefetch(10);
+        container.setAckBatchSize(5);
+        container.setAckBatchTimeout(200);
+        container.start();
+
+        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        MessageProducer prod = session.createProducer(dest);
+        for (int c = 0; c < 20; c++) {
+            Message message = session.createTextMessage(Integer.toString(c));
+            message.setStringProperty(PipelinedMessageListenerContainer.GROUP_ID_PROPERTY, "group");
+            prod.send(message);
+        }
+        prod.close();
+        session.close();
+
+        assertNumMessagesInQueue("All messages should be committed", connection, dest, 0, 5000);
+        Assert.assertEquals(20, container.getProcessedCount());
+        Assert.assertTrue(container.getCommittedBatchCount() < 20);
+        for (int c = 0; c < 20; c++) {
+            Assert.assertEquals("Messages of a group must keep their order",
+                                Integer.toString(c), received.get(c));
+        }
+        container.stop();
+        connection.close();
+    }
+
+    @Test
+    public void testPipelinedKeepsMoreThanAckBatchSizeInFlight() throws Exception {
+        Connection connection = createConnection("brokerPipelinedInFlight");
+        Queue dest = JMSUtil.createQueue(connection, "test");
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        MessageListener listenerHandler = new MessageListener() {
+            @Override
+            public void onMessage(Message message) {
+                int current = active.incrementAndGet();
+                synchronized (maxActive) {
+                    maxActive.set(Math.max(maxActive.get(), current));
+                }
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    active.decrementAndGet();
+                }
+            }
+        };
+        PipelinedMessageListenerContainer container =
+            new PipelinedMessageListenerContainer(connection, dest, listenerHandler);
+        container.setTransacted(true);
+        container.setPrefetch(10);
+        // the default ackBatchSize of 1
+        container.setAckBatchTimeout(2000);
+
+        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        MessageProducer prod = session.createProducer(dest);
+        for (int c = 0; c < 5; c++) {
+            prod.send(session.createTextMessage(Integer.toString(c)));
+        }
+        prod.close();
+        session.close();
+        container.start();
+
+        for (int c = 0; c < 50 && container.getInFlightCount() < 5; c++) {
+            Thread.sleep(100);
+        }
+        Assert.assertEquals("All messages should be in flight at once", 5, container.getInFlightCount());
+        release.countDown();
+
+        assertNumMessagesInQueue("All messages should be committed", connection, dest, 0, 5000);
+        Assert.assertEquals(5, container.getProcessedCount());
+        Assert.assertTrue(maxActive.get() > 1);
+        container.stop();
+        connection.close();
+    }
+
     private void testTransactionalBehaviour(Connection connection, Queue dest) throws JMSException,
         InterruptedException {
         Queue dlq = JMSUtil.createQueue(connection, "ActiveMQ.DLQ");
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.jms.util;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.cxf.transport.jms.util.SessionPool.PooledSession;
+import org.easymock.EasyMock;
+import org.easymock.IMocksControl;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionPoolTest extends Assert {
+    private IMocksControl control;
+    private Connection connection;
+
+    @Before
+    public void setUp() {
+        control = EasyMock.createNiceControl();
+        connection = control.createMock(Connection.class);
+    }
+
+    @Test
+    public void testReuseSessionAndProducer() throws Exception {
+        Session session = control.createMock(Session.class);
+        MessageProducer producer = control.createMock(MessageProducer.class);
+        EasyMock.expect(connection.createSession(false, Session.AUTO_ACKNOWLEDGE)).andReturn(session).once();
+        EasyMock.expect(session.createProducer((Destination)null)).andReturn(producer).once();
+        control.replay();
+
+        SessionPool pool = new SessionPool(connection, 2);
+        PooledSession pooled = pool.borrow();
+        assertSame(producer, pooled.getProducer());
+        assertEquals(1, pool.getActiveCount());
+        pool.release(pooled);
+        assertEquals(1, pool.getIdleCount());
+
+        PooledSession pooled2 = pool.borrow();
+        assertSame(session, pooled2.getSession());
+        assertSame(producer, pooled2.getProducer());
+        pool.release(pooled2);
+
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(1, pool.getReusedCount());
+        assertEquals(0, pool.getActiveCount());
+        control.verify();
+    }
+
+    @Test
+    public void testClosesSessionsAboveMaxIdle() throws Exception {
+        Session session1 = control.createMock(Session.class);
+        Session session2 = control.createMock(Session.class);
+        EasyMock.expect(connection.createSession(false, Session.AUTO_ACKNOWLEDGE)).andReturn(session1);
+        EasyMock.expect(connection.createSession(false, Session.AUTO_ACKNOWLEDGE)).andReturn(session2);
+        session2.close();
+        EasyMock.expectLastCall().once();
+        control.replay();
+
+        SessionPool pool = new SessionPool(connection, 1);
+        PooledSession pooled1 = pool.borrow();
+        PooledSession pooled2 = pool.borrow();
+        assertEquals(2, pool.getActiveCount());
+        pool.release(pooled1);
+        pool.release(pooled2);
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(0, pool.getActiveCount());
+        control.verify();
+    }
+
+    @Test
+    public void testDiscardAndClose() throws Exception {
+        Session session1 = control.createMock(Session.class);
+        Session session2 = control.createMock(Session.class);
+        EasyMock.expect(connection.createSession(false, Session.AUTO_ACKNOWLEDGE)).andReturn(session1);
+        EasyMock.expect(connection.createSession(false, Session.AUTO_ACKNOWLEDGE)).andReturn(session2);
+        session1.close();
+        EasyMock.expectLastCall().once();
+        session2.close();
+        EasyMock.expectLastCall().once();
+        control.replay();
+
+        SessionPool pool = new SessionPool(connection, 2);
+        PooledSession pooled1 = pool.borrow();
+        PooledSession pooled2 = pool.borrow();
+        pool.discard(pooled1);
+        pool.release(pooled2);
+        assertEquals(1, pool.getDiscardedCount());
+        pool.close();
+        assertEquals(0, pool.getIdleCount());
+        control.verify();
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ws.addressing.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.cxf.ws.addressing.MessageIdCache;
+
+/**
+ * A cache that remembers message IDs for a limited time and up to a maximum 
+ * number of entries.
+ * <p>
+ * IDs are stored as 128 bit hashes in a small number of sets, each one covering
+ * a slice of the time to live. When the current set is older than one slice a
+ * new set is started and the oldest set is dropped as a whole, so expiry never
+ * has to scan the stored IDs. A new set is also started once the current one
+ * holds its share of the maximum size, so an overflow only drops the oldest
+ * fraction of the IDs. An ID is therefore remembered for at least
+ * {@code timeToLive} milliseconds unless the cache overflows.
+ */
+public class BoundedMessageIdCache implements MessageIdCache {
+    public static final long DEFAULT_TIME_TO_LIVE = 60L * 60L * 1000L;
+    public static final int DEFAULT_MAX_SIZE = 100000;
+    
+    private static final int SLICES = 4;
+
+    private final long timeToLive;
+    private final int maxSize;
+    private final long sliceLength;
+    private final int sliceCapacity;
+    
+    /**
+     * The sets of hashed IDs, index 0 being the current one.
+     */
+    private final HashSet128[] slices = new HashSet128[SLICES + 1];
+    private long sliceStart;
+    private int size;
+
+    public BoundedMessageIdCache() {
+        this(DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param timeToLive the time in milliseconds a message ID is remembered
+     * @param maxSize the maximum number of message IDs to keep
+     */
+    public BoundedMessageIdCache(long timeToLive, int maxSize) {
+        if (timeToLive <= 0 || maxSize <= 0) {
+            throw new IllegalArgumentException("timeToLive and maxSize must be positive");
+        }
+        this.timeToLive = timeToLive;
+        this.maxSize = maxSize;
+        this.sliceLength = (timeToLive + SLICES - 1) / SLICES;
+        this.sliceCapacity = Math.max(1, maxSize / slices.length);
+        for (int i = 0; i < slices.length; i++) {
+            slices[i] = new HashSet128();
+        }
+    }
+    
+    public boolean checkUniquenessAndCacheId(String messageId) {
+        byte[] hash = hash(messageId);
+        long high = toLong(hash, 0);
+        long low = toLong(hash, 8);
+        synchronized (this) {
+            expire(currentTime());
+            for (HashSet128 slice : slices) {
+                if (slice.contains(high, low)) {
+                    return false;
+                }
+            }
+            if (slices[0].size() >= sliceCapacity) {
+                rotate(1);
+            }
+            while (size >= maxSize) {
+                // only for a maxSize smaller than the number of slices
+                rotate(1);
+            }
+            slices[0].add(high, low);
+            size++;
+            return true;
+        }
+    }
+
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private void expire(long now) {
+        long elapsed = now - sliceStart;
+        if (elapsed >= sliceLength) {
+            rotate((int)Math.min(slices.length, elapsed / sliceLength));
+            sliceStart = now - elapsed % sliceLength;
+        }
+    }
+
+    /**
+     * Drop the {@code count} oldest slices and start new current ones
+     */
+    private void rotate(int count) {
+        for (int c = 0; c < count; c++) {
+            HashSet128 oldest = slices[slices.length - 1];
+            size -= oldest.size();
+            System.arraycopy(slices, 0, slices, 1, slices.length - 1);
+            slices[0] = oldest.size() == 0 ? oldest : new HashSet128();
+        }
+    }
+
+    private static byte[] hash(String messageId) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            return md.digest(messageId.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long toLong(byte[] b, int offset) {
+        long result = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            result = (result << 8) | (b[i] & 0xff);
+        }
+        return result;
+    }
+
+    /**
+     * Open addressing set of 128 bit values held in two long arrays. 
+     * Removing single entries is not needed as slices are dropped as a whole.
+     */
+    static final class HashSet128 {
+        private long[] highs = new long[16];
+        private long[] lows = new long[16];
+        private boolean[] used = new boolean[16];
+        private int count;
+
+        boolean contains(long high, long low) {
+            int mask = used.length - 1;
+            for (int i = index(high, low, mask); used[i]; i = (i + 1) & mask) {
+                if (highs[i] == high && lows[i] == low) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(long high, long low) {
+            if ((count + 1) * 2 > used.length) {
+                resize(used.length * 2);
+            }
+            insert(high, low);
+            count++;
+        }
+
+        int size() {
+            return count;
+        }
+
+        private void insert(long high, long low) {
+            int mask = used.length - 1;
+            int i = index(high, low, mask);
+            while (used[i]) {
+                i = (i + 1) & mask;
+            }
+            used[i] = true;
+            highs[i] = high;
+            lows[i] = low;
+        }
+
+        private void resize(int capacity) {
+            long[] oldHighs = highs;
+            long[] oldLows = lows;
+            boolean[] oldUsed = used;
+            highs = new long[capacity];
+            lows = new long[capacity];
+            used = new boolean[capacity];
+            for (int i = 0; i < oldUsed.length; i++) {
+                if (oldUsed[i]) {
+                    insert(oldHighs[i], oldLows[i]);
+                }
+            }
+        }
+
+        private static int index(long high, long low, int mask) {
+            long h = high ^ low;
+            return (int)(h ^ (h >>> 32)) & mask;
+        }
+    }
+}
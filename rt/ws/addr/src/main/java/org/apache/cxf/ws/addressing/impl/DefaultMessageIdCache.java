@@ -28,6 +28,7 @@ import org.apache.cxf.ws.addressing.MessageIdCache;
  * An implementation that uses a simple set to store received message IDs.
  * Note that this implementation does not make any attempt to flush older
  * message IDs or to persist the message IDs outside of this instance. 
+ * Use {@link BoundedMessageIdCache} to limit the memory used on long running nodes.
  */
 public class DefaultMessageIdCache implements MessageIdCache {
     
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ws.addressing.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BoundedMessageIdCacheTest extends Assert {
+
+    @Test
+    public void testDuplicateDetected() {
+        BoundedMessageIdCache cache = new BoundedMessageIdCache();
+        assertTrue(cache.checkUniquenessAndCacheId("urn:uuid:1"));
+        assertTrue(cache.checkUniquenessAndCacheId("urn:uuid:2"));
+        assertFalse(cache.checkUniquenessAndCacheId("urn:uuid:1"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testExpiry() {
+        TestCache cache = new TestCache(1000, 100);
+        cache.time = 10000;
+        assertTrue(cache.checkUniquenessAndCacheId("urn:uuid:1"));
+        cache.time += 999;
+        assertFalse(cache.checkUniquenessAndCacheId("urn:uuid:1"));
+        cache.time += 2000;
+        assertTrue(cache.checkUniquenessAndCacheId("urn:uuid:1"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testMaxSize() {
+        TestCache cache = new TestCache(1000, 100);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(cache.checkUniquenessAndCacheId("urn:uuid:" + i));
+            assertTrue(cache.size() <= 100);
+        }
+        assertFalse(cache.checkUniquenessAndCacheId("urn:uuid:999"));
+    }
+
+    @Test
+    public void testOverflowKeepsMostIds() {
+        TestCache cache = new TestCache(1000, 100);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(cache.checkUniquenessAndCacheId("urn:uuid:" + i));
+        }
+        assertTrue(cache.checkUniquenessAndCacheId("urn:uuid:100"));
+        assertTrue(cache.size() <= 100);
+        // only the oldest slice was dropped
+        for (int i = 20; i <= 100; i++) {
+            assertFalse(cache.checkUniquenessAndCacheId("urn:uuid:" + i));
+        }
+        assertTrue(cache.checkUniquenessAndCacheId("urn:uuid:0"));
+    }
+
+    @Test
+    public void testManyIds() {
+        BoundedMessageIdCache cache = new BoundedMessageIdCache(60000, 100000);
+        for (int i = 0; i < 50000; i++) {
+            assertTrue(cache.checkUniquenessAndCacheId("urn:uuid:" + i));
+        }
+        for (int i = 0; i < 50000; i++) {
+            assertFalse(cache.checkUniquenessAndCacheId("urn:uuid:" + i));
+        }
+    }
+
+    private static class TestCache extends BoundedMessageIdCache {
+        long time;
+
+        TestCache(long timeToLive, int maxSize) {
+            super(timeToLive, maxSize);
+        }
+
+        @Override
+        protected long currentTime() {
+            return time;
+        }
+    }
+}
@@ -19,6 +19,8 @@
 
 package org.apache.cxf.ws.policy;
 
+import java.util.List;
+
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
@@ -27,6 +29,7 @@ import org.apache.cxf.service.model.BindingFaultInfo;
 import org.apache.cxf.service.model.BindingOperationInfo;
 import org.apache.cxf.transport.Conduit;
 import org.apache.cxf.transport.Destination;
+import org.apache.neethi.Assertion;
 
 /**
  * 
@@ -86,6 +89,19 @@ public abstract class AbstractPolicyInterceptor extends AbstractPhaseInterceptor
         return bfi;
     }
     
+    /**
+     * Checks that one of the alternatives of the effective policy is supported by the asserted
+     * assertions, reusing the alternatives of an {@link EffectivePolicyImpl} computed for
+     * previous messages.
+     */
+    protected static List<List<Assertion>> checkEffectivePolicy(AssertionInfoMap aim, 
+                                                                EffectivePolicy effectivePolicy) {
+        if (effectivePolicy instanceof EffectivePolicyImpl) {
+            return aim.checkAlternatives(((EffectivePolicyImpl)effectivePolicy).getAlternatives());
+        }
+        return aim.checkEffectivePolicy(effectivePolicy.getPolicy());
+    }
+    
     protected abstract void handle(Message message) throws PolicyException;
 
 }
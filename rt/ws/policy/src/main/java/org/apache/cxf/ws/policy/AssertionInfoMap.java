@@ -139,9 +139,22 @@ public class AssertionInfoMap extends HashMap<QName, Collection<AssertionInfo>>
     }
     
     public List<List<Assertion>> checkEffectivePolicy(Policy policy) {
+        return checkAlternatives(policy.getAlternatives());
+    }
+    
+    /**
+     * Checks the already computed alternatives of an effective policy.
+     * @param alternatives the alternatives
+     * @return the supported alternatives
+     * @throws PolicyException if none of the alternatives is supported
+     */
+    public List<List<Assertion>> checkAlternatives(Collection<List<Assertion>> alternatives) {
+        return checkAlternatives(alternatives.iterator());
+    }
+    
+    private List<List<Assertion>> checkAlternatives(Iterator<List<Assertion>> alternatives) {
         List<List<Assertion>> validated = new ArrayList<List<Assertion>>(4);       
         List<QName> errors = new ArrayList<QName>();
-        Iterator<List<Assertion>> alternatives = policy.getAlternatives();
         while (alternatives.hasNext()) {
             List<Assertion> pc = alternatives.next();
             if (supportsAlternative(pc, errors)) {
@@ -21,6 +21,7 @@ package org.apache.cxf.ws.policy;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -56,6 +57,28 @@ public class EffectivePolicyImpl implements EffectivePolicy {
     protected Policy policy;     
     protected Collection<Assertion> chosenAlternative;
     protected List<Interceptor<? extends org.apache.cxf.message.Message>> interceptors;
+    private volatile Alternatives alternatives;
+    private int policyVersion = -1;
+    
+    /**
+     * The normalised alternatives of a policy, computed once for verification.
+     */
+    private static final class Alternatives {
+        final Policy policy;
+        final List<List<Assertion>> list;
+        
+        Alternatives(Policy p) {
+            policy = p;
+            List<List<Assertion>> l = new ArrayList<List<Assertion>>();
+            if (p != null) {
+                Iterator<List<Assertion>> it = p.getAlternatives();
+                while (it.hasNext()) {
+                    l.add(Collections.unmodifiableList(it.next()));
+                }
+            }
+            list = Collections.unmodifiableList(l);
+        }
+    }
     
     public EffectivePolicyImpl() {
     }
@@ -72,6 +95,28 @@ public class EffectivePolicyImpl implements EffectivePolicy {
         return chosenAlternative;
     }
     
+    /**
+     * Returns the alternatives of the effective policy. They are computed on first use and kept
+     * until the policy changes, so that verifying a message does not normalise the policy again.
+     */
+    public List<List<Assertion>> getAlternatives() {
+        Policy p = policy;
+        Alternatives a = alternatives;
+        if (a == null || a.policy != p) {
+            a = new Alternatives(p);
+            alternatives = a;
+        }
+        return a.list;
+    }
+    
+    int getPolicyVersion() {
+        return policyVersion;
+    }
+    
+    void setPolicyVersion(int v) {
+        policyVersion = v;
+    }
+    
     public void initialise(EndpointPolicy epi, PolicyEngine engine, boolean inbound, Message m) {
         initialise(epi, engine, inbound, false, m);
     }
@@ -60,6 +60,7 @@ public class EndpointPolicyImpl implements EndpointPolicy {
     private PolicyEngineImpl engine;
     private boolean requestor;
     private Assertor assertor;
+    private int policyVersion = -1;
         
     public EndpointPolicyImpl() {
         
@@ -358,6 +359,14 @@ public class EndpointPolicyImpl implements EndpointPolicy {
         faultInterceptors = inFault;
     }
     
+    int getPolicyVersion() {
+        return policyVersion;
+    }
+    
+    void setPolicyVersion(int v) {
+        policyVersion = v;
+    }
+    
     protected EndpointPolicyImpl createEndpointPolicy() {
         return new EndpointPolicyImpl(this.ei,
                                       this.engine,
@@ -36,6 +36,7 @@ import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.service.factory.FactoryBeanListener;
 import org.apache.cxf.service.factory.FactoryBeanListenerManager;
+import org.apache.cxf.service.model.AbstractPropertiesHolder;
 import org.apache.cxf.service.model.BindingFaultInfo;
 import org.apache.cxf.service.model.BindingMessageInfo;
 import org.apache.cxf.service.model.BindingOperationInfo;
@@ -78,6 +79,7 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
     private Boolean ignoreUnknownAssertions;
     private boolean addedBusInterceptors;
     private AlternativeSelector alternativeSelector;
+    private volatile int policyVersion;
 
 
     public PolicyEngineImpl() { 
@@ -121,8 +123,9 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
         return bus;
     }
 
-    public void setPolicyProviders(Collection<PolicyProvider> p) {
+    public synchronized void setPolicyProviders(Collection<PolicyProvider> p) {
         policyProviders = new CopyOnWriteArrayList<PolicyProvider>(p);
+        policyVersion++;
     }
    
     public synchronized void addPolicyProvider(PolicyProvider p) {
@@ -131,6 +134,7 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
         } else {
             preSetPolicyProviders.add(p);
         }
+        policyVersion++;
     }
     public synchronized Collection<PolicyProvider> getPolicyProviders() {
         if (policyProviders == null) {
@@ -171,8 +175,9 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
         return alternativeSelector;
     }
 
-    public void setAlternativeSelector(AlternativeSelector as) {
+    public synchronized void setAlternativeSelector(AlternativeSelector as) {
         alternativeSelector = as;
+        policyVersion++;
     }
 
     public boolean isIgnoreUnknownAssertions() {
@@ -194,15 +199,20 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public EffectivePolicy getEffectiveClientRequestPolicy(EndpointInfo ei, BindingOperationInfo boi, 
                                                            Conduit c, Message m) {
+        EffectivePolicy effectivePolicy = getCachedPolicy(boi, POLICY_INFO_REQUEST_CLIENT);
+        if (null != effectivePolicy) {
+            return effectivePolicy;
+        }
         synchronized (ei) {
-            EffectivePolicy effectivePolicy = (EffectivePolicy)boi.getProperty(POLICY_INFO_REQUEST_CLIENT);
+            effectivePolicy = getCachedPolicy(boi, POLICY_INFO_REQUEST_CLIENT);
             if (null == effectivePolicy) {
+                int version = policyVersion;
                 EffectivePolicyImpl epi = createOutPolicyInfo();
                 Assertor assertor = PolicyUtils.createAsserter(c);
+                epi.initialise(ei, boi, this, assertor, true, true, m);
                 if (m != null) {
-                    boi.setProperty(POLICY_INFO_REQUEST_CLIENT, epi);
+                    cachePolicy(boi, POLICY_INFO_REQUEST_CLIENT, epi, version);
                 }
-                epi.initialise(ei, boi, this, assertor, true, true, m);
                 effectivePolicy = epi;
             }
             return effectivePolicy;
@@ -211,7 +221,7 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public void setEffectiveClientRequestPolicy(EndpointInfo ei, BindingOperationInfo boi, 
                                                 EffectivePolicy ep) {
-        boi.setProperty(POLICY_INFO_REQUEST_CLIENT, ep);
+        boi.setProperty(POLICY_INFO_REQUEST_CLIENT, unversioned(ep));
     }
 
     public EffectivePolicy getEffectiveServerResponsePolicy(EndpointInfo ei,
@@ -220,15 +230,20 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
                                                             List<List<Assertion>> incoming, 
                                                             Message m) {
         if (incoming == null) {
+            EffectivePolicy effectivePolicy = getCachedPolicy(boi, POLICY_INFO_RESPONSE_SERVER);
+            if (null != effectivePolicy) {
+                return effectivePolicy;
+            }
             synchronized (ei) {
-                EffectivePolicy effectivePolicy = (EffectivePolicy)boi.getProperty(POLICY_INFO_RESPONSE_SERVER);
+                effectivePolicy = getCachedPolicy(boi, POLICY_INFO_RESPONSE_SERVER);
                 if (null == effectivePolicy) {
+                    int version = policyVersion;
                     EffectivePolicyImpl epi = createOutPolicyInfo();
                     Assertor assertor = PolicyUtils.createAsserter(d);
+                    epi.initialise(ei, boi, this, assertor, false, false, null);
                     if (m != null) {
-                        boi.setProperty(POLICY_INFO_RESPONSE_SERVER, epi);
+                        cachePolicy(boi, POLICY_INFO_RESPONSE_SERVER, epi, version);
                     }
-                    epi.initialise(ei, boi, this, assertor, false, false, null);
                     effectivePolicy = epi;
                 }
                 return effectivePolicy;
@@ -242,7 +257,7 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public void setEffectiveServerResponsePolicy(EndpointInfo ei, BindingOperationInfo boi, 
                                                  EffectivePolicy ep) {
-        boi.setProperty(POLICY_INFO_RESPONSE_SERVER, ep);
+        boi.setProperty(POLICY_INFO_RESPONSE_SERVER, unversioned(ep));
     }
   
     public EffectivePolicy getEffectiveServerFaultPolicy(EndpointInfo ei,
@@ -258,15 +273,20 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
             return epi;
         }
         bfi = mapToWrappedBindingFaultInfo(bfi);
+        EffectivePolicy effectivePolicy = getCachedPolicy(bfi, POLICY_INFO_FAULT_SERVER);
+        if (null != effectivePolicy) {
+            return effectivePolicy;
+        }
         synchronized (ei) {
-            EffectivePolicy effectivePolicy = (EffectivePolicy)bfi.getProperty(POLICY_INFO_FAULT_SERVER);
+            effectivePolicy = getCachedPolicy(bfi, POLICY_INFO_FAULT_SERVER);
             if (null == effectivePolicy) {
+                int version = policyVersion;
                 EffectivePolicyImpl epi = createOutPolicyInfo();
                 Assertor assertor = PolicyUtils.createAsserter(d);
+                epi.initialise(ei, boi, bfi, this, assertor, m);
                 if (m != null) {
-                    bfi.setProperty(POLICY_INFO_FAULT_SERVER, epi);
+                    cachePolicy(bfi, POLICY_INFO_FAULT_SERVER, epi, version);
                 }
-                epi.initialise(ei, boi, bfi, this, assertor, m);
                 effectivePolicy = epi;
             }
             return effectivePolicy;
@@ -286,7 +306,7 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
         return bfi;
     }
     public void setEffectiveServerFaultPolicy(EndpointInfo ei, BindingFaultInfo bfi, EffectivePolicy ep) {
-        bfi.setProperty(POLICY_INFO_FAULT_SERVER, ep);
+        bfi.setProperty(POLICY_INFO_FAULT_SERVER, unversioned(ep));
     }
 
     public EndpointPolicy getClientEndpointPolicy(EndpointInfo ei, Conduit conduit, Message m) {
@@ -304,9 +324,13 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
         boolean isRequestor,
         Assertor assertor,
         Message m) {
+        String key = isRequestor ? POLICY_INFO_ENDPOINT_CLIENT : POLICY_INFO_ENDPOINT_SERVER;
+        EndpointPolicy ep = getCachedEndpointPolicy(ei, key);
+        if (null != ep) {
+            return ep;
+        }
         synchronized (ei) {
-            EndpointPolicy ep = (EndpointPolicy)ei.getProperty(isRequestor ? POLICY_INFO_ENDPOINT_CLIENT 
-                            : POLICY_INFO_ENDPOINT_SERVER);
+            ep = getCachedEndpointPolicy(ei, key);
             if (null != ep) {
                 return ep; 
             }
@@ -315,24 +339,29 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
     }
 
     public void setClientEndpointPolicy(EndpointInfo ei, EndpointPolicy ep) {
-        ei.setProperty(POLICY_INFO_ENDPOINT_CLIENT, ep);
+        ei.setProperty(POLICY_INFO_ENDPOINT_CLIENT, unversioned(ep));
     }
 
     public void setServerEndpointPolicy(EndpointInfo ei, EndpointPolicy ep) {
-        ei.setProperty(POLICY_INFO_ENDPOINT_SERVER, ep);
+        ei.setProperty(POLICY_INFO_ENDPOINT_SERVER, unversioned(ep));
     }
 
     public EffectivePolicy getEffectiveServerRequestPolicy(EndpointInfo ei, 
                                                            BindingOperationInfo boi, 
                                                            Message m) {
+        EffectivePolicy effectivePolicy = getCachedPolicy(boi, POLICY_INFO_REQUEST_SERVER);
+        if (null != effectivePolicy) {
+            return effectivePolicy;
+        }
         synchronized (ei) {
-            EffectivePolicy effectivePolicy = (EffectivePolicy)boi.getProperty(POLICY_INFO_REQUEST_SERVER);
+            effectivePolicy = getCachedPolicy(boi, POLICY_INFO_REQUEST_SERVER);
             if (null == effectivePolicy) {
+                int version = policyVersion;
                 EffectivePolicyImpl epi = createOutPolicyInfo();
+                epi.initialise(ei, boi, this, false, true, m);
                 if (m != null) {
-                    boi.setProperty(POLICY_INFO_REQUEST_SERVER, epi);
+                    cachePolicy(boi, POLICY_INFO_REQUEST_SERVER, epi, version);
                 }
-                epi.initialise(ei, boi, this, false, true, m);
                 effectivePolicy = epi;
             }
             return effectivePolicy;
@@ -341,20 +370,25 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public void setEffectiveServerRequestPolicy(EndpointInfo ei, BindingOperationInfo boi, 
                                                 EffectivePolicy ep) {
-        boi.setProperty(POLICY_INFO_REQUEST_SERVER, ep);        
+        boi.setProperty(POLICY_INFO_REQUEST_SERVER, unversioned(ep));        
     }
 
     public EffectivePolicy getEffectiveClientResponsePolicy(EndpointInfo ei,
                                                             BindingOperationInfo boi,
                                                             Message m) {
+        EffectivePolicy effectivePolicy = getCachedPolicy(boi, POLICY_INFO_RESPONSE_CLIENT);
+        if (null != effectivePolicy) {
+            return effectivePolicy;
+        }
         synchronized (ei) {
-            EffectivePolicy effectivePolicy = (EffectivePolicy)boi.getProperty(POLICY_INFO_RESPONSE_CLIENT);
+            effectivePolicy = getCachedPolicy(boi, POLICY_INFO_RESPONSE_CLIENT);
             if (null == effectivePolicy) {
+                int version = policyVersion;
                 EffectivePolicyImpl epi = createOutPolicyInfo();
+                epi.initialise(ei, boi, this, true, false, m);
                 if (m != null) {
-                    boi.setProperty(POLICY_INFO_RESPONSE_CLIENT, epi);
+                    cachePolicy(boi, POLICY_INFO_RESPONSE_CLIENT, epi, version);
                 }
-                epi.initialise(ei, boi, this, true, false, m);
                 effectivePolicy = epi;
             }
             return effectivePolicy;
@@ -363,24 +397,31 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
 
     public void setEffectiveClientResponsePolicy(EndpointInfo ei, BindingOperationInfo boi, 
                                                  EffectivePolicy ep) {
-        boi.setProperty(POLICY_INFO_RESPONSE_CLIENT, ep);
+        boi.setProperty(POLICY_INFO_RESPONSE_CLIENT, unversioned(ep));
     }
 
     public EffectivePolicy getEffectiveClientFaultPolicy(EndpointInfo ei,
                                                          BindingOperationInfo boi,
                                                          BindingFaultInfo bfi,
                                                          Message m) {
+        EffectivePolicy effectivePolicy = null;
+        if (bfi != null) {
+            effectivePolicy = getCachedPolicy(bfi, POLICY_INFO_FAULT_CLIENT);
+            if (null != effectivePolicy) {
+                return effectivePolicy;
+            }
+        }
         synchronized (ei) {
-            EffectivePolicy effectivePolicy = null;
             if (bfi != null) {
-                effectivePolicy = (EffectivePolicy)bfi.getProperty(POLICY_INFO_FAULT_CLIENT);
+                effectivePolicy = getCachedPolicy(bfi, POLICY_INFO_FAULT_CLIENT);
             }
             if (null == effectivePolicy) {
+                int version = policyVersion;
                 EffectivePolicyImpl epi = createOutPolicyInfo();
+                epi.initialisePolicy(ei, boi, bfi, this, m);
                 if (bfi != null) {
-                    bfi.setProperty(POLICY_INFO_FAULT_CLIENT, epi);
+                    cachePolicy(bfi, POLICY_INFO_FAULT_CLIENT, epi, version);
                 }
-                epi.initialisePolicy(ei, boi, bfi, this, m);
                 effectivePolicy = epi;
             }
             return effectivePolicy;
@@ -388,7 +429,60 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
     }
 
     public void setEffectiveClientFaultPolicy(EndpointInfo ei, BindingFaultInfo bfi, EffectivePolicy ep) {
-        bfi.setProperty(POLICY_INFO_FAULT_CLIENT, ep);
+        bfi.setProperty(POLICY_INFO_FAULT_CLIENT, unversioned(ep));
+    }
+
+    /**
+     * @return the version of the policy configuration, changed whenever a policy provider or the
+     * alternative selector is set or added
+     */
+    public int getPolicyVersion() {
+        return policyVersion;
+    }
+
+    /**
+     * Returns the effective policy cached on the given service model object. The cache is read
+     * without locking, policies computed by this engine for an older policy version are ignored.
+     */
+    private EffectivePolicy getCachedPolicy(AbstractPropertiesHolder holder, String key) {
+        Object o = holder.getProperty(key);
+        if (o instanceof EffectivePolicyImpl) {
+            int version = ((EffectivePolicyImpl)o).getPolicyVersion();
+            if (version >= 0 && version != policyVersion) {
+                return null;
+            }
+        }
+        return (EffectivePolicy)o;
+    }
+
+    private void cachePolicy(AbstractPropertiesHolder holder, String key, 
+                             EffectivePolicyImpl epi, int version) {
+        // only publish the policy once it is completely initialised
+        epi.setPolicyVersion(version);
+        holder.setProperty(key, epi);
+    }
+
+    /**
+     * Marks a policy set from outside as valid for all policy versions.
+     */
+    private static <T> T unversioned(T ep) {
+        if (ep instanceof EffectivePolicyImpl) {
+            ((EffectivePolicyImpl)ep).setPolicyVersion(-1);
+        } else if (ep instanceof EndpointPolicyImpl) {
+            ((EndpointPolicyImpl)ep).setPolicyVersion(-1);
+        }
+        return ep;
+    }
+
+    private EndpointPolicy getCachedEndpointPolicy(EndpointInfo ei, String key) {
+        Object o = ei.getProperty(key);
+        if (o instanceof EndpointPolicyImpl) {
+            int version = ((EndpointPolicyImpl)o).getPolicyVersion();
+            if (version >= 0 && version != policyVersion) {
+                return null;
+            }
+        }
+        return (EndpointPolicy)o;
     }
 
     // implementation
@@ -580,9 +674,11 @@ public class PolicyEngineImpl implements PolicyEngine, BusExtension {
                                                 boolean isRequestor, 
                                                 Assertor assertor,
                                                 Message m) {
+        int version = policyVersion;
         EndpointPolicyImpl epi = new EndpointPolicyImpl(ei, this, isRequestor, assertor);
         epi.initialize(m);
         if (m != null) {
+            epi.setPolicyVersion(version);
             ei.setProperty(isRequestor ? POLICY_INFO_ENDPOINT_CLIENT : POLICY_INFO_ENDPOINT_SERVER, epi);
         }
         return epi;
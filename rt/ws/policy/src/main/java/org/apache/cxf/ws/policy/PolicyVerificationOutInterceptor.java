@@ -67,7 +67,7 @@ public class PolicyVerificationOutInterceptor extends AbstractPolicyInterceptor
         // CXF-1849 Log a message at FINE level if policy verification fails
         // on the outbound-server side of a response
         try {
-            aim.checkEffectivePolicy(policy.getPolicy());
+            checkEffectivePolicy(aim, policy);
         } catch (PolicyException e) {
             LOG.fine("An exception was thrown when verifying that the effective policy for "
                      + "this request was satisfied.  However, this exception will not result in "
@@ -143,6 +143,49 @@ public class AssertionInfoMapTest extends Assert {
         aim.checkEffectivePolicy(p);
     } 
     
+    @Test
+    public void testCheckPrecomputedAlternatives() { 
+        Policy p = new Policy();
+        QName aqn = new QName("http://x.y.z", "a");
+        Assertion a = new PrimitiveAssertion(aqn);
+        QName bqn = new QName("http://x.y.z", "b");
+        Assertion b = new PrimitiveAssertion(bqn);
+        All alt1 = new All();
+        alt1.addAssertion(a);
+        All alt2 = new All();
+        alt2.addAssertion(b);
+        ExactlyOne ea = new ExactlyOne();
+        ea.addPolicyComponent(alt1);
+        ea.addPolicyComponent(alt2);
+        p.addPolicyComponent(ea);
+        EffectivePolicyImpl epi = new EffectivePolicyImpl();
+        epi.setPolicy(p);
+        List<List<Assertion>> alternatives = epi.getAlternatives();
+        assertEquals(2, alternatives.size());
+        assertSame(alternatives, epi.getAlternatives());
+        
+        AssertionInfoMap aim = new AssertionInfoMap(CastUtils.cast(Collections.EMPTY_LIST, 
+                                                                   PolicyAssertion.class));
+        AssertionInfo ai = new AssertionInfo(a);
+        AssertionInfo bi = new AssertionInfo(b);
+        aim.put(aqn, Collections.singleton(ai));
+        aim.put(bqn, Collections.singleton(bi));
+        try {
+            aim.checkAlternatives(alternatives);
+            fail("Expected PolicyException not thrown.");
+        } catch (PolicyException ex) {
+            // expected
+        }
+        
+        bi.setAsserted(true);
+        List<List<Assertion>> validated = aim.checkAlternatives(epi.getAlternatives());
+        assertEquals(1, validated.size());
+        assertEquals(bqn, validated.get(0).get(0).getName());
+        
+        epi.setPolicy(new Policy());
+        assertNotSame(alternatives, epi.getAlternatives());
+    } 
+    
     @Test
     public void testCheck() throws PolicyException {
         QName aqn = new QName("http://x.y.z", "a");
@@ -72,6 +72,13 @@ public class PolicyEngineTest extends Assert {
         control = EasyMock.createNiceControl(); 
     } 
     
+    private static class TestEffectivePolicy extends EffectivePolicyImpl {
+        @Override
+        public void initialise(EndpointInfo ei, BindingOperationInfo boi, PolicyEngine engine, 
+                               Assertor assertor, boolean requestor, boolean request, Message m) {
+        }
+    }
+    
     private EndpointInfo createMockEndpointInfo() throws Exception {
         EndpointInfo ei = new EndpointInfo();
         ei.setName(new QName("mock", "mock"));
@@ -132,6 +139,36 @@ public class PolicyEngineTest extends Assert {
         control.verify();
     }
     
+    @Test
+    public void testEffectivePolicyRecomputedAfterProviderChange() throws Exception {
+        Method m = PolicyEngineImpl.class.getDeclaredMethod("createOutPolicyInfo", new Class[] {});
+        engine = EasyMock.createMockBuilder(PolicyEngineImpl.class)
+            .addMockedMethod(m).createMock(control);
+        engine.init();
+        EndpointInfo ei = createMockEndpointInfo();
+        BindingOperationInfo boi = createMockBindingOperationInfo(); 
+        AssertingConduit conduit = control.createMock(AssertingConduit.class);
+        EffectivePolicyImpl epi1 = new TestEffectivePolicy();
+        EffectivePolicyImpl epi2 = new TestEffectivePolicy();
+        EasyMock.expect(engine.createOutPolicyInfo()).andReturn(epi1);
+        EasyMock.expect(engine.createOutPolicyInfo()).andReturn(epi2);
+        control.replay();
+        assertSame(epi1, engine.getEffectiveClientRequestPolicy(ei, boi, conduit, msg));
+        assertSame(epi1, engine.getEffectiveClientRequestPolicy(ei, boi, conduit, msg));
+        
+        int version = engine.getPolicyVersion();
+        engine.setPolicyProviders(Collections.<PolicyProvider>emptyList());
+        assertTrue(version != engine.getPolicyVersion());
+        assertSame(epi2, engine.getEffectiveClientRequestPolicy(ei, boi, conduit, msg));
+        assertSame(epi2, engine.getEffectiveClientRequestPolicy(ei, boi, conduit, msg));
+        control.verify();
+        
+        // policies set explicitly are not replaced
+        engine.setEffectiveClientRequestPolicy(ei, boi, epi1);
+        engine.setPolicyProviders(Collections.<PolicyProvider>emptyList());
+        assertSame(epi1, engine.getEffectiveClientRequestPolicy(ei, boi, conduit, msg));
+    }
+    
     @Test 
     public void testSetEffectiveClientRequestPolicy() throws Exception {
         engine = new PolicyEngineImpl();
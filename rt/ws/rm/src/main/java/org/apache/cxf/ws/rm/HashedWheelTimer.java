@@ -0,0 +1,230 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * A timer for large numbers of short lived tasks, such as the scheduled resends of unacknowledged
+ * messages. Tasks are kept in a wheel of buckets that a single worker thread visits once per tick,
+ * so scheduling and cancelling a task are constant time operations and cancelled tasks do not
+ * need to be purged. A task runs at most one tick after its deadline.
+ */
+public class HashedWheelTimer {
+
+    public static final long DEFAULT_TICK_DURATION = 100L;
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    private static final Logger LOG = LogUtils.getL7dLogger(HashedWheelTimer.class);
+
+    private final String name;
+    private final long tickDuration;
+    private final List<LinkedList<Timeout>> wheel;
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile long startTime;
+    private Thread worker;
+    private boolean stopped;
+
+    /**
+     * A task scheduled on the timer.
+     */
+    public static final class Timeout {
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        private long remainingRounds;
+
+        Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return false if the task already ran or was cancelled
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(INIT, CANCELLED)) {
+                timer.pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+            timer.pending.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOG.log(Level.WARNING, "Timer task " + task + " failed", t);
+            }
+        }
+    }
+
+    public HashedWheelTimer(String name) {
+        this(name, DEFAULT_TICK_DURATION, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    public HashedWheelTimer(String name, long tickDuration, int ticksPerWheel) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("tickDuration and ticksPerWheel must be positive");
+        }
+        this.name = name;
+        this.tickDuration = tickDuration;
+        wheel = new ArrayList<LinkedList<Timeout>>(ticksPerWheel);
+        for (int i = 0; i < ticksPerWheel; i++) {
+            wheel.add(new LinkedList<Timeout>());
+        }
+    }
+
+    /**
+     * Schedules a task to run on the timer thread after the given delay. The task should
+     * return quickly, or hand off its work to an executor, as it delays all other tasks.
+     *
+     * @param task the task
+     * @param delay the delay in milliseconds
+     * @return the handle of the scheduled task
+     * @throws IllegalStateException if the timer was stopped
+     */
+    public Timeout schedule(Runnable task, long delay) {
+        start();
+        Timeout timeout = new Timeout(this, task, currentTime() + Math.max(0, delay));
+        pending.incrementAndGet();
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the number of tasks that are scheduled but have neither run nor been cancelled
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Stops the timer thread. Tasks that have not run yet are discarded.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    private synchronized void start() {
+        if (stopped) {
+            throw new IllegalStateException("Timer " + name + " has been stopped");
+        }
+        if (worker == null) {
+            startTime = currentTime();
+            worker = new Thread(new Runnable() {
+                public void run() {
+                    work();
+                }
+            }, name);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private static long currentTime() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private void work() {
+        long tick = 0;
+        List<Timeout> expired = new ArrayList<Timeout>();
+        while (!Thread.currentThread().isInterrupted()) {
+            long sleep = startTime + (tick + 1) * tickDuration - currentTime();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException ex) {
+                    break;
+                }
+            }
+            tick++;
+            transferTimeouts(tick);
+            Iterator<Timeout> it = wheel.get((int)(tick % wheel.size())).iterator();
+            while (it.hasNext()) {
+                Timeout timeout = it.next();
+                if (timeout.isCancelled()) {
+                    it.remove();
+                } else if (timeout.remainingRounds <= 0) {
+                    it.remove();
+                    expired.add(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+            }
+            for (Timeout timeout : expired) {
+                timeout.expire();
+            }
+            expired.clear();
+        }
+        for (List<Timeout> bucket : wheel) {
+            bucket.clear();
+        }
+        newTimeouts.clear();
+    }
+
+    private void transferTimeouts(long tick) {
+        Timeout timeout = newTimeouts.poll();
+        while (timeout != null) {
+            if (!timeout.isCancelled()) {
+                // round up so that a task never runs before its deadline
+                long due = (timeout.deadline - startTime + tickDuration - 1) / tickDuration;
+                long ticks = Math.max(due, tick);
+                timeout.remainingRounds = (ticks - tick) / wheel.size();
+                wheel.get((int)(ticks % wheel.size())).add(timeout);
+            }
+            timeout = newTimeouts.poll();
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.cxf.management.ManagedComponent;
 import org.apache.cxf.management.annotation.ManagedAttribute;
 import org.apache.cxf.management.annotation.ManagedOperation;
 import org.apache.cxf.management.annotation.ManagedResource;
+import org.apache.cxf.ws.rm.soap.RetransmissionQueueImpl;
 
 /**
  * The ManagedRMManager is a JMX managed bean for RMManager.
@@ -78,6 +79,34 @@ public class ManagedRMManager implements ManagedComponent {
         return manager.getRetransmissionQueue().countUnacknowledged();
     }
 
+    @ManagedAttribute(description = "Number of Scheduled Resends", currencyTimeLimit = 10)
+    public int getScheduledResendCount() {
+        RetransmissionQueue queue = manager.getRetransmissionQueue();
+        return queue instanceof RetransmissionQueueImpl 
+            ? ((RetransmissionQueueImpl)queue).countScheduledResends() : 0;
+    }
+
+    @ManagedAttribute(description = "Total Number of Resends", currencyTimeLimit = 10)
+    public long getResendCount() {
+        RetransmissionQueue queue = manager.getRetransmissionQueue();
+        return queue instanceof RetransmissionQueueImpl 
+            ? ((RetransmissionQueueImpl)queue).getResendCount() : 0;
+    }
+
+    @ManagedAttribute(description = "Average Resend Latency in Milliseconds", currencyTimeLimit = 10)
+    public long getAverageResendLatency() {
+        RetransmissionQueue queue = manager.getRetransmissionQueue();
+        return queue instanceof RetransmissionQueueImpl 
+            ? ((RetransmissionQueueImpl)queue).getAverageResendLatency() : 0;
+    }
+
+    @ManagedAttribute(description = "Maximum Resend Latency in Milliseconds", currencyTimeLimit = 10)
+    public long getMaxResendLatency() {
+        RetransmissionQueue queue = manager.getRetransmissionQueue();
+        return queue instanceof RetransmissionQueueImpl 
+            ? ((RetransmissionQueueImpl)queue).getMaxResendLatency() : 0;
+    }
+
 
 //    @ManagedAttribute(description = "Total Number of Inbound Queued Messages", currencyTimeLimit = 10)
 //    public int getQueuedMessagesInboundCount() {
@@ -116,6 +116,7 @@ public class RMManager {
     private RetransmissionQueue retransmissionQueue;
     private Map<Endpoint, RMEndpoint> reliableEndpoints = new ConcurrentHashMap<Endpoint, RMEndpoint>();
     private AtomicReference<Timer> timer = new AtomicReference<Timer>();
+    private AtomicReference<HashedWheelTimer> resendTimer = new AtomicReference<HashedWheelTimer>();
     private RMConfiguration configuration;
     private SourcePolicyType sourcePolicy;
     private DestinationPolicyType destinationPolicy;
@@ -209,6 +210,25 @@ public class RMManager {
         return getTimer(true);
     }
 
+    private HashedWheelTimer getResendTimer(boolean create) {
+        HashedWheelTimer ret = resendTimer.get();
+        if (ret == null && create) {
+            HashedWheelTimer newt = 
+                new HashedWheelTimer("RMManager-ResendTimer-" + System.identityHashCode(this));
+            if (!resendTimer.compareAndSet(null, newt)) {
+                newt.stop();
+            }
+        }
+        return resendTimer.get();
+    }
+
+    /**
+     * @return the timer used to schedule the resends of unacknowledged messages
+     */
+    public HashedWheelTimer getResendTimer() {
+        return getResendTimer(true);
+    }
+
     public BindingFaultFactory getBindingFaultFactory(Binding binding) {
         return new SoapFaultFactory(binding);
     }
@@ -509,6 +529,10 @@ public class RMManager {
             t.purge();
             t.cancel();
         }
+        HashedWheelTimer rt = getResendTimer(false);
+        if (rt != null) {
+            rt.stop();
+        }
 
         // unregistring of this managed bean from the server is done by the bus itself
     }
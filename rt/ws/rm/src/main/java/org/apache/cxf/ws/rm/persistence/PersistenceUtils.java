@@ -29,6 +29,7 @@ import javax.xml.stream.XMLStreamReader;
 import org.apache.cxf.common.util.PackageUtils;
 import org.apache.cxf.helpers.LoadingByteArrayOutputStream;
 import org.apache.cxf.staxutils.StaxUtils;
+import org.apache.cxf.ws.rm.ProtocolVariation;
 import org.apache.cxf.ws.rm.v200702.SequenceAcknowledgement;
 
 /**
@@ -84,6 +85,20 @@ public final class PersistenceUtils {
         return bos.createInputStream();
     }
     
+    public static String encodeProtocolVersion(ProtocolVariation pv) {
+        return pv.getCodec().getWSRMNamespace() + ' ' + pv.getCodec().getWSANamespace(); 
+    }
+
+    public static ProtocolVariation decodeProtocolVersion(String pv) {
+        if (null != pv) {
+            int d = pv.indexOf(' ');
+            if (d > 0) {
+                return ProtocolVariation.findVariant(pv.substring(0, d), pv.substring(d + 1));
+            }
+        }
+        return ProtocolVariation.RM10WSA200408;
+    }
+    
     private JAXBContext getContext() throws JAXBException {
         if (null == context) {
             context = JAXBContext.newInstance(PackageUtils
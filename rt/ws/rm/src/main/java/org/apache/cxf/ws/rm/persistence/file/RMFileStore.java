@@ -0,0 +1,1025 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm.persistence.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.ws.rm.DestinationSequence;
+import org.apache.cxf.ws.rm.RMUtils;
+import org.apache.cxf.ws.rm.SourceSequence;
+import org.apache.cxf.ws.rm.persistence.PersistenceUtils;
+import org.apache.cxf.ws.rm.persistence.RMMessage;
+import org.apache.cxf.ws.rm.persistence.RMStore;
+import org.apache.cxf.ws.rm.persistence.RMStoreException;
+import org.apache.cxf.ws.rm.v200702.Identifier;
+import org.apache.cxf.ws.rm.v200702.SequenceAcknowledgement;
+
+/**
+ * An RMStore that keeps its data in an append-only log of memory-mapped segment files.
+ * <p>
+ * Every change is appended as a checksummed record to the current segment, which is
+ * replaced by a new one when it is full. The sequences and the location of each stored
+ * message are held in memory and rebuilt by replaying the segments on {@link #init()}.
+ * The store initialises itself on first use if {@code init()} was not called; when it is
+ * defined as a Spring bean, declare {@code init-method="init"} and
+ * {@code destroy-method="destroy"} so that the segments are recovered at startup and
+ * unmapped on shutdown. A destroyed store must be initialised again before it is used.
+ * Replay of a segment stops at the first incomplete or corrupt record, so a write that
+ * was interrupted by a crash is ignored.
+ * <p>
+ * With {@link #setForceOnWrite(boolean) forceOnWrite} a change returns once it has been
+ * flushed to the disk. The flush happens outside the store lock and covers everything
+ * written before it, so threads that write concurrently share a single flush.
+ * <p>
+ * Old segments are compacted periodically: once the stored messages still referenced in
+ * the oldest segment make up less than the compaction threshold of its size, the state
+ * of all sequences and these messages are appended to the current segment and the
+ * oldest segment is unmapped and deleted.
+ */
+@NoJSR250Annotations
+public class RMFileStore implements RMStore {
+
+    public static final String DEFAULT_DIRECTORY = "rmstore";
+
+    private static final Logger LOG = LogUtils.getL7dLogger(RMFileStore.class);
+
+    private static final String SEGMENT_PREFIX = "rm-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // length, checksum, type
+    private static final int HEADER_SIZE = 9;
+
+    private static final byte DEST_SEQUENCE = 1;
+    private static final byte SRC_SEQUENCE = 2;
+    private static final byte REMOVE_DEST_SEQUENCE = 3;
+    private static final byte REMOVE_SRC_SEQUENCE = 4;
+    private static final byte INCOMING = 5;
+    private static final byte OUTGOING = 6;
+    private static final byte MESSAGE = 7;
+    private static final byte REMOVE_MESSAGES = 8;
+
+    private String directory = DEFAULT_DIRECTORY;
+    private int segmentSize = 16 * 1024 * 1024;
+    private boolean forceOnWrite = true;
+    private long compactionInterval = 60000L;
+    private double compactionThreshold = 0.5;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<Long, Segment>();
+    private Segment head;
+    private boolean destroyed;
+    private final Map<String, DestSequenceState> destSequences
+        = new LinkedHashMap<String, DestSequenceState>();
+    private final Map<String, SrcSequenceState> srcSequences = new LinkedHashMap<String, SrcSequenceState>();
+    private final Map<String, TreeMap<Long, MessageLocation>> inboundMessages
+        = new LinkedHashMap<String, TreeMap<Long, MessageLocation>>();
+    private final Map<String, TreeMap<Long, MessageLocation>> outboundMessages
+        = new LinkedHashMap<String, TreeMap<Long, MessageLocation>>();
+    private ScheduledExecutorService compactor;
+
+    // taken before the store lock by the threads that flush, unmap or delete segments
+    private final Object forceLock = new Object();
+    // segment number and position of the end of the last record written and flushed
+    private long writtenMark;
+    private long forcedMark;
+
+    /**
+     * A segment file of the log mapped into memory.
+     */
+    static final class Segment {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                // Java 9 and later
+                Class<?> cls = Class.forName("sun.misc.Unsafe");
+                invokeCleaner = cls.getMethod("invokeCleaner", ByteBuffer.class);
+                Field f = cls.getDeclaredField("theUnsafe");
+                f.setAccessible(true);
+                unsafe = f.get(null);
+            } catch (Exception ex) {
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        final long number;
+        final File file;
+        final RandomAccessFile raf;
+        final MappedByteBuffer buffer;
+        int position;
+        long liveBytes;
+        boolean closed;
+
+        Segment(long number, File file, int size) throws IOException {
+            this.number = number;
+            this.file = file;
+            this.raf = new RandomAccessFile(file, "rw");
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+
+        byte[] read(int offset, int length) throws IOException {
+            if (closed) {
+                throw new IOException("RM store segment " + file + " is closed");
+            }
+            byte[] data = new byte[length];
+            MappedByteBuffer dup = (MappedByteBuffer)buffer.duplicate();
+            dup.position(offset);
+            dup.get(data);
+            return data;
+        }
+
+        /**
+         * Flushes, unmaps and closes the segment. The buffer must not be used afterwards.
+         */
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.force();
+            unmap(buffer);
+            try {
+                raf.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+
+        /**
+         * Releases the mapping right away instead of when the buffer is garbage collected,
+         * so the file can be deleted (which fails on Windows while it is mapped). There is
+         * no public API for this, the JDK internal cleaner is used when it is accessible.
+         */
+        private static void unmap(MappedByteBuffer buffer) {
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                } else {
+                    // Java 7 and 8
+                    Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                    cleanerMethod.setAccessible(true);
+                    Object cleaner = cleanerMethod.invoke(buffer);
+                    if (cleaner != null) {
+                        cleaner.getClass().getMethod("clean").invoke(cleaner);
+                    }
+                }
+            } catch (Exception ex) {
+                LOG.log(Level.FINE, "Could not unmap RM store segment, it is released by the GC", ex);
+            }
+        }
+    }
+
+    /**
+     * The location of the message part of a record.
+     */
+    static final class MessageLocation {
+        final Segment segment;
+        final int offset;
+        final int length;
+
+        MessageLocation(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    static final class DestSequenceState {
+        String acksTo;
+        String endpointIdentifier;
+        String protocol;
+        long lastMessageNumber;
+        byte[] acknowledgement;
+    }
+
+    static final class SrcSequenceState {
+        long expiry;
+        String offeringIdentifier;
+        String endpointIdentifier;
+        String protocol;
+        long currentMessageNumber;
+        boolean lastMessage;
+    }
+
+    // configuration
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public boolean isForceOnWrite() {
+        return forceOnWrite;
+    }
+
+    /**
+     * Flush every change to the disk before returning. If false, records survive a crash
+     * of the process but not of the operating system.
+     */
+    public void setForceOnWrite(boolean forceOnWrite) {
+        this.forceOnWrite = forceOnWrite;
+    }
+
+    public long getCompactionInterval() {
+        return compactionInterval;
+    }
+
+    public void setCompactionInterval(long compactionInterval) {
+        this.compactionInterval = compactionInterval;
+    }
+
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public void setCompactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    // lifecycle
+
+    public synchronized void init() {
+        if (head != null) {
+            return;
+        }
+        destroyed = false;
+        File dir = new File(directory);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new RMStoreException(new IOException("Can not create directory " + dir));
+        }
+        try {
+            String[] names = dir.list(new FilenameFilter() {
+                public boolean accept(File d, String name) {
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                }
+            });
+            TreeMap<Long, File> files = new TreeMap<Long, File>();
+            for (String name : names) {
+                String nr = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    files.put(Long.valueOf(nr), new File(dir, name));
+                } catch (NumberFormatException ex) {
+                    LOG.log(Level.WARNING, "Ignoring unexpected file " + name);
+                }
+            }
+            for (Map.Entry<Long, File> entry : files.entrySet()) {
+                Segment segment = new Segment(entry.getKey(), entry.getValue(), 0);
+                segments.put(segment.number, segment);
+                head = segment;
+                replay(segment);
+            }
+            if (head == null) {
+                head = newSegment(0, segmentSize);
+            }
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "Recovered " + destSequences.size() + " destination and "
+                + srcSequences.size() + " source sequences from " + segments.size() + " segments");
+        }
+        if (compactionInterval > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "RMFileStore compactor");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            compactor.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        compact();
+                    } catch (RuntimeException ex) {
+                        LOG.log(Level.WARNING, "Compaction of the RM store failed", ex);
+                    }
+                }
+            }, compactionInterval, compactionInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void destroy() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+            compactor = null;
+        }
+        synchronized (forceLock) {
+            synchronized (this) {
+                for (Segment segment : segments.values()) {
+                    segment.close();
+                }
+                segments.clear();
+                if (head != null) {
+                    destroyed = true;
+                }
+                head = null;
+                writtenMark = 0;
+                forcedMark = 0;
+                destSequences.clear();
+                srcSequences.clear();
+                inboundMessages.clear();
+                outboundMessages.clear();
+            }
+        }
+    }
+
+    private void ensureInitialized() {
+        if (head == null) {
+            if (destroyed) {
+                throw new RMStoreException(new IllegalStateException(
+                    "RMFileStore in " + directory + " was destroyed and init() was not called again"));
+            }
+            init();
+        }
+    }
+
+    // RMStore interface
+
+    public void createDestinationSequence(DestinationSequence seq) {
+        DestSequenceState state = new DestSequenceState();
+        state.acksTo = seq.getAcksTo().getAddress().getValue();
+        state.endpointIdentifier = seq.getEndpointIdentifier();
+        state.protocol = PersistenceUtils.encodeProtocolVersion(seq.getProtocol());
+        String sid = seq.getIdentifier().getValue();
+        long mark;
+        synchronized (this) {
+            ensureInitialized();
+            append(DEST_SEQUENCE, encode(sid, state));
+            destSequences.put(sid, state);
+            mark = writtenMark;
+        }
+        force(mark);
+    }
+
+    public void createSourceSequence(SourceSequence seq) {
+        SrcSequenceState state = new SrcSequenceState();
+        Date expiry = seq.getExpires();
+        state.expiry = expiry == null ? 0 : expiry.getTime();
+        Identifier osid = seq.getOfferingSequenceIdentifier();
+        state.offeringIdentifier = osid == null ? null : osid.getValue();
+        state.endpointIdentifier = seq.getEndpointIdentifier();
+        state.protocol = PersistenceUtils.encodeProtocolVersion(seq.getProtocol());
+        String sid = seq.getIdentifier().getValue();
+        long mark;
+        synchronized (this) {
+            ensureInitialized();
+            append(SRC_SEQUENCE, encode(sid, state));
+            srcSequences.put(sid, state);
+            mark = writtenMark;
+        }
+        force(mark);
+    }
+
+    public synchronized DestinationSequence getDestinationSequence(Identifier sid) {
+        ensureInitialized();
+        DestSequenceState state = destSequences.get(sid.getValue());
+        return state == null ? null : toDestinationSequence(sid, state);
+    }
+
+    public synchronized SourceSequence getSourceSequence(Identifier sid) {
+        ensureInitialized();
+        SrcSequenceState state = srcSequences.get(sid.getValue());
+        return state == null ? null : toSourceSequence(sid, state);
+    }
+
+    public void removeDestinationSequence(Identifier sid) {
+        long mark = 0;
+        synchronized (this) {
+            ensureInitialized();
+            if (destSequences.containsKey(sid.getValue())) {
+                append(REMOVE_DEST_SEQUENCE, encodeIdentifier(sid.getValue()));
+                destSequences.remove(sid.getValue());
+                mark = writtenMark;
+            }
+        }
+        force(mark);
+    }
+
+    public void removeSourceSequence(Identifier sid) {
+        long mark = 0;
+        synchronized (this) {
+            ensureInitialized();
+            if (srcSequences.containsKey(sid.getValue())) {
+                append(REMOVE_SRC_SEQUENCE, encodeIdentifier(sid.getValue()));
+                srcSequences.remove(sid.getValue());
+                mark = writtenMark;
+            }
+        }
+        force(mark);
+    }
+
+    public synchronized Collection<DestinationSequence> getDestinationSequences(String endpointIdentifier) {
+        ensureInitialized();
+        Collection<DestinationSequence> seqs = new ArrayList<DestinationSequence>();
+        for (Map.Entry<String, DestSequenceState> entry : destSequences.entrySet()) {
+            if (endpointIdentifier.equals(entry.getValue().endpointIdentifier)) {
+                Identifier sid = new Identifier();
+                sid.setValue(entry.getKey());
+                seqs.add(toDestinationSequence(sid, entry.getValue()));
+            }
+        }
+        return seqs;
+    }
+
+    public synchronized Collection<SourceSequence> getSourceSequences(String endpointIdentifier) {
+        ensureInitialized();
+        Collection<SourceSequence> seqs = new ArrayList<SourceSequence>();
+        for (Map.Entry<String, SrcSequenceState> entry : srcSequences.entrySet()) {
+            if (endpointIdentifier.equals(entry.getValue().endpointIdentifier)) {
+                Identifier sid = new Identifier();
+                sid.setValue(entry.getKey());
+                seqs.add(toSourceSequence(sid, entry.getValue()));
+            }
+        }
+        return seqs;
+    }
+
+    public synchronized Collection<RMMessage> getMessages(Identifier sid, boolean outbound) {
+        ensureInitialized();
+        Collection<RMMessage> msgs = new ArrayList<RMMessage>();
+        TreeMap<Long, MessageLocation> locations = messages(outbound).get(sid.getValue());
+        if (locations != null) {
+            try {
+                for (MessageLocation location : locations.values()) {
+                    msgs.add(decodeMessage(location.segment.read(location.offset, location.length)));
+                }
+            } catch (IOException ex) {
+                throw new RMStoreException(ex);
+            }
+        }
+        return msgs;
+    }
+
+    public void persistIncoming(DestinationSequence seq, RMMessage msg) {
+        String sid = seq.getIdentifier().getValue();
+        long mark;
+        synchronized (this) {
+            ensureInitialized();
+            byte[] ack;
+            try {
+                ack = IOUtils.readBytesFromStream(PersistenceUtils.getInstance()
+                    .serialiseAcknowledgment(seq.getAcknowledgment()));
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bos);
+                out.writeUTF(sid);
+                out.writeLong(seq.getLastMessageNumber());
+                writeBytes(out, ack);
+                persist(INCOMING, bos, sid, msg, false);
+            } catch (IOException ex) {
+                throw new RMStoreException(ex);
+            }
+            DestSequenceState state = destSequences.get(sid);
+            if (state != null) {
+                state.lastMessageNumber = seq.getLastMessageNumber();
+                state.acknowledgement = ack;
+            }
+            mark = writtenMark;
+        }
+        force(mark);
+    }
+
+    public void persistOutgoing(SourceSequence seq, RMMessage msg) {
+        String sid = seq.getIdentifier().getValue();
+        long mark;
+        synchronized (this) {
+            ensureInitialized();
+            try {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bos);
+                out.writeUTF(sid);
+                out.writeLong(seq.getCurrentMessageNr());
+                out.writeBoolean(seq.isLastMessage());
+                persist(OUTGOING, bos, sid, msg, true);
+            } catch (IOException ex) {
+                throw new RMStoreException(ex);
+            }
+            SrcSequenceState state = srcSequences.get(sid);
+            if (state != null) {
+                state.currentMessageNumber = seq.getCurrentMessageNr();
+                state.lastMessage = seq.isLastMessage();
+            }
+            mark = writtenMark;
+        }
+        force(mark);
+    }
+
+    public void removeMessages(Identifier sid, Collection<Long> messageNrs, boolean outbound) {
+        long mark;
+        synchronized (this) {
+            ensureInitialized();
+            TreeMap<Long, MessageLocation> locations = messages(outbound).get(sid.getValue());
+            if (locations == null) {
+                return;
+            }
+            try {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bos);
+                out.writeUTF(sid.getValue());
+                out.writeBoolean(outbound);
+                out.writeInt(messageNrs.size());
+                for (Long nr : messageNrs) {
+                    out.writeLong(nr);
+                }
+                append(REMOVE_MESSAGES, bos.toByteArray());
+            } catch (IOException ex) {
+                throw new RMStoreException(ex);
+            }
+            removeLocations(sid.getValue(), messageNrs, outbound);
+            mark = writtenMark;
+        }
+        force(mark);
+    }
+
+    /**
+     * Drops the oldest segments whose remaining messages take less than the compaction
+     * threshold of the segment after appending the state they still hold to the log.
+     */
+    public void compact() {
+        // the segments are unmapped, which must not happen while they are flushed
+        synchronized (forceLock) {
+            synchronized (this) {
+                doCompact();
+            }
+        }
+    }
+
+    private void doCompact() {
+        if (head == null) {
+            return;
+        }
+        boolean snapshotWritten = false;
+        while (segments.size() > 1) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest.liveBytes > oldest.capacity() * compactionThreshold) {
+                break;
+            }
+            if (!snapshotWritten) {
+                writeSnapshot();
+                snapshotWritten = true;
+            }
+            copyMessages(oldest, false);
+            copyMessages(oldest, true);
+            if (segments.firstEntry().getValue() != oldest || oldest == head) {
+                break;
+            }
+            head.buffer.force();
+            forcedMark = writtenMark;
+            segments.remove(oldest.number);
+            oldest.close();
+            if (!oldest.file.delete()) {
+                LOG.log(Level.WARNING, "Could not delete RM store segment " + oldest.file);
+            }
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.log(Level.FINE, "Compacted RM store segment " + oldest.file);
+            }
+        }
+    }
+
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Flushes the log up to the given mark unless another thread already did. Everything
+     * written up to the flush is covered, so concurrent writers share a single force.
+     */
+    private void force(long mark) {
+        if (!forceOnWrite) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (forcedMark >= mark) {
+                return;
+            }
+            Segment segment;
+            long target;
+            synchronized (this) {
+                segment = head;
+                target = writtenMark;
+            }
+            if (segment != null) {
+                // older segments were flushed when the head moved on
+                segment.buffer.force();
+            }
+            forcedMark = target;
+        }
+    }
+
+    // helpers
+
+    private Map<String, TreeMap<Long, MessageLocation>> messages(boolean outbound) {
+        return outbound ? outboundMessages : inboundMessages;
+    }
+
+    private void persist(byte type, ByteArrayOutputStream bos, String sid, RMMessage msg, boolean outbound)
+        throws IOException {
+        DataOutputStream out = new DataOutputStream(bos);
+        boolean hasMessage = msg != null && msg.getContent() != null;
+        out.writeBoolean(hasMessage);
+        int messageOffset = bos.size();
+        if (hasMessage) {
+            encodeMessage(out, msg);
+        }
+        int offset = append(type, bos.toByteArray());
+        if (hasMessage) {
+            addLocation(sid, msg.getMessageNumber(), outbound,
+                        new MessageLocation(head, offset + messageOffset, bos.size() - messageOffset));
+        }
+    }
+
+    private void writeSnapshot() {
+        for (Map.Entry<String, DestSequenceState> entry : destSequences.entrySet()) {
+            append(DEST_SEQUENCE, encode(entry.getKey(), entry.getValue()));
+        }
+        for (Map.Entry<String, SrcSequenceState> entry : srcSequences.entrySet()) {
+            append(SRC_SEQUENCE, encode(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private void copyMessages(Segment segment, boolean outbound) {
+        for (Map.Entry<String, TreeMap<Long, MessageLocation>> entry : messages(outbound).entrySet()) {
+            for (Map.Entry<Long, MessageLocation> msg : entry.getValue().entrySet()) {
+                MessageLocation location = msg.getValue();
+                if (location.segment != segment) {
+                    continue;
+                }
+                try {
+                    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                    DataOutputStream out = new DataOutputStream(bos);
+                    out.writeUTF(entry.getKey());
+                    out.writeBoolean(outbound);
+                    int messageOffset = bos.size();
+                    out.write(segment.read(location.offset, location.length));
+                    int offset = append(MESSAGE, bos.toByteArray());
+                    segment.liveBytes -= location.length;
+                    MessageLocation copy = new MessageLocation(head, offset + messageOffset, location.length);
+                    head.liveBytes += copy.length;
+                    msg.setValue(copy);
+                } catch (IOException ex) {
+                    throw new RMStoreException(ex);
+                }
+            }
+        }
+    }
+
+    private void addLocation(String sid, long nr, boolean outbound, MessageLocation location) {
+        TreeMap<Long, MessageLocation> locations = messages(outbound).get(sid);
+        if (locations == null) {
+            locations = new TreeMap<Long, MessageLocation>();
+            messages(outbound).put(sid, locations);
+        }
+        MessageLocation old = locations.put(nr, location);
+        if (old != null) {
+            old.segment.liveBytes -= old.length;
+        }
+        location.segment.liveBytes += location.length;
+    }
+
+    private void removeLocations(String sid, Collection<Long> messageNrs, boolean outbound) {
+        TreeMap<Long, MessageLocation> locations = messages(outbound).get(sid);
+        if (locations == null) {
+            return;
+        }
+        for (Long nr : messageNrs) {
+            MessageLocation old = locations.remove(nr);
+            if (old != null) {
+                old.segment.liveBytes -= old.length;
+            }
+        }
+        if (locations.isEmpty()) {
+            messages(outbound).remove(sid);
+        }
+    }
+
+    /**
+     * Appends a record to the log.
+     * @return the offset of the payload in the head segment
+     */
+    private int append(byte type, byte[] payload) {
+        int size = HEADER_SIZE + payload.length;
+        try {
+            if (head.position + size > head.capacity()) {
+                head.buffer.force();
+                head = newSegment(head.number + 1, Math.max(segmentSize, size));
+            }
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        MappedByteBuffer buffer = head.buffer;
+        int start = head.position;
+        buffer.position(start + 4);
+        buffer.putInt((int)crc.getValue());
+        buffer.put(type);
+        buffer.put(payload);
+        if (start + size + 4 <= buffer.capacity()) {
+            // terminate the log in case the segment holds data from before a crash
+            buffer.putInt(start + size, 0);
+        }
+        // the length is written last so an interrupted record is never complete
+        buffer.putInt(start, payload.length);
+        head.position = start + size;
+        writtenMark = (head.number << 32) | head.position;
+        return start + HEADER_SIZE;
+    }
+
+    private Segment newSegment(long number, int size) throws IOException {
+        File file = new File(directory, SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+        Segment segment = new Segment(number, file, size);
+        segments.put(number, segment);
+        return segment;
+    }
+
+    private void replay(Segment segment) throws IOException {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            int checksum = buffer.getInt(position + 4);
+            byte type = buffer.get(position + 8);
+            byte[] payload = segment.read(position + HEADER_SIZE, length);
+            CRC32 crc = new CRC32();
+            crc.update(type);
+            crc.update(payload);
+            if ((int)crc.getValue() != checksum) {
+                LOG.log(Level.WARNING, "Ignoring incomplete record at " + position + " in " + segment.file);
+                break;
+            }
+            apply(segment, position + HEADER_SIZE, type, payload);
+            position += HEADER_SIZE + length;
+        }
+        segment.position = position;
+    }
+
+    private void apply(Segment segment, int offset, byte type, byte[] payload) throws IOException {
+        ByteArrayInputStream bis = new ByteArrayInputStream(payload);
+        DataInputStream in = new DataInputStream(bis);
+        String sid = in.readUTF();
+        switch (type) {
+        case DEST_SEQUENCE:
+            DestSequenceState dest = new DestSequenceState();
+            dest.acksTo = in.readUTF();
+            dest.endpointIdentifier = readString(in);
+            dest.protocol = in.readUTF();
+            dest.lastMessageNumber = in.readLong();
+            dest.acknowledgement = readBytes(in);
+            destSequences.put(sid, dest);
+            break;
+        case SRC_SEQUENCE:
+            SrcSequenceState src = new SrcSequenceState();
+            src.expiry = in.readLong();
+            src.offeringIdentifier = readString(in);
+            src.endpointIdentifier = readString(in);
+            src.protocol = in.readUTF();
+            src.currentMessageNumber = in.readLong();
+            src.lastMessage = in.readBoolean();
+            srcSequences.put(sid, src);
+            break;
+        case REMOVE_DEST_SEQUENCE:
+            destSequences.remove(sid);
+            break;
+        case REMOVE_SRC_SEQUENCE:
+            srcSequences.remove(sid);
+            break;
+        case INCOMING:
+            long lastMessageNumber = in.readLong();
+            byte[] ack = readBytes(in);
+            DestSequenceState incoming = destSequences.get(sid);
+            if (incoming != null) {
+                incoming.lastMessageNumber = lastMessageNumber;
+                incoming.acknowledgement = ack;
+            }
+            replayMessage(segment, offset, payload.length, bis, in, sid, false);
+            break;
+        case OUTGOING:
+            long currentMessageNumber = in.readLong();
+            boolean lastMessage = in.readBoolean();
+            SrcSequenceState outgoing = srcSequences.get(sid);
+            if (outgoing != null) {
+                outgoing.currentMessageNumber = currentMessageNumber;
+                outgoing.lastMessage = lastMessage;
+            }
+            replayMessage(segment, offset, payload.length, bis, in, sid, true);
+            break;
+        case MESSAGE:
+            boolean outbound = in.readBoolean();
+            int messageOffset = payload.length - bis.available();
+            addLocation(sid, in.readLong(), outbound,
+                        new MessageLocation(segment, offset + messageOffset, payload.length - messageOffset));
+            break;
+        case REMOVE_MESSAGES:
+            boolean out = in.readBoolean();
+            int count = in.readInt();
+            List<Long> nrs = new ArrayList<Long>(count);
+            for (int i = 0; i < count; i++) {
+                nrs.add(in.readLong());
+            }
+            removeLocations(sid, nrs, out);
+            break;
+        default:
+            LOG.log(Level.WARNING, "Ignoring record of unknown type " + type + " in " + segment.file);
+        }
+    }
+
+    private void replayMessage(Segment segment, int offset, int length, ByteArrayInputStream bis,
+                               DataInputStream in, String sid, boolean outbound) throws IOException {
+        if (in.readBoolean()) {
+            int messageOffset = length - bis.available();
+            addLocation(sid, in.readLong(), outbound,
+                        new MessageLocation(segment, offset + messageOffset, length - messageOffset));
+        }
+    }
+
+    private static byte[] encodeIdentifier(String sid) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            new DataOutputStream(bos).writeUTF(sid);
+            return bos.toByteArray();
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+    }
+
+    private static byte[] encode(String sid, DestSequenceState state) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bos);
+            out.writeUTF(sid);
+            out.writeUTF(state.acksTo);
+            writeString(out, state.endpointIdentifier);
+            out.writeUTF(state.protocol);
+            out.writeLong(state.lastMessageNumber);
+            writeBytes(out, state.acknowledgement);
+            return bos.toByteArray();
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+    }
+
+    private static byte[] encode(String sid, SrcSequenceState state) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bos);
+            out.writeUTF(sid);
+            out.writeLong(state.expiry);
+            writeString(out, state.offeringIdentifier);
+            writeString(out, state.endpointIdentifier);
+            out.writeUTF(state.protocol);
+            out.writeLong(state.currentMessageNumber);
+            out.writeBoolean(state.lastMessage);
+            return bos.toByteArray();
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+    }
+
+    private static void encodeMessage(DataOutputStream out, RMMessage msg) throws IOException {
+        out.writeLong(msg.getMessageNumber());
+        writeString(out, msg.getTo());
+        writeBytes(out, IOUtils.readBytesFromStream(msg.getContent()));
+        List<InputStream> attachments = msg.getAttachments();
+        out.writeInt(attachments.size());
+        for (InputStream attachment : attachments) {
+            writeBytes(out, IOUtils.readBytesFromStream(attachment));
+        }
+    }
+
+    private static RMMessage decodeMessage(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        RMMessage msg = new RMMessage();
+        msg.setMessageNumber(in.readLong());
+        msg.setTo(readString(in));
+        msg.setContent(new ByteArrayInputStream(readBytes(in)));
+        int count = in.readInt();
+        List<InputStream> attachments = new ArrayList<InputStream>(count);
+        for (int i = 0; i < count; i++) {
+            attachments.add(new ByteArrayInputStream(readBytes(in)));
+        }
+        msg.setAttachments(attachments);
+        return msg;
+    }
+
+    private static DestinationSequence toDestinationSequence(Identifier sid, DestSequenceState state) {
+        SequenceAcknowledgement ack = null;
+        if (state.acknowledgement != null) {
+            ack = PersistenceUtils.getInstance()
+                .deserialiseAcknowledgment(new ByteArrayInputStream(state.acknowledgement));
+        }
+        return new DestinationSequence(sid, RMUtils.createReference(state.acksTo), state.lastMessageNumber,
+                                       ack, PersistenceUtils.decodeProtocolVersion(state.protocol));
+    }
+
+    private static SourceSequence toSourceSequence(Identifier sid, SrcSequenceState state) {
+        Date expiry = 0 == state.expiry ? null : new Date(state.expiry);
+        Identifier oi = null;
+        if (null != state.offeringIdentifier) {
+            oi = RMUtils.getWSRMFactory().createIdentifier();
+            oi.setValue(state.offeringIdentifier);
+        }
+        return new SourceSequence(sid, expiry, oi, state.currentMessageNumber, state.lastMessage,
+                                  PersistenceUtils.decodeProtocolVersion(state.protocol));
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+        out.writeInt(b == null ? -1 : b.length);
+        if (b != null) {
+            out.write(b);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] b = new byte[length];
+        in.readFully(b);
+        return b;
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ws.rm.persistence.jdbc;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.ws.rm.persistence.RMStoreException;
+
+/**
+ * Collects the writes of concurrent callers and commits them in a single transaction.
+ * 
+ * The first caller that finds no flush in progress becomes the leader. A leader alone in
+ * the queue commits its write straight away; otherwise it waits up to the flush interval
+ * for more writes, or until the maximum batch size is reached, and then executes and
+ * commits the batch on behalf of all callers. Writes submitted while a batch is being
+ * committed are queued, and the first of them leads the next batch. Every caller returns
+ * only after the transaction containing its write has been committed. If the batch
+ * fails, it is rolled back and the failure is reported to all of its callers, as the
+ * message streams of the writes can not be read a second time.
+ */
+class GroupCommitter {
+
+    /**
+     * A write to be executed within the transaction of a batch.
+     */
+    interface Work {
+        void execute(Connection con) throws SQLException, IOException;
+    }
+
+    private static final Logger LOG = LogUtils.getL7dLogger(GroupCommitter.class);
+
+    private static class Entry {
+        final Work work;
+        boolean leader;
+        boolean done;
+        Exception failure;
+
+        Entry(Work work) {
+            this.work = work;
+        }
+    }
+
+    private final RMTxStore store;
+    private final long flushInterval;
+    private final int maxBatchSize;
+    private final LinkedList<Entry> queue = new LinkedList<Entry>();
+    private boolean flushing;
+    private long batchCount;
+    private long writeCount;
+
+    GroupCommitter(RMTxStore store, long flushInterval, int maxBatchSize) {
+        this.store = store;
+        this.flushInterval = flushInterval;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Executes the work and returns once it has been committed.
+     */
+    void submit(Work work) {
+        Entry entry = new Entry(work);
+        boolean interrupted = false;
+        synchronized (this) {
+            queue.add(entry);
+            if (!flushing) {
+                flushing = true;
+                entry.leader = true;
+            } else if (queue.size() >= maxBatchSize) {
+                notifyAll();
+            }
+        }
+        while (true) {
+            synchronized (this) {
+                while (!entry.done && !entry.leader) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // The write must not be given up once queued
+                        interrupted = true;
+                    }
+                }
+                if (entry.done) {
+                    break;
+                }
+            }
+            interrupted |= flush();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (entry.failure instanceof RuntimeException) {
+            throw (RuntimeException)entry.failure;
+        } else if (entry.failure != null) {
+            throw new RMStoreException(entry.failure);
+        }
+    }
+
+    synchronized long getBatchCount() {
+        return batchCount;
+    }
+
+    synchronized long getWriteCount() {
+        return writeCount;
+    }
+
+    private boolean flush() {
+        boolean interrupted = false;
+        List<Entry> batch = new ArrayList<Entry>();
+        synchronized (this) {
+            long deadline = System.currentTimeMillis() + flushInterval;
+            long remaining = flushInterval;
+            // a write on its own is not held back waiting for others
+            while (queue.size() > 1 && queue.size() < maxBatchSize && remaining > 0) {
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+            while (!queue.isEmpty() && batch.size() < maxBatchSize) {
+                batch.add(queue.removeFirst());
+            }
+        }
+        try {
+            execute(batch);
+        } catch (RuntimeException ex) {
+            for (Entry e : batch) {
+                e.failure = ex;
+            }
+        } finally {
+            synchronized (this) {
+                batchCount++;
+                writeCount += batch.size();
+                for (Entry e : batch) {
+                    e.done = true;
+                }
+                if (queue.isEmpty()) {
+                    flushing = false;
+                } else {
+                    queue.getFirst().leader = true;
+                }
+                notifyAll();
+            }
+        }
+        return interrupted;
+    }
+
+    private void execute(List<Entry> batch) {
+        Connection con = store.verifyConnection();
+        if (con == null) {
+            for (Entry e : batch) {
+                e.failure = new RMStoreException(new SQLException("No database connection available"));
+            }
+            return;
+        }
+        SQLException conex = null;
+        try {
+            store.beginTransaction();
+            for (Entry e : batch) {
+                e.work.execute(con);
+            }
+            store.commit(con);
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.log(Level.FINE, "Committed batch of {0} writes", batch.size());
+            }
+        } catch (SQLException ex) {
+            conex = ex;
+            fail(con, batch, ex);
+        } catch (IOException ex) {
+            fail(con, batch, ex);
+        } catch (RuntimeException ex) {
+            fail(con, batch, ex);
+        } finally {
+            store.updateConnectionState(con, conex);
+        }
+    }
+
+    private void fail(Connection con, List<Entry> batch, Exception ex) {
+        store.abort(con);
+        for (Entry e : batch) {
+            e.failure = ex;
+        }
+    }
+}
@@ -213,6 +213,11 @@ public class RMTxStore implements RMStore {
     private long initialReconnectDelay = 60000L;
     private int useExponentialBackOff = 2;
     private int maxReconnectAttempts = 10;
+    
+    private boolean groupCommit;
+    private long groupCommitInterval = 10L;
+    private int groupCommitMaxSize = 100;
+    private GroupCommitter groupCommitter;
 
     private long reconnectDelay;
     private int reconnectAttempts;
@@ -330,6 +335,48 @@ public class RMTxStore implements RMStore {
         this.maxReconnectAttempts = maxReconnectAttempts;
     }
 
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    /**
+     * Commit the messages and sequence updates of concurrent callers together.
+     * Each caller still returns only after its data has been committed.
+     */
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    public long getGroupCommitInterval() {
+        return groupCommitInterval;
+    }
+
+    public void setGroupCommitInterval(long groupCommitInterval) {
+        this.groupCommitInterval = groupCommitInterval;
+    }
+
+    public int getGroupCommitMaxSize() {
+        return groupCommitMaxSize;
+    }
+
+    public void setGroupCommitMaxSize(int groupCommitMaxSize) {
+        this.groupCommitMaxSize = groupCommitMaxSize;
+    }
+
+    /**
+     * @return the number of transactions committed in group commit mode
+     */
+    public long getGroupCommitCount() {
+        return groupCommitter == null ? 0 : groupCommitter.getBatchCount();
+    }
+
+    /**
+     * @return the number of writes committed in group commit mode
+     */
+    public long getGroupCommitWriteCount() {
+        return groupCommitter == null ? 0 : groupCommitter.getWriteCount();
+    }
+
     public void setConnection(Connection c) {
         connection = c;
         createdConnection = false;
@@ -656,7 +703,18 @@ public class RMTxStore implements RMStore {
         return msgs;
     }
     
-    public void persistIncoming(DestinationSequence seq, RMMessage msg) {        
+    public void persistIncoming(final DestinationSequence seq, final RMMessage msg) {        
+        if (groupCommitter != null) {
+            groupCommitter.submit(new GroupCommitter.Work() {
+                public void execute(Connection con) throws SQLException, IOException {
+                    updateDestinationSequence(con, seq);
+                    if (msg != null && msg.getContent() != null) {
+                        storeMessage(con, seq.getIdentifier(), msg, false);
+                    }
+                }
+            });
+            return;
+        }
         Connection con = verifyConnection();
         SQLException conex = null;
         try {
@@ -681,7 +739,18 @@ public class RMTxStore implements RMStore {
             updateConnectionState(con, conex);
         }
     }
-    public void persistOutgoing(SourceSequence seq, RMMessage msg) {
+    public void persistOutgoing(final SourceSequence seq, final RMMessage msg) {
+        if (groupCommitter != null) {
+            groupCommitter.submit(new GroupCommitter.Work() {
+                public void execute(Connection con) throws SQLException, IOException {
+                    updateSourceSequence(con, seq);
+                    if (msg != null && msg.getContent() != null) {
+                        storeMessage(con, seq.getIdentifier(), msg, true);
+                    }
+                }
+            });
+            return;
+        }
         Connection con = verifyConnection();
         SQLException conex = null;
         try {
@@ -707,18 +776,43 @@ public class RMTxStore implements RMStore {
         }        
     }
     
-    public void removeMessages(Identifier sid, Collection<Long> messageNrs, boolean outbound) {
+    public void removeMessages(final Identifier sid, final Collection<Long> messageNrs, 
+                               final boolean outbound) {
+        if (groupCommitter != null) {
+            groupCommitter.submit(new GroupCommitter.Work() {
+                public void execute(Connection con) throws SQLException {
+                    deleteMessages(con, sid, messageNrs, outbound);
+                }
+            });
+            return;
+        }
         Connection con = verifyConnection();
+        SQLException conex = null;
+        try {
+            beginTransaction();
+
+            deleteMessages(con, sid, messageNrs, outbound);
+            
+            commit(con);
+            
+        } catch (SQLException ex) {
+            conex = ex;
+            abort(con);
+            throw new RMStoreException(ex);
+        } finally {
+            updateConnectionState(con, conex);
+        }
+    }
+    
+    protected void deleteMessages(Connection con, Identifier sid, Collection<Long> messageNrs, 
+                                  boolean outbound) throws SQLException {
         PreparedStatement stmt1 = null;
         PreparedStatement stmt2 = null;
-        SQLException conex = null;
         try {
             stmt1 = getStatement(con, outbound ? DELETE_OUTBOUND_MESSAGE_STMT_STR : DELETE_INBOUND_MESSAGE_STMT_STR);
             stmt2 = getStatement(con, outbound
                 ? DELETE_OUTBOUND_ATTACHMENTS_STMT_STR : DELETE_INBOUND_ATTACHMENTS_STMT_STR);
 
-            beginTransaction();
-
             stmt1.setString(1, sid.getValue());
             stmt2.setString(1, sid.getValue());
                         
@@ -728,17 +822,9 @@ public class RMTxStore implements RMStore {
                 stmt1.setLong(2, messageNr);
                 stmt1.execute();
             }
-            
-            commit(con);
-            
-        } catch (SQLException ex) {
-            conex = ex;
-            abort(con);
-            throw new RMStoreException(ex);
         } finally {
             releaseResources(stmt2, null);
             releaseResources(stmt1, null);
-            updateConnectionState(con, conex);
         }
     }
     
@@ -1157,6 +1243,9 @@ public class RMTxStore implements RMStore {
             if (connection != null) {
                 cacheStatements();
             }
+            if (groupCommit && groupCommitter == null) {
+                groupCommitter = new GroupCommitter(this, groupCommitInterval, groupCommitMaxSize);
+            }
         } catch (SQLException ex) {
             LogUtils.log(LOG, Level.SEVERE, "CONNECT_EXC", ex);
             SQLException se = ex;
@@ -1296,17 +1385,11 @@ public class RMTxStore implements RMStore {
     }
     
     protected static String encodeProtocolVersion(ProtocolVariation pv) {
-        return pv.getCodec().getWSRMNamespace() + ' ' + pv.getCodec().getWSANamespace(); 
+        return PersistenceUtils.encodeProtocolVersion(pv);
     }
 
     protected static ProtocolVariation decodeProtocolVersion(String pv) {
-        if (null != pv) {
-            int d = pv.indexOf(' ');
-            if (d > 0) {
-                return ProtocolVariation.findVariant(pv.substring(0, d), pv.substring(d + 1));
-            }
-        }
-        return ProtocolVariation.RM10WSA200408;
+        return PersistenceUtils.decodeProtocolVersion(pv);
     }
     
     
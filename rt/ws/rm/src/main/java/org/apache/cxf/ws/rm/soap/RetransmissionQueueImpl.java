@@ -28,9 +28,11 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -78,6 +80,7 @@ import org.apache.cxf.ws.addressing.EndpointReferenceType;
 import org.apache.cxf.ws.addressing.soap.MAPCodec;
 import org.apache.cxf.ws.policy.AssertionInfo;
 import org.apache.cxf.ws.policy.builder.jaxb.JaxbAssertion;
+import org.apache.cxf.ws.rm.HashedWheelTimer;
 import org.apache.cxf.ws.rm.ProtocolVariation;
 import org.apache.cxf.ws.rm.RMCaptureOutInterceptor;
 import org.apache.cxf.ws.rm.RMConfiguration;
@@ -99,23 +102,35 @@ import org.apache.cxf.ws.rm.v200702.SequenceType;
 import org.apache.cxf.ws.rmp.v200502.RMAssertion;
 
 /**
- * 
+ * Keeps the unacknowledged messages of the source sequences and resends them until they are
+ * acknowledged. Resends are scheduled on the manager's resend timer. Candidates are guarded by
+ * a lock per sequence, taken from a fixed set of lock stripes, and each resend that becomes due
+ * is sent by its own executor task, so a slow destination does not hold up the others.
  */
 public class RetransmissionQueueImpl implements RetransmissionQueue {
 
     private static final Logger LOG = LogUtils.getL7dLogger(RetransmissionQueueImpl.class);
 
+    private static final int LOCK_STRIPES = 32;
+
     private Map<String, List<ResendCandidate>> candidates = 
-        new HashMap<String, List<ResendCandidate>>();
+        new ConcurrentHashMap<String, List<ResendCandidate>>();
     private Map<String, List<ResendCandidate>> suspendedCandidates = 
-        new HashMap<String, List<ResendCandidate>>();
+        new ConcurrentHashMap<String, List<ResendCandidate>>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
     private Resender resender;
     private RMManager manager;
 
-    private int unacknowledgedCount;
+    private final AtomicInteger unacknowledgedCount = new AtomicInteger();
+    private final AtomicLong resendCount = new AtomicLong();
+    private final AtomicLong totalResendLatency = new AtomicLong();
+    private final AtomicLong maxResendLatency = new AtomicLong();
     
     public RetransmissionQueueImpl(RMManager m) {
         manager = m;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
     }
 
     public RMManager getManager() {
@@ -134,13 +149,47 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
      * @param seq the sequence under consideration
      * @return the number of unacknowledged messages for that sequence
      */
-    public synchronized int countUnacknowledged(SourceSequence seq) {
-        List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
-        return sequenceCandidates == null ? 0 : sequenceCandidates.size();
+    public int countUnacknowledged(SourceSequence seq) {
+        synchronized (getLock(seq)) {
+            List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
+            return sequenceCandidates == null ? 0 : sequenceCandidates.size();
+        }
     }
 
     public int countUnacknowledged() {
-        return unacknowledgedCount;
+        return unacknowledgedCount.get();
+    }
+
+    /**
+     * @return the number of resends currently scheduled on the resend timer
+     */
+    public int countScheduledResends() {
+        HashedWheelTimer timer = null == manager ? null : manager.getResendTimer();
+        return null == timer ? 0 : timer.getPendingCount();
+    }
+
+    /**
+     * @return the number of resends attempted
+     */
+    public long getResendCount() {
+        return resendCount.get();
+    }
+
+    /**
+     * @return the average time in milliseconds between the time a resend was due and the time it
+     * was attempted
+     */
+    public long getAverageResendLatency() {
+        long count = resendCount.get();
+        return count == 0 ? 0 : totalResendLatency.get() / count;
+    }
+
+    /**
+     * @return the longest time in milliseconds between the time a resend was due and the time it
+     * was attempted
+     */
+    public long getMaxResendLatency() {
+        return maxResendLatency.get();
     }
 
     /**
@@ -174,7 +223,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         Collection<Long> purged = new ArrayList<Long>();
         Collection<ResendCandidate> resends = new ArrayList<ResendCandidate>();
         Identifier sid = seq.getIdentifier();
-        synchronized (this) {
+        synchronized (getLock(seq)) {
             LOG.fine("Start purging resend candidates.");
             List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
             if (null != sequenceCandidates) {
@@ -184,7 +233,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
                     if (any || seq.isAcknowledged(m)) {
                         sequenceCandidates.remove(i);
                         candidate.resolved();
-                        unacknowledgedCount--;
+                        unacknowledgedCount.decrementAndGet();
                         purged.add(m);
                         resends.add(candidate);
                     }
@@ -209,23 +258,27 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
 
     public List<Long> getUnacknowledgedMessageNumbers(SourceSequence seq) {
         List<Long> unacknowledged = new ArrayList<Long>();
-        List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
-        if (null != sequenceCandidates) {
-            for (int i = 0; i < sequenceCandidates.size(); i++) {
-                ResendCandidate candidate = sequenceCandidates.get(i);
-                unacknowledged.add(candidate.getNumber());
+        synchronized (getLock(seq)) {
+            List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
+            if (null != sequenceCandidates) {
+                for (int i = 0; i < sequenceCandidates.size(); i++) {
+                    ResendCandidate candidate = sequenceCandidates.get(i);
+                    unacknowledged.add(candidate.getNumber());
+                }
             }
         }
         return unacknowledged;
     }
     
     public RetryStatus getRetransmissionStatus(SourceSequence seq, long num) {
-        List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
-        if (null != sequenceCandidates) {
-            for (int i = 0; i < sequenceCandidates.size(); i++) {
-                ResendCandidate candidate = sequenceCandidates.get(i);
-                if (num == candidate.getNumber()) {
-                    return candidate;
+        synchronized (getLock(seq)) {
+            List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
+            if (null != sequenceCandidates) {
+                for (int i = 0; i < sequenceCandidates.size(); i++) {
+                    ResendCandidate candidate = sequenceCandidates.get(i);
+                    if (num == candidate.getNumber()) {
+                        return candidate;
+                    }
                 }
             }
         }
@@ -234,11 +287,13 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     
     public Map<Long, RetryStatus> getRetransmissionStatuses(SourceSequence seq) {
         Map<Long, RetryStatus> cp = new HashMap<Long, RetryStatus>();
-        List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
-        if (null != sequenceCandidates) {
-            for (int i = 0; i < sequenceCandidates.size(); i++) {
-                ResendCandidate candidate = sequenceCandidates.get(i);
-                cp.put(candidate.getNumber(), candidate);
+        synchronized (getLock(seq)) {
+            List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
+            if (null != sequenceCandidates) {
+                for (int i = 0; i < sequenceCandidates.size(); i++) {
+                    ResendCandidate candidate = sequenceCandidates.get(i);
+                    cp.put(candidate.getNumber(), candidate);
+                }
             }
         }
         return cp;
@@ -262,7 +317,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
      * Stops resending messages for the specified source sequence.
      */
     public void stop(SourceSequence seq) {
-        synchronized (this) {
+        synchronized (getLock(seq)) {
             List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
             if (null != sequenceCandidates) {
                 for (int i = sequenceCandidates.size() - 1; i >= 0; i--) {
@@ -279,7 +334,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     }
     
     public void suspend(SourceSequence seq) {
-        synchronized (this) {
+        synchronized (getLock(seq)) {
             String key = seq.getIdentifier().getValue();
             List<ResendCandidate> sequenceCandidates = candidates.remove(key);
             if (null != sequenceCandidates) {
@@ -294,7 +349,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     }
     
     public void resume(SourceSequence seq) {
-        synchronized (this) {
+        synchronized (getLock(seq)) {
             String key = seq.getIdentifier().getValue();
             List<ResendCandidate> sequenceCandidates = suspendedCandidates.remove(key);
             if (null != sequenceCandidates) {
@@ -337,7 +392,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         
         ResendCandidate candidate = null;
         
-        synchronized (this) {
+        synchronized (getLock(key)) {
             List<ResendCandidate> sequenceCandidates = getSequenceCandidates(key);
             if (null == sequenceCandidates) {
                 sequenceCandidates = new ArrayList<ResendCandidate>();
@@ -348,7 +403,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
                 candidate.suspend();
             }
             sequenceCandidates.add(candidate);
-            unacknowledgedCount++;
+            unacknowledgedCount.incrementAndGet();
         }
         LOG.fine("Cached unacknowledged message.");
         try {
@@ -368,10 +423,26 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         return candidates;
     }
 
+    /**
+     * @param seq the sequence under consideration
+     * @return the lock guarding the resend candidates of the sequence
+     */
+    protected Object getLock(SourceSequence seq) {
+        return getLock(seq.getIdentifier().getValue());
+    }
+
+    /**
+     * @param key the sequence identifier under consideration
+     * @return the lock guarding the resend candidates of the sequence
+     */
+    protected Object getLock(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
     /**
      * @param seq the sequence under consideration
      * @return the list of resend candidates for that sequence
-     * @pre called with mutex held
+     * @pre called with the lock of the sequence held
      */
     protected List<ResendCandidate> getSequenceCandidates(SourceSequence seq) {
         return getSequenceCandidates(seq.getIdentifier().getValue());
@@ -380,7 +451,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     /**
      * @param key the sequence identifier under consideration
      * @return the list of resend candidates for that sequence
-     * @pre called with mutex held
+     * @pre called with the lock of the sequence held
      */
     protected List<ResendCandidate> getSequenceCandidates(String key) {
         List<ResendCandidate> sc = candidates.get(key);
@@ -393,7 +464,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     /**
      * @param key the sequence identifier under consideration
      * @return true if the sequence is currently suspended; false otherwise
-     * @pre called with mutex held
+     * @pre called with the lock of the sequence held
      */
     protected boolean isSequenceSuspended(String key) {
         return suspendedCandidates.containsKey(key);
@@ -406,7 +477,8 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         private Message message;
         private long number;
         private Date next;
-        private TimerTask nextTask;
+        private volatile long due;
+        private HashedWheelTimer.Timeout nextTask;
         private int retries;
         private int maxRetries;
         private long nextInterval;
@@ -444,7 +516,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
             if (null != rmprops) {
                 number = rmprops.getSequence().getMessageNumber();
             }
-            if (null != manager.getTimer() && maxRetries != 0) {
+            if (null != manager.getResendTimer() && maxRetries != 0) {
                 schedule();
             }
         }
@@ -470,11 +542,19 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
             } else {
                 LOG.log(Level.FINE, "Using endpoint executor {0}", executor.getClass().getName());
             }
-            
+            submit(executor);
+        }
+
+        /**
+         * Submits the resend to the executor.  If the executor rejects it the next attempt is
+         * scheduled instead.
+         */
+        protected void submit(Executor executor) {
             try {
                 executor.execute(this);
             } catch (RejectedExecutionException ex) {
                 LOG.log(Level.SEVERE, "RESEND_INITIATION_FAILED_MSG", ex);
+                attempted();
             }
         }
 
@@ -483,6 +563,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
                 // ensure ACK wasn't received while this task was enqueued
                 // on executor
                 if (isPending()) {
+                    recordResendLatency(System.currentTimeMillis() - due);
                     resender.resend(message, includeAckRequested);
                     includeAckRequested = false;
                 }
@@ -611,32 +692,42 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         }
 
         protected final synchronized void schedule() {
-            if (null == manager.getTimer()) {
+            HashedWheelTimer timer = manager.getResendTimer();
+            if (null == timer) {
                 return;
             }
-            class ResendTask extends TimerTask {
+            class ResendTask implements Runnable {
                 ResendCandidate candidate;
 
                 ResendTask(ResendCandidate c) {
                     candidate = c;
                 }
 
-                @Override
                 public void run() {
                     if (!candidate.isPending()) {
                         candidate.initiate(includeAckRequested);
                     }
                 }
             }
-            nextTask = new ResendTask(this);
+            due = next.getTime();
             try {
-                manager.getTimer().schedule(nextTask, next);
+                nextTask = timer.schedule(new ResendTask(this), due - System.currentTimeMillis());
             } catch (IllegalStateException ex) {
                 LOG.log(Level.WARNING, "SCHEDULE_RESEND_FAILED_MSG", ex);
             }
         }
     }
 
+    private void recordResendLatency(long latency) {
+        long l = Math.max(0, latency);
+        resendCount.incrementAndGet();
+        totalResendLatency.addAndGet(l);
+        long max = maxResendLatency.get();
+        while (l > max && !maxResendLatency.compareAndSet(max, l)) {
+            max = maxResendLatency.get();
+        }
+    }
+
     /**
      * Encapsulates actual resend logic (pluggable to facilitate unit testing)
      */
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HashedWheelTimerTest extends Assert {
+
+    private HashedWheelTimer timer;
+
+    @Before
+    public void setUp() {
+        timer = new HashedWheelTimer("test-timer", 10, 8);
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void testRunsAfterDeadline() throws InterruptedException {
+        final int count = 200;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final AtomicLong early = new AtomicLong();
+        for (int i = 0; i < count; i++) {
+            // delays span several rotations of the wheel
+            final long delay = (i * 7) % 300;
+            final long due = System.currentTimeMillis() + delay;
+            timer.schedule(new Runnable() {
+                public void run() {
+                    if (System.currentTimeMillis() < due - 1) {
+                        early.incrementAndGet();
+                    }
+                    latch.countDown();
+                }
+            }, delay);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, early.get());
+        assertEquals(0, timer.getPendingCount());
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        final AtomicBoolean ran = new AtomicBoolean();
+        HashedWheelTimer.Timeout timeout = timer.schedule(new Runnable() {
+            public void run() {
+                ran.set(true);
+            }
+        }, 50);
+        assertEquals(1, timer.getPendingCount());
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, timer.getPendingCount());
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        HashedWheelTimer.Timeout other = timer.schedule(new Runnable() {
+            public void run() {
+                latch.countDown();
+            }
+        }, 100);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertTrue(other.isExpired());
+        assertFalse(other.cancel());
+    }
+
+    @Test
+    public void testScheduleAfterStop() {
+        timer.stop();
+        try {
+            timer.schedule(new Runnable() {
+                public void run() {
+                }
+            }, 10);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm.persistence.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.cxf.helpers.FileUtils;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.ws.rm.DestinationSequence;
+import org.apache.cxf.ws.rm.ProtocolVariation;
+import org.apache.cxf.ws.rm.RMUtils;
+import org.apache.cxf.ws.rm.SourceSequence;
+import org.apache.cxf.ws.rm.persistence.RMMessage;
+import org.apache.cxf.ws.rm.persistence.RMStoreException;
+import org.apache.cxf.ws.rm.v200702.Identifier;
+import org.apache.cxf.ws.rm.v200702.SequenceAcknowledgement;
+import org.easymock.EasyMock;
+import org.easymock.IMocksControl;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RMFileStoreTest extends Assert {
+    private static final String CLIENT_ENDPOINT_ID =
+        "celtix.{http://celtix.objectweb.org/greeter_control}GreeterService/GreeterPort";
+    private static final String SERVER_ENDPOINT_ID =
+        "celtix.{http://celtix.objectweb.org/greeter_control}GreeterService";
+    private static final String NON_ANON_ACKS_TO =
+        "http://localhost:9999/decoupled_endpoint";
+
+    private File dir;
+    private RMFileStore store;
+    private IMocksControl control;
+
+    @Before
+    public void setUp() {
+        dir = FileUtils.createTmpDir();
+        control = EasyMock.createNiceControl();
+        store = createStore(1024 * 1024);
+    }
+
+    @After
+    public void tearDown() {
+        store.destroy();
+        FileUtils.removeDir(dir);
+    }
+
+    @Test
+    public void testRecoverSequencesAndMessages() throws IOException {
+        Identifier dsid = identifier("dest1");
+        Identifier ssid = identifier("src1");
+        store.createDestinationSequence(destinationSequence(dsid, 0, null));
+        store.createSourceSequence(sourceSequence(ssid, 0, false));
+
+        SequenceAcknowledgement ack = acknowledgement(1, 2);
+        store.persistIncoming(destinationSequence(dsid, 2, ack), message(1, "in1"));
+        store.persistIncoming(destinationSequence(dsid, 2, ack), message(2, "in2"));
+        store.persistOutgoing(sourceSequence(ssid, 1, false), message(1, "out1"));
+        store.persistOutgoing(sourceSequence(ssid, 2, true), message(2, "out2"));
+        store.removeMessages(dsid, Collections.singletonList(1L), false);
+
+        restart(1024 * 1024);
+
+        DestinationSequence dseq = store.getDestinationSequence(dsid);
+        assertNotNull(dseq);
+        assertEquals(2, dseq.getLastMessageNumber());
+        assertEquals(NON_ANON_ACKS_TO, dseq.getAcksTo().getAddress().getValue());
+        assertEquals(ProtocolVariation.RM11WSA200508, dseq.getProtocol());
+        assertEquals(1, dseq.getAcknowledgment().getAcknowledgementRange().size());
+        assertEquals(2L, dseq.getAcknowledgment().getAcknowledgementRange().get(0).getUpper().longValue());
+        assertEquals(1, store.getDestinationSequences(SERVER_ENDPOINT_ID).size());
+
+        SourceSequence sseq = store.getSourceSequence(ssid);
+        assertNotNull(sseq);
+        assertEquals(2, sseq.getCurrentMessageNr());
+        assertTrue(sseq.isLastMessage());
+        assertEquals(1, store.getSourceSequences(CLIENT_ENDPOINT_ID).size());
+        assertEquals(0, store.getSourceSequences(SERVER_ENDPOINT_ID).size());
+
+        Collection<RMMessage> in = store.getMessages(dsid, false);
+        assertEquals(1, in.size());
+        RMMessage msg = in.iterator().next();
+        assertEquals(2, msg.getMessageNumber());
+        assertEquals("in2", IOUtils.toString(msg.getContent()));
+        assertEquals("http://localhost:9999/in2", msg.getTo());
+        assertEquals(1, msg.getAttachments().size());
+        assertEquals("att-in2", IOUtils.toString(msg.getAttachments().get(0)));
+        assertEquals(2, store.getMessages(ssid, true).size());
+
+        store.removeDestinationSequence(dsid);
+        store.removeSourceSequence(ssid);
+        restart(1024 * 1024);
+        assertNull(store.getDestinationSequence(dsid));
+        assertNull(store.getSourceSequence(ssid));
+    }
+
+    @Test
+    public void testIgnoreIncompleteRecord() throws IOException {
+        Identifier ssid = identifier("src1");
+        store.createSourceSequence(sourceSequence(ssid, 0, false));
+        store.persistOutgoing(sourceSequence(ssid, 1, false), message(1, "out1"));
+        store.destroy();
+
+        // corrupt the last byte of the last record
+        File segment = new File(dir, "rm-0.log");
+        RandomAccessFile raf = new RandomAccessFile(segment, "rw");
+        try {
+            long pos = 0;
+            long last = 0;
+            raf.seek(pos);
+            int len = raf.readInt();
+            while (len > 0) {
+                last = pos + 9 + len - 1;
+                pos += 9 + len;
+                raf.seek(pos);
+                len = raf.readInt();
+            }
+            raf.seek(last);
+            int b = raf.read();
+            raf.seek(last);
+            raf.write(b ^ 0xff);
+        } finally {
+            raf.close();
+        }
+
+        store = createStore(1024 * 1024);
+        assertNotNull(store.getSourceSequence(ssid));
+        assertEquals(0, store.getSourceSequence(ssid).getCurrentMessageNr());
+        assertEquals(0, store.getMessages(ssid, true).size());
+
+        // the store continues to append after the last valid record
+        store.persistOutgoing(sourceSequence(ssid, 2, false), message(2, "out2"));
+        restart(1024 * 1024);
+        assertEquals(2, store.getSourceSequence(ssid).getCurrentMessageNr());
+        assertEquals(1, store.getMessages(ssid, true).size());
+    }
+
+    @Test
+    public void testInitOnFirstUse() {
+        Identifier ssid = identifier("src1");
+        store.createSourceSequence(sourceSequence(ssid, 0, false));
+        store.persistOutgoing(sourceSequence(ssid, 3, false), message(3, "out3"));
+        store.destroy();
+
+        store = new RMFileStore();
+        store.setDirectory(dir.getAbsolutePath());
+        store.setCompactionInterval(0);
+        SourceSequence sseq = store.getSourceSequence(ssid);
+        assertNotNull(sseq);
+        assertEquals(3, sseq.getCurrentMessageNr());
+        assertEquals(1, store.getMessages(ssid, true).size());
+    }
+
+    @Test
+    public void testUseAfterDestroy() {
+        Identifier ssid = identifier("src1");
+        store.destroy();
+        try {
+            store.createSourceSequence(sourceSequence(ssid, 0, false));
+            fail("Expected RMStoreException");
+        } catch (RMStoreException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+            assertTrue(ex.getCause().getMessage().contains("init()"));
+        }
+        store.init();
+        store.createSourceSequence(sourceSequence(ssid, 0, false));
+        assertNotNull(store.getSourceSequence(ssid));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        restart(4096);
+        Identifier ssid = identifier("src1");
+        store.createSourceSequence(sourceSequence(ssid, 0, false));
+        char[] chars = new char[500];
+        Arrays.fill(chars, 'x');
+        String content = new String(chars);
+        for (int i = 1; i <= 40; i++) {
+            store.persistOutgoing(sourceSequence(ssid, i, false), message(i, content));
+        }
+        int segments = store.getSegmentCount();
+        assertTrue(segments > 4);
+
+        List<Long> nrs = new ArrayList<Long>();
+        for (long i = 1; i < 40; i++) {
+            nrs.add(i);
+        }
+        store.removeMessages(ssid, nrs, true);
+        store.compact();
+        assertTrue(store.getSegmentCount() < segments);
+        assertEquals(store.getSegmentCount(), dir.list().length);
+
+        restart(4096);
+        SourceSequence sseq = store.getSourceSequence(ssid);
+        assertNotNull(sseq);
+        assertEquals(40, sseq.getCurrentMessageNr());
+        Collection<RMMessage> out = store.getMessages(ssid, true);
+        assertEquals(1, out.size());
+        RMMessage msg = out.iterator().next();
+        assertEquals(40, msg.getMessageNumber());
+        assertEquals(content, IOUtils.toString(msg.getContent()));
+    }
+
+    @Test
+    public void testConcurrentForcedWrites() throws Exception {
+        store.setForceOnWrite(true);
+        final Identifier[] sids = new Identifier[4];
+        Thread[] threads = new Thread[sids.length];
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        for (int t = 0; t < sids.length; t++) {
+            sids[t] = identifier("src" + t);
+            store.createSourceSequence(sourceSequence(sids[t], 0, false));
+            // recorded up front with their own controls, the shared control is not thread safe
+            final SourceSequence[] seqs = new SourceSequence[21];
+            for (int i = 1; i < seqs.length; i++) {
+                seqs[i] = sourceSequence(sids[t], i, false, EasyMock.createNiceControl());
+            }
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 1; i < seqs.length; i++) {
+                            store.persistOutgoing(seqs[i], message(i, "content" + i));
+                        }
+                    } catch (Throwable ex) {
+                        failures.add(ex);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+
+        restart(16 * 1024);
+        for (Identifier sid : sids) {
+            assertEquals(20, store.getSourceSequence(sid).getCurrentMessageNr());
+            assertEquals(20, store.getMessages(sid, true).size());
+        }
+    }
+
+    private RMFileStore createStore(int segmentSize) {
+        RMFileStore s = new RMFileStore();
+        s.setDirectory(dir.getAbsolutePath());
+        s.setSegmentSize(segmentSize);
+        s.setForceOnWrite(false);
+        s.setCompactionInterval(0);
+        s.init();
+        return s;
+    }
+
+    private void restart(int segmentSize) {
+        store.destroy();
+        store = createStore(segmentSize);
+    }
+
+    private static Identifier identifier(String s) {
+        Identifier sid = new Identifier();
+        sid.setValue(s);
+        return sid;
+    }
+
+    private static SequenceAcknowledgement acknowledgement(long lower, long upper) {
+        SequenceAcknowledgement ack = new SequenceAcknowledgement();
+        SequenceAcknowledgement.AcknowledgementRange range =
+            new SequenceAcknowledgement.AcknowledgementRange();
+        range.setLower(lower);
+        range.setUpper(upper);
+        ack.getAcknowledgementRange().add(range);
+        return ack;
+    }
+
+    private DestinationSequence destinationSequence(Identifier sid, long lmn, SequenceAcknowledgement ack) {
+        control.reset();
+        DestinationSequence seq = control.createMock(DestinationSequence.class);
+        EasyMock.expect(seq.getIdentifier()).andReturn(sid).anyTimes();
+        EasyMock.expect(seq.getAcksTo()).andReturn(RMUtils.createReference(NON_ANON_ACKS_TO)).anyTimes();
+        EasyMock.expect(seq.getEndpointIdentifier()).andReturn(SERVER_ENDPOINT_ID).anyTimes();
+        EasyMock.expect(seq.getLastMessageNumber()).andReturn(lmn).anyTimes();
+        EasyMock.expect(seq.getAcknowledgment())
+            .andReturn(ack == null ? new SequenceAcknowledgement() : ack).anyTimes();
+        EasyMock.expect(seq.getProtocol()).andReturn(ProtocolVariation.RM11WSA200508).anyTimes();
+        control.replay();
+        return seq;
+    }
+
+    private SourceSequence sourceSequence(Identifier sid, long cmn, boolean lm) {
+        control.reset();
+        return sourceSequence(sid, cmn, lm, control);
+    }
+
+    private static SourceSequence sourceSequence(Identifier sid, long cmn, boolean lm, IMocksControl ctrl) {
+        SourceSequence seq = ctrl.createMock(SourceSequence.class);
+        EasyMock.expect(seq.getIdentifier()).andReturn(sid).anyTimes();
+        EasyMock.expect(seq.getEndpointIdentifier()).andReturn(CLIENT_ENDPOINT_ID).anyTimes();
+        EasyMock.expect(seq.getCurrentMessageNr()).andReturn(cmn).anyTimes();
+        EasyMock.expect(seq.isLastMessage()).andReturn(lm).anyTimes();
+        EasyMock.expect(seq.getProtocol()).andReturn(ProtocolVariation.RM10WSA200408).anyTimes();
+        ctrl.replay();
+        return seq;
+    }
+
+    private static RMMessage message(long nr, String content) {
+        RMMessage msg = new RMMessage();
+        msg.setMessageNumber(nr);
+        msg.setTo("http://localhost:9999/" + content);
+        msg.setContent(new ByteArrayInputStream(content.getBytes()));
+        List<InputStream> attachments = new ArrayList<InputStream>();
+        attachments.add(new ByteArrayInputStream(("att-" + content).getBytes()));
+        msg.setAttachments(attachments);
+        return msg;
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm.persistence.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.cxf.ws.rm.v200702.Identifier;
+import org.apache.derby.jdbc.EmbeddedConnectionPoolDataSource;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Runs the store tests with group commit enabled on a pooled data source
+ */
+public class RMTxStoreGroupCommitTest extends RMTxStoreTestBase {
+    @BeforeClass 
+    public static void setUpOnce() {
+        RMTxStoreTestBase.setUpOnce();
+        
+        RMTxStore.deleteDatabaseFiles("rmdbgc", true);
+
+        EmbeddedConnectionPoolDataSource ds = new EmbeddedConnectionPoolDataSource();
+        ds.setDatabaseName("rmdbgc");
+        ds.setCreateDatabase("create");
+        
+        store = new RMTxStore();
+        store.setDataSource(ds);
+        store.setKeepConnection(false);
+        store.setGroupCommit(true);
+        store.setGroupCommitInterval(50);
+        store.init();
+    }
+    
+    @AfterClass
+    public static void tearDownOnce() {
+        RMTxStore.deleteDatabaseFiles("rmdbgc", false);
+    }
+
+    @Test
+    public void testConcurrentWritesShareCommit() throws Exception {
+        final int threads = 10;
+        long batches = store.getGroupCommitCount();
+        long writes = store.getGroupCommitWriteCount();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            final Identifier sid = new Identifier();
+            sid.setValue("groupcommit" + i);
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        store.removeMessages(sid, Collections.singletonList(1L), true);
+                    } catch (InterruptedException e) {
+                        // ignore
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+        
+        assertEquals(writes + threads, store.getGroupCommitWriteCount());
+        assertTrue(store.getGroupCommitCount() - batches < threads);
+    }
+
+    @Test
+    public void testSingleWriteIsNotDelayed() throws Exception {
+        GroupCommitter committer = new GroupCommitter(store, 60000L, 100);
+        final AtomicBoolean executed = new AtomicBoolean();
+        long start = System.currentTimeMillis();
+        committer.submit(new GroupCommitter.Work() {
+            public void execute(Connection con) {
+                executed.set(true);
+            }
+        });
+        assertTrue(executed.get());
+        assertTrue(System.currentTimeMillis() - start < 30000L);
+        assertEquals(1, committer.getBatchCount());
+        assertEquals(1, committer.getWriteCount());
+    }
+
+    @Override
+    protected Connection getConnection() {
+        return store.verifyConnection();
+    }
+
+    @Override
+    protected void releaseConnection(Connection con) {
+        if (con != null) {
+            try {
+                con.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.message.Message;
@@ -40,6 +41,7 @@ import org.apache.cxf.ws.rm.manager.SourcePolicyType;
 import org.apache.cxf.ws.rm.persistence.RMStore;
 import org.apache.cxf.ws.rm.v200702.Identifier;
 import org.apache.cxf.ws.rm.v200702.SequenceType;
+import org.apache.cxf.workqueue.SynchronousExecutor;
 import org.easymock.EasyMock;
 import org.easymock.IMocksControl;
 
@@ -137,6 +139,39 @@ public class RetransmissionQueueImplTest extends Assert {
         assertTrue(!candidate.isPending());
     }
 
+    @Test
+    public void testResendCandidateSubmitted() {
+        SoapMessage message = createMock(SoapMessage.class);
+        setupMessagePolicies(message);
+        ready(false);
+        RetransmissionQueueImpl.ResendCandidate candidate1 = queue.createResendCandidate(message);
+        RetransmissionQueueImpl.ResendCandidate candidate2 = queue.createResendCandidate(message);
+
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        Executor collecting = new Executor() {
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+        // every resend is a task of its own, not queued behind others for the destination
+        candidate1.submit(collecting);
+        candidate2.submit(collecting);
+        assertEquals(2, tasks.size());
+        assertSame(candidate1, tasks.get(0));
+        assertSame(candidate2, tasks.get(1));
+
+        candidate1.submit(SynchronousExecutor.getInstance());
+        assertEquals(1, candidate1.getRetries());
+
+        Executor rejecting = new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        };
+        candidate1.submit(rejecting);
+        assertEquals(2, candidate1.getRetries());
+    }
+
     @Test
     public void testResendCandidateMaxRetries() {
         SoapMessage message = createMock(SoapMessage.class);